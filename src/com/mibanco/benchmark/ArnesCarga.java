@@ -0,0 +1,503 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.benchmark.GeneradorCarga.Solicitud;
+import com.mibanco.benchmark.GeneradorCarga.TipoSolicitud;
+import com.mibanco.eventos.Eventos;
+import com.mibanco.eventos.SumideroNulo;
+import com.mibanco.metricas.HistogramaLatencia;
+import com.mibanco.model.CertificadoDeposito;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.CuentaCorriente;
+import com.mibanco.model.Dinero;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.model.Tasa;
+import com.mibanco.servicios.RegistroClientes;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Prueba de rendimiento de extremo a extremo: dirige en el mismo proceso la carga de {@link GeneradorCarga} contra
+ * un {@link RegistroClientes} con un portafolio de clientes (cuenta de ahorros, cuenta corriente con sobregiro y
+ * tarjeta de crédito cada uno), con los eventos pasando por el sumidero de invalidación del registro.
+ * <p>
+ * Hace una corrida de calentamiento que se descarta y luego varias corridas medidas. De cada una informa el
+ * rendimiento sostenido, los percentiles de latencia en total y por tipo de solicitud, las recolecciones de basura y
+ * los bytes reservados por solicitud. Con {@code tasa} positiva la latencia se mide desde el instante en que la
+ * solicitud debía llegar según el calendario, no desde que el hilo pudo enviarla, así que incluye la espera en cola
+ * si el sistema no da abasto (sin omisión coordinada).
+ * <p>
+ * Los resultados se escriben en JSON con claves en orden fijo, junto con los parámetros, el entorno y la huella de
+ * la carga generada. Con {@code base=archivo.json} se comparan con un reporte anterior y se advierte si los
+ * parámetros o la carga no eran los mismos.
+ * <p>
+ * Uso: {@code ArnesCarga [clave=valor ...]}. Claves del arnés: {@code hilos} (procesadores), {@code segundos} (10),
+ * {@code calentamiento} (5), {@code corridas} (3), {@code reporte} (carga.json) y {@code base}; el resto son las de
+ * {@link GeneradorCarga}.
+ */
+public class ArnesCarga {
+
+    private static final TipoSolicitud[] TIPOS = TipoSolicitud.values();
+    private static final int SOLICITUDES_HUELLA = 10_000;
+    private static final long ESPERA_ACTIVA_NANOS = 50_000;
+    private static final Pattern PARAMETROS = Pattern.compile("\"parametros\": (\\{[^}]*\\})");
+    private static final Pattern HUELLA = Pattern.compile("\"huella\": \"([0-9a-f]+)\"");
+    private static final Pattern OPS_MEDIANA = Pattern.compile("\"opsPorSegundoMediana\": ([0-9.]+)");
+    private static final Pattern P99_MEDIANA = Pattern.compile("\"p99NanosMediana\": ([0-9]+)");
+    private static final com.sun.management.ThreadMXBean HILOS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Punto de entrada del arnés.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> parametros = new HashMap<>();
+        for (String argumento : args) {
+            int igual = argumento.indexOf('=');
+            if (igual <= 0) {
+                throw new IllegalArgumentException("Parámetro inválido, se espera clave=valor: " + argumento);
+            }
+            parametros.put(argumento.substring(0, igual), argumento.substring(igual + 1));
+        }
+        int hilos = Integer.parseInt(tomar(parametros, "hilos",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int segundos = Integer.parseInt(tomar(parametros, "segundos", "10"));
+        int calentamiento = Integer.parseInt(tomar(parametros, "calentamiento", "5"));
+        int corridas = Integer.parseInt(tomar(parametros, "corridas", "3"));
+        Path reporte = Paths.get(tomar(parametros, "reporte", "carga.json"));
+        String base = parametros.remove("base");
+        GeneradorCarga generador = new GeneradorCarga(parametros);
+        if (!parametros.isEmpty()) {
+            throw new IllegalArgumentException("Parámetros desconocidos: " + parametros.keySet());
+        }
+        if (hilos <= 0 || segundos <= 0 || calentamiento < 0 || corridas <= 0) {
+            throw new IllegalArgumentException("hilos, segundos y corridas deben ser positivos y calentamiento no "
+                    + "negativo.");
+        }
+
+        long inicio = System.nanoTime();
+        Sistema sistema = new Sistema(generador);
+        Eventos.setSumidero(sistema.registro.sumideroInvalidacion(SumideroNulo.INSTANCIA));
+        System.out.printf(Locale.ROOT, "portafolio: %,d clientes, %,d productos en %,.1f s; hilos=%d %s%n",
+                sistema.registro.cantidadClientes(), sistema.registro.cantidadProductos(),
+                (System.nanoTime() - inicio) / 1e9, hilos, generador.esCalendarizado()
+                        ? "tasa=" + generador.parametros().get("tasa") + " ops/s" : "sin calendario");
+
+        if (calentamiento > 0) {
+            Resultado descartado = ejecutar(sistema, generador, 0, hilos, calentamiento);
+            System.out.printf(Locale.ROOT, "calentamiento: %,.0f ops/s%n", descartado.opsPorSegundo());
+        }
+        List<Resultado> resultados = new ArrayList<>();
+        for (int corrida = 1; corrida <= corridas; corrida++) {
+            Resultado resultado = ejecutar(sistema, generador, corrida, hilos, segundos);
+            resultados.add(resultado);
+            System.out.println(resultado.resumen());
+        }
+
+        Map<String, String> efectivos = new LinkedHashMap<>();
+        efectivos.put("hilos", String.valueOf(hilos));
+        efectivos.put("segundos", String.valueOf(segundos));
+        efectivos.put("calentamiento", String.valueOf(calentamiento));
+        efectivos.put("corridas", String.valueOf(corridas));
+        efectivos.putAll(generador.parametros());
+        String huella = generador.huella(1, hilos, SOLICITUDES_HUELLA);
+        String json = reporte(efectivos, huella, resultados);
+        Files.write(reporte, json.getBytes(StandardCharsets.UTF_8));
+        System.out.println("Resultados escritos en " + reporte.toAbsolutePath());
+        if (base != null) {
+            comparar(json, new String(Files.readAllBytes(Paths.get(base)), StandardCharsets.UTF_8), base);
+        }
+    }
+
+    /**
+     * Ejecuta una corrida: cada hilo toma solicitudes de su flujo y las aplica hasta que vence el tiempo.
+     */
+    private static Resultado ejecutar(Sistema sistema, GeneradorCarga generador, int corrida, int hilos, int segundos)
+            throws InterruptedException {
+        Resultado resultado = new Resultado(corrida);
+        Trabajador[] trabajadores = new Trabajador[hilos];
+        Thread[] hilosCarga = new Thread[hilos];
+        CountDownLatch listos = new CountDownLatch(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        for (int h = 0; h < hilos; h++) {
+            trabajadores[h] = new Trabajador(sistema, generador.flujo(corrida, h, hilos), corrida, h, resultado,
+                    listos, salida);
+            hilosCarga[h] = new Thread(trabajadores[h], "arnes-carga-" + h);
+            hilosCarga[h].start();
+        }
+        listos.await();
+        long[] gcInicio = recolecciones();
+        long comienzo = System.nanoTime();
+        resultado.finNanos = comienzo + segundos * 1_000_000_000L;
+        resultado.comienzoNanos = comienzo;
+        salida.countDown();
+        for (Thread hilo : hilosCarga) {
+            hilo.join();
+        }
+        resultado.nanos = System.nanoTime() - comienzo;
+        long[] gcFin = recolecciones();
+        resultado.colecciones = gcFin[0] - gcInicio[0];
+        resultado.milisGc = gcFin[1] - gcInicio[1];
+        for (Trabajador trabajador : trabajadores) {
+            for (int t = 0; t < TIPOS.length; t++) {
+                resultado.aceptadas[t] += trabajador.aceptadas[t];
+                resultado.rechazadas[t] += trabajador.rechazadas[t];
+            }
+            resultado.bytes += trabajador.bytes;
+        }
+        resultado.heapUsado = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        resultado.total = resultado.histogramaTotal.instantanea();
+        return resultado;
+    }
+
+    private static long[] recolecciones() {
+        long colecciones = 0;
+        long milis = 0;
+        for (GarbageCollectorMXBean recolector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            colecciones += Math.max(recolector.getCollectionCount(), 0);
+            milis += Math.max(recolector.getCollectionTime(), 0);
+        }
+        return new long[]{colecciones, milis};
+    }
+
+    private static String tomar(Map<String, String> parametros, String clave, String porDefecto) {
+        String valor = parametros.remove(clave);
+        return valor == null ? porDefecto : valor;
+    }
+
+    private static String reporte(Map<String, String> parametros, String huella, List<Resultado> resultados) {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"arnes\": \"ArnesCarga\",\n");
+        json.append("  \"fecha\": \"").append(Instant.now()).append("\",\n");
+        json.append("  \"jvm\": \"").append(System.getProperty("java.vm.name")).append(' ')
+                .append(System.getProperty("java.version")).append("\",\n");
+        json.append("  \"procesadores\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        json.append("  \"heapMaximo\": ").append(Runtime.getRuntime().maxMemory()).append(",\n");
+        json.append("  \"parametros\": {");
+        int i = 0;
+        for (Map.Entry<String, String> entrada : parametros.entrySet()) {
+            json.append(i++ > 0 ? ", " : "").append('"').append(entrada.getKey()).append("\": \"")
+                    .append(entrada.getValue()).append('"');
+        }
+        json.append("},\n");
+        json.append("  \"huella\": \"").append(huella).append("\",\n");
+        json.append("  \"corridas\": [\n");
+        for (int r = 0; r < resultados.size(); r++) {
+            json.append(resultados.get(r).json()).append(r < resultados.size() - 1 ? ",\n" : "\n");
+        }
+        json.append("  ],\n");
+        double[] ops = new double[resultados.size()];
+        long[] p99 = new long[resultados.size()];
+        long p999 = 0;
+        for (int r = 0; r < resultados.size(); r++) {
+            ops[r] = resultados.get(r).opsPorSegundo();
+            p99[r] = resultados.get(r).total.getPercentilNanos(0.99);
+            p999 = Math.max(p999, resultados.get(r).total.getPercentilNanos(0.999));
+        }
+        Arrays.sort(ops);
+        Arrays.sort(p99);
+        json.append(String.format(Locale.ROOT, "  \"resumen\": {\"opsPorSegundoMediana\": %.1f, "
+                        + "\"p99NanosMediana\": %d, \"p999NanosMaximo\": %d}%n}%n",
+                ops[ops.length / 2], p99[p99.length / 2], p999));
+        return json.toString();
+    }
+
+    /**
+     * Compara el resumen con el de un reporte anterior, solo si ambos usaron los mismos parámetros y la misma carga.
+     */
+    private static void comparar(String actual, String anterior, String nombre) {
+        String parametrosActuales = buscar(PARAMETROS, actual);
+        String parametrosAnteriores = buscar(PARAMETROS, anterior);
+        if (parametrosAnteriores == null || !parametrosAnteriores.equals(parametrosActuales)) {
+            System.out.println("ADVERTENCIA: " + nombre + " usó otros parámetros: " + parametrosAnteriores);
+        } else if (!buscar(HUELLA, actual).equals(buscar(HUELLA, anterior))) {
+            System.out.println("ADVERTENCIA: " + nombre + " generó otra carga con los mismos parámetros.");
+        }
+        String ops = buscar(OPS_MEDIANA, anterior);
+        String p99 = buscar(P99_MEDIANA, anterior);
+        if (ops == null || p99 == null) {
+            System.out.println("ADVERTENCIA: " + nombre + " no tiene resumen.");
+            return;
+        }
+        double opsActual = Double.parseDouble(buscar(OPS_MEDIANA, actual));
+        long p99Actual = Long.parseLong(buscar(P99_MEDIANA, actual));
+        System.out.printf(Locale.ROOT, "vs %s: ops/s %,.0f -> %,.0f (%+.1f%%), p99 %,d -> %,d ns (%+.1f%%)%n",
+                nombre, Double.parseDouble(ops), opsActual, 100 * (opsActual / Double.parseDouble(ops) - 1),
+                Long.parseLong(p99), p99Actual, 100 * ((double) p99Actual / Long.parseLong(p99) - 1));
+    }
+
+    private static String buscar(Pattern patron, String texto) {
+        Matcher coincidencia = patron.matcher(texto);
+        return coincidencia.find() ? coincidencia.group(1) : null;
+    }
+
+    /**
+     * Portafolio contra el que se aplica la carga. Los clientes se crean en orden a partir de la semilla, así que el
+     * estado inicial es el mismo en cada ejecución.
+     */
+    private static final class Sistema {
+
+        final RegistroClientes registro = new RegistroClientes();
+        final Cliente[] clientes;
+        final CuentaAhorro[] ahorros;
+        final CuentaCorriente[] corrientes;
+        final TarjetaCredito[] tarjetas;
+        final Tasa tasaAhorro = Tasa.dePorcentaje(1);
+        final Tasa tasaCertificado = Tasa.dePorcentaje(9);
+
+        Sistema(GeneradorCarga generador) {
+            int cantidad = generador.getClientes();
+            clientes = new Cliente[cantidad];
+            ahorros = new CuentaAhorro[cantidad];
+            corrientes = new CuentaCorriente[cantidad];
+            tarjetas = new TarjetaCredito[cantidad];
+            SplittableRandom aleatorio = new SplittableRandom(generador.getSemilla());
+            Tasa tasaCorriente = Tasa.dePorcentaje(0.5);
+            Tasa tasaTarjeta = Tasa.dePorcentaje(2.5);
+            Dinero sobregiro = Dinero.deCentavos(500_000);
+            Dinero cupo = Dinero.deCentavos(5_000_000);
+            for (int i = 0; i < cantidad; i++) {
+                clientes[i] = new Cliente("W" + i, "Cliente Carga " + i, "w" + i + "@carga.mibanco.com",
+                        String.valueOf(3_100_000_000L + i), "Calle " + i);
+                ahorros[i] = new CuentaAhorro("CA-" + i, Dinero.deCentavos(aleatorio.nextLong(10_000_000)),
+                        clientes[i], tasaAhorro);
+                corrientes[i] = new CuentaCorriente("CC-" + i, Dinero.deCentavos(aleatorio.nextLong(2_000_000)),
+                        clientes[i], tasaCorriente, sobregiro);
+                tarjetas[i] = new TarjetaCredito("TC-" + i, Dinero.deCentavos(0), clientes[i], cupo, tasaTarjeta);
+                registro.registrarCliente(clientes[i]);
+                registro.registrarProducto(ahorros[i]);
+                registro.registrarProducto(corrientes[i]);
+                registro.registrarProducto(tarjetas[i]);
+            }
+        }
+    }
+
+    /**
+     * Hilo de carga: lleva sus propios conteos y los bytes que reserva, y registra latencias en los histogramas
+     * compartidos de la corrida.
+     */
+    private static final class Trabajador implements Runnable {
+
+        private final Sistema sistema;
+        private final GeneradorCarga.Flujo flujo;
+        private final int corrida;
+        private final int hilo;
+        private final Resultado resultado;
+        private final CountDownLatch listos;
+        private final CountDownLatch salida;
+        final long[] aceptadas = new long[TIPOS.length];
+        final long[] rechazadas = new long[TIPOS.length];
+        long bytes;
+        private int creados;
+
+        Trabajador(Sistema sistema, GeneradorCarga.Flujo flujo, int corrida, int hilo, Resultado resultado,
+                   CountDownLatch listos, CountDownLatch salida) {
+            this.sistema = sistema;
+            this.flujo = flujo;
+            this.corrida = corrida;
+            this.hilo = hilo;
+            this.resultado = resultado;
+            this.listos = listos;
+            this.salida = salida;
+        }
+
+        @Override
+        public void run() {
+            Solicitud solicitud = new Solicitud();
+            listos.countDown();
+            try {
+                salida.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long bytesInicio = HILOS.getCurrentThreadAllocatedBytes();
+            long fin = resultado.finNanos;
+            long programado = resultado.comienzoNanos;
+            while (true) {
+                flujo.siguiente(solicitud);
+                long inicio;
+                if (solicitud.esperaNanos > 0) {
+                    programado += solicitud.esperaNanos;
+                    if (programado >= fin) {
+                        break;
+                    }
+                    esperarHasta(programado);
+                    inicio = programado;
+                } else {
+                    inicio = System.nanoTime();
+                    if (inicio >= fin) {
+                        break;
+                    }
+                }
+                int tipo = solicitud.tipo.ordinal();
+                if (aplicar(solicitud)) {
+                    aceptadas[tipo]++;
+                } else {
+                    rechazadas[tipo]++;
+                }
+                long latencia = System.nanoTime() - inicio;
+                resultado.porTipo[tipo].registrar(latencia);
+                resultado.histogramaTotal.registrar(latencia);
+            }
+            bytes = HILOS.getCurrentThreadAllocatedBytes() - bytesInicio;
+        }
+
+        /**
+         * @return false si la solicitud se rechazó por fondos, cupo o riesgo.
+         */
+        private boolean aplicar(Solicitud solicitud) {
+            int i = solicitud.indice;
+            long monto = solicitud.montoCentavos;
+            try {
+                switch (solicitud.tipo) {
+                    case CREAR_CLIENTE:
+                        crearCliente(monto);
+                        return true;
+                    case DEPOSITO:
+                        // Los depósitos se reparten entre ahorros y corriente para que los sobregiros se repongan.
+                        if ((monto & 1) == 0) {
+                            sistema.ahorros[i].depositarCentavos(monto);
+                        } else {
+                            sistema.corrientes[i].depositarCentavos(monto);
+                        }
+                        return true;
+                    case RETIRO:
+                        return sistema.ahorros[i].retirarCentavos(monto);
+                    case RETIRO_CORRIENTE:
+                        return sistema.corrientes[i].retirarCentavos(monto);
+                    case COMPRA:
+                        return sistema.tarjetas[i].cargarCentavos(monto);
+                    case PAGO:
+                        TarjetaCredito tarjeta = sistema.tarjetas[i];
+                        long utilizado = tarjeta.getSaldoUtilizadoCentavos();
+                        if (utilizado <= 0) {
+                            return false;
+                        }
+                        tarjeta.realizarPago(Dinero.deCentavos(Math.min(monto, utilizado)));
+                        return true;
+                    default:
+                        if (!sistema.ahorros[i].retirarCentavos(monto)) {
+                            return false;
+                        }
+                        sistema.registro.registrarProducto(new CertificadoDeposito(
+                                "CD-" + corrida + "-" + hilo + "-" + creados++, Dinero.deCentavos(monto),
+                                sistema.clientes[i], 12, sistema.tasaCertificado));
+                        return true;
+                }
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                // Pago mayor que el saldo utilizado por una carrera con otro hilo, o rechazo del control de riesgo.
+                return false;
+            }
+        }
+
+        private void crearCliente(long monto) {
+            int numero = creados++;
+            String documento = "N" + corrida + "-" + hilo + "-" + numero;
+            Cliente cliente = new Cliente(documento, "Cliente Nuevo " + numero, documento + "@carga.mibanco.com",
+                    String.valueOf(4_000_000_000L + ((corrida * 1_000L + hilo) << 24) + numero), "Carrera " + numero);
+            sistema.registro.registrarCliente(cliente);
+            sistema.registro.registrarProducto(new CuentaAhorro("CAN-" + documento, Dinero.deCentavos(monto), cliente,
+                    sistema.tasaAhorro));
+        }
+
+        private static void esperarHasta(long instante) {
+            long restante;
+            while ((restante = instante - System.nanoTime()) > 0) {
+                if (restante > ESPERA_ACTIVA_NANOS) {
+                    LockSupport.parkNanos(restante - ESPERA_ACTIVA_NANOS);
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+    }
+
+    /**
+     * Mediciones de una corrida.
+     */
+    private static final class Resultado {
+
+        final int corrida;
+        final HistogramaLatencia histogramaTotal = new HistogramaLatencia();
+        final HistogramaLatencia[] porTipo = new HistogramaLatencia[TIPOS.length];
+        final long[] aceptadas = new long[TIPOS.length];
+        final long[] rechazadas = new long[TIPOS.length];
+        volatile long comienzoNanos;
+        volatile long finNanos;
+        long nanos;
+        long colecciones;
+        long milisGc;
+        long bytes;
+        long heapUsado;
+        HistogramaLatencia.Instantanea total;
+
+        Resultado(int corrida) {
+            this.corrida = corrida;
+            for (int t = 0; t < TIPOS.length; t++) {
+                porTipo[t] = new HistogramaLatencia();
+            }
+        }
+
+        long operaciones() {
+            return Arrays.stream(aceptadas).sum() + Arrays.stream(rechazadas).sum();
+        }
+
+        double opsPorSegundo() {
+            return operaciones() * 1e9 / nanos;
+        }
+
+        String resumen() {
+            long operaciones = operaciones();
+            return String.format(Locale.ROOT, "corrida %d: %,.0f ops/s (%,d, %,d rechazadas)  p50=%,d p90=%,d "
+                            + "p99=%,d p99.9=%,d max=%,d ns  gc: %d colecciones, %,d ms  %,.0f bytes/op",
+                    corrida, opsPorSegundo(), operaciones, Arrays.stream(rechazadas).sum(),
+                    total.getPercentilNanos(0.5), total.getPercentilNanos(0.9), total.getPercentilNanos(0.99),
+                    total.getPercentilNanos(0.999), total.getMaximoNanos(), colecciones, milisGc,
+                    operaciones == 0 ? 0.0 : (double) bytes / operaciones);
+        }
+
+        String json() {
+            long operaciones = operaciones();
+            StringBuilder json = new StringBuilder(String.format(Locale.ROOT,
+                    "    {\"corrida\": %d, \"segundos\": %.3f, \"operaciones\": %d, \"opsPorSegundo\": %.1f, "
+                            + "\"rechazadas\": %d, \"latenciaNanos\": %s, \"gc\": {\"colecciones\": %d, "
+                            + "\"milis\": %d}, \"bytesPorOperacion\": %.1f, \"heapUsado\": %d, \"porTipo\": {",
+                    corrida, nanos / 1e9, operaciones, opsPorSegundo(), Arrays.stream(rechazadas).sum(),
+                    percentiles(total), colecciones, milisGc, operaciones == 0 ? 0.0 : (double) bytes / operaciones,
+                    heapUsado));
+            for (int t = 0; t < TIPOS.length; t++) {
+                json.append(String.format(Locale.ROOT, "%s\"%s\": {\"operaciones\": %d, \"rechazadas\": %d, "
+                                + "\"latenciaNanos\": %s}", t > 0 ? ", " : "", TIPOS[t],
+                        aceptadas[t] + rechazadas[t], rechazadas[t], percentiles(porTipo[t].instantanea())));
+            }
+            return json.append("}}").toString();
+        }
+
+        private static String percentiles(HistogramaLatencia.Instantanea instantanea) {
+            return String.format(Locale.ROOT, "{\"p50\": %d, \"p90\": %d, \"p99\": %d, \"p999\": %d, \"max\": %d}",
+                    instantanea.getPercentilNanos(0.5), instantanea.getPercentilNanos(0.9),
+                    instantanea.getPercentilNanos(0.99), instantanea.getPercentilNanos(0.999),
+                    instantanea.getMaximoNanos());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.mibanco.benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Arnés mínimo de microbenchmarks en el estilo de JMH: iteraciones de calentamiento y de medición por tiempo,
+ * ejecución con uno o varios hilos sobre el mismo estado, y resultados en JSON para comparar corridas.
+ * Cada operación devuelve un valor que se acumula para que el compilador no pueda eliminar el trabajo.
+ * Además del rendimiento reporta los bytes reservados por operación, medidos por hilo con
+ * {@link com.sun.management.ThreadMXBean}, equivalentes a la métrica {@code gc.alloc.rate.norm} de JMH.
+ */
+final class ArnesMicrobenchmark {
+
+    /**
+     * Operación medida. El valor devuelto se consume para evitar la eliminación de código muerto.
+     */
+    @FunctionalInterface
+    interface Operacion {
+        long ejecutar();
+    }
+
+    private static final class Caso {
+        final String nombre;
+        final int hilos;
+        final Operacion operacion;
+
+        Caso(String nombre, int hilos, Operacion operacion) {
+            this.nombre = nombre;
+            this.hilos = hilos;
+            this.operacion = operacion;
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean HILOS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final List<Caso> casos = new ArrayList<>();
+    private final int iteracionesCalentamiento;
+    private final int iteracionesMedicion;
+    private final long milisPorIteracion;
+    private volatile boolean detener;
+    private volatile long sumidero;
+
+    ArnesMicrobenchmark(int iteracionesCalentamiento, int iteracionesMedicion, long milisPorIteracion) {
+        this.iteracionesCalentamiento = iteracionesCalentamiento;
+        this.iteracionesMedicion = iteracionesMedicion;
+        this.milisPorIteracion = milisPorIteracion;
+    }
+
+    /**
+     * Registra un caso de medición.
+     *
+     * @param nombre Nombre único del caso.
+     * @param hilos Número de hilos que ejecutan la operación a la vez sobre el mismo estado.
+     * @param operacion Operación a medir.
+     */
+    void agregar(String nombre, int hilos, Operacion operacion) {
+        casos.add(new Caso(nombre, hilos, operacion));
+    }
+
+    /**
+     * Ejecuta todos los casos, imprime un resumen legible y, si se indica, escribe los resultados en JSON.
+     *
+     * @param salida Flujo para el resumen legible.
+     * @param archivoJson Archivo de resultados, o null para no escribirlo.
+     */
+    void ejecutar(PrintStream salida, Path archivoJson) throws InterruptedException, IOException {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int c = 0; c < casos.size(); c++) {
+            Caso caso = casos.get(c);
+            for (int i = 0; i < iteracionesCalentamiento; i++) {
+                medirIteracion(caso);
+            }
+            double[] opsPorSegundo = new double[iteracionesMedicion];
+            double bytesPorOperacion = 0;
+            for (int i = 0; i < iteracionesMedicion; i++) {
+                double[] medicion = medirIteracion(caso);
+                opsPorSegundo[i] = medicion[0];
+                bytesPorOperacion += medicion[1] / iteracionesMedicion;
+            }
+            double media = 0;
+            for (double valor : opsPorSegundo) {
+                media += valor;
+            }
+            media /= opsPorSegundo.length;
+            double varianza = 0;
+            for (double valor : opsPorSegundo) {
+                varianza += (valor - media) * (valor - media);
+            }
+            double desviacion = opsPorSegundo.length > 1 ? Math.sqrt(varianza / (opsPorSegundo.length - 1)) : 0;
+
+            salida.printf(Locale.ROOT, "%-45s hilos=%-3d %,15.0f ops/s +- %,.0f  %,.1f bytes/op%n",
+                    caso.nombre, caso.hilos, media, desviacion, bytesPorOperacion);
+            json.append(String.format(Locale.ROOT,
+                    "  {\"benchmark\": \"%s\", \"threads\": %d, \"mode\": \"thrpt\", \"unit\": \"ops/s\", "
+                            + "\"score\": %.3f, \"scoreError\": %.3f, \"iterations\": %d, "
+                            + "\"secondaryMetrics\": {\"gc.alloc.rate.norm\": %.3f}}%s%n",
+                    caso.nombre, caso.hilos, media, desviacion, iteracionesMedicion, bytesPorOperacion,
+                    c < casos.size() - 1 ? "," : ""));
+        }
+        json.append("]\n");
+        if (archivoJson != null) {
+            Files.write(archivoJson, json.toString().getBytes(StandardCharsets.UTF_8));
+            salida.println("Resultados escritos en " + archivoJson.toAbsolutePath());
+        }
+    }
+
+    /**
+     * @return Operaciones por segundo y bytes reservados por operación en la iteración.
+     */
+    private double[] medirIteracion(Caso caso) throws InterruptedException {
+        long[] operaciones = new long[caso.hilos];
+        long[] bytes = new long[caso.hilos];
+        CountDownLatch listos = new CountDownLatch(caso.hilos);
+        CountDownLatch inicio = new CountDownLatch(1);
+        CountDownLatch fin = new CountDownLatch(caso.hilos);
+        detener = false;
+        for (int h = 0; h < caso.hilos; h++) {
+            final int indice = h;
+            Thread hilo = new Thread(() -> {
+                long acumulado = 0;
+                long cuenta = 0;
+                long bytesInicio = 0;
+                try {
+                    listos.countDown();
+                    inicio.await();
+                    bytesInicio = HILOS.getCurrentThreadAllocatedBytes();
+                    while (!detener) {
+                        acumulado ^= caso.operacion.ejecutar();
+                        cuenta++;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    bytes[indice] = HILOS.getCurrentThreadAllocatedBytes() - bytesInicio;
+                    operaciones[indice] = cuenta;
+                    sumidero ^= acumulado;
+                    fin.countDown();
+                }
+            });
+            hilo.start();
+        }
+        listos.await();
+        long comienzo = System.nanoTime();
+        inicio.countDown();
+        Thread.sleep(milisPorIteracion);
+        detener = true;
+        fin.await();
+        long nanos = System.nanoTime() - comienzo;
+        long total = 0;
+        long totalBytes = 0;
+        for (int h = 0; h < caso.hilos; h++) {
+            total += operaciones[h];
+            totalBytes += bytes[h];
+        }
+        return new double[]{total * 1e9 / nanos, total == 0 ? 0 : (double) totalBytes / total};
+    }
+}
@@ -0,0 +1,91 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.eventos.Eventos;
+import com.mibanco.eventos.SumideroNulo;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.persistencia.DiarioTransacciones;
+import com.mibanco.persistencia.GestorInstantaneas;
+import com.mibanco.persistencia.LibroRecuperado;
+import com.mibanco.persistencia.SumideroDiario;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mide el tiempo de arranque a partir de una instantánea más el tramo posterior del diario.
+ * La instantánea se toma mientras otro hilo sigue registrando depósitos, y al final se verifica que el libro
+ * recuperado coincida con los saldos vivos.
+ * <p>
+ * Uso: {@code BenchmarkArranque [cuentas] [directorio]}. Por defecto usa 1.000.000 de cuentas; para 10 millones
+ * conviene un heap de al menos 8 GB.
+ */
+public class BenchmarkArranque {
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int cuentas = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path base = args.length > 1 ? Paths.get(args[1]) : Files.createTempDirectory("arranque-benchmark");
+        Path directorioDiario = base.resolve("diario");
+        Path directorioInstantaneas = base.resolve("instantaneas");
+
+        List<ProductoFinanciero> libro = BenchmarkInteresMensual.crearPortafolio(
+                new Cliente("7000", "Benchmark Arranque", "arranque@mibanco.com", "3000000000", "Calle 8"),
+                cuentas);
+        try (DiarioTransacciones diario = new DiarioTransacciones(directorioDiario);
+             GestorInstantaneas gestor = new GestorInstantaneas(diario, directorioInstantaneas, () -> libro)) {
+            SumideroDiario sumidero = new SumideroDiario(diario);
+            for (ProductoFinanciero producto : libro) {
+                sumidero.registrarApertura(producto);
+            }
+            Eventos.setSumidero(sumidero);
+            depositar(libro, cuentas);
+
+            AtomicBoolean activo = new AtomicBoolean(true);
+            Thread transacciones = new Thread(() -> {
+                while (activo.get()) {
+                    depositar(libro, 1_000);
+                }
+            });
+            transacciones.start();
+            long inicio = System.nanoTime();
+            Path instantanea = gestor.tomarInstantanea();
+            long nanosInstantanea = System.nanoTime() - inicio;
+            activo.set(false);
+            transacciones.join();
+            depositar(libro, cuentas / 10);
+            Eventos.setSumidero(SumideroNulo.INSTANCIA);
+
+            System.out.printf("instantanea: %d cuentas, %.1f MB, %d ms (sin detener transacciones)%n",
+                    cuentas, Files.size(instantanea) / 1e6, nanosInstantanea / 1_000_000);
+        }
+
+        long inicio = System.nanoTime();
+        LibroRecuperado recuperado = GestorInstantaneas.recuperar(directorioInstantaneas, directorioDiario);
+        long nanosArranque = System.nanoTime() - inicio;
+
+        Map<String, ProductoFinanciero> productos = recuperado.getProductos();
+        boolean correcto = productos.size() == libro.size();
+        for (ProductoFinanciero vivo : libro) {
+            ProductoFinanciero restaurado = productos.get(vivo.getNumeroCuenta());
+            correcto &= restaurado != null && restaurado.getSaldoCentavos() == vivo.getSaldoCentavos();
+        }
+        System.out.printf("arranque: %d cuentas en %d ms (%.0f cuentas/s), libro correcto=%b%n",
+                productos.size(), nanosArranque / 1_000_000, productos.size() * 1e9 / nanosArranque, correcto);
+    }
+
+    private static void depositar(List<ProductoFinanciero> libro, int operaciones) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        for (int i = 0; i < operaciones; i++) {
+            libro.get(aleatorio.nextInt(libro.size())).depositar(1);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.Cliente;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.servicios.MotorAutorizaciones;
+import com.mibanco.servicios.ResultadoAutorizacion;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la latencia de {@link MotorAutorizaciones} con al menos 16 hilos sobre un conjunto pequeño de tarjetas,
+ * de modo que hay contención y una tasa alta de rechazos por cupo. Mezcla compras, preautorizaciones con captura
+ * o liberación, y pagos que reponen cupo. Al final verifica que ninguna tarjeta haya superado su límite y compara
+ * el costo de rechazar con excepción ({@code realizarCompra}) frente a hacerlo con un resultado.
+ * <p>
+ * Uso: {@code BenchmarkAutorizaciones [hilos] [operacionesPorHilo] [tarjetas]}.
+ */
+public class BenchmarkAutorizaciones {
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int hilos = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(16, Runtime.getRuntime().availableProcessors());
+        int operaciones = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int cantidadTarjetas = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        UtilidadesBenchmark.desactivarEventos();
+
+        Cliente cliente = new Cliente("9100", "Benchmark Autorizaciones", "autorizaciones@mibanco.com", "3000000000", "Calle 12");
+        TarjetaCredito[] tarjetas = new TarjetaCredito[cantidadTarjetas];
+        for (int i = 0; i < cantidadTarjetas; i++) {
+            tarjetas[i] = new TarjetaCredito("TC-AUT-" + i, 0, cliente, 5_000, 2);
+        }
+        MotorAutorizaciones motor = new MotorAutorizaciones(50, TimeUnit.MILLISECONDS);
+        motor.iniciar(10, TimeUnit.MILLISECONDS);
+
+        long[][] latencias = new long[hilos][operaciones];
+        long[] rechazos = new long[hilos];
+        int[] siguienteHilo = {0};
+        long nanos = UtilidadesBenchmark.ejecutar(hilos, () -> {
+            int h;
+            synchronized (siguienteHilo) {
+                h = siguienteHilo[0]++;
+            }
+            long[] propias = latencias[h];
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            for (int i = 0; i < operaciones; i++) {
+                TarjetaCredito tarjeta = tarjetas[aleatorio.nextInt(cantidadTarjetas)];
+                int tipo = aleatorio.nextInt(10);
+                double monto = 1 + aleatorio.nextInt(100);
+                long inicio = System.nanoTime();
+                ResultadoAutorizacion resultado;
+                if (tipo < 7) {
+                    resultado = motor.autorizarCompra(tarjeta, monto);
+                } else {
+                    resultado = motor.preautorizar(tarjeta, monto);
+                    if (resultado.isAprobada()) {
+                        if (tipo < 9) {
+                            motor.capturar(resultado.getIdRetencion(), monto / 2);
+                        } else if (aleatorio.nextBoolean()) {
+                            motor.liberar(resultado.getIdRetencion());
+                        }
+                    }
+                }
+                propias[i] = System.nanoTime() - inicio;
+                if (!resultado.isAprobada()) {
+                    rechazos[h]++;
+                    if (aleatorio.nextInt(4) == 0) {
+                        pagarParcialmente(tarjeta);
+                    }
+                }
+            }
+        });
+        motor.close();
+        // Las retenciones que quedaron sin capturar ni liberar vencen y devuelven el cupo.
+        Thread.sleep(100);
+        motor.expirarRetenciones();
+
+        long[] todas = new long[hilos * operaciones];
+        for (int h = 0; h < hilos; h++) {
+            System.arraycopy(latencias[h], 0, todas, h * operaciones, operaciones);
+        }
+        Arrays.sort(todas);
+        long totalRechazos = Arrays.stream(rechazos).sum();
+        System.out.printf("autorizaciones: %d hilos, %d tarjetas, %,.0f ops/s, rechazos=%.1f%%%n",
+                hilos, cantidadTarjetas, todas.length * 1e9 / nanos, totalRechazos * 100.0 / todas.length);
+        System.out.printf("latencia (ns): p50=%d p99=%d p999=%d max=%d%n",
+                percentil(todas, 0.50), percentil(todas, 0.99), percentil(todas, 0.999), todas[todas.length - 1]);
+
+        boolean dentroDelLimite = true;
+        long retenido = 0;
+        for (TarjetaCredito tarjeta : tarjetas) {
+            dentroDelLimite &= tarjeta.getDisponibleCentavos() >= 0;
+            retenido += tarjeta.getRetenidoCentavos();
+        }
+        System.out.printf("ninguna tarjeta supera su limite=%b, retenciones pendientes=%d, retenido=%d centavos%n",
+                dentroDelLimite, motor.cantidadRetenciones(), retenido);
+
+        compararRechazos(cliente);
+    }
+
+    private static void pagarParcialmente(TarjetaCredito tarjeta) {
+        long utilizado = tarjeta.getSaldoUtilizadoCentavos();
+        if (utilizado > 1) {
+            try {
+                tarjeta.realizarPago(TarjetaCredito.aMonto(utilizado / 2));
+            } catch (IllegalArgumentException e) {
+                // Otro hilo pagó antes; el cupo ya se repuso.
+            }
+        }
+    }
+
+    private static void compararRechazos(Cliente cliente) {
+        TarjetaCredito llena = new TarjetaCredito("TC-LLENA", 0, cliente, 100, 2);
+        llena.realizarCompra(100);
+        MotorAutorizaciones motor = new MotorAutorizaciones(1, TimeUnit.SECONDS);
+        int intentos = 2_000_000;
+        for (int ronda = 0; ronda < 2; ronda++) {
+            long inicio = System.nanoTime();
+            long rechazadas = 0;
+            for (int i = 0; i < intentos; i++) {
+                try {
+                    llena.realizarCompra(1);
+                } catch (IllegalStateException e) {
+                    rechazadas++;
+                }
+            }
+            long nanosExcepcion = System.nanoTime() - inicio;
+            inicio = System.nanoTime();
+            for (int i = 0; i < intentos; i++) {
+                if (!motor.autorizarCompra(llena, 1).isAprobada()) {
+                    rechazadas++;
+                }
+            }
+            long nanosResultado = System.nanoTime() - inicio;
+            if (ronda == 1) {
+                System.out.printf("rechazo con excepcion: %.1f ns; con resultado: %.1f ns (%d rechazos)%n",
+                        (double) nanosExcepcion / intentos, (double) nanosResultado / intentos, rechazadas);
+            }
+        }
+    }
+
+    private static long percentil(long[] ordenadas, double fraccion) {
+        return ordenadas[Math.min(ordenadas.length - 1, (int) (ordenadas.length * fraccion))];
+    }
+}
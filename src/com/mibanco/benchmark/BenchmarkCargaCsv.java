@@ -0,0 +1,95 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.TipoProducto;
+import com.mibanco.servicios.CargadorMasivoCsv;
+import com.mibanco.servicios.ResultadoCarga;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mide el rendimiento de {@link CargadorMasivoCsv} sobre un archivo generado, en filas por segundo, junto con
+ * el pico de heap usado durante la carga. Una de cada cien filas es inválida para ejercitar el reporte de errores.
+ * Los productos creados se descartan, de modo que el pico de heap refleja solo el consumo del cargador.
+ * <p>
+ * Uso: {@code BenchmarkCargaCsv [filas] [archivo]}. Por defecto genera 5.000.000 de filas en un archivo temporal.
+ */
+public class BenchmarkCargaCsv {
+
+    private static final TipoProducto[] TIPOS = TipoProducto.values();
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int filas = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        Path archivo = args.length > 1 ? Paths.get(args[1]) : Files.createTempFile("carga-benchmark", ".csv");
+        generar(archivo, filas);
+        System.out.printf("archivo: %d filas, %.1f MB%n", filas, Files.size(archivo) / 1e6);
+
+        LongAdder productos = new LongAdder();
+        LongAdder errores = new LongAdder();
+        AtomicLong picoHeap = new AtomicLong();
+        AtomicBoolean midiendo = new AtomicBoolean(true);
+        Runtime runtime = Runtime.getRuntime();
+        Thread muestreo = new Thread(() -> {
+            while (midiendo.get()) {
+                picoHeap.accumulateAndGet(runtime.totalMemory() - runtime.freeMemory(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        muestreo.setDaemon(true);
+        muestreo.start();
+
+        ResultadoCarga resultado = new CargadorMasivoCsv().cargar(archivo,
+                producto -> productos.increment(), error -> errores.increment());
+        midiendo.set(false);
+        muestreo.join();
+
+        System.out.println(resultado);
+        System.out.printf("rendimiento: %.0f filas/s, pico de heap %.1f MB, errores reportados=%d%n",
+                resultado.getFilasLeidas() * 1e9 / resultado.getDuracionNanos(), picoHeap.get() / 1e6, errores.sum());
+        if (args.length <= 1) {
+            Files.delete(archivo);
+        }
+    }
+
+    private static void generar(Path archivo, int filas) throws IOException {
+        try (BufferedWriter escritor = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            escritor.write("documento,nombre,correo,celular,direccion,tipo,numeroCuenta,saldo,tasaInteres,limite,plazoMeses");
+            escritor.newLine();
+            for (int i = 0; i < filas; i++) {
+                // Cada cliente tiene dos productos consecutivos.
+                int cliente = i >> 1;
+                String correo = i % 100 == 99 ? "sin-arroba" : "cliente" + cliente + "@mibanco.com";
+                escritor.write(String.valueOf(10_000_000 + cliente));
+                escritor.write(",\"Cliente ");
+                escritor.write(String.valueOf(cliente));
+                escritor.write("\",");
+                escritor.write(correo);
+                escritor.write(',');
+                escritor.write(String.valueOf(3_000_000_000L + cliente));
+                escritor.write(",\"Calle ");
+                escritor.write(String.valueOf(cliente));
+                escritor.write(", Bogotá\",");
+                escritor.write(TIPOS[i & 3].name());
+                escritor.write(",CTA-");
+                escritor.write(String.valueOf(i));
+                escritor.write(TIPOS[i & 3] == TipoProducto.TARJETA_CREDITO ? ",0" : ",100.50");
+                escritor.write(",3,500,12");
+                escritor.newLine();
+            }
+        }
+    }
+}
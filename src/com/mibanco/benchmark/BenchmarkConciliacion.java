@@ -0,0 +1,174 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.eventos.Eventos;
+import com.mibanco.eventos.TipoEvento;
+import com.mibanco.model.CertificadoDeposito;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.CuentaCorriente;
+import com.mibanco.model.Dinero;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.model.Tasa;
+import com.mibanco.servicios.ConciliadorCierre;
+import com.mibanco.servicios.MotorInteresMensual;
+import com.mibanco.servicios.ResultadoConciliacion;
+import com.mibanco.servicios.SumideroConciliacion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mide {@link ConciliadorCierre} sobre un portafolio de varios productos por cliente y verifica su resultado:
+ * <ul>
+ *     <li>la corrida secuencial y la paralela dan exactamente los mismos agregados;</li>
+ *     <li>conciliar mientras varios hilos operan no informa diferencias, solo transitorias que se resuelven al
+ *     volver a leer;</li>
+ *     <li>terminado el tráfico y liquidado el interés mensual en lote, el libro coincide con los movimientos, y
+ *     los cambios de saldo que no publican evento se informan.</li>
+ * </ul>
+ * Uso: {@code BenchmarkConciliacion [productos] [hilos]}. Por defecto 1.000.000 productos y 4 hilos.
+ */
+public class BenchmarkConciliacion {
+
+    private static final int PRODUCTOS_POR_CLIENTE = 5;
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int productos = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int hilos = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        UtilidadesBenchmark.desactivarEventos();
+        List<ProductoFinanciero> portafolio = crearPortafolio(productos);
+        SumideroConciliacion movimientos = new SumideroConciliacion();
+        movimientos.registrarAperturas(portafolio);
+        Eventos.setSumidero(movimientos);
+        ConciliadorCierre conciliador = new ConciliadorCierre();
+        System.out.printf("nucleos=%d productos=%,d%n", Runtime.getRuntime().availableProcessors(), productos);
+
+        ResultadoConciliacion secuencial = null;
+        ResultadoConciliacion paralelo = null;
+        for (int ronda = 0; ronda < 3; ronda++) {
+            // Las primeras rondas calientan el compilador; se informa la última.
+            secuencial = conciliador.conciliarSecuencial(portafolio, movimientos);
+            paralelo = conciliador.conciliar(portafolio, movimientos);
+        }
+        System.out.printf("secuencial %,.1f ms  paralelo %,.1f ms  mismos totales: %b  clientes=%,d%n",
+                secuencial.getDuracionNanos() / 1e6, paralelo.getDuracionNanos() / 1e6,
+                secuencial.mismosTotales(paralelo), paralelo.getClientes().size());
+
+        AtomicBoolean detener = new AtomicBoolean();
+        long[] operaciones = new long[hilos];
+        Thread[] trafico = new Thread[hilos];
+        for (int h = 0; h < hilos; h++) {
+            int hilo = h;
+            trafico[h] = new Thread(() -> {
+                ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                while (!detener.get()) {
+                    operar(portafolio.get(aleatorio.nextInt(portafolio.size())), aleatorio);
+                    operaciones[hilo]++;
+                }
+            });
+            trafico[h].start();
+        }
+        long diferenciasConTrafico = 0;
+        long transitorias = 0;
+        long duracion = 0;
+        int corridas = 5;
+        for (int i = 0; i < corridas; i++) {
+            ResultadoConciliacion resultado = conciliador.conciliar(portafolio, movimientos);
+            diferenciasConTrafico += resultado.getDiferencias().size();
+            transitorias += resultado.getDiferenciasTransitorias();
+            duracion += resultado.getDuracionNanos();
+        }
+        detener.set(true);
+        long total = 0;
+        for (int h = 0; h < hilos; h++) {
+            trafico[h].join();
+            total += operaciones[h];
+        }
+        System.out.printf("con trafico (%d hilos, %,d operaciones): %d corridas de %,.1f ms  transitorias=%,d diferencias=%,d%n",
+                hilos, total, corridas, duracion / 1e6 / corridas, transitorias, diferenciasConTrafico);
+
+        new MotorInteresMensual().ejecutar(portafolio);
+        ResultadoConciliacion cierre = conciliador.conciliar(portafolio, movimientos);
+        System.out.printf("cierre: conciliado=%b  saldo libro=%s esperado=%s  utilizado libro=%s esperado=%s%n",
+                cierre.estaConciliado(), Dinero.deCentavos(cierre.getSaldoTotalCentavos()),
+                Dinero.deCentavos(cierre.getSaldoEsperadoCentavos()), Dinero.deCentavos(cierre.getUtilizadoTotalCentavos()),
+                Dinero.deCentavos(cierre.getUtilizadoEsperadoCentavos()));
+        StringBuilder dia = new StringBuilder("movimientos del dia:");
+        for (TipoEvento tipo : TipoEvento.values()) {
+            dia.append(String.format(" %s %,d (%s)", tipo, movimientos.getConteo(tipo),
+                    Dinero.deCentavos(movimientos.getMontoCentavos(tipo))));
+        }
+        System.out.println(dia);
+
+        // Cambios que no publican evento: restauraciones de saldo fuera de un arranque.
+        portafolio.get(7).restaurarSaldoCentavos(portafolio.get(7).getSaldoCentavos() + 1);
+        portafolio.get(70_000 % productos).restaurarSaldoCentavos(0);
+        portafolio.get(3).restaurarSaldoCentavos(portafolio.get(3).getSaldoCentavos() + 12_345);
+        ResultadoConciliacion alterado = conciliador.conciliar(portafolio, movimientos);
+        System.out.printf("tras 3 cambios sin evento: %d diferencias%n", alterado.getDiferencias().size());
+        for (ResultadoConciliacion.Diferencia diferencia : alterado.getDiferencias()) {
+            System.out.println("  " + diferencia);
+        }
+    }
+
+    private static void operar(ProductoFinanciero producto, ThreadLocalRandom aleatorio) {
+        long monto = 1 + aleatorio.nextInt(10_000);
+        try {
+            if (producto instanceof TarjetaCredito) {
+                TarjetaCredito tarjeta = (TarjetaCredito) producto;
+                if (aleatorio.nextBoolean()) {
+                    tarjeta.cargarCentavos(monto);
+                } else {
+                    tarjeta.realizarPago(Dinero.deCentavos(Math.min(monto, tarjeta.getSaldoUtilizadoCentavos() / 2 + 1)));
+                }
+            } else if (aleatorio.nextBoolean() || producto instanceof CertificadoDeposito) {
+                producto.depositarCentavos(monto);
+            } else {
+                producto.retirarCentavos(monto);
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // Fondos o cupo insuficientes por una carrera con otro hilo: el rechazo no mueve el saldo.
+        }
+    }
+
+    private static List<ProductoFinanciero> crearPortafolio(int productos) {
+        Random aleatorio = new Random(23);
+        List<ProductoFinanciero> portafolio = new ArrayList<>(productos);
+        Cliente cliente = null;
+        for (int i = 0; i < productos; i++) {
+            if (i % PRODUCTOS_POR_CLIENTE == 0) {
+                cliente = new Cliente(String.valueOf(30_000_000 + i / PRODUCTOS_POR_CLIENTE), "Benchmark Conciliacion",
+                        "conciliacion" + i + "@mibanco.com", "3000000000", "Calle 23");
+            }
+            String numero = "CNC-" + i;
+            Dinero saldo = Dinero.deCentavos(aleatorio.nextInt(100_000_000));
+            switch (i % PRODUCTOS_POR_CLIENTE) {
+                case 0:
+                case 4:
+                    portafolio.add(new CuentaAhorro(numero, saldo, cliente, Tasa.dePorcentaje(1)));
+                    break;
+                case 1:
+                    portafolio.add(new CuentaCorriente(numero, saldo, cliente, Tasa.dePorcentaje(0.5),
+                            Dinero.deCentavos(100_000)));
+                    break;
+                case 2:
+                    portafolio.add(new CertificadoDeposito(numero, saldo, cliente, 12, Tasa.dePorcentaje(9)));
+                    break;
+                default:
+                    TarjetaCredito tarjeta = new TarjetaCredito(numero, Dinero.deCentavos(0), cliente,
+                            Dinero.deCentavos(100_000_000), Tasa.dePorcentaje(2.5));
+                    tarjeta.cargarCentavos(1 + aleatorio.nextInt(50_000_000));
+                    portafolio.add(tarjeta);
+                    break;
+            }
+        }
+        return portafolio;
+    }
+}
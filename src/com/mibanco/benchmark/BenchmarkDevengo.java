@@ -0,0 +1,206 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.CertificadoDeposito;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.DevengoInteres;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.servicios.LiquidadorInteres;
+import com.mibanco.servicios.MotorInteresMensual;
+import com.mibanco.servicios.ResumenInteres;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el cierre mensual de {@link MotorInteresMensual} con el devengo continuo de {@link DevengoInteres} y la
+ * liquidación de inactivos de {@link LiquidadorInteres}, con un reloj simulado:
+ * <ul>
+ *     <li>que un depósito a mitad de mes devengue solo por los días que estuvo, y que con saldos constantes el
+ *     devengo liquide lo mismo que el cierre mensual;</li>
+ *     <li>la pausa del cierre mensual sobre todo el portafolio frente a la pausa más larga de los lotes del
+ *     liquidador, con una fracción de productos activos que se liquidan solos en su primer movimiento del mes;</li>
+ *     <li>el costo del devengo en cada depósito.</li>
+ * </ul>
+ * Uso: {@code BenchmarkDevengo [productos] [porcentaje activos]}. Por defecto 1.000.000 productos y 10% activos.
+ */
+public class BenchmarkDevengo {
+
+    private static final long MARZO = ZonedDateTime.of(2026, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+    private static final long ABRIL = ZonedDateTime.of(2026, 4, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+    private static final long DIA = 86_400_000L;
+    private static final int LOTE = 1_000;
+    private static final long PRESUPUESTO_MICROS = 1_000;
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) {
+        int productos = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int porcentajeActivos = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        UtilidadesBenchmark.desactivarEventos();
+        Cliente cliente = new Cliente("9300", "Benchmark Devengo", "devengo@mibanco.com", "3000000000", "Calle 22");
+        long[] ahora = {MARZO};
+
+        DevengoInteres.activar(() -> ahora[0], ZoneOffset.UTC);
+        verificarDevengo(cliente, ahora);
+        DevengoInteres.desactivar();
+
+        ResumenInteres cierre = null;
+        for (int ronda = 0; ronda < 2; ronda++) {
+            // La primera ronda calienta el compilador; se informa la segunda.
+            cierre = new MotorInteresMensual().ejecutarSecuencial(BenchmarkInteresMensual.crearPortafolio(cliente, productos));
+        }
+        System.out.printf("cierre mensual: %,d productos en una pausa de %,.1f ms  interes=%,d centavos%n",
+                cierre.getCantidadTotal(), cierre.getDuracionNanos() / 1e6, cierre.getInteresTotalCentavos());
+
+        DevengoInteres.activar(() -> ahora[0], ZoneOffset.UTC);
+        for (int ronda = 0; ronda < 2; ronda++) {
+            String resultado = medirDevengo(cliente, productos, porcentajeActivos, ahora, cierre.getInteresTotalCentavos());
+            if (ronda == 1) {
+                System.out.println(resultado);
+            }
+        }
+
+        medirDepositos(cliente, 2_000_000);
+        System.out.println(medirDepositos(cliente, 10_000_000));
+        DevengoInteres.desactivar();
+    }
+
+    private static void verificarDevengo(Cliente cliente, long[] ahora) {
+        ahora[0] = MARZO;
+        CuentaAhorro cuenta = new CuentaAhorro("DVG-1", 10_000, cliente, 1);
+        cuenta.devengarInteres();
+        ahora[0] = MARZO + 15 * DIA;
+        cuenta.depositar(5_000);
+        ahora[0] = ABRIL - 1;
+        long devengado = cuenta.getInteresDevengadoCentavos();
+        ahora[0] = ABRIL;
+        long liquidado = cuenta.devengarInteres();
+        // 10.000 durante 15 de los 31 días de marzo y 15.000 durante 16, al 1% mensual.
+        long esperado = Math.round((1_000_000L * 15 + 1_500_000L * 16) / 31.0 / 100);
+        System.out.printf("deposito a mitad de marzo: devengado=%,d liquidado=%,d esperado=%,d  (cierre sobre el saldo final: %,d)%n",
+                devengado, liquidado, esperado, 1_500_000L / 100);
+
+        ahora[0] = MARZO;
+        ProductoFinanciero[] constantes = {
+                new CuentaAhorro("DVG-2", 12_345.67, cliente, 1.25),
+                new CertificadoDeposito("DVG-3", 50_000.01, cliente, 12, 9.5),
+                new TarjetaCredito("DVG-4", 0, cliente, 100_000, 2.75),
+        };
+        ((TarjetaCredito) constantes[2]).cargarCentavos(432_109);
+        long[] porCierre = new long[constantes.length];
+        for (int i = 0; i < constantes.length; i++) {
+            constantes[i].devengarInteres();
+        }
+        DevengoInteres.desactivar();
+        for (int i = 0; i < constantes.length; i++) {
+            porCierre[i] = copiar(constantes[i], cliente).aplicarInteresMensual();
+        }
+        DevengoInteres.activar(() -> ahora[0], ZoneOffset.UTC);
+        ahora[0] = ABRIL + 1;
+        StringBuilder linea = new StringBuilder("saldos constantes, devengo vs cierre:");
+        for (int i = 0; i < constantes.length; i++) {
+            linea.append(String.format(" %s %,d/%,d", constantes[i].getTipo(), constantes[i].devengarInteres(), porCierre[i]));
+        }
+        System.out.println(linea);
+    }
+
+    private static ProductoFinanciero copiar(ProductoFinanciero producto, Cliente cliente) {
+        if (producto instanceof CuentaAhorro) {
+            return new CuentaAhorro("C", producto.getSaldoDinero(), cliente, ((CuentaAhorro) producto).getTasa());
+        }
+        if (producto instanceof CertificadoDeposito) {
+            CertificadoDeposito certificado = (CertificadoDeposito) producto;
+            return new CertificadoDeposito("C", certificado.getSaldoDinero(), cliente, certificado.getPlazoMeses(),
+                    certificado.getTasa());
+        }
+        TarjetaCredito tarjeta = (TarjetaCredito) producto;
+        TarjetaCredito copia = new TarjetaCredito("C", tarjeta.getSaldoDinero(), cliente, tarjeta.getLimiteCreditoDinero(),
+                tarjeta.getTasa());
+        if (tarjeta.getSaldoUtilizadoCentavos() > 0) {
+            copia.cargarCentavos(tarjeta.getSaldoUtilizadoCentavos());
+        }
+        return copia;
+    }
+
+    /**
+     * Devenga un mes sin movimientos sobre el mismo portafolio que el cierre mensual. Al empezar el mes siguiente,
+     * los productos activos hacen un movimiento (y se liquidan solos) y el liquidador pone al día el resto en lotes.
+     */
+    private static String medirDevengo(Cliente cliente, int productos, int porcentajeActivos, long[] ahora,
+                                       long interesCierre) {
+        ahora[0] = MARZO;
+        List<ProductoFinanciero> portafolio = BenchmarkInteresMensual.crearPortafolio(cliente, productos);
+        for (ProductoFinanciero producto : portafolio) {
+            producto.devengarInteres();
+        }
+        ahora[0] = ABRIL + 60_000;
+
+        long interesActivos = 0;
+        int activos = 0;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < productos; i++) {
+            if (i % 100 < porcentajeActivos) {
+                interesActivos += portafolio.get(i).devengarInteres();
+                activos++;
+            }
+        }
+        long nanosActivos = System.nanoTime() - inicio;
+
+        LiquidadorInteres liquidador = new LiquidadorInteres(portafolio, LOTE, PRESUPUESTO_MICROS, TimeUnit.MICROSECONDS);
+        long pausaMaxima = 0;
+        long total = 0;
+        int excedidos = 0;
+        while (!liquidador.pasadaCompleta()) {
+            long comienzo = System.nanoTime();
+            liquidador.procesarLote();
+            long pausa = System.nanoTime() - comienzo;
+            pausaMaxima = Math.max(pausaMaxima, pausa);
+            if (pausa > 2 * TimeUnit.MICROSECONDS.toNanos(PRESUPUESTO_MICROS)) {
+                excedidos++;
+            }
+            total += pausa;
+        }
+        long interesTotal = interesActivos + liquidador.getInteresLiquidadoCentavos();
+        return String.format("devengo: %,d activos liquidados al moverse (%,.0f ns c/u); liquidador: %,d inactivos en %,d lotes, "
+                        + "pausa maxima %,.2f ms (%d lotes sobre el doble del presupuesto), total %,.1f ms; "
+                        + "interes=%,d centavos, igual al cierre: %b",
+                activos, (double) nanosActivos / Math.max(activos, 1), liquidador.getLiquidados(), liquidador.getLotes(),
+                pausaMaxima / 1e6, excedidos, total / 1e6, interesTotal, interesTotal == interesCierre);
+    }
+
+    /**
+     * Depósitos sobre mil cuentas con el devengo desactivado, con el reloj detenido (el producto ya está al día en
+     * el milisegundo) y con el reloj avanzando un milisegundo por depósito, de modo que cada uno devenga un tramo.
+     */
+    private static String medirDepositos(Cliente cliente, int operaciones) {
+        CuentaAhorro[] cuentas = new CuentaAhorro[1_000];
+        for (int i = 0; i < cuentas.length; i++) {
+            cuentas[i] = new CuentaAhorro("DEP-" + i, 1_000, cliente, 1);
+        }
+        long[] ahora = {MARZO};
+        DevengoInteres.desactivar();
+        long sinDevengo = depositar(cuentas, operaciones, ahora, false);
+        DevengoInteres.activar(() -> ahora[0], ZoneOffset.UTC);
+        long relojDetenido = depositar(cuentas, operaciones, ahora, false);
+        long relojAvanzando = depositar(cuentas, operaciones, ahora, true);
+        return String.format("deposito: sin devengo %.1f ns/op  devengo al dia %.1f ns/op  devengo de un tramo %.1f ns/op",
+                (double) sinDevengo / operaciones, (double) relojDetenido / operaciones,
+                (double) relojAvanzando / operaciones);
+    }
+
+    private static long depositar(CuentaAhorro[] cuentas, int operaciones, long[] ahora, boolean avanzar) {
+        long inicio = System.nanoTime();
+        for (int i = 0; i < operaciones; i++) {
+            if (avanzar) {
+                ahora[0]++;
+            }
+            cuentas[i % cuentas.length].depositarCentavos(100);
+        }
+        return System.nanoTime() - inicio;
+    }
+}
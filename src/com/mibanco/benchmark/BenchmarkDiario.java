@@ -0,0 +1,77 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.eventos.Eventos;
+import com.mibanco.eventos.SumideroNulo;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.persistencia.DiarioTransacciones;
+import com.mibanco.persistencia.SaldosRecuperados;
+import com.mibanco.persistencia.SumideroDiario;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Mide el rendimiento del {@link DiarioTransacciones} registrando depósitos concurrentes, con y sin esperar
+ * el group commit de cada operación, y verifica que la reproducción del diario reconstruya los saldos.
+ * <p>
+ * Uso: {@code BenchmarkDiario [directorio] [hilos]}. Por defecto usa un directorio temporal y 8 hilos.
+ */
+public class BenchmarkDiario {
+
+    private static final int OPERACIONES_POR_HILO = 100_000;
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path base = args.length > 0 ? Paths.get(args[0]) : Files.createTempDirectory("diario-benchmark");
+        int hilos = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        Cliente cliente = new Cliente("6000", "Benchmark Diario", "diario@mibanco.com", "3000000000", "Calle 7");
+        try {
+            System.out.println(medir(base.resolve("sin-espera"), cliente, hilos, false));
+            System.out.println(medir(base.resolve("con-espera"), cliente, hilos, true));
+        } finally {
+            Eventos.setSumidero(SumideroNulo.INSTANCIA);
+        }
+    }
+
+    private static String medir(Path directorio, Cliente cliente, int hilos, boolean esperar)
+            throws IOException, InterruptedException {
+        CuentaAhorro[] cuentas = new CuentaAhorro[hilos];
+        long nanos;
+        try (DiarioTransacciones diario = new DiarioTransacciones(directorio)) {
+            SumideroDiario sumidero = new SumideroDiario(diario, SumideroNulo.INSTANCIA, esperar);
+            for (int i = 0; i < hilos; i++) {
+                cuentas[i] = new CuentaAhorro("WAL-" + i, 100, cliente, 0);
+                sumidero.registrarApertura(cuentas[i]);
+            }
+            Eventos.setSumidero(sumidero);
+            int[] siguiente = {0};
+            nanos = UtilidadesBenchmark.ejecutar(hilos, () -> {
+                CuentaAhorro cuenta;
+                synchronized (siguiente) {
+                    cuenta = cuentas[siguiente[0]++];
+                }
+                for (int i = 0; i < OPERACIONES_POR_HILO; i++) {
+                    cuenta.depositar(0.01);
+                }
+            });
+            Eventos.setSumidero(SumideroNulo.INSTANCIA);
+        }
+
+        long inicio = System.nanoTime();
+        SaldosRecuperados recuperados = SaldosRecuperados.desdeDiario(directorio);
+        long nanosReproduccion = System.nanoTime() - inicio;
+        boolean correcto = true;
+        for (CuentaAhorro cuenta : cuentas) {
+            correcto &= recuperados.getSaldoCentavos(cuenta.getNumeroCuenta()) == cuenta.getSaldoCentavos();
+        }
+        long operaciones = (long) OPERACIONES_POR_HILO * hilos;
+        return String.format("%s hilos=%d tx/s=%.0f reproduccionMs=%d saldosRecuperados=%b",
+                esperar ? "con-espera" : "sin-espera", hilos, operaciones * 1e9 / nanos,
+                nanosReproduccion / 1_000_000, correcto);
+    }
+}
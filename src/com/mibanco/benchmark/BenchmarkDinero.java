@@ -0,0 +1,129 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.Dinero;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.Tasa;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Compara la aritmética monetaria en punto fijo ({@link Dinero} y {@link Tasa} sobre {@code long}) con
+ * {@code double} y con {@link BigDecimal}: cálculo del interés mensual de una tasa anual, acumulación de montos y
+ * conversión desde texto. Cada caso recorre un arreglo de montos distintos para que el compilador no pueda
+ * plegar el cálculo, y el arnés reporta los bytes reservados por operación además del rendimiento.
+ * <p>
+ * Uso: {@code BenchmarkDinero [archivo.json]}. Por defecto escribe {@code benchmark-dinero.json}.
+ */
+public class BenchmarkDinero {
+
+    private static final int MONTOS = 4_096;
+    private static final int MASCARA = MONTOS - 1;
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        Path archivo = Paths.get(args.length > 0 ? args[0] : "benchmark-dinero.json");
+        UtilidadesBenchmark.desactivarEventos();
+
+        Random aleatorio = new Random(14);
+        long[] centavos = new long[MONTOS];
+        double[] montosDouble = new double[MONTOS];
+        BigDecimal[] montosDecimales = new BigDecimal[MONTOS];
+        Dinero[] montosDinero = new Dinero[MONTOS];
+        String[] textos = new String[MONTOS];
+        for (int i = 0; i < MONTOS; i++) {
+            centavos[i] = 1 + (long) (aleatorio.nextDouble() * 1_000_000_00L);
+            montosDouble[i] = ProductoFinanciero.aMonto(centavos[i]);
+            montosDecimales[i] = BigDecimal.valueOf(centavos[i], 2);
+            montosDinero[i] = Dinero.deCentavos(centavos[i]);
+            textos[i] = montosDinero[i].toString();
+        }
+        double tasaDouble = 4.75;
+        BigDecimal tasaDecimal = new BigDecimal("4.75");
+        BigDecimal divisorMensual = BigDecimal.valueOf(1_200);
+        Tasa tasa = Tasa.dePorcentaje(tasaDecimal);
+        long tasaEscalada = tasa.getEscalada();
+
+        verificarExactitud(tasa);
+
+        ArnesMicrobenchmark arnes = new ArnesMicrobenchmark(3, 5, 1_000);
+        int[] cursor = new int[1];
+
+        arnes.agregar("interesMensual.double", 1, () -> {
+            double saldo = montosDouble[cursor[0]++ & MASCARA];
+            return ProductoFinanciero.aCentavos(saldo * (tasaDouble / 100) / 12);
+        });
+        arnes.agregar("interesMensual.bigDecimal", 1, () -> {
+            BigDecimal saldo = montosDecimales[cursor[0]++ & MASCARA];
+            return saldo.multiply(tasaDecimal).divide(divisorMensual, 2, RoundingMode.HALF_EVEN).unscaledValue().longValue();
+        });
+        arnes.agregar("interesMensual.tasa", 1,
+                () -> Tasa.aplicar(centavos[cursor[0]++ & MASCARA], tasaEscalada, 12, RoundingMode.HALF_EVEN));
+
+        double[] acumuladoDouble = new double[1];
+        BigDecimal[] acumuladoDecimal = {BigDecimal.ZERO};
+        long[] acumuladoCentavos = new long[1];
+        Dinero[] acumuladoDinero = {Dinero.CERO};
+        arnes.agregar("suma.double", 1, () -> {
+            acumuladoDouble[0] += montosDouble[cursor[0]++ & MASCARA];
+            return Double.doubleToRawLongBits(acumuladoDouble[0]);
+        });
+        arnes.agregar("suma.bigDecimal", 1, () -> {
+            acumuladoDecimal[0] = acumuladoDecimal[0].add(montosDecimales[cursor[0]++ & MASCARA]);
+            return acumuladoDecimal[0].signum();
+        });
+        arnes.agregar("suma.centavos", 1, () -> {
+            acumuladoCentavos[0] = Math.addExact(acumuladoCentavos[0], centavos[cursor[0]++ & MASCARA]);
+            return acumuladoCentavos[0];
+        });
+        arnes.agregar("suma.dinero", 1, () -> {
+            // Cada suma crea un Dinero nuevo: es el costo de la API inmutable fuera de los caminos críticos.
+            acumuladoDinero[0] = acumuladoDinero[0].sumar(montosDinero[cursor[0]++ & MASCARA]);
+            return acumuladoDinero[0].getCentavos();
+        });
+
+        arnes.agregar("conversion.double", 1,
+                () -> ProductoFinanciero.aCentavos(Double.parseDouble(textos[cursor[0]++ & MASCARA])));
+        arnes.agregar("conversion.bigDecimal", 1,
+                () -> new BigDecimal(textos[cursor[0]++ & MASCARA]).movePointRight(2).longValueExact());
+        arnes.agregar("conversion.dinero", 1,
+                () -> Dinero.de(textos[cursor[0]++ & MASCARA], RoundingMode.HALF_EVEN).getCentavos());
+
+        Cliente cliente = new Cliente("9140", "Benchmark Dinero", "dinero@mibanco.com", "3000000000", "Calle 14");
+        CuentaAhorro cuenta = new CuentaAhorro("DIN-1", Dinero.deCentavos(1_000_000_00L), cliente,
+                Tasa.dePorcentaje(new BigDecimal("0.000001")));
+        arnes.agregar("cuentaAhorro.aplicarInteresMensual", 1, cuenta::aplicarInteresMensual);
+
+        arnes.ejecutar(System.out, archivo);
+    }
+
+    /**
+     * Muestra la diferencia de exactitud que motiva el tipo: sumas repetidas de diez centavos y el interés de un
+     * monto que cae justo en medio centavo, donde el resultado depende del modo de redondeo.
+     */
+    private static void verificarExactitud(Tasa tasa) {
+        double totalDouble = 0;
+        long totalCentavos = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            totalDouble += 0.10;
+            totalCentavos += 10;
+        }
+        System.out.printf("1e6 x 0.10: double=%.10f, dinero=%s%n", totalDouble, Dinero.deCentavos(totalCentavos));
+
+        long saldo = 7_200L;
+        long interesDouble = ProductoFinanciero.aCentavos(ProductoFinanciero.aMonto(saldo) * (tasa.getPorcentaje() / 100) / 12);
+        long interesTasa = tasa.aplicar(saldo, 12, RoundingMode.HALF_EVEN);
+        BigDecimal exacto = BigDecimal.valueOf(saldo, 2).multiply(tasa.toBigDecimal())
+                .divide(BigDecimal.valueOf(1_200), 6, RoundingMode.HALF_EVEN);
+        System.out.printf("interes de %s al %s anual: exacto=%s, double=%d, tasa=%d centavos%n",
+                Dinero.deCentavos(saldo), tasa, exacto.toPlainString(), interesDouble, interesTasa);
+    }
+}
@@ -0,0 +1,200 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.Cliente;
+import com.mibanco.persistencia.DirectorioClientes;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Compara un mapa de {@link Cliente} en el heap con {@link DirectorioClientes}:
+ * <ul>
+ *     <li>memoria del heap, tiempo de recolección durante la carga y bytes en disco por cliente;</li>
+ *     <li>costo de buscar por documento y leer un campo;</li>
+ *     <li>actualizaciones que caben en el registro y que lo reubican, con un hilo que lee mientras otro reescribe
+ *     y verifica que nunca ve un valor a medio escribir;</li>
+ *     <li>que al reabrir el directorio estén todos los clientes con sus cambios.</li>
+ * </ul>
+ * Uso: {@code BenchmarkDirectorioClientes [clientes]}. Por defecto 5.000.000.
+ */
+public class BenchmarkDirectorioClientes {
+
+    private static final int CONSULTAS = 2_000_000;
+    private static final String VALOR_A = "Calle AAAAAAAAAAAAAAAAAAAA";
+    private static final String VALOR_B = "Calle BBBBBBBBBBBBBBBBBBBB";
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int clientes = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        System.out.printf("clientes=%,d%n", clientes);
+
+        long base = memoriaUsada();
+        long gc = tiempoGc();
+        long inicio = System.nanoTime();
+        Map<String, Cliente> mapa = new HashMap<>(clientes * 4 / 3 + 1);
+        for (int i = 0; i < clientes; i++) {
+            Cliente cliente = nuevo(i);
+            mapa.put(cliente.getDocumentoIdentidad(), cliente);
+        }
+        long cargaHeap = System.nanoTime() - inicio;
+        long gcHeap = tiempoGc() - gc;
+        long memoriaHeap = memoriaUsada() - base;
+        double consultaHeap = consultar(documento -> mapa.get(documento).getNombre(), clientes);
+        System.out.printf("heap: carga %,.0f ms (gc %,d ms), %,d bytes de heap por cliente, consulta %,.0f ns%n",
+                cargaHeap / 1e6, gcHeap, memoriaHeap / clientes, consultaHeap);
+        mapa.clear();
+
+        Path directorio = Files.createTempDirectory("mibanco-clientes");
+        try {
+            base = memoriaUsada();
+            gc = tiempoGc();
+            inicio = System.nanoTime();
+            DirectorioClientes clientesMapeados = new DirectorioClientes(directorio, clientes);
+            for (int i = 0; i < clientes; i++) {
+                Cliente cliente = nuevo(i);
+                clientesMapeados.registrar(cliente.getDocumentoIdentidad(), cliente.getNombre(),
+                        cliente.getCorreoElectronico(), cliente.getNumeroCelular(), cliente.getDireccion());
+            }
+            long cargaDirectorio = System.nanoTime() - inicio;
+            long gcDirectorio = tiempoGc() - gc;
+            long memoriaDirectorio = memoriaUsada() - base;
+            double consultaDirectorio = consultar(documento -> clientesMapeados.buscar(documento).getNombre(), clientes);
+            System.out.printf("directorio: carga %,.0f ms (gc %,d ms), %,d bytes de heap en total, %,d bytes en archivo "
+                            + "por cliente, consulta %,.0f ns%n",
+                    cargaDirectorio / 1e6, gcDirectorio, Math.max(memoriaDirectorio, 0),
+                    (clientesMapeados.getBytesDatos() + 8L * clientes + 8L * capacidadIndice(clientes)) / clientes,
+                    consultaDirectorio);
+
+            String errores = actualizar(clientesMapeados, clientes);
+            System.out.printf("actualizaciones: %,d en su lugar, %,d reubicadas, %,d bytes descartados; %s%n",
+                    clientesMapeados.getReescrituras(), clientesMapeados.getReubicaciones(),
+                    clientesMapeados.getBytesDescartados(), errores);
+            clientesMapeados.close();
+
+            inicio = System.nanoTime();
+            try (DirectorioClientes reabierto = new DirectorioClientes(directorio)) {
+                long apertura = System.nanoTime() - inicio;
+                int correctos = 0;
+                for (int i = 0; i < clientes; i += Math.max(1, clientes / 10_000)) {
+                    Cliente cliente = reabierto.buscar(documento(i));
+                    String direccionEsperada = i % 100 == 0 ? "Carrera " + i + " con calle " + i + ", apartamento " + i
+                            : "Calle " + i;
+                    if (cliente != null && cliente.getNombre().equals("Cliente " + i)
+                            && cliente.getDireccion().equals(direccionEsperada)) {
+                        correctos++;
+                    }
+                }
+                System.out.printf("reapertura: %,.1f ms, %,d clientes, %,d de %,d muestras correctas%n",
+                        apertura / 1e6, reabierto.getCantidad(), correctos,
+                        (clientes + Math.max(1, clientes / 10_000) - 1) / Math.max(1, clientes / 10_000));
+            }
+        } finally {
+            try (Stream<Path> archivos = Files.list(directorio)) {
+                for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                    Files.deleteIfExists(archivo);
+                }
+            }
+            Files.deleteIfExists(directorio);
+        }
+    }
+
+    /**
+     * Un cliente de cada cien cambia su dirección por una más larga (reubicación) y otro alterna la suya entre dos
+     * valores del mismo largo (reescritura en su lugar) mientras un hilo la lee.
+     *
+     * @return Resumen de la verificación.
+     */
+    private static String actualizar(DirectorioClientes clientesMapeados, int clientes) throws InterruptedException {
+        for (int i = 0; i < clientes; i += 100) {
+            clientesMapeados.buscar(documento(i)).setDireccion("Carrera " + i + " con calle " + i + ", apartamento " + i);
+        }
+        Cliente escrito = clientesMapeados.buscar(documento(clientes - 1));
+        Cliente leido = clientesMapeados.buscar(documento(clientes - 1));
+        escrito.setDireccion(VALOR_A);
+        AtomicBoolean detener = new AtomicBoolean();
+        AtomicLong lecturas = new AtomicLong();
+        AtomicLong rotas = new AtomicLong();
+        Thread lector = new Thread(() -> {
+            while (!detener.get()) {
+                String valor = leido.getDireccion();
+                if (!valor.equals(VALOR_A) && !valor.equals(VALOR_B)) {
+                    rotas.incrementAndGet();
+                }
+                lecturas.incrementAndGet();
+            }
+        });
+        lector.start();
+        int escrituras = 2_000_000;
+        for (int i = 0; i < escrituras; i++) {
+            escrito.setDireccion((i & 1) == 0 ? VALOR_B : VALOR_A);
+        }
+        detener.set(true);
+        lector.join();
+        escrito.setDireccion("Calle " + (clientes - 1));
+        return String.format("%,d lecturas concurrentes con %,d reescrituras, %,d valores a medio escribir; "
+                + "vistas iguales: %b", lecturas.get(), escrituras, rotas.get(), escrito.equals(leido));
+    }
+
+    private static double consultar(Function<String, String> consulta, int clientes) {
+        long largo = 0;
+        for (int ronda = 0; ronda < 2; ronda++) {
+            // La primera ronda calienta el compilador; se informa la segunda.
+            long inicio = System.nanoTime();
+            for (int q = 0; q < CONSULTAS; q++) {
+                largo += consulta.apply(documento(ThreadLocalRandom.current().nextInt(clientes))).length();
+            }
+            if (ronda == 1) {
+                if (largo == 0) {
+                    System.out.println();
+                }
+                return (double) (System.nanoTime() - inicio) / CONSULTAS;
+            }
+        }
+        throw new AssertionError();
+    }
+
+    private static long capacidadIndice(int clientes) {
+        long capacidad = 1_024;
+        while (capacidad * 3 / 4 < clientes) {
+            capacidad <<= 1;
+        }
+        return capacidad;
+    }
+
+    private static Cliente nuevo(int i) {
+        return new Cliente(documento(i), "Cliente " + i, "cliente" + i + "@mibanco.com",
+                String.valueOf(3_000_000_000L + i), "Calle " + i);
+    }
+
+    private static String documento(int i) {
+        return String.valueOf(1_000_000_000L + i);
+    }
+
+    private static long tiempoGc() {
+        long total = 0;
+        for (GarbageCollectorMXBean recolector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(recolector.getCollectionTime(), 0);
+        }
+        return total;
+    }
+
+    private static long memoriaUsada() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
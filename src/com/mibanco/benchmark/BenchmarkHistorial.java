@@ -0,0 +1,105 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.eventos.TipoEvento;
+import com.mibanco.persistencia.HistorialMovimientos;
+import com.mibanco.persistencia.PaginaMovimientos;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+
+/**
+ * Mide {@link HistorialMovimientos}: registro de un año de movimientos sobre muchas cuentas con un límite de
+ * memoria pequeño, de modo que la mayoría de los bloques se paginan a disco, y luego consultas de "los movimientos
+ * de marzo" de cuentas aleatorias, completas y paginadas. Verifica que ambas formas de consulta entreguen los
+ * mismos movimientos, en orden.
+ * <p>
+ * Uso: {@code BenchmarkHistorial [movimientos] [cuentas] [memoriaMiB] [consultas]}. Por defecto 10.000.000
+ * movimientos sobre 20.000 cuentas, 16 MiB y 20.000 consultas.
+ */
+public class BenchmarkHistorial {
+
+    private static final int TAMANO_PAGINA = 50;
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) throws IOException {
+        int movimientos = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int cuentas = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        long memoria = (args.length > 2 ? Long.parseLong(args[2]) : 16) * 1024 * 1024;
+        int consultas = args.length > 3 ? Integer.parseInt(args[3]) : 20_000;
+
+        long inicioAnio = LocalDate.of(2024, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        long finAnio = LocalDate.of(2025, 1, 1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        long inicioMarzo = LocalDate.of(2024, 3, 1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        long finMarzo = LocalDate.of(2024, 4, 1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        String[] numeros = new String[cuentas];
+        for (int i = 0; i < cuentas; i++) {
+            numeros[i] = "HIS-" + i;
+        }
+
+        Path directorio = Files.createTempDirectory("mibanco-historial");
+        // El reloj del sumidero no se usa: el benchmark registra con instantes sintéticos repartidos en el año.
+        try (HistorialMovimientos historial = new HistorialMovimientos(directorio, memoria,
+                (tipo, producto, monto, saldo) -> { }, System::currentTimeMillis)) {
+            SplittableRandom aleatorio = new SplittableRandom(19);
+            long paso = (finAnio - inicioAnio) / movimientos;
+            long inicio = System.nanoTime();
+            for (int i = 0; i < movimientos; i++) {
+                TipoEvento tipo = (i & 1) == 0 ? TipoEvento.DEPOSITO : TipoEvento.RETIRO;
+                historial.registrar(numeros[aleatorio.nextInt(cuentas)], inicioAnio + i * paso, tipo,
+                        1 + aleatorio.nextInt(100_000), i);
+            }
+            long nanosRegistro = System.nanoTime() - inicio;
+            System.out.printf("registro: %,.0f movimientos/s  residente=%,d bytes  bloques paginados=%,d (%,d bytes)%n",
+                    movimientos * 1e9 / nanosRegistro, historial.getMemoriaResidente(),
+                    historial.getBloquesPaginados(), historial.getBytesPaginados());
+
+            long[] contador = {0};
+            inicio = System.nanoTime();
+            for (int i = 0; i < consultas; i++) {
+                long[] anterior = {Long.MIN_VALUE};
+                historial.recorrer(numeros[aleatorio.nextInt(cuentas)], inicioMarzo, finMarzo,
+                        (instante, tipo, monto, saldo) -> {
+                            if (instante < anterior[0] || instante < inicioMarzo || instante >= finMarzo) {
+                                throw new IllegalStateException("Movimiento fuera de orden o de rango.");
+                            }
+                            anterior[0] = instante;
+                            contador[0]++;
+                        });
+            }
+            long nanosRango = System.nanoTime() - inicio;
+            System.out.printf("rango marzo: %,.0f consultas/s  %,.1f movimientos por consulta%n",
+                    consultas * 1e9 / nanosRango, (double) contador[0] / consultas);
+
+            long diferencias = 0;
+            long paginas = 0;
+            inicio = System.nanoTime();
+            for (int i = 0; i < consultas; i++) {
+                String cuenta = numeros[aleatorio.nextInt(cuentas)];
+                long[] completos = {0};
+                historial.recorrer(cuenta, inicioMarzo, finMarzo, (instante, tipo, monto, saldo) -> completos[0]++);
+                long paginados = 0;
+                long cursor = PaginaMovimientos.INICIO;
+                do {
+                    PaginaMovimientos pagina = historial.pagina(cuenta, inicioMarzo, finMarzo, cursor, TAMANO_PAGINA);
+                    paginados += pagina.getMovimientos().size();
+                    cursor = pagina.getCursorSiguiente();
+                    paginas++;
+                } while (cursor != PaginaMovimientos.FIN);
+                if (paginados != completos[0]) {
+                    diferencias++;
+                }
+            }
+            long nanosPaginas = System.nanoTime() - inicio;
+            System.out.printf("paginado (%d por pagina): %,.0f paginas/s  consultas con diferencias=%d%n",
+                    TAMANO_PAGINA, paginas * 1e9 / nanosPaginas, diferencias);
+        } finally {
+            Files.deleteIfExists(directorio);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.idempotencia.CacheIdempotencia;
+import com.mibanco.idempotencia.Idempotencia;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mide {@link CacheIdempotencia} dimensionado para 200.000 operaciones por segundo:
+ * <ul>
+ *     <li>memoria reservada por el registro y por entrada;</li>
+ *     <li>tasa de aciertos de los reintentos según su retraso, con un reloj simulado que avanza a la tasa nominal
+ *     (los reintentos dentro de la retención deben acertar siempre y los posteriores volver a ejecutarse), y los
+ *     desalojos tempranos al doble de la tasa nominal;</li>
+ *     <li>rendimiento con varios hilos, bytes reservados por operación en el heap y actividad del recolector;</li>
+ *     <li>el costo de la clave en un depósito de extremo a extremo.</li>
+ * </ul>
+ * Uso: {@code BenchmarkIdempotencia [operaciones] [hilos]}. Por defecto 20.000.000 operaciones y 4 hilos.
+ */
+public class BenchmarkIdempotencia {
+
+    private static final long TASA = 200_000;
+    private static final long RETENCION_MILLIS = 5_000;
+    private static final long[] RETRASOS_MILLIS = {10, 1_000, 4_900, 5_100, 30_000};
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int operaciones = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        int hilos = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        UtilidadesBenchmark.desactivarEventos();
+
+        CacheIdempotencia medida = CacheIdempotencia.paraTasa(TASA, RETENCION_MILLIS);
+        System.out.printf("capacidad=%,d entradas  reservado=%,.1f MiB  (%.1f bytes por entrada)%n",
+                medida.getCapacidad(), medida.getBytesReservados() / 1048576.0,
+                (double) medida.getBytesReservados() / medida.getCapacidad());
+
+        for (long retraso : RETRASOS_MILLIS) {
+            System.out.println(simularReintentos(TASA, retraso));
+        }
+        System.out.println("al doble de la tasa nominal: " + simularReintentos(2 * TASA, 1_000));
+
+        // La primera ronda calienta el compilador; se informa la segunda.
+        medirConcurrencia(Math.min(operaciones, 2_000_000), hilos);
+        System.out.println(medirConcurrencia(operaciones, hilos));
+
+        medirDepositos(500_000);
+        System.out.println(medirDepositos(2_000_000));
+    }
+
+    /**
+     * Registra operaciones a la tasa indicada con un reloj simulado y repite una de cada diez con el retraso dado.
+     */
+    private static String simularReintentos(long tasa, long retrasoMillis) {
+        long[] ahora = {0};
+        CacheIdempotencia cache = new CacheIdempotencia(medidaNominal(), RETENCION_MILLIS, () -> ahora[0]);
+        long[] ejecuciones = {0};
+        CacheIdempotencia.Accion accion = () -> ++ejecuciones[0];
+        long separacion = retrasoMillis * tasa / 1000;
+        long total = separacion + 10 * tasa;
+        long reintentos = 0;
+        long aciertos = 0;
+        for (long i = 0; i < total; i++) {
+            ahora[0] = i * 1000 / tasa;
+            cache.ejecutar(i, 1, i, accion);
+            long original = i - separacion;
+            if (original >= 0 && original % 10 == 0) {
+                long antes = ejecuciones[0];
+                cache.ejecutar(original, 1, original, accion);
+                reintentos++;
+                if (ejecuciones[0] == antes) {
+                    aciertos++;
+                }
+            }
+        }
+        return String.format("tasa=%,d/s retraso=%,6d ms: aciertos=%6.2f%%  desalojos tempranos=%,d",
+                tasa, retrasoMillis, aciertos * 100.0 / reintentos, cache.getDesalojosTempranos());
+    }
+
+    private static int medidaNominal() {
+        return CacheIdempotencia.paraTasa(TASA, RETENCION_MILLIS).getCapacidad();
+    }
+
+    /**
+     * Varios hilos registran claves únicas y repiten una de cada diez poco después, con el reloj del sistema. Van sin
+     * pausa, muy por encima de la tasa nominal, así que el registro desaloja claves antes de su retención.
+     */
+    private static String medirConcurrencia(int operaciones, int hilos) throws InterruptedException {
+        CacheIdempotencia cache = CacheIdempotencia.paraTasa(TASA, RETENCION_MILLIS);
+        com.sun.management.ThreadMXBean mxHilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        LongAdder reservados = new LongAdder();
+        AtomicInteger siguienteHilo = new AtomicInteger();
+        int porHilo = operaciones / hilos;
+        long[] gcAntes = recolecciones();
+        long nanos = UtilidadesBenchmark.ejecutar(hilos, () -> {
+            long hilo = siguienteHilo.getAndIncrement();
+            long id = Thread.currentThread().getId();
+            long bytesAntes = mxHilos.getThreadAllocatedBytes(id);
+            CacheIdempotencia.Accion accion = () -> 1;
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            for (int i = 0; i < porHilo; i++) {
+                cache.ejecutar(hilo, i, i, accion);
+                if (i % 10 == 9) {
+                    int original = i - aleatorio.nextInt(Math.min(i, 1_000));
+                    cache.ejecutar(hilo, original, original, accion);
+                }
+            }
+            reservados.add(mxHilos.getThreadAllocatedBytes(id) - bytesAntes);
+        });
+        long[] gcDespues = recolecciones();
+        long total = (long) porHilo * hilos * 11 / 10;
+        return String.format("hilos=%d operaciones/s=%,12.0f  bytes/op=%.2f  recolecciones=%d (%d ms)  repeticiones=%,d  desalojos tempranos=%,d",
+                hilos, total * 1e9 / nanos, (double) reservados.sum() / total, gcDespues[0] - gcAntes[0],
+                gcDespues[1] - gcAntes[1], cache.getRepeticiones(), cache.getDesalojosTempranos());
+    }
+
+    /**
+     * Compara depósitos sin clave y con clave de texto, con claves generadas de antemano.
+     */
+    private static String medirDepositos(int operaciones) {
+        Idempotencia.setCache(CacheIdempotencia.paraTasa(TASA, RETENCION_MILLIS));
+        Cliente cliente = new Cliente("9200", "Benchmark Idempotencia", "idempotencia@mibanco.com", "3000000000", "Calle 20");
+        CuentaAhorro cuenta = new CuentaAhorro("IDM-1", 0, cliente, 0);
+        String[] claves = new String[operaciones];
+        for (int i = 0; i < operaciones; i++) {
+            claves[i] = "dep-" + i + "-0f8fad5b-d9cb-469f-a165";
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < operaciones; i++) {
+            cuenta.depositarCentavos(100);
+        }
+        long sinClave = System.nanoTime() - inicio;
+        inicio = System.nanoTime();
+        for (int i = 0; i < operaciones; i++) {
+            cuenta.depositarCentavos(claves[i], 100);
+        }
+        long conClave = System.nanoTime() - inicio;
+        return String.format("deposito: sin clave %.1f ns/op  con clave %.1f ns/op",
+                (double) sinClave / operaciones, (double) conClave / operaciones);
+    }
+
+    private static long[] recolecciones() {
+        long[] total = new long[2];
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total[0] += gc.getCollectionCount();
+            total[1] += gc.getCollectionTime();
+        }
+        return total;
+    }
+}
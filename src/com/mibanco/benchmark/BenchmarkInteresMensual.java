@@ -0,0 +1,69 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.CertificadoDeposito;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.CuentaCorriente;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.servicios.MotorInteresMensual;
+import com.mibanco.servicios.ResumenInteres;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compara la corrida secuencial y la paralela de {@link MotorInteresMensual} sobre dos portafolios
+ * idénticos y verifica que ambas produzcan exactamente los mismos totales.
+ */
+public class BenchmarkInteresMensual {
+
+    /**
+     * Punto de entrada del benchmark. Acepta opcionalmente el tamaño del portafolio como primer argumento.
+     */
+    public static void main(String[] args) {
+        int productos = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Cliente cliente = new Cliente("3000", "Benchmark Intereses", "interes@mibanco.com", "3000000000", "Calle 3");
+        MotorInteresMensual motor = new MotorInteresMensual();
+
+        ResumenInteres secuencial = motor.ejecutarSecuencial(crearPortafolio(cliente, productos));
+        ResumenInteres paralelo = motor.ejecutar(crearPortafolio(cliente, productos));
+
+        System.out.println("Secuencial: " + secuencial);
+        System.out.println("Paralelo:   " + paralelo);
+        System.out.println("Resultados idénticos: " + secuencial.mismosTotales(paralelo));
+    }
+
+    /**
+     * Genera un portafolio determinista que mezcla los cuatro tipos de producto.
+     */
+    static List<ProductoFinanciero> crearPortafolio(Cliente cliente, int productos) {
+        Random aleatorio = new Random(42);
+        List<ProductoFinanciero> portafolio = new ArrayList<>(productos);
+        for (int i = 0; i < productos; i++) {
+            String numero = "INT-" + i;
+            double saldo = aleatorio.nextInt(10_000_000) / 100.0;
+            double tasa = aleatorio.nextInt(1_500) / 100.0;
+            switch (i & 3) {
+                case 0:
+                    portafolio.add(new CuentaAhorro(numero, saldo, cliente, tasa));
+                    break;
+                case 1:
+                    portafolio.add(new CuentaCorriente(numero, saldo, cliente, tasa, 1_000));
+                    break;
+                case 2:
+                    portafolio.add(new CertificadoDeposito(numero, saldo, cliente, 12, tasa));
+                    break;
+                default:
+                    TarjetaCredito tarjeta = new TarjetaCredito(numero, 0, cliente, 100_000, tasa);
+                    if (saldo > 0) {
+                        tarjeta.cargarCentavos(ProductoFinanciero.aCentavos(saldo));
+                    }
+                    portafolio.add(tarjeta);
+                    break;
+            }
+        }
+        return portafolio;
+    }
+}
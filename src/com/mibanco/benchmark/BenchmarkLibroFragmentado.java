@@ -0,0 +1,97 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.servicios.LibroFragmentado;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mide cómo escala {@link LibroFragmentado} con el número de fragmentos: varios hilos clientes envían
+ * transferencias entre cuentas aleatorias, así que con N fragmentos una fracción (N-1)/N de ellas pasa por el
+ * protocolo de dos fases. Cada cliente acota sus operaciones pendientes. Al cerrar el libro verifica que la suma de
+ * saldos se conserve.
+ * <p>
+ * Uso: {@code BenchmarkLibroFragmentado [transferencias] [cuentas] [clientes] [fragmentos...]}. Por defecto
+ * 2.000.000 transferencias sobre 100.000 cuentas, 4 clientes y 1, 4, 16 y 64 fragmentos.
+ */
+public class BenchmarkLibroFragmentado {
+
+    private static final int PENDIENTES_POR_CLIENTE = 4_096;
+    private static final long SALDO_INICIAL = 1_000_000;
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int transferencias = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int cuentas = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int clientes = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int[] fragmentos = {1, 4, 16, 64};
+        if (args.length > 3) {
+            fragmentos = new int[args.length - 3];
+            for (int i = 3; i < args.length; i++) {
+                fragmentos[i - 3] = Integer.parseInt(args[i]);
+            }
+        }
+        UtilidadesBenchmark.desactivarEventos();
+        Cliente cliente = new Cliente("9180", "Benchmark Fragmentos", "fragmentos@mibanco.com", "3000000000", "Calle 18");
+        String[] numeros = new String[cuentas];
+        for (int i = 0; i < cuentas; i++) {
+            numeros[i] = "FRG-" + i;
+        }
+
+        System.out.printf("%,d transferencias, %,d cuentas, %d clientes, %d procesadores%n",
+                transferencias, cuentas, clientes, Runtime.getRuntime().availableProcessors());
+        for (int cantidad : fragmentos) {
+            // La primera medición calienta el compilador; se informa la segunda.
+            medir(cliente, numeros, Math.min(transferencias, 200_000), clientes, cantidad);
+            System.out.println(medir(cliente, numeros, transferencias, clientes, cantidad));
+        }
+    }
+
+    private static String medir(Cliente cliente, String[] numeros, int transferencias, int clientes, int fragmentos)
+            throws InterruptedException {
+        LibroFragmentado libro = new LibroFragmentado(fragmentos);
+        CountDownLatch abiertas = new CountDownLatch(numeros.length);
+        for (String numero : numeros) {
+            libro.abrir(new CuentaAhorro(numero, SALDO_INICIAL / 100.0, cliente, 0), (estado, saldo) -> abiertas.countDown());
+        }
+        abiertas.await();
+
+        LongAdder rechazadas = new LongAdder();
+        int porCliente = transferencias / clientes;
+        long nanos = UtilidadesBenchmark.ejecutar(clientes, () -> {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            Semaphore pendientes = new Semaphore(PENDIENTES_POR_CLIENTE);
+            LibroFragmentado.Respuesta respuesta = (estado, saldo) -> {
+                if (estado != LibroFragmentado.Estado.APLICADA) {
+                    rechazadas.increment();
+                }
+                pendientes.release();
+            };
+            for (int i = 0; i < porCliente; i++) {
+                int origen = aleatorio.nextInt(numeros.length);
+                int destino = aleatorio.nextInt(numeros.length - 1);
+                if (destino >= origen) {
+                    destino++;
+                }
+                pendientes.acquireUninterruptibly();
+                libro.transferir(numeros[origen], numeros[destino], 1 + aleatorio.nextInt(100), respuesta);
+            }
+            pendientes.acquireUninterruptibly(PENDIENTES_POR_CLIENTE);
+        });
+        libro.close();
+
+        AtomicLong total = new AtomicLong();
+        libro.recorrer(cuenta -> total.addAndGet(cuenta.getSaldoCentavos()));
+        long realizadas = (long) porCliente * clientes;
+        return String.format("fragmentos=%-3d transferencias/s=%,12.0f  dos fases=%5.1f%%  rechazadas=%d  totalConservado=%b",
+                fragmentos, realizadas * 1e9 / nanos, libro.getTransferenciasCruzadas() * 100.0 / realizadas,
+                rechazadas.sum(), total.get() == SALDO_INICIAL * numeros.length);
+    }
+}
@@ -0,0 +1,161 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.CuentaCorriente;
+import com.mibanco.model.Dinero;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.servicios.ProcesadorLotes;
+import com.mibanco.servicios.ResultadoLote;
+import com.mibanco.servicios.Transaccion;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compara la ingesta de un archivo de compensación aplicando cada transacción por separado con
+ * {@link ProcesadorLotes}, que agrupa por cuenta. La carga concentra la mayoría de las transacciones en pocas
+ * cuentas, como en la compensación de comercios, y mezcla retiros que agotan el sobregiro y compras que agotan el
+ * cupo. Verifica que el estado de cada transacción y los saldos finales coincidan con la aplicación individual.
+ * <p>
+ * Uso: {@code BenchmarkLotes [transacciones] [cuentas] [tamanoLote]}.
+ */
+public class BenchmarkLotes {
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int cantidadCuentas = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int tamanoLote = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+        UtilidadesBenchmark.desactivarEventos();
+
+        List<Transaccion> transacciones = generar(cantidad, cantidadCuentas);
+        Cliente cliente = new Cliente("9160", "Benchmark Lotes", "lotes@mibanco.com", "3000000000", "Calle 16");
+
+        for (int ronda = 0; ronda < 3; ronda++) {
+            Map<String, ProductoFinanciero> individuales = crearCuentas(cliente, cantidadCuentas);
+            Map<String, ProductoFinanciero> agrupadas = crearCuentas(cliente, cantidadCuentas);
+            ProcesadorLotes procesador = new ProcesadorLotes(agrupadas);
+
+            long inicio = System.nanoTime();
+            ResultadoLote.Estado[] esperados = new ResultadoLote.Estado[cantidad];
+            for (int i = 0; i < cantidad; i++) {
+                esperados[i] = aplicarIndividual(individuales, transacciones.get(i));
+            }
+            long nanosIndividual = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            boolean coincide = true;
+            int cuentasAfectadas = 0;
+            for (int desde = 0; desde < cantidad; desde += tamanoLote) {
+                int hasta = Math.min(cantidad, desde + tamanoLote);
+                ResultadoLote resultado = procesador.procesar(transacciones.subList(desde, hasta));
+                cuentasAfectadas += resultado.getCuentas();
+                for (int i = desde; i < hasta; i++) {
+                    coincide &= resultado.getEstado(i - desde) == esperados[i];
+                }
+            }
+            long nanosLotes = System.nanoTime() - inicio;
+
+            int rechazos = 0;
+            for (ResultadoLote.Estado estado : esperados) {
+                rechazos += estado == ResultadoLote.Estado.APLICADA ? 0 : 1;
+            }
+            for (Map.Entry<String, ProductoFinanciero> entrada : individuales.entrySet()) {
+                ProductoFinanciero otra = agrupadas.get(entrada.getKey());
+                coincide &= entrada.getValue().getSaldoCentavos() == otra.getSaldoCentavos();
+                if (otra instanceof TarjetaCredito) {
+                    coincide &= ((TarjetaCredito) entrada.getValue()).getSaldoUtilizadoCentavos()
+                            == ((TarjetaCredito) otra).getSaldoUtilizadoCentavos();
+                }
+            }
+            if (ronda == 2) {
+                System.out.printf("%,d transacciones sobre %,d cuentas, lotes de %,d (%,d actualizaciones agrupadas), "
+                        + "%.1f%% rechazadas%n", cantidad, cantidadCuentas, tamanoLote, cuentasAfectadas,
+                        rechazos * 100.0 / cantidad);
+                System.out.printf("individual: %8.1f ms (%,.0f tx/s)%n", nanosIndividual / 1e6, cantidad * 1e9 / nanosIndividual);
+                System.out.printf("por lotes:  %8.1f ms (%,.0f tx/s)%n", nanosLotes / 1e6, cantidad * 1e9 / nanosLotes);
+                System.out.println("Estados y saldos identicos: " + coincide);
+            }
+        }
+    }
+
+    private static ResultadoLote.Estado aplicarIndividual(Map<String, ProductoFinanciero> cuentas, Transaccion transaccion) {
+        ProductoFinanciero producto = cuentas.get(transaccion.getNumeroCuenta());
+        long monto = transaccion.getMontoCentavos();
+        switch (transaccion.getTipo()) {
+            case DEPOSITO:
+                producto.depositarCentavos(monto);
+                return ResultadoLote.Estado.APLICADA;
+            case RETIRO:
+                try {
+                    return producto.retirarCentavos(monto)
+                            ? ResultadoLote.Estado.APLICADA : ResultadoLote.Estado.FONDOS_INSUFICIENTES;
+                } catch (IllegalStateException e) {
+                    return ResultadoLote.Estado.FONDOS_INSUFICIENTES;
+                }
+            case COMPRA:
+                return ((TarjetaCredito) producto).cargarCentavos(monto)
+                        ? ResultadoLote.Estado.APLICADA : ResultadoLote.Estado.LIMITE_EXCEDIDO;
+            default:
+                try {
+                    ((TarjetaCredito) producto).realizarPago(Dinero.deCentavos(monto));
+                    return ResultadoLote.Estado.APLICADA;
+                } catch (IllegalArgumentException e) {
+                    return ResultadoLote.Estado.PAGO_EXCEDE_SALDO;
+                }
+        }
+    }
+
+    /**
+     * Cuentas {@code LOT-i}: ahorro si {@code i % 3 == 0}, corriente con sobregiro si {@code i % 3 == 1} y tarjeta
+     * si {@code i % 3 == 2}.
+     */
+    private static Map<String, ProductoFinanciero> crearCuentas(Cliente cliente, int cantidad) {
+        Map<String, ProductoFinanciero> cuentas = new ConcurrentHashMap<>(cantidad * 2);
+        for (int i = 0; i < cantidad; i++) {
+            String numero = "LOT-" + i;
+            switch (i % 3) {
+                case 0:
+                    cuentas.put(numero, new CuentaAhorro(numero, 500, cliente, 1));
+                    break;
+                case 1:
+                    cuentas.put(numero, new CuentaCorriente(numero, 500, cliente, 1, 300));
+                    break;
+                default:
+                    cuentas.put(numero, new TarjetaCredito(numero, 0, cliente, 2_000, 2));
+                    break;
+            }
+        }
+        return cuentas;
+    }
+
+    /**
+     * Genera transacciones en las que el 80% va al 1% de las cuentas.
+     */
+    private static List<Transaccion> generar(int cantidad, int cantidadCuentas) {
+        Random aleatorio = new Random(16);
+        int calientes = Math.max(3, cantidadCuentas / 100);
+        Map<Integer, String> numeros = new HashMap<>();
+        List<Transaccion> transacciones = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            int cuenta = aleatorio.nextInt(10) < 8 ? aleatorio.nextInt(calientes) : aleatorio.nextInt(cantidadCuentas);
+            String numero = numeros.computeIfAbsent(cuenta, c -> "LOT-" + c);
+            long monto = 100 + aleatorio.nextInt(20_000);
+            boolean tarjeta = cuenta % 3 == 2;
+            boolean abono = aleatorio.nextInt(100) < 55;
+            Transaccion.Tipo tipo = tarjeta
+                    ? (abono ? Transaccion.Tipo.PAGO : Transaccion.Tipo.COMPRA)
+                    : (abono ? Transaccion.Tipo.DEPOSITO : Transaccion.Tipo.RETIRO);
+            transacciones.add(new Transaccion(numero, tipo, monto));
+        }
+        return transacciones;
+    }
+}
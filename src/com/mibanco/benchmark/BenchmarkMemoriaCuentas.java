@@ -0,0 +1,89 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.CertificadoDeposito;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.CuentaCorriente;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.model.TipoProducto;
+import com.mibanco.servicios.AlmacenColumnarCuentas;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compara la memoria por cuenta del modelo de objetos (un {@link ProductoFinanciero} con su {@link Cliente},
+ * indexado en un {@link HashMap} por número de cuenta) frente a {@link AlmacenColumnarCuentas}.
+ * Conviene ejecutarlo con un heap fijo, por ejemplo {@code -Xms2g -Xmx2g}.
+ */
+public class BenchmarkMemoriaCuentas {
+
+    private static final TipoProducto[] TIPOS = TipoProducto.values();
+
+    /**
+     * Punto de entrada del benchmark. Acepta opcionalmente el número de cuentas como primer argumento.
+     */
+    public static void main(String[] args) {
+        int cuentas = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long base = memoriaUsada();
+        Map<String, ProductoFinanciero> objetos = crearObjetos(cuentas);
+        long bytesObjetos = memoriaUsada() - base;
+        System.out.printf("objetos:  %d cuentas, %.1f bytes/cuenta%n", objetos.size(), (double) bytesObjetos / cuentas);
+        objetos = null;
+
+        base = memoriaUsada();
+        AlmacenColumnarCuentas almacen = crearAlmacen(cuentas);
+        long bytesColumnar = memoriaUsada() - base;
+        System.out.printf("columnar: %d cuentas, %.1f bytes/cuenta%n", almacen.cantidad(), (double) bytesColumnar / cuentas);
+        System.out.printf("reducción: %.1fx%n", (double) bytesObjetos / bytesColumnar);
+    }
+
+    private static Map<String, ProductoFinanciero> crearObjetos(int cuentas) {
+        Map<String, ProductoFinanciero> mapa = new HashMap<>(cuentas * 2);
+        for (int i = 0; i < cuentas; i++) {
+            String numero = numeroCuenta(i);
+            Cliente cliente = new Cliente(String.valueOf(10_000_000 + i), "Cliente " + i,
+                    "cliente" + i + "@mibanco.com", String.valueOf(3_000_000_000L + i), "Calle " + i);
+            ProductoFinanciero producto;
+            switch (TIPOS[i & 3]) {
+                case CUENTA_AHORRO:
+                    producto = new CuentaAhorro(numero, 100, cliente, 3);
+                    break;
+                case CUENTA_CORRIENTE:
+                    producto = new CuentaCorriente(numero, 100, cliente, 1, 500);
+                    break;
+                case CERTIFICADO_DEPOSITO:
+                    producto = new CertificadoDeposito(numero, 100, cliente, 12, 8);
+                    break;
+                default:
+                    producto = new TarjetaCredito(numero, 0, cliente, 1_000, 2);
+                    break;
+            }
+            mapa.put(numero, producto);
+        }
+        return mapa;
+    }
+
+    private static AlmacenColumnarCuentas crearAlmacen(int cuentas) {
+        AlmacenColumnarCuentas almacen = new AlmacenColumnarCuentas(cuentas);
+        for (int i = 0; i < cuentas; i++) {
+            TipoProducto tipo = TIPOS[i & 3];
+            almacen.agregar(numeroCuenta(i), tipo, tipo == TipoProducto.TARJETA_CREDITO ? 0 : 100, 3, 500, 12);
+        }
+        return almacen;
+    }
+
+    private static String numeroCuenta(int i) {
+        return "CTA-" + i;
+    }
+
+    private static long memoriaUsada() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,111 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.metricas.ExportadorPrometheus;
+import com.mibanco.metricas.HistogramaLatencia;
+import com.mibanco.metricas.Metricas;
+import com.mibanco.metricas.Operacion;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.model.TipoProducto;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mide el costo de la instrumentación de {@link Metricas} sobre las operaciones de los productos. Como la
+ * activación es una constante fijada al arrancar, ejecuta la misma medición en JVM hijas: con las métricas activas
+ * midiendo todas las latencias, midiendo una de cada 64 y con {@code -Dmibanco.metricas=false}. Las JVM con
+ * métricas además consultan el punto de acceso HTTP de {@link ExportadorPrometheus} y muestran los percentiles
+ * registrados.
+ * <p>
+ * Uso: {@code BenchmarkMetricas [hilosContencion]}.
+ */
+public class BenchmarkMetricas {
+
+    private static final String HIJA = "--hija";
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(HIJA)) {
+            medir(Integer.parseInt(args[1]));
+            return;
+        }
+        String hilos = args.length > 0 ? args[0] : "4";
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String[][] configuraciones = {
+                {"-Dmibanco.metricas=true", "-Dmibanco.metricas.muestreo=1"},
+                {"-Dmibanco.metricas=true", "-Dmibanco.metricas.muestreo=64"},
+                {"-Dmibanco.metricas=false"}
+        };
+        for (String[] propiedades : configuraciones) {
+            System.out.println("== " + String.join(" ", propiedades));
+            List<String> comando = new ArrayList<>();
+            comando.add(java);
+            comando.addAll(List.of(propiedades));
+            comando.addAll(List.of("-cp", System.getProperty("java.class.path"), BenchmarkMetricas.class.getName(),
+                    HIJA, hilos));
+            Process proceso = new ProcessBuilder(comando).inheritIO().directory(new File(".")).start();
+            if (proceso.waitFor() != 0) {
+                throw new IllegalStateException("La medición terminó con código " + proceso.exitValue());
+            }
+        }
+    }
+
+    private static void medir(int hilosContencion) throws Exception {
+        UtilidadesBenchmark.desactivarEventos();
+        Cliente cliente = new Cliente("9170", "Benchmark Metricas", "metricas@mibanco.com", "3000000000", "Calle 17");
+        ArnesMicrobenchmark arnes = new ArnesMicrobenchmark(3, 5, 500);
+        for (int hilos : new int[]{1, hilosContencion}) {
+            String sufijo = hilos == 1 ? "" : ".contencion";
+            CuentaAhorro cuenta = new CuentaAhorro("BM-A" + hilos, 1e9, cliente, 1);
+            arnes.agregar("cuentaAhorro.depositarRetirar" + sufijo, hilos, () -> {
+                cuenta.depositarCentavos(1);
+                return cuenta.retirarCentavos(1) ? 1 : 0;
+            });
+            TarjetaCredito tarjeta = new TarjetaCredito("BM-T" + hilos, 0, cliente, 1e9, 2);
+            arnes.agregar("tarjetaCredito.compraPago" + sufijo, hilos, () -> {
+                tarjeta.cargarCentavos(1);
+                tarjeta.realizarPago(0.01);
+                return 1;
+            });
+        }
+        arnes.ejecutar(System.out, null);
+
+        if (!Metricas.ACTIVAS) {
+            return;
+        }
+        HistogramaLatencia.Instantanea depositos =
+                Metricas.de(TipoProducto.CUENTA_AHORRO, Operacion.DEPOSITO).getLatencias().instantanea();
+        System.out.printf("depositos registrados: %,d  p50=%d ns  p99=%d ns  p99.9=%d ns%n", depositos.getConteo(),
+                depositos.getPercentilNanos(0.5), depositos.getPercentilNanos(0.99), depositos.getPercentilNanos(0.999));
+        try (ExportadorPrometheus exportador = new ExportadorPrometheus()) {
+            int puerto = exportador.iniciar(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            HttpURLConnection conexion = (HttpURLConnection) new URL("http://localhost:" + puerto + "/metrics")
+                    .openConnection();
+            int lineas = 0;
+            try (BufferedReader lector = new BufferedReader(
+                    new InputStreamReader(conexion.getInputStream(), StandardCharsets.UTF_8))) {
+                String linea;
+                while ((linea = lector.readLine()) != null) {
+                    if (linea.startsWith("mibanco_operacion_duracion_percentil_segundos{producto=\"cuenta_ahorro\"")) {
+                        System.out.println(linea);
+                    }
+                    lineas++;
+                }
+            }
+            System.out.println("GET /metrics: HTTP " + conexion.getResponseCode() + ", " + lineas + " lineas");
+        }
+    }
+}
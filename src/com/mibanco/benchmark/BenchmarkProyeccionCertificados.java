@@ -0,0 +1,101 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.CertificadoDeposito;
+import com.mibanco.model.Cliente;
+import com.mibanco.servicios.CronogramaVencimientos;
+import com.mibanco.servicios.ProyectorVencimientos;
+import com.mibanco.servicios.ProyectorVencimientos.Modalidad;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compara la proyección de vencimientos de un portafolio de certificados hecha objeto por objeto, aplicando
+ * {@link CertificadoDeposito#aplicarInteresMensual()} mes a mes, con {@link ProyectorVencimientos} sobre columnas
+ * en su versión secuencial, paralela y de recorrido sin materializar. Verifica que todas coincidan al centavo
+ * con los productos.
+ * <p>
+ * Uso: {@code BenchmarkProyeccionCertificados [certificados] [plazoMaximoMeses]}.
+ */
+public class BenchmarkProyeccionCertificados {
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        int plazoMaximo = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        UtilidadesBenchmark.desactivarEventos();
+
+        Cliente cliente = new Cliente("9150", "Benchmark Proyeccion", "proyeccion@mibanco.com", "3000000000", "Calle 15");
+        Random aleatorio = new Random(15);
+        List<CertificadoDeposito> certificados = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            double saldo = (1 + aleatorio.nextInt(50_000_000)) / 100.0;
+            double tasa = aleatorio.nextInt(1_200) / 100.0;
+            certificados.add(new CertificadoDeposito("CDP-" + i, saldo, cliente, 1 + aleatorio.nextInt(plazoMaximo), tasa));
+        }
+        ProyectorVencimientos proyector = ProyectorVencimientos.deCertificados(certificados);
+
+        boolean coincide = true;
+        long[] simples = proyector.calcularPagosFinales(Modalidad.SIMPLE);
+        for (int i = 0; i < cantidad; i++) {
+            coincide &= simples[i] == certificados.get(i).calcularPagoFinalCentavos();
+        }
+        coincide &= proyector.proyectar(Modalidad.SIMPLE).getVencimientosTotalCentavos() == Arrays.stream(simples).sum();
+
+        for (int ronda = 0; ronda < 3; ronda++) {
+            long inicio = System.nanoTime();
+            long[] porObjetos = proyectarPorObjetos(certificados, cliente, plazoMaximo);
+            long nanosObjetos = System.nanoTime() - inicio;
+            CronogramaVencimientos secuencial = proyector.proyectarSecuencial(Modalidad.CAPITALIZACION_MENSUAL);
+            CronogramaVencimientos paralelo = proyector.proyectar(Modalidad.CAPITALIZACION_MENSUAL);
+            long[] filas = new long[2];
+            inicio = System.nanoTime();
+            proyector.recorrer(Modalidad.CAPITALIZACION_MENSUAL, (indice, mes, interes, saldo) -> {
+                filas[0]++;
+                filas[1] += interes;
+            });
+            long nanosRecorrido = System.nanoTime() - inicio;
+
+            for (int mes = 1; mes <= plazoMaximo; mes++) {
+                coincide &= porObjetos[mes] == secuencial.getVencimientosCentavos(mes)
+                        && secuencial.getVencimientosCentavos(mes) == paralelo.getVencimientosCentavos(mes)
+                        && secuencial.getSaldoVigenteCentavos(mes) == paralelo.getSaldoVigenteCentavos(mes);
+            }
+            coincide &= filas[1] == secuencial.getInteresTotalCentavos();
+            coincide &= Arrays.stream(proyector.calcularPagosFinales(Modalidad.CAPITALIZACION_MENSUAL)).sum()
+                    == secuencial.getVencimientosTotalCentavos();
+            if (ronda == 2) {
+                System.out.printf("%,d certificados, plazo hasta %d meses, %,d filas de cronograma%n",
+                        cantidad, plazoMaximo, filas[0]);
+                System.out.printf("objetos:     %8.1f ms%n", nanosObjetos / 1e6);
+                System.out.printf("secuencial:  %8.1f ms%n", secuencial.getDuracionNanos() / 1e6);
+                System.out.printf("paralelo:    %8.1f ms (%d hilos)%n", paralelo.getDuracionNanos() / 1e6,
+                        Runtime.getRuntime().availableProcessors());
+                System.out.printf("recorrido:   %8.1f ms%n", nanosRecorrido / 1e6);
+                System.out.println("Vencimientos: " + paralelo);
+            }
+        }
+        System.out.println("Resultados identicos a los productos: " + coincide);
+    }
+
+    /**
+     * Proyección de referencia: copia cada certificado y le aplica el interés mensual tantas veces como meses
+     * tenga su plazo, acumulando el pago de cada vencimiento por mes.
+     */
+    private static long[] proyectarPorObjetos(List<CertificadoDeposito> certificados, Cliente cliente, int plazoMaximo) {
+        long[] vencimientos = new long[plazoMaximo + 1];
+        for (CertificadoDeposito original : certificados) {
+            CertificadoDeposito copia = new CertificadoDeposito(original.getNumeroCuenta(), original.getSaldoDinero(),
+                    cliente, original.getPlazoMeses(), original.getTasa());
+            for (int mes = 1; mes <= copia.getPlazoMeses(); mes++) {
+                copia.aplicarInteresMensual();
+            }
+            vencimientos[copia.getPlazoMeses()] += copia.getSaldoCentavos();
+        }
+        return vencimientos;
+    }
+}
@@ -0,0 +1,113 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.eventos.Eventos;
+import com.mibanco.eventos.SumideroNulo;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.servicios.RegistroClientes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compara las búsquedas de {@link RegistroClientes} con el recorrido lineal de una lista de productos, y mide
+ * la tasa de aciertos del caché de resúmenes con un acceso sesgado hacia un subconjunto de clientes mientras
+ * otros hilos hacen depósitos que lo invalidan.
+ * <p>
+ * Uso: {@code BenchmarkRegistroClientes [clientes] [hilos]}.
+ */
+public class BenchmarkRegistroClientes {
+
+    private static final int CONSULTAS = 2_000_000;
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int clientes = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int hilos = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        RegistroClientes registro = new RegistroClientes(clientes / 20);
+        List<ProductoFinanciero> lista = new ArrayList<>(clientes * 2);
+        for (int i = 0; i < clientes; i++) {
+            Cliente cliente = new Cliente(documento(i), "Cliente " + i, correo(i), celular(i), "Calle " + i);
+            registro.registrarCliente(cliente);
+            ProductoFinanciero ahorro = new CuentaAhorro("AH-" + i, 100, cliente, 3);
+            ProductoFinanciero tarjeta = new TarjetaCredito("TC-" + i, 0, cliente, 1_000, 2);
+            registro.registrarProducto(ahorro);
+            registro.registrarProducto(tarjeta);
+            lista.add(ahorro);
+            lista.add(tarjeta);
+        }
+
+        int linealesConsultas = 200;
+        long inicio = System.nanoTime();
+        long encontrados = 0;
+        for (int q = 0; q < linealesConsultas; q++) {
+            String buscado = correo(ThreadLocalRandom.current().nextInt(clientes));
+            for (ProductoFinanciero producto : lista) {
+                if (producto.getCliente().getCorreoElectronico().equals(buscado)) {
+                    encontrados++;
+                    break;
+                }
+            }
+        }
+        double nanosLineal = (double) (System.nanoTime() - inicio) / linealesConsultas;
+
+        inicio = System.nanoTime();
+        for (int q = 0; q < CONSULTAS; q++) {
+            int i = ThreadLocalRandom.current().nextInt(clientes);
+            switch (q & 3) {
+                case 0:
+                    encontrados += registro.buscarPorDocumento(documento(i)) != null ? 1 : 0;
+                    break;
+                case 1:
+                    encontrados += registro.buscarPorCorreo(correo(i)) != null ? 1 : 0;
+                    break;
+                case 2:
+                    encontrados += registro.buscarPorCelular(celular(i)) != null ? 1 : 0;
+                    break;
+                default:
+                    encontrados += registro.buscarProducto("AH-" + i) != null ? 1 : 0;
+                    break;
+            }
+        }
+        double nanosIndice = (double) (System.nanoTime() - inicio) / CONSULTAS;
+        System.out.printf("busqueda lineal: %,.0f ns/consulta; registro: %,.0f ns/consulta (%d encontrados)%n",
+                nanosLineal, nanosIndice, encontrados);
+
+        // El 90 % de las consultas recae en el 2 % de los clientes; uno de cada cien accesos es un depósito.
+        Eventos.setSumidero(registro.sumideroInvalidacion(SumideroNulo.INSTANCIA));
+        int calientes = Math.max(1, clientes / 50);
+        long nanos = UtilidadesBenchmark.ejecutar(hilos, () -> {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            for (int q = 0; q < CONSULTAS / hilos; q++) {
+                int i = aleatorio.nextInt(10) < 9 ? aleatorio.nextInt(calientes) : aleatorio.nextInt(clientes);
+                if (aleatorio.nextInt(100) == 0) {
+                    registro.buscarProducto("AH-" + i).depositar(1);
+                } else {
+                    registro.getResumen(documento(i));
+                }
+            }
+        });
+        Eventos.setSumidero(SumideroNulo.INSTANCIA);
+        System.out.printf("resumenes: %d hilos, %,.0f ops/s, aciertos=%d fallos=%d desalojos=%d tasa=%.1f%%%n",
+                hilos, (double) CONSULTAS / nanos * 1e9, registro.getAciertosCache(), registro.getFallosCache(),
+                registro.getDesalojosCache(), registro.getTasaAciertosCache() * 100);
+    }
+
+    private static String documento(int i) {
+        return String.valueOf(10_000_000 + i);
+    }
+
+    private static String correo(int i) {
+        return "cliente" + i + "@mibanco.com";
+    }
+
+    private static String celular(int i) {
+        return String.valueOf(3_000_000_000L + i);
+    }
+}
@@ -0,0 +1,137 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.eventos.TipoEvento;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaCorriente;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.riesgo.Decision;
+import com.mibanco.riesgo.EvaluadorRiesgo;
+import com.mibanco.riesgo.Riesgo;
+import com.mibanco.servicios.EvaluadorVelocidad;
+import com.mibanco.servicios.LimitesVelocidad;
+import com.mibanco.servicios.LimitesVelocidad.Ventana;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mide el costo de {@link EvaluadorVelocidad} delante de los retiros y verifica su comportamiento:
+ * <ul>
+ *     <li>con un reloj simulado, que los límites por minuto y por día rechacen y vuelvan a aprobar cuando la
+ *     ventana avanza;</li>
+ *     <li>el tiempo por retiro sin evaluador y con él, en uno y varios hilos;</li>
+ *     <li>que con muchas más cuentas que el máximo de claves la memoria se mantenga acotada.</li>
+ * </ul>
+ * Uso: {@code BenchmarkRiesgo [operaciones] [cuentas] [hilos]}. Por defecto 5.000.000 retiros sobre 100.000 cuentas
+ * de 20.000 clientes y 4 hilos.
+ */
+public class BenchmarkRiesgo {
+
+    private static final int CUENTAS_POR_CLIENTE = 5;
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int operaciones = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int cantidadCuentas = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int hilos = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        UtilidadesBenchmark.desactivarEventos();
+
+        verificarVentanas();
+
+        ProductoFinanciero[] cuentas = crearCuentas(cantidadCuentas);
+        LimitesVelocidad holgados = LimitesVelocidad.SIN_LIMITE
+                .conMaximo(Ventana.MINUTO, 1_000_000, Long.MAX_VALUE / 4)
+                .conMaximo(Ventana.DIA, 100_000_000, Long.MAX_VALUE / 4);
+        EvaluadorVelocidad velocidad = new EvaluadorVelocidad(holgados, holgados, cantidadCuentas);
+        System.out.printf("contadores por clave: %d bytes%n", EvaluadorVelocidad.getBytesPorClave());
+        for (int ronda = 0; ronda < 2; ronda++) {
+            // La primera ronda calienta el compilador; se informa la segunda.
+            boolean informar = ronda == 1;
+            medir("sin evaluador", EvaluadorRiesgo.NINGUNO, cuentas, operaciones, 1, informar);
+            medir("velocidad", velocidad, cuentas, operaciones, 1, informar);
+            medir("velocidad", velocidad, cuentas, operaciones, hilos, informar);
+        }
+        System.out.printf("aprobadas=%,d rechazadas=%,d claves seguidas=%,d%n", velocidad.getAprobadas(),
+                velocidad.getRechazadasPorCuenta() + velocidad.getRechazadasPorCliente(), velocidad.getClavesSeguidas());
+
+        int maximoClaves = cantidadCuentas / 10;
+        EvaluadorVelocidad acotado = new EvaluadorVelocidad(holgados, holgados, maximoClaves);
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long antes = runtime.totalMemory() - runtime.freeMemory();
+        for (int i = 0; i < operaciones; i++) {
+            acotado.evaluar(TipoEvento.RETIRO, cuentas[i % cuentas.length], 100);
+        }
+        System.gc();
+        long despues = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf("acotado a %,d claves: seguidas=%,d olvidadas=%,d  heap retenido=%,.1f MiB (%,.0f bytes por clave)%n",
+                maximoClaves, acotado.getClavesSeguidas(), acotado.getClavesOlvidadas(),
+                (despues - antes) / 1048576.0, (double) (despues - antes) / acotado.getClavesSeguidas());
+        Riesgo.setEvaluador(EvaluadorRiesgo.NINGUNO);
+    }
+
+    private static void verificarVentanas() {
+        long[] ahora = {1_000_000_000_000L};
+        LimitesVelocidad porCuenta = LimitesVelocidad.SIN_LIMITE
+                .conMaximo(Ventana.MINUTO, 5, Long.MAX_VALUE)
+                .conMaximo(Ventana.DIA, Long.MAX_VALUE, 1_000_000);
+        EvaluadorVelocidad evaluador = new EvaluadorVelocidad(porCuenta, LimitesVelocidad.SIN_LIMITE, 1_000,
+                () -> ahora[0]);
+        ProductoFinanciero cuenta = crearCuentas(1)[0];
+        int primeras = aprobadas(evaluador, cuenta, 10, 1_000);
+        ahora[0] += 30_000;
+        int aMedioMinuto = aprobadas(evaluador, cuenta, 10, 1_000);
+        ahora[0] += 35_000;
+        int trasUnMinuto = aprobadas(evaluador, cuenta, 10, 1_000);
+        ahora[0] += 120_000;
+        int grande = aprobadas(evaluador, cuenta, 1, 990_001);
+        ahora[0] += 86_400_000;
+        int alDiaSiguiente = aprobadas(evaluador, cuenta, 1, 990_001);
+        System.out.printf("ventanas: aprobadas %d/10, a los 30 s %d/10, pasado el minuto %d/10; "
+                        + "monto sobre el tope diario %d/1, al dia siguiente %d/1%n",
+                primeras, aMedioMinuto, trasUnMinuto, grande, alDiaSiguiente);
+    }
+
+    private static int aprobadas(EvaluadorVelocidad evaluador, ProductoFinanciero cuenta, int intentos, long monto) {
+        int aprobadas = 0;
+        for (int i = 0; i < intentos; i++) {
+            if (evaluador.evaluar(TipoEvento.RETIRO, cuenta, monto) == Decision.APROBADA) {
+                aprobadas++;
+            }
+        }
+        return aprobadas;
+    }
+
+    private static void medir(String nombre, EvaluadorRiesgo evaluador, ProductoFinanciero[] cuentas,
+                              int operaciones, int hilos, boolean informar) throws InterruptedException {
+        Riesgo.setEvaluador(evaluador);
+        int porHilo = operaciones / hilos;
+        long nanos = UtilidadesBenchmark.ejecutar(hilos, () -> {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            for (int i = 0; i < porHilo; i++) {
+                ProductoFinanciero cuenta = cuentas[aleatorio.nextInt(cuentas.length)];
+                cuenta.retirarCentavos(100);
+                cuenta.depositarCentavos(100);
+            }
+        });
+        if (informar) {
+            long total = (long) porHilo * hilos;
+            System.out.printf("%-14s hilos=%d  retiro+deposito: %,8.1f ns/op  %,12.0f op/s%n",
+                    nombre, hilos, (double) nanos * hilos / total, total * 1e9 / nanos);
+        }
+    }
+
+    private static ProductoFinanciero[] crearCuentas(int cantidad) {
+        ProductoFinanciero[] cuentas = new ProductoFinanciero[cantidad];
+        Cliente cliente = null;
+        for (int i = 0; i < cantidad; i++) {
+            if (i % CUENTAS_POR_CLIENTE == 0) {
+                cliente = new Cliente(String.valueOf(10_000_000 + i / CUENTAS_POR_CLIENTE), "Benchmark Riesgo",
+                        "riesgo" + i + "@mibanco.com", "3000000000", "Calle 21");
+            }
+            cuentas[i] = new CuentaCorriente("RSG-" + i, 1_000_000, cliente, 0, 0);
+        }
+        return cuentas;
+    }
+}
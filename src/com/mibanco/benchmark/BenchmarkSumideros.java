@@ -0,0 +1,79 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.eventos.Eventos;
+import com.mibanco.eventos.SumideroAsincrono;
+import com.mibanco.eventos.SumideroConsola;
+import com.mibanco.eventos.SumideroEventos;
+import com.mibanco.eventos.SumideroNulo;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Compara la latencia de {@code depositar} con cada sumidero de eventos: nulo, consola síncrona y consola
+ * asíncrona a través del buffer circular. La salida estándar se redirige a un flujo nulo durante la medición
+ * para que el costo medido sea el de formatear y sincronizar, no el del terminal.
+ */
+public class BenchmarkSumideros {
+
+    private static final int OPERACIONES_POR_HILO = 500_000;
+
+    /**
+     * Punto de entrada del benchmark. Acepta opcionalmente el número de hilos como primer argumento.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int hilos = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        Cliente cliente = new Cliente("5000", "Benchmark Sumideros", "sumidero@mibanco.com", "3000000000", "Calle 6");
+        PrintStream salida = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            salida.println(medir("nulo", SumideroNulo.INSTANCIA, cliente, hilos));
+            salida.println(medir("consola", SumideroConsola.INSTANCIA, cliente, hilos));
+            try (SumideroAsincrono asincrono = new SumideroAsincrono(SumideroConsola.INSTANCIA, 1 << 16)) {
+                salida.println(medir("asincrono", asincrono, cliente, hilos));
+                salida.println("  eventos descartados por buffer lleno: " + asincrono.getDescartados());
+            }
+        } finally {
+            System.setOut(salida);
+            Eventos.setSumidero(SumideroNulo.INSTANCIA);
+        }
+    }
+
+    private static String medir(String nombre, SumideroEventos sumidero, Cliente cliente, int hilos)
+            throws InterruptedException {
+        Eventos.setSumidero(sumidero);
+        CuentaAhorro cuenta = new CuentaAhorro("SUM-" + nombre, 0, cliente, 0);
+        // Calentamiento con las mismas operaciones antes de medir.
+        for (int i = 0; i < OPERACIONES_POR_HILO; i++) {
+            cuenta.depositar(0.01);
+        }
+        long[][] latencias = new long[hilos][OPERACIONES_POR_HILO];
+        int[] siguiente = {0};
+        UtilidadesBenchmark.ejecutar(hilos, () -> {
+            long[] propias;
+            synchronized (siguiente) {
+                propias = latencias[siguiente[0]++];
+            }
+            for (int i = 0; i < OPERACIONES_POR_HILO; i++) {
+                long inicio = System.nanoTime();
+                cuenta.depositar(0.01);
+                propias[i] = System.nanoTime() - inicio;
+            }
+        });
+        long[] todas = new long[hilos * OPERACIONES_POR_HILO];
+        for (int h = 0; h < hilos; h++) {
+            System.arraycopy(latencias[h], 0, todas, h * OPERACIONES_POR_HILO, OPERACIONES_POR_HILO);
+        }
+        Arrays.sort(todas);
+        double media = Arrays.stream(todas).average().orElse(0);
+        return String.format("%-10s hilos=%d media=%.0fns p50=%dns p99=%dns p999=%dns",
+                nombre, hilos, media, percentil(todas, 0.50), percentil(todas, 0.99), percentil(todas, 0.999));
+    }
+
+    private static long percentil(long[] ordenadas, double percentil) {
+        return ordenadas[(int) Math.min(ordenadas.length - 1, Math.ceil(percentil * ordenadas.length) - 1)];
+    }
+}
@@ -0,0 +1,60 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.servicios.MotorTransferencias;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mide el rendimiento de {@link MotorTransferencias} con muchos hilos transfiriendo entre cuentas aleatorias.
+ * Al final verifica que la suma de saldos se conserve.
+ */
+public class BenchmarkTransferencias {
+
+    private static final int CUENTAS = 10_000;
+    private static final int TRANSFERENCIAS_POR_HILO = 200_000;
+
+    /**
+     * Punto de entrada del benchmark. Acepta opcionalmente el número máximo de hilos como primer argumento.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int maxHilos = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        Cliente cliente = new Cliente("2000", "Benchmark Transferencias", "bench@mibanco.com", "3000000000", "Calle 2");
+        UtilidadesBenchmark.desactivarEventos();
+        for (int hilos = 1; hilos <= maxHilos; hilos *= 2) {
+            System.out.println(medir(cliente, hilos));
+        }
+    }
+
+    private static String medir(Cliente cliente, int hilos) throws InterruptedException {
+        ProductoFinanciero[] cuentas = new ProductoFinanciero[CUENTAS];
+        long totalInicial = 0;
+        for (int i = 0; i < CUENTAS; i++) {
+            cuentas[i] = new CuentaAhorro("TRF-" + i, 1_000_000, cliente, 0);
+            totalInicial += cuentas[i].getSaldoCentavos();
+        }
+        MotorTransferencias motor = new MotorTransferencias();
+
+        long nanos = UtilidadesBenchmark.ejecutar(hilos, () -> {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            for (int i = 0; i < TRANSFERENCIAS_POR_HILO; i++) {
+                int origen = aleatorio.nextInt(CUENTAS);
+                int destino = aleatorio.nextInt(CUENTAS - 1);
+                if (destino >= origen) {
+                    destino++;
+                }
+                motor.transferir(cuentas[origen], cuentas[destino], 1);
+            }
+        });
+
+        long totalFinal = 0;
+        for (ProductoFinanciero cuenta : cuentas) {
+            totalFinal += cuenta.getSaldoCentavos();
+        }
+        long transferencias = (long) TRANSFERENCIAS_POR_HILO * hilos;
+        return String.format("hilos=%d transferencias=%d transferencias/s=%.0f totalConservado=%b",
+                hilos, transferencias, transferencias * 1e9 / nanos, totalFinal == totalInicial);
+    }
+}
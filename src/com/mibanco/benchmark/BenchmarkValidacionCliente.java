@@ -0,0 +1,83 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.ValidadorCliente;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compara la validación de clientes basada en {@code String.matches} (la implementación original de
+ * {@code Cliente}) con {@link ValidadorCliente}, uno a uno y por lotes. Reporta validaciones por segundo y bytes
+ * reservados por validación, medidos con el contador de asignación del hilo de la JVM.
+ * <p>
+ * Uso: {@code BenchmarkValidacionCliente [registros] [rondas]}.
+ */
+public class BenchmarkValidacionCliente {
+
+    private static final com.sun.management.ThreadMXBean HILOS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long sumidero;
+
+    /**
+     * Punto de entrada del benchmark.
+     */
+    public static void main(String[] args) {
+        int registros = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        String[] documentos = new String[registros];
+        String[] correos = new String[registros];
+        String[] celulares = new String[registros];
+        for (int i = 0; i < registros; i++) {
+            documentos[i] = String.valueOf(10_000_000 + i);
+            correos[i] = i % 100 == 0 ? "sin-arroba" : "cliente" + i + "@mibanco.com";
+            celulares[i] = i % 100 == 1 ? "300-000" : String.valueOf(3_000_000_000L + i);
+        }
+        boolean[] validos = new boolean[registros];
+        ValidadorCliente validador = ValidadorCliente.INSTANCIA;
+
+        for (int calentamiento = 0; calentamiento < 2; calentamiento++) {
+            medir("regex", registros, rondas, () -> {
+                long invalidos = 0;
+                for (int i = 0; i < registros; i++) {
+                    if (!esValidoConRegex(documentos[i], correos[i], celulares[i])) {
+                        invalidos++;
+                    }
+                }
+                return invalidos;
+            }, calentamiento == 1);
+            medir("validador", registros, rondas, () -> {
+                long invalidos = 0;
+                for (int i = 0; i < registros; i++) {
+                    if (!(validador.esDocumentoValido(documentos[i]) && validador.esCorreoValido(correos[i])
+                            && validador.esCelularValido(celulares[i]))) {
+                        invalidos++;
+                    }
+                }
+                return invalidos;
+            }, calentamiento == 1);
+            medir("validarLote", registros, rondas,
+                    () -> validador.validarLote(documentos, correos, celulares, validos), calentamiento == 1);
+        }
+        System.out.println("(invalidos acumulados: " + sumidero + ")");
+    }
+
+    private static boolean esValidoConRegex(String documento, String correo, String celular) {
+        return documento != null && correo != null && correo.contains("@") && celular != null && celular.matches("\\d+");
+    }
+
+    private static void medir(String nombre, int registros, int rondas, ArnesMicrobenchmark.Operacion ronda, boolean imprimir) {
+        long hilo = Thread.currentThread().getId();
+        long bytesInicio = HILOS.getThreadAllocatedBytes(hilo);
+        long inicio = System.nanoTime();
+        for (int r = 0; r < rondas; r++) {
+            sumidero += ronda.ejecutar();
+        }
+        long nanos = System.nanoTime() - inicio;
+        long bytes = HILOS.getThreadAllocatedBytes(hilo) - bytesInicio;
+        if (imprimir) {
+            long validaciones = (long) registros * rondas;
+            System.out.printf("%-12s %,14.0f validaciones/s %10.2f bytes/op %,10.1f MB/s%n", nombre,
+                    validaciones * 1e9 / nanos, (double) bytes / validaciones, bytes * 1e3 / nanos);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.mibanco.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generador determinista de carga para {@link ArnesCarga}: una mezcla configurable de altas de clientes,
+ * depósitos, retiros (con sobregiro en cuentas corrientes), compras y pagos con tarjeta y aperturas de
+ * certificados.
+ * <p>
+ * Cada hilo recibe su propio {@link Flujo}, con una semilla derivada de la semilla global, la corrida y el hilo, así
+ * que la secuencia de solicitudes de cada hilo es la misma en todas las ejecuciones con los mismos parámetros, sin
+ * importar cómo se intercalen los hilos. Lo que no se repite es el resultado de cada solicitud, que depende del
+ * orden en que los hilos tocan las mismas cuentas.
+ * <ul>
+ *     <li>Los movimientos se concentran en pocos clientes según una distribución de Zipf de exponente
+ *     {@code zipf} (0 es uniforme). El rango se permuta con una multiplicación modular para que los clientes más
+ *     activos no sean los primeros. Las altas y los certificados eligen cliente de forma uniforme.</li>
+ *     <li>Los montos siguen una distribución log-normal con mediana {@code montoMediano} centavos.</li>
+ *     <li>Con {@code tasa} positiva, las llegadas son un proceso de Poisson que alterna entre calma y ráfagas:
+ *     durante una ráfaga, que dura en promedio {@code duracionRafagaMs}, la tasa se multiplica por {@code rafaga};
+ *     las ráfagas ocupan en promedio la fracción {@code fraccionRafaga} del tiempo y la tasa media es
+ *     {@code tasa}. Con {@code tasa=0} cada hilo envía la siguiente solicitud al terminar la anterior y no hay
+ *     ráfagas.</li>
+ * </ul>
+ */
+final class GeneradorCarga {
+
+    /**
+     * Tipo de solicitud generada.
+     */
+    enum TipoSolicitud {
+        CREAR_CLIENTE,
+        DEPOSITO,
+        RETIRO,
+        RETIRO_CORRIENTE,
+        COMPRA,
+        PAGO,
+        ABRIR_CERTIFICADO
+    }
+
+    private static final TipoSolicitud[] TIPOS = TipoSolicitud.values();
+    private static final String[] CLAVES_PESO = {
+            "crearCliente", "deposito", "retiro", "retiroCorriente", "compra", "pago", "abrirCertificado"
+    };
+    private static final int[] PESOS_POR_DEFECTO = {3, 30, 20, 15, 20, 10, 2};
+    private static final double SIGMA_MONTO = 1.0;
+
+    private final long semilla;
+    private final int clientes;
+    private final double zipf;
+    private final double tasa;
+    private final double rafaga;
+    private final double fraccionRafaga;
+    private final double duracionRafagaMs;
+    private final long montoMediano;
+    private final int[] pesos;
+    private final int[] acumulados;
+    private final long multiplicador;
+
+    /**
+     * Crea un generador con los parámetros indicados; los que faltan toman su valor por defecto. Consume del mapa
+     * las claves que reconoce.
+     *
+     * @param parametros Parámetros {@code clave -> valor}.
+     * @throws IllegalArgumentException Si algún valor no es válido.
+     */
+    GeneradorCarga(Map<String, String> parametros) {
+        semilla = Long.parseLong(tomar(parametros, "semilla", "42"));
+        clientes = Integer.parseInt(tomar(parametros, "clientes", "200000"));
+        zipf = Double.parseDouble(tomar(parametros, "zipf", "0.99"));
+        tasa = Double.parseDouble(tomar(parametros, "tasa", "0"));
+        rafaga = Double.parseDouble(tomar(parametros, "rafaga", "5"));
+        fraccionRafaga = Double.parseDouble(tomar(parametros, "fraccionRafaga", "0.1"));
+        duracionRafagaMs = Double.parseDouble(tomar(parametros, "duracionRafagaMs", "50"));
+        montoMediano = Long.parseLong(tomar(parametros, "montoMediano", "5000"));
+        pesos = new int[TIPOS.length];
+        acumulados = new int[TIPOS.length];
+        int total = 0;
+        for (int i = 0; i < TIPOS.length; i++) {
+            pesos[i] = Integer.parseInt(tomar(parametros, CLAVES_PESO[i], String.valueOf(PESOS_POR_DEFECTO[i])));
+            if (pesos[i] < 0) {
+                throw new IllegalArgumentException("El peso de " + CLAVES_PESO[i] + " no puede ser negativo.");
+            }
+            total += pesos[i];
+            acumulados[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Al menos un tipo de solicitud debe tener peso positivo.");
+        }
+        if (clientes <= 0 || zipf < 0 || tasa < 0 || rafaga < 1 || montoMediano <= 0
+                || !(fraccionRafaga > 0 && fraccionRafaga < 1) || !(duracionRafagaMs > 0)) {
+            throw new IllegalArgumentException("Parámetros de carga inválidos: clientes y montoMediano deben ser "
+                    + "positivos, zipf y tasa no negativos, rafaga al menos 1, fraccionRafaga entre 0 y 1 y "
+                    + "duracionRafagaMs positiva.");
+        }
+        long candidato = 0x9E37_79B9L % clientes;
+        while (mcd(Math.max(candidato, 1), clientes) != 1) {
+            candidato++;
+        }
+        multiplicador = Math.max(candidato, 1);
+    }
+
+    /**
+     * @return Los parámetros efectivos, en un orden fijo, para el reporte.
+     */
+    Map<String, String> parametros() {
+        Map<String, String> efectivos = new LinkedHashMap<>();
+        efectivos.put("semilla", String.valueOf(semilla));
+        efectivos.put("clientes", String.valueOf(clientes));
+        efectivos.put("zipf", String.valueOf(zipf));
+        efectivos.put("tasa", String.valueOf(tasa));
+        efectivos.put("rafaga", String.valueOf(rafaga));
+        efectivos.put("fraccionRafaga", String.valueOf(fraccionRafaga));
+        efectivos.put("duracionRafagaMs", String.valueOf(duracionRafagaMs));
+        efectivos.put("montoMediano", String.valueOf(montoMediano));
+        for (int i = 0; i < TIPOS.length; i++) {
+            efectivos.put(CLAVES_PESO[i], String.valueOf(pesos[i]));
+        }
+        return efectivos;
+    }
+
+    long getSemilla() {
+        return semilla;
+    }
+
+    int getClientes() {
+        return clientes;
+    }
+
+    /**
+     * @return true si las solicitudes llegan según un calendario ({@code tasa} positiva) en lugar de una tras otra.
+     */
+    boolean esCalendarizado() {
+        return tasa > 0;
+    }
+
+    /**
+     * @param corrida Número de corrida.
+     * @param hilo Número de hilo.
+     * @param hilos Total de hilos, entre los que se reparte la tasa.
+     * @return Un flujo nuevo, siempre igual para la misma corrida, hilo y parámetros.
+     */
+    Flujo flujo(int corrida, int hilo, int hilos) {
+        return new Flujo(corrida, hilo, hilos);
+    }
+
+    /**
+     * Resume las primeras solicitudes de cada hilo de una corrida. Dos ejecuciones con la misma huella generaron la
+     * misma carga.
+     *
+     * @param corrida Número de corrida.
+     * @param hilos Total de hilos.
+     * @param solicitudes Número de solicitudes por hilo que se resumen.
+     * @return Huella de 64 bits, en hexadecimal.
+     */
+    String huella(int corrida, int hilos, int solicitudes) {
+        Solicitud solicitud = new Solicitud();
+        long huella = 0;
+        for (int h = 0; h < hilos; h++) {
+            Flujo flujo = flujo(corrida, h, hilos);
+            long parcial = h;
+            for (int i = 0; i < solicitudes; i++) {
+                flujo.siguiente(solicitud);
+                parcial = mezclar(parcial * 31 + solicitud.tipo.ordinal());
+                parcial = mezclar(parcial * 31 + solicitud.indice);
+                parcial = mezclar(parcial * 31 + solicitud.montoCentavos);
+                parcial = mezclar(parcial * 31 + solicitud.esperaNanos);
+            }
+            huella = huella * 31 + parcial;
+        }
+        return String.format(Locale.ROOT, "%016x", huella);
+    }
+
+    private static String tomar(Map<String, String> parametros, String clave, String porDefecto) {
+        String valor = parametros.remove(clave);
+        return valor == null ? porDefecto : valor;
+    }
+
+    private static long mcd(long a, long b) {
+        while (b != 0) {
+            long resto = a % b;
+            a = b;
+            b = resto;
+        }
+        return a;
+    }
+
+    private static long mezclar(long valor) {
+        valor = (valor ^ (valor >>> 33)) * 0xFF51_AFD7_ED55_8CCDL;
+        valor = (valor ^ (valor >>> 33)) * 0xC4CE_B9FE_1A85_EC53L;
+        return valor ^ (valor >>> 33);
+    }
+
+    /**
+     * Solicitud generada. Un mismo objeto se reutiliza en cada llamada a {@link Flujo#siguiente(Solicitud)} para no
+     * reservar memoria durante la medición.
+     */
+    static final class Solicitud {
+        TipoSolicitud tipo;
+        /** Cliente del portafolio inicial sobre el que se opera. */
+        int indice;
+        long montoCentavos;
+        /** Tiempo desde la llegada de la solicitud anterior; cero si no hay calendario. */
+        long esperaNanos;
+    }
+
+    /**
+     * Secuencia de solicitudes de un hilo. No es seguro compartirla entre hilos.
+     */
+    final class Flujo {
+
+        private final SplittableRandom aleatorio;
+        private final Zipf clientesActivos;
+        private final double tasaCalmaPorNano;
+        private final double duracionRafagaNanos;
+        private final double duracionCalmaNanos;
+        private boolean enRafaga;
+        private double restanteFaseNanos;
+
+        private Flujo(int corrida, int hilo, int hilos) {
+            aleatorio = new SplittableRandom(mezclar(semilla + mezclar(corrida * 0x1_0000L + hilo)));
+            clientesActivos = zipf > 0 ? new Zipf(clientes, zipf) : null;
+            double tasaHiloPorNano = tasa / hilos / 1e9;
+            tasaCalmaPorNano = tasaHiloPorNano / ((1 - fraccionRafaga) + fraccionRafaga * rafaga);
+            duracionRafagaNanos = duracionRafagaMs * 1e6;
+            duracionCalmaNanos = duracionRafagaNanos * (1 - fraccionRafaga) / fraccionRafaga;
+            restanteFaseNanos = exponencial(duracionCalmaNanos);
+        }
+
+        /**
+         * Genera la siguiente solicitud.
+         *
+         * @param solicitud Objeto donde se escribe.
+         */
+        void siguiente(Solicitud solicitud) {
+            int elegido = aleatorio.nextInt(acumulados[acumulados.length - 1]);
+            int tipo = 0;
+            while (elegido >= acumulados[tipo]) {
+                tipo++;
+            }
+            solicitud.tipo = TIPOS[tipo];
+            if (solicitud.tipo == TipoSolicitud.CREAR_CLIENTE || solicitud.tipo == TipoSolicitud.ABRIR_CERTIFICADO
+                    || clientesActivos == null) {
+                solicitud.indice = aleatorio.nextInt(clientes);
+            } else {
+                solicitud.indice = (int) ((clientesActivos.muestra(aleatorio) - 1) * multiplicador % clientes);
+            }
+            solicitud.montoCentavos = Math.max(1, Math.round(montoMediano
+                    * Math.exp(SIGMA_MONTO * aleatorio.nextGaussian())));
+            solicitud.esperaNanos = tasa > 0 ? espera() : 0;
+        }
+
+        /**
+         * Avanza el tiempo virtual del flujo hasta la siguiente llegada y cambia de fase si la llegada cae fuera de
+         * la actual. Solo usa el generador aleatorio, así que no depende del reloj.
+         */
+        private long espera() {
+            double tasaActual = enRafaga ? tasaCalmaPorNano * rafaga : tasaCalmaPorNano;
+            double espera = exponencial(1 / tasaActual);
+            restanteFaseNanos -= espera;
+            while (restanteFaseNanos <= 0) {
+                enRafaga = !enRafaga;
+                restanteFaseNanos += exponencial(enRafaga ? duracionRafagaNanos : duracionCalmaNanos);
+            }
+            return (long) espera;
+        }
+
+        private double exponencial(double media) {
+            return -media * Math.log(1 - aleatorio.nextDouble());
+        }
+    }
+
+    /**
+     * Muestreo de una distribución de Zipf sobre {@code 1..n} por rechazo-inversión (Hörmann y Derflinger, 1996):
+     * tiempo constante por muestra sin tablas, apto para millones de elementos.
+     */
+    static final class Zipf {
+
+        private final int elementos;
+        private final double exponente;
+        private final double hIntegralX1;
+        private final double hIntegralElementos;
+        private final double s;
+
+        Zipf(int elementos, double exponente) {
+            this.elementos = elementos;
+            this.exponente = exponente;
+            hIntegralX1 = hIntegral(1.5) - 1;
+            hIntegralElementos = hIntegral(elementos + 0.5);
+            s = 2 - hIntegralInversa(hIntegral(2.5) - h(2));
+        }
+
+        /**
+         * @return Un rango entre 1 y el número de elementos; el 1 es el más frecuente.
+         */
+        int muestra(SplittableRandom aleatorio) {
+            while (true) {
+                double u = hIntegralElementos + aleatorio.nextDouble() * (hIntegralX1 - hIntegralElementos);
+                double x = hIntegralInversa(u);
+                int k = (int) (x + 0.5);
+                k = Math.max(1, Math.min(elementos, k));
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k;
+                }
+            }
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return auxiliar2((1 - exponente) * logX) * logX;
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponente * Math.log(x));
+        }
+
+        private double hIntegralInversa(double x) {
+            double t = Math.max(-1, x * (1 - exponente));
+            return Math.exp(auxiliar1(t) * x);
+        }
+
+        /**
+         * {@code log1p(x) / x}, estable cerca de cero.
+         */
+        private static double auxiliar1(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+        }
+
+        /**
+         * {@code expm1(x) / x}, estable cerca de cero.
+         */
+        private static double auxiliar2(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+        }
+    }
+}
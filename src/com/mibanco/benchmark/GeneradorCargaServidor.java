@@ -0,0 +1,291 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.Cliente;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.servidor.ServidorBancario;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generador de carga para {@link ServidorBancario}. Abre muchas conexiones concurrentes, cada una con una
+ * solicitud en vuelo a la vez (consultas, depósitos, retiros, transferencias y compras), y reporta rendimiento y
+ * percentiles de latencia de ida y vuelta. Las conexiones se multiplexan en unos pocos hilos con selectores, igual
+ * que en el servidor.
+ * <p>
+ * Uso: {@code GeneradorCargaServidor [conexiones] [segundos] [cuentas] [host:puerto]}. Sin {@code host:puerto}
+ * arranca un servidor embebido con un portafolio de {@code cuentas} productos ({@code INT-0}, {@code INT-1}, ...);
+ * contra un servidor externo, este debe tener cargadas las mismas cuentas. Para decenas de miles de conexiones en
+ * una sola máquina hay que subir el límite de descriptores de archivo ({@code ulimit -n}), ya que cada conexión
+ * usa dos cuando cliente y servidor comparten proceso.
+ */
+public class GeneradorCargaServidor {
+
+    private static final long NANOS_CALENTAMIENTO = 2_000_000_000L;
+
+    /**
+     * Punto de entrada del generador.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int conexiones = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int cuentas = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        ServidorBancario embebido = null;
+        InetSocketAddress direccion;
+        if (args.length > 3) {
+            String[] partes = args[3].split(":");
+            direccion = new InetSocketAddress(partes[0], Integer.parseInt(partes[1]));
+        } else {
+            UtilidadesBenchmark.desactivarEventos();
+            Map<String, ProductoFinanciero> mapa = new ConcurrentHashMap<>();
+            for (ProductoFinanciero producto : BenchmarkInteresMensual.crearPortafolio(
+                    new Cliente("9200", "Benchmark Servidor", "servidor@mibanco.com", "3000000000", "Calle 13"), cuentas)) {
+                mapa.put(producto.getNumeroCuenta(), producto);
+            }
+            embebido = new ServidorBancario(mapa);
+            direccion = new InetSocketAddress("127.0.0.1", embebido.iniciar(new InetSocketAddress("127.0.0.1", 0)));
+        }
+
+        int hilos = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        long inicio = System.nanoTime();
+        long inicioMedicion = inicio + NANOS_CALENTAMIENTO;
+        long fin = inicioMedicion + segundos * 1_000_000_000L;
+        Cargador[] cargadores = new Cargador[hilos];
+        Thread[] hilosCarga = new Thread[hilos];
+        for (int i = 0; i < hilos; i++) {
+            int propias = conexiones / hilos + (i < conexiones % hilos ? 1 : 0);
+            cargadores[i] = new Cargador(direccion, propias, cuentas, inicioMedicion, fin);
+            hilosCarga[i] = new Thread(cargadores[i], "generador-carga-" + i);
+            hilosCarga[i].start();
+        }
+        int conectadas = 0;
+        long ok = 0;
+        long rechazadas = 0;
+        long errores = 0;
+        long fallidas = 0;
+        int muestras = 0;
+        for (int i = 0; i < hilos; i++) {
+            hilosCarga[i].join();
+            conectadas += cargadores[i].conectadas;
+            fallidas += cargadores[i].fallidas;
+            ok += cargadores[i].ok;
+            rechazadas += cargadores[i].rechazadas;
+            errores += cargadores[i].errores;
+            muestras += cargadores[i].cantidadLatencias;
+        }
+        long[] latencias = new long[muestras];
+        int posicion = 0;
+        for (Cargador cargador : cargadores) {
+            System.arraycopy(cargador.latencias, 0, latencias, posicion, cargador.cantidadLatencias);
+            posicion += cargador.cantidadLatencias;
+        }
+        Arrays.sort(latencias);
+
+        System.out.printf("conexiones: %d establecidas, %d fallidas, %d hilos de carga%n", conectadas, fallidas, hilos);
+        System.out.printf("solicitudes: %,d en %d s (%,.0f/s); OK=%d NO=%d ERR=%d%n",
+                muestras, segundos, muestras / (double) segundos, ok, rechazadas, errores);
+        if (muestras > 0) {
+            System.out.printf("latencia (us): p50=%.1f p99=%.1f p999=%.1f max=%.1f%n",
+                    percentil(latencias, 0.50) / 1e3, percentil(latencias, 0.99) / 1e3,
+                    percentil(latencias, 0.999) / 1e3, latencias[muestras - 1] / 1e3);
+        }
+        if (embebido != null) {
+            embebido.close();
+        }
+    }
+
+    private static long percentil(long[] ordenadas, double fraccion) {
+        return ordenadas[Math.min(ordenadas.length - 1, (int) (ordenadas.length * fraccion))];
+    }
+
+    private static final class Conexion {
+        final SocketChannel canal;
+        final ByteBuffer entrada = ByteBuffer.allocate(512);
+        ByteBuffer salida;
+        long enviadaNanos;
+
+        Conexion(SocketChannel canal) {
+            this.canal = canal;
+        }
+    }
+
+    /**
+     * Maneja un subconjunto de las conexiones en un hilo. Solo lo modifica su propio hilo; los resultados se leen
+     * después de {@code join}.
+     */
+    private static final class Cargador implements Runnable {
+        final InetSocketAddress direccion;
+        final int conexiones;
+        final int cuentas;
+        final long inicioMedicion;
+        final long fin;
+        int conectadas;
+        int fallidas;
+        long ok;
+        long rechazadas;
+        long errores;
+        long[] latencias = new long[1 << 16];
+        int cantidadLatencias;
+
+        Cargador(InetSocketAddress direccion, int conexiones, int cuentas, long inicioMedicion, long fin) {
+            this.direccion = direccion;
+            this.conexiones = conexiones;
+            this.cuentas = cuentas;
+            this.inicioMedicion = inicioMedicion;
+            this.fin = fin;
+        }
+
+        @Override
+        public void run() {
+            try (Selector selector = Selector.open()) {
+                for (int i = 0; i < conexiones; i++) {
+                    SocketChannel canal = SocketChannel.open();
+                    canal.configureBlocking(false);
+                    canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    canal.connect(direccion);
+                    canal.register(selector, SelectionKey.OP_CONNECT, new Conexion(canal));
+                }
+                int activas = conexiones;
+                while (activas > 0) {
+                    selector.select(100);
+                    Iterator<SelectionKey> seleccionadas = selector.selectedKeys().iterator();
+                    while (seleccionadas.hasNext()) {
+                        SelectionKey clave = seleccionadas.next();
+                        seleccionadas.remove();
+                        if (!atender(clave)) {
+                            cerrar(clave);
+                            activas--;
+                        }
+                    }
+                    if (System.nanoTime() - fin > 5_000_000_000L) {
+                        // Conexiones que no llegaron a responder a tiempo.
+                        break;
+                    }
+                }
+                for (SelectionKey clave : selector.keys()) {
+                    cerrar(clave);
+                }
+            } catch (IOException e) {
+                System.err.println("Error en el generador de carga: " + e.getMessage());
+            }
+        }
+
+        /**
+         * @return false si la conexión terminó, por fin de la prueba o por error.
+         */
+        private boolean atender(SelectionKey clave) {
+            Conexion conexion = (Conexion) clave.attachment();
+            try {
+                if (clave.isConnectable()) {
+                    conexion.canal.finishConnect();
+                    conectadas++;
+                    return enviar(clave, conexion);
+                }
+                if (clave.isWritable()) {
+                    conexion.canal.write(conexion.salida);
+                    if (!conexion.salida.hasRemaining()) {
+                        clave.interestOps(SelectionKey.OP_READ);
+                    }
+                    return true;
+                }
+                if (clave.isReadable()) {
+                    if (conexion.canal.read(conexion.entrada) < 0) {
+                        return false;
+                    }
+                    ByteBuffer entrada = conexion.entrada;
+                    int finLinea = -1;
+                    for (int i = 0; i < entrada.position(); i++) {
+                        if (entrada.get(i) == '\n') {
+                            finLinea = i;
+                            break;
+                        }
+                    }
+                    if (finLinea < 0) {
+                        return true;
+                    }
+                    long ahora = System.nanoTime();
+                    registrar(entrada.get(0), ahora - conexion.enviadaNanos, conexion.enviadaNanos);
+                    entrada.clear();
+                    return ahora - fin < 0 && enviar(clave, conexion);
+                }
+                return true;
+            } catch (IOException e) {
+                if (!clave.isValid() || conexion.canal.isConnectionPending()) {
+                    fallidas++;
+                }
+                return false;
+            }
+        }
+
+        private void registrar(byte tipoRespuesta, long nanos, long enviada) {
+            if (enviada - inicioMedicion < 0 || enviada - fin >= 0) {
+                return;
+            }
+            if (tipoRespuesta == 'O') {
+                ok++;
+            } else if (tipoRespuesta == 'N') {
+                rechazadas++;
+            } else {
+                errores++;
+            }
+            if (cantidadLatencias == latencias.length) {
+                latencias = Arrays.copyOf(latencias, latencias.length * 2);
+            }
+            latencias[cantidadLatencias++] = nanos;
+        }
+
+        private boolean enviar(SelectionKey clave, Conexion conexion) throws IOException {
+            conexion.salida = ByteBuffer.wrap(solicitud().getBytes(StandardCharsets.US_ASCII));
+            conexion.enviadaNanos = System.nanoTime();
+            conexion.canal.write(conexion.salida);
+            clave.interestOps(conexion.salida.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            return true;
+        }
+
+        /**
+         * Genera una solicitud aleatoria. En el portafolio del benchmark los productos {@code INT-4k} e
+         * {@code INT-4k+1} son cuentas de ahorro y corrientes, y los {@code INT-4k+3} son tarjetas.
+         */
+        private String solicitud() {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            int grupos = Math.max(1, cuentas / 4);
+            int cuenta = aleatorio.nextInt(grupos) * 4 + aleatorio.nextInt(2);
+            int tipo = aleatorio.nextInt(10);
+            int monto = 1 + aleatorio.nextInt(50);
+            if (tipo < 4) {
+                return "S INT-" + cuenta + "\n";
+            } else if (tipo < 7) {
+                return "D INT-" + cuenta + " " + monto + "\n";
+            } else if (tipo < 8) {
+                return "R INT-" + cuenta + " " + monto + "\n";
+            } else if (tipo < 9) {
+                int destino = aleatorio.nextInt(grupos) * 4 + aleatorio.nextInt(2);
+                if (destino == cuenta) {
+                    destino ^= 1;
+                }
+                return "T INT-" + cuenta + " INT-" + destino + " " + monto + "\n";
+            }
+            return "C INT-" + (aleatorio.nextInt(grupos) * 4 + 3) + " " + monto + "\n";
+        }
+
+        private static void cerrar(SelectionKey clave) {
+            clave.cancel();
+            try {
+                clave.channel().close();
+            } catch (IOException e) {
+                // La conexión ya no se usa.
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.CertificadoDeposito;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.CuentaCorriente;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Microbenchmarks de las operaciones críticas de {@code com.mibanco.model}: depósitos y retiros de cada tipo
+ * de producto, compras con tarjeta, pago final de certificados y construcción de {@link Cliente}.
+ * Cada operación sobre estado compartido se mide con un hilo y con varios hilos contendiendo por la misma cuenta.
+ * <p>
+ * Uso: {@code MicrobenchmarksModelo [archivo.json] [hilosContencion]}. Por defecto escribe
+ * {@code microbenchmarks-modelo.json} y usa 4 hilos en los casos con contención.
+ */
+public class MicrobenchmarksModelo {
+
+    private static final double SALDO_GRANDE = 1e10;
+
+    /**
+     * Punto de entrada de los microbenchmarks.
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        Path archivo = Paths.get(args.length > 0 ? args[0] : "microbenchmarks-modelo.json");
+        int hilosContencion = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        ArnesMicrobenchmark arnes = new ArnesMicrobenchmark(3, 5, 1_000);
+        Cliente cliente = new Cliente("4000", "Microbenchmark", "micro@mibanco.com", "3000000000", "Calle 4");
+
+        for (int hilos : new int[]{1, hilosContencion}) {
+            String sufijo = hilos == 1 ? "" : ".contencion";
+            agregarOperacionesDeSaldo(arnes, "cuentaAhorro", new CuentaAhorro("MB-A" + hilos, SALDO_GRANDE, cliente, 3), hilos, sufijo);
+            agregarOperacionesDeSaldo(arnes, "cuentaCorriente", new CuentaCorriente("MB-C" + hilos, SALDO_GRANDE, cliente, 1, 500), hilos, sufijo);
+            agregarOperacionesDeSaldo(arnes, "certificadoDeposito", new CertificadoDeposito("MB-D" + hilos, SALDO_GRANDE, cliente, 12, 8), hilos, sufijo);
+            agregarOperacionesDeSaldo(arnes, "tarjetaCredito", new TarjetaCredito("MB-T" + hilos, SALDO_GRANDE, cliente, 1_000, 2), hilos, sufijo);
+
+            TarjetaCredito tarjeta = new TarjetaCredito("MB-TC" + hilos, 0, cliente, SALDO_GRANDE, 2);
+            arnes.agregar("tarjetaCredito.realizarCompra" + sufijo, hilos, () -> {
+                tarjeta.realizarCompra(0.01);
+                return 1;
+            });
+
+            CertificadoDeposito certificado = new CertificadoDeposito("MB-CP" + hilos, 25_000, cliente, 18, 9.5);
+            arnes.agregar("certificadoDeposito.calcularPagoFinal" + sufijo, hilos,
+                    () -> Double.doubleToRawLongBits(certificado.calcularPagoFinal()));
+
+            arnes.agregar("cliente.constructor" + sufijo, hilos,
+                    () -> new Cliente("123456789", "Ana Pérez", "ana@mibanco.com", "3001234567", "Calle 5 # 10-20")
+                            .getNumeroCelular().length());
+        }
+
+        UtilidadesBenchmark.desactivarEventos();
+        arnes.ejecutar(System.out, archivo);
+    }
+
+    private static void agregarOperacionesDeSaldo(ArnesMicrobenchmark arnes, String nombre, ProductoFinanciero producto,
+                                                  int hilos, String sufijo) {
+        arnes.agregar(nombre + ".depositar" + sufijo, hilos, () -> {
+            producto.depositar(0.01);
+            return 1;
+        });
+        arnes.agregar(nombre + ".retirar" + sufijo, hilos, () -> producto.retirar(0.01) ? 1 : 0);
+    }
+}
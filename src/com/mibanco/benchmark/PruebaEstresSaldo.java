@@ -0,0 +1,70 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.CuentaCorriente;
+import com.mibanco.model.ProductoFinanciero;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de estrés multihilo para el saldo atómico de {@link ProductoFinanciero}.
+ * Verifica que depósitos y retiros concurrentes no pierdan actualizaciones, que el sobregiro de
+ * {@link CuentaCorriente} nunca se exceda, y reporta el rendimiento para distintos números de hilos.
+ */
+public class PruebaEstresSaldo {
+
+    private static final int OPERACIONES_POR_HILO = 200_000;
+
+    /**
+     * Punto de entrada de la prueba. Acepta opcionalmente el número máximo de hilos como primer argumento.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int maxHilos = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        Cliente cliente = new Cliente("1000", "Prueba Estres", "estres@mibanco.com", "3000000000", "Calle 1");
+        UtilidadesBenchmark.desactivarEventos();
+        for (int hilos = 1; hilos <= maxHilos; hilos *= 2) {
+            System.out.println(medirDepositosYRetiros(cliente, hilos));
+            System.out.println(verificarSobregiro(cliente, hilos));
+        }
+    }
+
+    /**
+     * Cada hilo alterna depósitos y retiros de un centavo; el saldo final debe coincidir con el inicial.
+     */
+    private static String medirDepositosYRetiros(Cliente cliente, int hilos) throws InterruptedException {
+        CuentaAhorro cuenta = new CuentaAhorro("EST-" + hilos, 1_000, cliente, 0);
+        long saldoInicial = cuenta.getSaldoCentavos();
+        long nanos = UtilidadesBenchmark.ejecutar(hilos, () -> {
+            for (int i = 0; i < OPERACIONES_POR_HILO; i++) {
+                cuenta.depositar(0.01);
+                cuenta.retirar(0.01);
+            }
+        });
+        long operaciones = 2L * OPERACIONES_POR_HILO * hilos;
+        boolean correcto = cuenta.getSaldoCentavos() == saldoInicial;
+        return String.format("hilos=%d operaciones=%d ops/s=%.0f saldoCorrecto=%b",
+                hilos, operaciones, operaciones * 1e9 / nanos, correcto);
+    }
+
+    /**
+     * Todos los hilos intentan retirar de una cuenta sin saldo; los retiros exitosos deben agotar exactamente el sobregiro.
+     */
+    private static String verificarSobregiro(Cliente cliente, int hilos) throws InterruptedException {
+        double limite = 10_000;
+        CuentaCorriente cuenta = new CuentaCorriente("SOB-" + hilos, 0, cliente, 0, limite);
+        AtomicLong exitosos = new AtomicLong();
+        UtilidadesBenchmark.ejecutar(hilos, () -> {
+            long locales = 0;
+            for (int i = 0; i < OPERACIONES_POR_HILO; i++) {
+                if (cuenta.retirar(1)) {
+                    locales++;
+                }
+            }
+            exitosos.addAndGet(locales);
+        });
+        boolean correcto = exitosos.get() == (long) limite && cuenta.getSaldo() == -limite;
+        return String.format("hilos=%d retirosExitosos=%d saldoFinal=%.2f sobregiroRespetado=%b",
+                hilos, exitosos.get(), cuenta.getSaldo(), correcto);
+    }
+}
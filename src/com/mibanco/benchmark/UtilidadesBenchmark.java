@@ -0,0 +1,51 @@
+package com.mibanco.benchmark;
+
+import com.mibanco.eventos.Eventos;
+import com.mibanco.eventos.SumideroNulo;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Utilidades compartidas por los programas de medición del paquete.
+ */
+final class UtilidadesBenchmark {
+
+    private UtilidadesBenchmark() {
+    }
+
+    /**
+     * Descarta los eventos de transacción para que su publicación no forme parte de la medición.
+     */
+    static void desactivarEventos() {
+        Eventos.setSumidero(SumideroNulo.INSTANCIA);
+    }
+
+    /**
+     * Ejecuta la tarea en el número de hilos indicado, arrancándolos a la vez.
+     *
+     * @param hilos Número de hilos.
+     * @param tarea Tarea que ejecuta cada hilo.
+     * @return Tiempo transcurrido en nanosegundos desde el arranque hasta que termina el último hilo.
+     */
+    static long ejecutar(int hilos, Runnable tarea) throws InterruptedException {
+        CountDownLatch inicio = new CountDownLatch(1);
+        CountDownLatch fin = new CountDownLatch(hilos);
+        for (int i = 0; i < hilos; i++) {
+            Thread hilo = new Thread(() -> {
+                try {
+                    inicio.await();
+                    tarea.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    fin.countDown();
+                }
+            });
+            hilo.start();
+        }
+        long comienzo = System.nanoTime();
+        inicio.countDown();
+        fin.await();
+        return System.nanoTime() - comienzo;
+    }
+}
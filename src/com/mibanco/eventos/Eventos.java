@@ -0,0 +1,65 @@
+package com.mibanco.eventos;
+
+import java.util.Objects;
+
+/**
+ * Punto de acceso global al sumidero de eventos que usan los productos financieros.
+ * Por defecto los eventos se escriben en consola a través de un {@link SumideroAsincrono}, que se crea
+ * la primera vez que se necesita; se puede reemplazar por {@link SumideroNulo}, {@link SumideroConsola}
+ * o cualquier otra implementación con {@link #setSumidero(SumideroEventos)}.
+ */
+public final class Eventos {
+
+    private static final int CAPACIDAD_POR_DEFECTO = 1 << 16;
+
+    private static volatile SumideroEventos sumidero;
+
+    private Eventos() {
+    }
+
+    /**
+     * @return El sumidero activo.
+     */
+    public static SumideroEventos getSumidero() {
+        SumideroEventos actual = sumidero;
+        if (actual == null) {
+            synchronized (Eventos.class) {
+                actual = sumidero;
+                if (actual == null) {
+                    actual = new SumideroAsincrono(SumideroConsola.INSTANCIA, CAPACIDAD_POR_DEFECTO);
+                    sumidero = actual;
+                }
+            }
+        }
+        return actual;
+    }
+
+    /**
+     * Reemplaza el sumidero activo. El sumidero anterior no se cierra.
+     *
+     * @param nuevo Nuevo sumidero de eventos.
+     */
+    public static void setSumidero(SumideroEventos nuevo) {
+        Objects.requireNonNull(nuevo, "El sumidero no puede ser nulo.");
+        synchronized (Eventos.class) {
+            sumidero = nuevo;
+        }
+    }
+
+    /**
+     * Cierra el sumidero activo si es asíncrono, entregando los eventos pendientes. Antes de cerrarlo lo reemplaza
+     * por {@link SumideroNulo}, de modo que los eventos posteriores no queden en un sumidero cerrado que ya nadie
+     * consume; quien quiera seguir recibiéndolos debe instalar otro con {@link #setSumidero(SumideroEventos)}.
+     */
+    public static void cerrar() {
+        SumideroAsincrono asincrono;
+        synchronized (Eventos.class) {
+            if (!(sumidero instanceof SumideroAsincrono)) {
+                return;
+            }
+            asincrono = (SumideroAsincrono) sumidero;
+            sumidero = SumideroNulo.INSTANCIA;
+        }
+        asincrono.close();
+    }
+}
@@ -0,0 +1,157 @@
+package com.mibanco.eventos;
+
+import com.mibanco.model.ProductoFinanciero;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sumidero que encola los eventos en un buffer circular acotado y sin bloqueos, y los entrega a otro
+ * sumidero desde un hilo de fondo. Varios hilos pueden publicar a la vez; cada posición del buffer lleva
+ * un número de secuencia que indica si está libre o lista para consumirse. Si el buffer está lleno el evento
+ * se descarta y se contabiliza, de modo que publicar nunca bloquea la operación que lo genera.
+ */
+public final class SumideroAsincrono implements SumideroEventos, AutoCloseable {
+
+    private static final VarHandle SECUENCIAS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle CABEZA;
+    private static final TipoEvento[] TIPOS = TipoEvento.values();
+    private static final long ESPERA_VACIO_NANOS = 50_000;
+
+    static {
+        try {
+            CABEZA = MethodHandles.lookup().findVarHandle(SumideroAsincrono.class, "cabeza", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final SumideroEventos destino;
+    private final int mascara;
+    private final long[] secuencias;
+    private final byte[] tipos;
+    private final ProductoFinanciero[] productos;
+    private final long[] montos;
+    private final long[] saldos;
+
+    @SuppressWarnings("unused") // Se accede mediante CABEZA.
+    private volatile long cabeza;
+    private long cola;
+    private final LongAdder descartados = new LongAdder();
+    private volatile boolean activo = true;
+    private final Thread consumidor;
+
+    /**
+     * Crea el sumidero y arranca su hilo de fondo.
+     *
+     * @param destino Sumidero que recibe los eventos desde el hilo de fondo.
+     * @param capacidad Número mínimo de eventos en espera (se redondea a la siguiente potencia de dos).
+     * @throws IllegalArgumentException Si la capacidad no es positiva.
+     */
+    public SumideroAsincrono(SumideroEventos destino, int capacidad) {
+        this.destino = Objects.requireNonNull(destino, "El sumidero de destino no puede ser nulo.");
+        if (capacidad <= 0 || capacidad > (1 << 30)) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva.");
+        }
+        int tamano = Integer.highestOneBit(capacidad);
+        if (tamano < capacidad) {
+            tamano <<= 1;
+        }
+        this.mascara = tamano - 1;
+        this.secuencias = new long[tamano];
+        for (int i = 0; i < tamano; i++) {
+            secuencias[i] = i;
+        }
+        this.tipos = new byte[tamano];
+        this.productos = new ProductoFinanciero[tamano];
+        this.montos = new long[tamano];
+        this.saldos = new long[tamano];
+        this.consumidor = new Thread(this::consumir, "sumidero-eventos");
+        this.consumidor.setDaemon(true);
+        this.consumidor.start();
+    }
+
+    @Override
+    public void publicar(TipoEvento tipo, ProductoFinanciero producto, long montoCentavos, long saldoCentavos) {
+        long posicion = (long) CABEZA.getVolatile(this);
+        int indice;
+        while (true) {
+            indice = (int) posicion & mascara;
+            long diferencia = (long) SECUENCIAS.getAcquire(secuencias, indice) - posicion;
+            if (diferencia == 0) {
+                if (CABEZA.weakCompareAndSet(this, posicion, posicion + 1)) {
+                    break;
+                }
+                posicion = (long) CABEZA.getVolatile(this);
+            } else if (diferencia < 0) {
+                descartados.increment();
+                return;
+            } else {
+                posicion = (long) CABEZA.getVolatile(this);
+            }
+        }
+        tipos[indice] = (byte) tipo.ordinal();
+        productos[indice] = producto;
+        montos[indice] = montoCentavos;
+        saldos[indice] = saldoCentavos;
+        SECUENCIAS.setRelease(secuencias, indice, posicion + 1);
+    }
+
+    /**
+     * @return Número de eventos descartados porque el buffer estaba lleno.
+     */
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    /**
+     * Detiene el hilo de fondo después de entregar los eventos pendientes.
+     */
+    @Override
+    public void close() {
+        activo = false;
+        LockSupport.unpark(consumidor);
+        try {
+            consumidor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void consumir() {
+        while (activo) {
+            if (drenar() == 0) {
+                LockSupport.parkNanos(this, ESPERA_VACIO_NANOS);
+            }
+        }
+        while (drenar() > 0) {
+            // Entrega lo que quedó pendiente al cerrar.
+        }
+    }
+
+    private int drenar() {
+        int entregados = 0;
+        while (true) {
+            int indice = (int) cola & mascara;
+            if ((long) SECUENCIAS.getAcquire(secuencias, indice) != cola + 1) {
+                return entregados;
+            }
+            TipoEvento tipo = TIPOS[tipos[indice]];
+            ProductoFinanciero producto = productos[indice];
+            long monto = montos[indice];
+            long saldo = saldos[indice];
+            productos[indice] = null;
+            SECUENCIAS.setRelease(secuencias, indice, cola + mascara + 1);
+            cola++;
+            try {
+                destino.publicar(tipo, producto, monto, saldo);
+            } catch (RuntimeException e) {
+                System.err.println("Error al entregar evento: " + e.getMessage());
+            }
+            entregados++;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.mibanco.eventos;
+
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TipoProducto;
+
+/**
+ * Sumidero que escribe cada evento en la salida estándar con los mismos mensajes que mostraban los productos.
+ * La escritura es síncrona; para sacarla de la ruta crítica se puede envolver en un {@link SumideroAsincrono}.
+ */
+public final class SumideroConsola implements SumideroEventos {
+
+    public static final SumideroConsola INSTANCIA = new SumideroConsola();
+
+    private SumideroConsola() {
+    }
+
+    @Override
+    public void publicar(TipoEvento tipo, ProductoFinanciero producto, long montoCentavos, long saldoCentavos) {
+        System.out.println(formatear(tipo, producto.getTipo(), ProductoFinanciero.aMonto(montoCentavos),
+                ProductoFinanciero.aMonto(saldoCentavos)));
+    }
+
+    private static String formatear(TipoEvento tipo, TipoProducto producto, double monto, double saldo) {
+        switch (tipo) {
+            case DEPOSITO:
+                return "Depósito realizado. Nuevo saldo: " + saldo;
+            case RETIRO:
+                return producto == TipoProducto.CUENTA_CORRIENTE
+                        ? "Retiro exitoso. Nuevo saldo: " + saldo
+                        : "Retiro realizado. Saldo restante: " + saldo;
+            case RETIRO_RECHAZADO:
+                return "Fondos insuficientes, incluyendo sobregiro.";
+            case COMPRA:
+                return "Compra realizada exitosamente. Saldo utilizado: " + saldo;
+            case PAGO:
+                return "Pago realizado. Saldo actual: " + saldo;
+            case INTERES:
+                switch (producto) {
+                    case CUENTA_CORRIENTE:
+                        return "Intereses añadidos: " + monto + ". Nuevo saldo: " + saldo;
+                    case CERTIFICADO_DEPOSITO:
+                        return "Intereses acumulados para este mes: " + monto + ". Saldo actual: " + saldo;
+                    case TARJETA_CREDITO:
+                        return "Intereses de tarjeta de crédito añadidos: " + monto;
+                    default:
+                        return "Intereses añadidos: " + monto;
+                }
+            default:
+                throw new IllegalArgumentException("Tipo de evento desconocido: " + tipo);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.mibanco.eventos;
+
+import com.mibanco.model.ProductoFinanciero;
+
+/**
+ * Destino de los eventos de transacción generados por los productos financieros.
+ * Los datos del evento se pasan como primitivos para que publicar no requiera construir cadenas
+ * ni objetos en la ruta crítica de cada operación.
+ */
+public interface SumideroEventos {
+
+    /**
+     * Publica un evento de transacción.
+     *
+     * @param tipo Tipo de evento.
+     * @param producto Producto sobre el que se realizó la operación.
+     * @param montoCentavos Monto de la operación, en centavos.
+     * @param saldoCentavos Saldo resultante de la operación (saldo utilizado en tarjetas), en centavos.
+     */
+    void publicar(TipoEvento tipo, ProductoFinanciero producto, long montoCentavos, long saldoCentavos);
+}
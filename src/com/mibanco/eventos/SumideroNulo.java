@@ -0,0 +1,19 @@
+package com.mibanco.eventos;
+
+import com.mibanco.model.ProductoFinanciero;
+
+/**
+ * Sumidero que descarta todos los eventos.
+ */
+public final class SumideroNulo implements SumideroEventos {
+
+    public static final SumideroNulo INSTANCIA = new SumideroNulo();
+
+    private SumideroNulo() {
+    }
+
+    @Override
+    public void publicar(TipoEvento tipo, ProductoFinanciero producto, long montoCentavos, long saldoCentavos) {
+        // Intencionalmente vacío.
+    }
+}
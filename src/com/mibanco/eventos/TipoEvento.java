@@ -0,0 +1,13 @@
+package com.mibanco.eventos;
+
+/**
+ * Tipos de evento que generan las operaciones sobre productos financieros.
+ */
+public enum TipoEvento {
+    DEPOSITO,
+    RETIRO,
+    RETIRO_RECHAZADO,
+    COMPRA,
+    PAGO,
+    INTERES
+}
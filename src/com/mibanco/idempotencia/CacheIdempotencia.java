@@ -0,0 +1,437 @@
+package com.mibanco.idempotencia;
+
+import com.mibanco.riesgo.RechazoPorRiesgoException;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Registro de las operaciones ya ejecutadas, por clave de idempotencia, para que los reintentos de un mismo pedido
+ * no se apliquen dos veces: la primera ejecución con una clave guarda su resultado, y las siguientes devuelven ese
+ * resultado (o vuelven a lanzar la misma excepción) sin ejecutar de nuevo.
+ * <p>
+ * El registro está acotado en tiempo y en tamaño. Una clave se recuerda durante la retención configurada; pasado
+ * ese tiempo se olvida y un nuevo pedido con ella se ejecuta. Además cada segmento es un anillo de capacidad fija que,
+ * lleno, reemplaza su entrada más antigua aunque no haya vencido: la capacidad debe alcanzar para todas las
+ * operaciones de la ventana de retención, y {@link #paraTasa(long, long)} la calcula a partir de la tasa de
+ * operaciones esperada. {@link #getDesalojosTempranos()} cuenta las veces que no alcanzó.
+ * <p>
+ * No se guardan objetos por operación: la clave se reduce a una huella de 128 bits y el anillo y su índice son
+ * arreglos de primitivos reservados al crear el registro, así que el recolector de basura no los recorre entrada por
+ * entrada ni tiene que liberarlos. Dos claves distintas solo se confunden si coinciden sus 128 bits de huella.
+ * <p>
+ * Cada pedido lleva además una huella de sus parámetros (cuenta, operación y montos). Reutilizar una clave vigente con
+ * parámetros distintos es un error del cliente y se rechaza con {@link IllegalArgumentException}; repetir una clave
+ * mientras su primera ejecución sigue en curso se rechaza con {@link IllegalStateException}.
+ */
+public final class CacheIdempotencia {
+
+    /**
+     * Operación protegida por una clave. Su resultado se guarda como un {@code long}.
+     */
+    @FunctionalInterface
+    public interface Accion {
+        long ejecutar();
+    }
+
+    private static final int SEGMENTOS = 64;
+    private static final byte VACIA = 0;
+    private static final byte EN_CURSO = 1;
+    private static final byte COMPLETADA = 2;
+    private static final byte RECHAZADA_ARGUMENTO = 3;
+    private static final byte RECHAZADA_ESTADO = 4;
+    private static final byte RECHAZADA_RIESGO = 5;
+
+    private final Segmento[] segmentos;
+    private final long retencionMillis;
+    private final LongSupplier reloj;
+    private final LongAdder nuevas = new LongAdder();
+    private final LongAdder repeticiones = new LongAdder();
+    private final LongAdder conflictos = new LongAdder();
+    private final LongAdder desalojosTempranos = new LongAdder();
+
+    /**
+     * Crea un registro que usa el reloj del sistema.
+     *
+     * @param capacidad Número máximo de claves recordadas.
+     * @param retencionMillis Tiempo durante el que se recuerda cada clave, en milisegundos.
+     */
+    public CacheIdempotencia(int capacidad, long retencionMillis) {
+        this(capacidad, retencionMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * Crea un registro.
+     *
+     * @param capacidad Número máximo de claves recordadas.
+     * @param retencionMillis Tiempo durante el que se recuerda cada clave, en milisegundos.
+     * @param reloj Fuente del instante actual, en milisegundos.
+     * @throws IllegalArgumentException Si la capacidad o la retención no son positivas.
+     */
+    public CacheIdempotencia(int capacidad, long retencionMillis, LongSupplier reloj) {
+        if (capacidad <= 0 || retencionMillis <= 0) {
+            throw new IllegalArgumentException("La capacidad y la retención deben ser positivas.");
+        }
+        this.retencionMillis = retencionMillis;
+        this.reloj = Objects.requireNonNull(reloj, "El reloj no puede ser nulo.");
+        int cantidad = Math.min(SEGMENTOS, Integer.highestOneBit(capacidad));
+        int capacidadSegmento = (capacidad + cantidad - 1) / cantidad;
+        this.segmentos = new Segmento[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            segmentos[i] = new Segmento(capacidadSegmento);
+        }
+    }
+
+    /**
+     * Crea un registro con capacidad para todas las operaciones de la ventana de retención a la tasa indicada, con un
+     * 25 % de margen para las ráfagas y el reparto desigual entre segmentos.
+     *
+     * @param operacionesPorSegundo Tasa máxima sostenida de operaciones con clave.
+     * @param retencionMillis Tiempo durante el que se recuerda cada clave, en milisegundos.
+     * @return El registro.
+     * @throws IllegalArgumentException Si la tasa o la retención no son positivas, o si la capacidad resultante no
+     *                                  cabe en un {@code int}.
+     */
+    public static CacheIdempotencia paraTasa(long operacionesPorSegundo, long retencionMillis) {
+        if (operacionesPorSegundo <= 0 || retencionMillis <= 0) {
+            throw new IllegalArgumentException("La tasa y la retención deben ser positivas.");
+        }
+        double capacidad = Math.ceil(operacionesPorSegundo * (retencionMillis / 1000.0) * 1.25);
+        if (capacidad > Integer.MAX_VALUE - SEGMENTOS) {
+            throw new IllegalArgumentException("La tasa y la retención requieren demasiadas entradas.");
+        }
+        return new CacheIdempotencia((int) capacidad, retencionMillis);
+    }
+
+    /**
+     * Ejecuta una acción una sola vez por clave. Si la clave ya se usó y no ha vencido, devuelve el resultado de la
+     * primera ejecución sin ejecutar la acción, o vuelve a lanzar su excepción si la acción la rechazó con
+     * {@link IllegalArgumentException} o {@link IllegalStateException}, incluido el tipo propio de
+     * {@link RechazoPorRiesgoException}. Si la acción falla con otra excepción la
+     * clave se libera, para que un reintento pueda ejecutarla.
+     *
+     * @param clave Clave de idempotencia del pedido.
+     * @param huellaPedido Huella de los parámetros del pedido.
+     * @param accion Acción a ejecutar.
+     * @return El resultado de la acción.
+     * @throws IllegalArgumentException Si la clave es nula o vacía, o si ya se usó con otros parámetros.
+     * @throws IllegalStateException Si la primera ejecución con esta clave sigue en curso.
+     */
+    public long ejecutar(String clave, long huellaPedido, Accion accion) {
+        if (clave == null || clave.isEmpty()) {
+            throw new IllegalArgumentException("La clave de idempotencia no puede ser nula o vacía.");
+        }
+        long alta = 0x9E3779B97F4A7C15L;
+        long baja = 0xC2B2AE3D27D4EB4FL;
+        for (int i = 0; i < clave.length(); i++) {
+            char c = clave.charAt(i);
+            alta = (alta ^ c) * 0x100000001B3L;
+            baja = Long.rotateLeft(baja + c * 0x9E3779B97F4A7C15L, 31) * 0xBF58476D1CE4E5B9L;
+        }
+        return registrar(mezclar(alta ^ clave.length()), mezclar(baja), huellaPedido, accion);
+    }
+
+    /**
+     * Igual que {@link #ejecutar(String, long, Accion)} para claves que ya son de 128 bits, como un {@code UUID}
+     * ({@code getMostSignificantBits()} y {@code getLeastSignificantBits()}).
+     *
+     * @param claveAlta 64 bits altos de la clave.
+     * @param claveBaja 64 bits bajos de la clave.
+     * @param huellaPedido Huella de los parámetros del pedido.
+     * @param accion Acción a ejecutar.
+     * @return El resultado de la acción.
+     */
+    public long ejecutar(long claveAlta, long claveBaja, long huellaPedido, Accion accion) {
+        // La mezcla es biyectiva: reparte claves consecutivas entre segmentos sin introducir colisiones.
+        return registrar(mezclar(claveAlta), mezclar(claveBaja), huellaPedido, accion);
+    }
+
+    private long registrar(long claveAlta, long claveBaja, long huellaPedido, Accion accion) {
+        Segmento segmento = segmentos[(int) (claveAlta >>> 32) & (segmentos.length - 1)];
+        long ahora = reloj.getAsLong();
+        int entrada;
+        synchronized (segmento) {
+            int posicion = segmento.buscar(claveAlta, claveBaja);
+            if (posicion >= 0) {
+                int anterior = segmento.indice[posicion] - 1;
+                if (ahora - segmento.campo(anterior, Segmento.INSTANTE) < retencionMillis) {
+                    return repetir(segmento, anterior, huellaPedido);
+                }
+                segmento.olvidar(posicion);
+            }
+            entrada = segmento.insertar(claveAlta, claveBaja, huellaPedido, ahora, retencionMillis, desalojosTempranos);
+        }
+        nuevas.increment();
+
+        long resultado;
+        try {
+            resultado = accion.ejecutar();
+        } catch (IllegalArgumentException e) {
+            segmento.completar(entrada, claveAlta, claveBaja, RECHAZADA_ARGUMENTO, 0, e.getMessage());
+            throw e;
+        } catch (RechazoPorRiesgoException e) {
+            segmento.completar(entrada, claveAlta, claveBaja, RECHAZADA_RIESGO, 0, e.getMessage());
+            throw e;
+        } catch (IllegalStateException e) {
+            segmento.completar(entrada, claveAlta, claveBaja, RECHAZADA_ESTADO, 0, e.getMessage());
+            throw e;
+        } catch (RuntimeException | Error e) {
+            segmento.liberar(entrada, claveAlta, claveBaja);
+            throw e;
+        }
+        segmento.completar(entrada, claveAlta, claveBaja, COMPLETADA, resultado, null);
+        return resultado;
+    }
+
+    /**
+     * Combina valores en una huella de pedido.
+     *
+     * @param huella Huella acumulada (0 para empezar).
+     * @param valor Valor a incorporar.
+     * @return La nueva huella.
+     */
+    public static long combinar(long huella, long valor) {
+        return mezclar(huella * 31 + valor);
+    }
+
+    /**
+     * @return Número de claves recordadas.
+     */
+    public int tamano() {
+        int total = 0;
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                total += segmento.ocupadas;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return Número máximo de claves recordadas.
+     */
+    public int getCapacidad() {
+        return segmentos.length * segmentos[0].capacidad;
+    }
+
+    public long getRetencionMillis() {
+        return retencionMillis;
+    }
+
+    /**
+     * @return Bytes reservados por los arreglos del registro, que no cambian mientras existe.
+     */
+    public long getBytesReservados() {
+        long total = 0;
+        for (Segmento segmento : segmentos) {
+            // Los campos de cada entrada, una referencia (comprimida) a su mensaje y el índice.
+            total += (long) segmento.entradas.length * Long.BYTES + (long) segmento.capacidad * Integer.BYTES
+                    + (long) segmento.indice.length * Integer.BYTES;
+        }
+        return total;
+    }
+
+    /**
+     * @return Número de acciones ejecutadas por primera vez.
+     */
+    public long getNuevas() {
+        return nuevas.sum();
+    }
+
+    /**
+     * @return Número de pedidos repetidos respondidos con el resultado guardado.
+     */
+    public long getRepeticiones() {
+        return repeticiones.sum();
+    }
+
+    /**
+     * @return Número de pedidos rechazados porque la primera ejecución con su clave seguía en curso.
+     */
+    public long getConflictos() {
+        return conflictos.sum();
+    }
+
+    /**
+     * @return Número de claves olvidadas por falta de capacidad antes de cumplir su retención.
+     */
+    public long getDesalojosTempranos() {
+        return desalojosTempranos.sum();
+    }
+
+    /**
+     * Se invoca con el lock del segmento tomado.
+     */
+    private long repetir(Segmento segmento, int entrada, long huellaPedido) {
+        if (segmento.campo(entrada, Segmento.HUELLA) != huellaPedido) {
+            throw new IllegalArgumentException("La clave de idempotencia ya se usó con otros parámetros.");
+        }
+        switch ((byte) segmento.campo(entrada, Segmento.ESTADO)) {
+            case EN_CURSO:
+                conflictos.increment();
+                throw new IllegalStateException("La operación con esta clave de idempotencia sigue en curso.");
+            case RECHAZADA_ARGUMENTO:
+                repeticiones.increment();
+                throw new IllegalArgumentException(segmento.mensajes[entrada]);
+            case RECHAZADA_ESTADO:
+                repeticiones.increment();
+                throw new IllegalStateException(segmento.mensajes[entrada]);
+            case RECHAZADA_RIESGO:
+                repeticiones.increment();
+                throw new RechazoPorRiesgoException(segmento.mensajes[entrada]);
+            default:
+                repeticiones.increment();
+                return segmento.campo(entrada, Segmento.RESULTADO);
+        }
+    }
+
+    private static long mezclar(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Anillo de entradas en orden de llegada, con un índice de direccionamiento abierto (sondeo lineal) que guarda la
+     * posición de cada entrada en el anillo más uno; 0 marca una celda libre. Los campos de cada entrada van juntos
+     * en un solo arreglo, para que consultarla toque una sola línea de caché. Se protege con su propio monitor.
+     */
+    private static final class Segmento {
+        static final int CAMPOS = 6;
+        static final int ALTA = 0;
+        static final int BAJA = 1;
+        static final int HUELLA = 2;
+        static final int RESULTADO = 3;
+        static final int INSTANTE = 4;
+        static final int ESTADO = 5;
+
+        final long[] entradas;
+        final String[] mensajes;
+        final int[] indice;
+        final int capacidad;
+        final int mascara;
+        int siguiente;
+        int ocupadas;
+
+        Segmento(int capacidad) {
+            this.capacidad = capacidad;
+            entradas = new long[capacidad * CAMPOS];
+            mensajes = new String[capacidad];
+            // Factor de carga de 0,5 como máximo, para sondeos cortos.
+            indice = new int[Integer.highestOneBit(Math.max(1, capacidad - 1)) << 2];
+            mascara = indice.length - 1;
+        }
+
+        long campo(int entrada, int campo) {
+            return entradas[entrada * CAMPOS + campo];
+        }
+
+        /**
+         * @return La celda del índice que apunta a la clave, o -1 si no está.
+         */
+        int buscar(long alta, long baja) {
+            for (int i = posicionIdeal(alta, baja); ; i = (i + 1) & mascara) {
+                int entrada = indice[i] - 1;
+                if (entrada < 0) {
+                    return -1;
+                }
+                int base = entrada * CAMPOS;
+                if (entradas[base + BAJA] == baja && entradas[base + ALTA] == alta) {
+                    return i;
+                }
+            }
+        }
+
+        /**
+         * Ocupa la entrada más antigua del anillo con una clave en curso y la indexa.
+         *
+         * @return La posición de la entrada en el anillo.
+         */
+        int insertar(long alta, long baja, long huella, long ahora, long retencion, LongAdder desalojosTempranos) {
+            int entrada = siguiente;
+            siguiente = entrada + 1 == capacidad ? 0 : entrada + 1;
+            int base = entrada * CAMPOS;
+            if (entradas[base + ESTADO] != VACIA) {
+                if (ahora - entradas[base + INSTANTE] < retencion) {
+                    desalojosTempranos.increment();
+                }
+                eliminar(buscar(entradas[base + ALTA], entradas[base + BAJA]));
+            } else {
+                ocupadas++;
+            }
+            entradas[base + ALTA] = alta;
+            entradas[base + BAJA] = baja;
+            entradas[base + HUELLA] = huella;
+            entradas[base + INSTANTE] = ahora;
+            entradas[base + ESTADO] = EN_CURSO;
+            mensajes[entrada] = null;
+            int i = posicionIdeal(alta, baja);
+            while (indice[i] != 0) {
+                i = (i + 1) & mascara;
+            }
+            indice[i] = entrada + 1;
+            return entrada;
+        }
+
+        /**
+         * Quita una entrada del índice y la marca libre; el anillo la reutiliza cuando le toque.
+         */
+        void olvidar(int celda) {
+            entradas[(indice[celda] - 1) * CAMPOS + ESTADO] = VACIA;
+            eliminar(celda);
+            ocupadas--;
+        }
+
+        /**
+         * Quita una celda del índice desplazando hacia atrás las que la siguen en su secuencia de sondeo, de modo que
+         * no queden marcas de borrado.
+         */
+        private void eliminar(int celda) {
+            int hueco = celda;
+            for (int i = (celda + 1) & mascara; indice[i] != 0; i = (i + 1) & mascara) {
+                int base = (indice[i] - 1) * CAMPOS;
+                int ideal = posicionIdeal(entradas[base + ALTA], entradas[base + BAJA]);
+                if (((i - ideal) & mascara) >= ((i - hueco) & mascara)) {
+                    indice[hueco] = indice[i];
+                    hueco = i;
+                }
+            }
+            indice[hueco] = 0;
+        }
+
+        /**
+         * Combina ambas mitades de la clave: el segmento se elige con los bits altos de la mitad alta, y una de las
+         * mitades puede ser constante cuando el llamador usa claves numéricas.
+         */
+        private int posicionIdeal(long alta, long baja) {
+            return (int) (alta ^ baja) & mascara;
+        }
+
+        /**
+         * Guarda el resultado de una entrada en curso, si el anillo no la reemplazó mientras tanto.
+         */
+        synchronized void completar(int entrada, long alta, long baja, byte estado, long resultado, String mensaje) {
+            if (enCurso(entrada, alta, baja)) {
+                int base = entrada * CAMPOS;
+                entradas[base + RESULTADO] = resultado;
+                entradas[base + ESTADO] = estado;
+                mensajes[entrada] = mensaje;
+            }
+        }
+
+        /**
+         * Olvida una entrada en curso cuya acción falló sin resultado que guardar.
+         */
+        synchronized void liberar(int entrada, long alta, long baja) {
+            if (enCurso(entrada, alta, baja)) {
+                olvidar(buscar(alta, baja));
+            }
+        }
+
+        private boolean enCurso(int entrada, long alta, long baja) {
+            int base = entrada * CAMPOS;
+            return entradas[base + ESTADO] == EN_CURSO && entradas[base + ALTA] == alta && entradas[base + BAJA] == baja;
+        }
+    }
+}
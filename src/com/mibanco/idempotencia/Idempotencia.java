@@ -0,0 +1,47 @@
+package com.mibanco.idempotencia;
+
+import java.util.Objects;
+
+/**
+ * Punto de acceso global al registro de idempotencia que usan las operaciones con clave de los productos
+ * financieros. Por defecto es un {@link CacheIdempotencia} dimensionado para 200.000 operaciones por segundo con una
+ * retención de 5 segundos (unos 70 MiB), que se crea la primera vez que se necesita; se puede reemplazar con
+ * {@link #setCache(CacheIdempotencia)}, por ejemplo con {@link CacheIdempotencia#paraTasa(long, long)} para una
+ * ventana de reintentos más larga.
+ */
+public final class Idempotencia {
+
+    private static final long TASA_POR_DEFECTO = 200_000;
+    private static final long RETENCION_POR_DEFECTO_MILLIS = 5_000;
+
+    private static volatile CacheIdempotencia cache;
+
+    private Idempotencia() {
+    }
+
+    /**
+     * @return El registro activo.
+     */
+    public static CacheIdempotencia getCache() {
+        CacheIdempotencia actual = cache;
+        if (actual == null) {
+            synchronized (Idempotencia.class) {
+                actual = cache;
+                if (actual == null) {
+                    actual = CacheIdempotencia.paraTasa(TASA_POR_DEFECTO, RETENCION_POR_DEFECTO_MILLIS);
+                    cache = actual;
+                }
+            }
+        }
+        return actual;
+    }
+
+    /**
+     * Reemplaza el registro activo. Las claves recordadas por el anterior se olvidan.
+     *
+     * @param nuevo Nuevo registro de idempotencia.
+     */
+    public static void setCache(CacheIdempotencia nuevo) {
+        cache = Objects.requireNonNull(nuevo, "El registro de idempotencia no puede ser nulo.");
+    }
+}
@@ -1,7 +1,23 @@
 package com.mibanco.main;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Paths;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import com.mibanco.eventos.Eventos;
+import com.mibanco.eventos.SumideroConsola;
+import com.mibanco.eventos.SumideroNulo;
+import com.mibanco.metricas.ExportadorPrometheus;
+import com.mibanco.metricas.Metricas;
 import com.mibanco.model.Cliente;
 import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.servicios.CargadorMasivoCsv;
+import com.mibanco.servicios.ResultadoCarga;
+import com.mibanco.servidor.ServidorBancario;
 
 /**
  * Aplicación principal para la interfaz del sistema bancario que permite la interacción con el usuario
@@ -9,13 +25,32 @@ import com.mibanco.model.CuentaAhorro;
  */
 public class SistemaBancarioApp {
 
+    private static final int ERRORES_MOSTRADOS = 20;
+    private static final int PUERTO_METRICAS_POR_DEFECTO = 9464;
+
     private static Scanner scanner = new Scanner(System.in);
 
     /**
      * Punto de entrada principal del programa.
      * Gestiona la creación de un cliente y una cuenta asociada, y permite realizar operaciones financieras básicas.
+     * Con {@code --importar <archivo>} carga en cambio un archivo CSV de clientes y productos, y con
+     * {@code --servidor <puerto> [archivo]} atiende operaciones por red sobre las cuentas del archivo CSV y publica
+     * las métricas en {@code http://localhost:9464/metrics} (el puerto se cambia con la propiedad
+     * {@code mibanco.metricas.puerto}). El servidor no autentica a sus clientes, así que por defecto solo escucha en
+     * la interfaz de loopback; para aceptar conexiones de otras máquinas hay que indicar la dirección explícitamente
+     * con la propiedad {@code mibanco.servidor.direccion} (por ejemplo {@code 0.0.0.0}).
      */
     public static void main(String[] args) {
+        if (args.length == 2 && args[0].equals("--importar")) {
+            importar(args[1]);
+            return;
+        }
+        if ((args.length == 2 || args.length == 3) && args[0].equals("--servidor")) {
+            servir(Integer.parseInt(args[1]), args.length == 3 ? args[2] : null);
+            return;
+        }
+        // En la consola interactiva los mensajes deben salir en orden con las preguntas al usuario.
+        Eventos.setSumidero(SumideroConsola.INSTANCIA);
         try {
             Cliente cliente = solicitarDatosCliente();
             CuentaAhorro cuentaAhorro = crearCuentaAhorro(cliente);
@@ -81,7 +116,77 @@ public class SistemaBancarioApp {
 
         System.out.println("Saldo final en la cuenta de ahorro: " + cuentaAhorro.getSaldo());
     }
-}
 
+    /**
+     * Carga masivamente un archivo CSV y muestra el resumen y las primeras filas rechazadas.
+     * @param archivo Ruta del archivo CSV.
+     */
+    private static void importar(String archivo) {
+        AtomicLong mostrados = new AtomicLong();
+        try {
+            ResultadoCarga resultado = new CargadorMasivoCsv().cargar(Paths.get(archivo), producto -> { }, error -> {
+                if (mostrados.getAndIncrement() < ERRORES_MOSTRADOS) {
+                    System.err.println(error);
+                }
+            });
+            System.out.println(resultado);
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
 
+    /**
+     * Atiende operaciones por red hasta que se escriba "salir" en la consola o se cierre la entrada estándar.
+     * Escucha en la interfaz de loopback salvo que la propiedad {@code mibanco.servidor.direccion} indique otra.
+     * Si las métricas están activas, también las publica por HTTP en la interfaz de loopback.
+     * @param puerto Puerto TCP de escucha.
+     * @param archivo Archivo CSV con las cuentas a servir, o null para empezar sin cuentas.
+     */
+    private static void servir(int puerto, String archivo) {
+        // Con miles de operaciones por segundo no tiene sentido imprimir un mensaje por cada una.
+        Eventos.setSumidero(SumideroNulo.INSTANCIA);
+        Map<String, ProductoFinanciero> cuentas = new ConcurrentHashMap<>();
+        try {
+            if (archivo != null) {
+                ResultadoCarga resultado = new CargadorMasivoCsv().cargar(Paths.get(archivo),
+                        producto -> cuentas.put(producto.getNumeroCuenta(), producto),
+                        error -> System.err.println(error));
+                System.out.println(resultado);
+            }
+            try (ServidorBancario servidor = new ServidorBancario(cuentas);
+                 ExportadorPrometheus exportador = new ExportadorPrometheus()) {
+                if (Metricas.ACTIVAS) {
+                    int puertoMetricas = exportador.iniciar(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                            Integer.getInteger("mibanco.metricas.puerto", PUERTO_METRICAS_POR_DEFECTO)));
+                    System.out.println("Métricas en http://localhost:" + puertoMetricas + "/metrics");
+                }
+                InetAddress direccion = direccionServidor();
+                if (!direccion.isLoopbackAddress()) {
+                    System.err.println("Advertencia: el servidor no autentica a sus clientes y escuchará en "
+                            + direccion.getHostAddress() + ".");
+                }
+                int puertoAbierto = servidor.iniciar(new InetSocketAddress(direccion, puerto));
+                System.out.println("Servidor escuchando en " + direccion.getHostAddress() + ":" + puertoAbierto
+                        + " con " + cuentas.size() + " cuentas. Escriba \"salir\" para detenerlo.");
+                while (scanner.hasNextLine() && !scanner.nextLine().trim().equals("salir")) {
+                    System.out.println("Conexiones activas: " + servidor.getConexionesActivas()
+                            + ", solicitudes atendidas: " + servidor.getSolicitudesAtendidas());
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+        } finally {
+            scanner.close();
+        }
+    }
 
+    /**
+     * @return La dirección indicada en la propiedad {@code mibanco.servidor.direccion}, o la de loopback si no
+     * está definida.
+     * @throws UnknownHostException Si la dirección indicada no se puede resolver.
+     */
+    private static InetAddress direccionServidor() throws UnknownHostException {
+        String direccion = System.getProperty("mibanco.servidor.direccion");
+        return direccion == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(direccion);
+    }
+}
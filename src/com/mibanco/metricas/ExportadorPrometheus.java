@@ -0,0 +1,189 @@
+package com.mibanco.metricas;
+
+import com.mibanco.model.TipoProducto;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * Exporta las {@link Metricas} en el formato de texto de Prometheus, ya sea a un archivo (para el recolector de
+ * archivos de texto de node_exporter, por ejemplo) o desde un servidor HTTP local en la ruta {@code /metrics}.
+ * <p>
+ * Por cada tipo de producto y operación que se haya ejecutado al menos una vez se publican:
+ * <ul>
+ *     <li>{@code mibanco_operaciones_total}: contador exacto de ejecuciones, con la etiqueta {@code resultado}
+ *     en {@code exito} o {@code fallo}.</li>
+ *     <li>{@code mibanco_operacion_duracion_segundos}: histograma de latencias con cubetas fijas entre 1 µs y
+ *     10 s. Con muestreo, su conteo es el de las ejecuciones medidas.</li>
+ *     <li>{@code mibanco_operacion_duracion_percentil_segundos}: percentiles 50, 90, 99, 99.9 y máximo calculados
+ *     con la precisión completa de {@link HistogramaLatencia}.</li>
+ * </ul>
+ */
+public final class ExportadorPrometheus implements AutoCloseable {
+
+    private static final String TIPO_CONTENIDO = "text/plain; version=0.0.4; charset=utf-8";
+    private static final long[] LIMITES_NANOS = {
+            1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+            1_000_000, 2_500_000, 5_000_000, 10_000_000, 50_000_000, 100_000_000, 500_000_000,
+            1_000_000_000, 10_000_000_000L
+    };
+    private static final double[] CUANTILES = {0.5, 0.9, 0.99, 0.999, 1};
+
+    private HttpServer servidor;
+
+    /**
+     * Escribe todas las métricas en formato de texto de Prometheus. Si las métricas están desactivadas no escribe
+     * nada.
+     *
+     * @param salida Destino del texto.
+     */
+    public void escribir(StringBuilder salida) {
+        if (!Metricas.ACTIVAS) {
+            return;
+        }
+        TipoProducto[] tipos = TipoProducto.values();
+        Operacion[] operaciones = Operacion.values();
+        MetricasOperacion[] metricas = new MetricasOperacion[tipos.length * operaciones.length];
+        HistogramaLatencia.Instantanea[] instantaneas = new HistogramaLatencia.Instantanea[metricas.length];
+        for (TipoProducto tipo : tipos) {
+            for (Operacion operacion : operaciones) {
+                int i = tipo.ordinal() * operaciones.length + operacion.ordinal();
+                metricas[i] = Metricas.de(tipo, operacion);
+                instantaneas[i] = metricas[i].getLatencias().instantanea();
+            }
+        }
+
+        salida.append("# HELP mibanco_operaciones_total Operaciones sobre productos financieros, por resultado.\n");
+        salida.append("# TYPE mibanco_operaciones_total counter\n");
+        for (int i = 0; i < metricas.length; i++) {
+            if (metricas[i].getExitos() + metricas[i].getFallos() == 0) {
+                continue;
+            }
+            serie(salida, "mibanco_operaciones_total", tipos[i / operaciones.length], operaciones[i % operaciones.length])
+                    .append(",resultado=\"exito\"} ").append(metricas[i].getExitos()).append('\n');
+            serie(salida, "mibanco_operaciones_total", tipos[i / operaciones.length], operaciones[i % operaciones.length])
+                    .append(",resultado=\"fallo\"} ").append(metricas[i].getFallos()).append('\n');
+        }
+
+        salida.append("# HELP mibanco_operacion_duracion_segundos Latencia de las operaciones sobre productos financieros.\n");
+        salida.append("# TYPE mibanco_operacion_duracion_segundos histogram\n");
+        for (int i = 0; i < metricas.length; i++) {
+            HistogramaLatencia.Instantanea instantanea = instantaneas[i];
+            if (instantanea.getConteo() == 0) {
+                continue;
+            }
+            TipoProducto tipo = tipos[i / operaciones.length];
+            Operacion operacion = operaciones[i % operaciones.length];
+            for (long limite : LIMITES_NANOS) {
+                serie(salida, "mibanco_operacion_duracion_segundos_bucket", tipo, operacion).append(",le=\"");
+                segundos(salida, limite).append("\"} ").append(instantanea.getConteoHasta(limite)).append('\n');
+            }
+            serie(salida, "mibanco_operacion_duracion_segundos_bucket", tipo, operacion)
+                    .append(",le=\"+Inf\"} ").append(instantanea.getConteo()).append('\n');
+            serie(salida, "mibanco_operacion_duracion_segundos_sum", tipo, operacion).append("} ");
+            segundos(salida, metricas[i].getNanosAcumulados()).append('\n');
+            serie(salida, "mibanco_operacion_duracion_segundos_count", tipo, operacion)
+                    .append("} ").append(instantanea.getConteo()).append('\n');
+        }
+
+        salida.append("# HELP mibanco_operacion_duracion_percentil_segundos Percentiles de latencia, con error relativo menor al 3,2%.\n");
+        salida.append("# TYPE mibanco_operacion_duracion_percentil_segundos gauge\n");
+        for (int i = 0; i < metricas.length; i++) {
+            HistogramaLatencia.Instantanea instantanea = instantaneas[i];
+            if (instantanea.getConteo() == 0) {
+                continue;
+            }
+            for (double cuantil : CUANTILES) {
+                serie(salida, "mibanco_operacion_duracion_percentil_segundos", tipos[i / operaciones.length],
+                        operaciones[i % operaciones.length]).append(",cuantil=\"").append(cuantil).append("\"} ");
+                segundos(salida, instantanea.getPercentilNanos(cuantil)).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Escribe las métricas en un archivo. El contenido se escribe primero en un archivo temporal del mismo
+     * directorio y luego lo reemplaza, para que un lector nunca vea un archivo a medio escribir.
+     *
+     * @param archivo Archivo de destino, normalmente con extensión {@code .prom}.
+     * @throws IOException Si no se puede escribir.
+     */
+    public void escribir(Path archivo) throws IOException {
+        StringBuilder texto = new StringBuilder();
+        escribir(texto);
+        Path absoluto = archivo.toAbsolutePath();
+        Path temporal = Files.createTempFile(absoluto.getParent(), absoluto.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporal, texto.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporal, absoluto, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Empieza a atender {@code GET /metrics} por HTTP en un hilo propio.
+     *
+     * @param direccion Dirección de escucha; para un punto de acceso solo local, use la interfaz de loopback.
+     * @return El puerto en que quedó escuchando, útil si se pidió el puerto 0.
+     * @throws IOException Si no se puede abrir el puerto.
+     * @throws IllegalStateException Si el servidor ya fue iniciado.
+     */
+    public synchronized int iniciar(InetSocketAddress direccion) throws IOException {
+        if (servidor != null) {
+            throw new IllegalStateException("El exportador ya fue iniciado.");
+        }
+        HttpServer nuevo = HttpServer.create(direccion, 0);
+        nuevo.createContext("/metrics", intercambio -> {
+            try (intercambio) {
+                if (!"GET".equals(intercambio.getRequestMethod())) {
+                    intercambio.sendResponseHeaders(405, -1);
+                    return;
+                }
+                StringBuilder texto = new StringBuilder(8_192);
+                escribir(texto);
+                byte[] cuerpo = texto.toString().getBytes(StandardCharsets.UTF_8);
+                intercambio.getResponseHeaders().set("Content-Type", TIPO_CONTENIDO);
+                // Con longitud 0 el servidor usaría codificación por bloques; -1 indica una respuesta sin cuerpo.
+                intercambio.sendResponseHeaders(200, cuerpo.length == 0 ? -1 : cuerpo.length);
+                if (cuerpo.length > 0) {
+                    try (OutputStream cuerpoRespuesta = intercambio.getResponseBody()) {
+                        cuerpoRespuesta.write(cuerpo);
+                    }
+                }
+            }
+        });
+        nuevo.start();
+        servidor = nuevo;
+        return nuevo.getAddress().getPort();
+    }
+
+    /**
+     * Detiene el servidor HTTP, si se inició.
+     */
+    @Override
+    public synchronized void close() {
+        if (servidor != null) {
+            servidor.stop(0);
+            servidor = null;
+        }
+    }
+
+    private static StringBuilder serie(StringBuilder salida, String nombre, TipoProducto tipo, Operacion operacion) {
+        return salida.append(nombre)
+                .append("{producto=\"").append(tipo.name().toLowerCase(Locale.ROOT))
+                .append("\",operacion=\"").append(operacion.name().toLowerCase(Locale.ROOT)).append('"');
+    }
+
+    private static StringBuilder segundos(StringBuilder salida, long nanos) {
+        return salida.append(BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString());
+    }
+}
@@ -0,0 +1,178 @@
+package com.mibanco.metricas;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias en nanosegundos con error relativo acotado, en el estilo de HdrHistogram: los valores
+ * menores que 64 tienen una cubeta cada uno y, de ahí en adelante, cada potencia de dos se divide en 32 cubetas
+ * iguales, de modo que el valor informado para un percentil nunca se aleja más de un 3,2% del real. Cubre hasta
+ * 2<sup>36</sup> ns (unos 68 segundos) con 1.024 cubetas; los valores mayores se cuentan en la última.
+ * <p>
+ * Registrar un valor no reserva memoria ni toma locks: los conteos se reparten en franjas independientes, una por
+ * grupo de hilos, para que los hilos que registran a la vez no compitan por las mismas líneas de caché. Las
+ * franjas se suman al tomar una {@link Instantanea}.
+ */
+public final class HistogramaLatencia {
+
+    private static final int BITS_SUBCUBETA = 6;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    private static final int MITAD = SUBCUBETAS >>> 1;
+    private static final int BITS_MAXIMO = 36;
+
+    /**
+     * Número de cubetas del histograma.
+     */
+    static final int CUBETAS = SUBCUBETAS + (BITS_MAXIMO - BITS_SUBCUBETA) * MITAD;
+
+    /**
+     * Mayor valor que se distingue; los valores mayores se registran como este.
+     */
+    public static final long MAXIMO_NANOS = (1L << BITS_MAXIMO) - 1;
+
+    private static final int MAXIMO_FRANJAS = 8;
+
+    private final AtomicLongArray[] franjas;
+    private final int mascara;
+
+    /**
+     * Crea un histograma con una franja por procesador, hasta ocho.
+     */
+    public HistogramaLatencia() {
+        int procesadores = Math.min(MAXIMO_FRANJAS, Runtime.getRuntime().availableProcessors());
+        int cantidad = Integer.highestOneBit(procesadores);
+        franjas = new AtomicLongArray[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            franjas[i] = new AtomicLongArray(CUBETAS);
+        }
+        mascara = cantidad - 1;
+    }
+
+    /**
+     * Registra una latencia.
+     *
+     * @param nanos Duración en nanosegundos; los valores negativos se registran como cero.
+     */
+    public void registrar(long nanos) {
+        int cubeta = cubeta(Math.min(Math.max(nanos, 0), MAXIMO_NANOS));
+        franjas[(int) Thread.currentThread().getId() & mascara].getAndIncrement(cubeta);
+    }
+
+    /**
+     * Suma las franjas. Los valores registrados mientras se toma la instantánea pueden quedar dentro o fuera.
+     *
+     * @return Los conteos acumulados hasta ahora.
+     */
+    public Instantanea instantanea() {
+        long[] conteos = new long[CUBETAS];
+        long total = 0;
+        for (AtomicLongArray franja : franjas) {
+            for (int i = 0; i < CUBETAS; i++) {
+                long conteo = franja.get(i);
+                conteos[i] += conteo;
+                total += conteo;
+            }
+        }
+        return new Instantanea(conteos, total);
+    }
+
+    /**
+     * Pone todos los conteos en cero. Los valores registrados a la vez pueden conservarse o perderse.
+     */
+    public void reiniciar() {
+        for (AtomicLongArray franja : franjas) {
+            for (int i = 0; i < CUBETAS; i++) {
+                franja.set(i, 0);
+            }
+        }
+    }
+
+    static int cubeta(long nanos) {
+        if (nanos < SUBCUBETAS) {
+            return (int) nanos;
+        }
+        int magnitud = 63 - Long.numberOfLeadingZeros(nanos) - BITS_SUBCUBETA + 1;
+        return SUBCUBETAS + (magnitud - 1) * MITAD + (int) (nanos >>> magnitud) - MITAD;
+    }
+
+    /**
+     * @param cubeta Índice de la cubeta.
+     * @return El mayor valor que cae en la cubeta, en nanosegundos.
+     */
+    static long limiteSuperior(int cubeta) {
+        if (cubeta < SUBCUBETAS) {
+            return cubeta;
+        }
+        int desplazada = cubeta - SUBCUBETAS;
+        int magnitud = desplazada / MITAD + 1;
+        long subcubeta = desplazada % MITAD + MITAD;
+        return ((subcubeta + 1) << magnitud) - 1;
+    }
+
+    /**
+     * Conteos de un histograma en un momento dado. Es inmutable.
+     */
+    public static final class Instantanea {
+
+        private final long[] conteos;
+        private final long total;
+
+        Instantanea(long[] conteos, long total) {
+            this.conteos = conteos;
+            this.total = total;
+        }
+
+        /**
+         * @return Número de valores registrados.
+         */
+        public long getConteo() {
+            return total;
+        }
+
+        /**
+         * @param nanos Límite en nanosegundos.
+         * @return Número de valores cuya cubeta queda por completo en o por debajo del límite.
+         */
+        public long getConteoHasta(long nanos) {
+            long acumulado = 0;
+            for (int i = 0; i < CUBETAS && limiteSuperior(i) <= nanos; i++) {
+                acumulado += conteos[i];
+            }
+            return acumulado;
+        }
+
+        /**
+         * @param cuantil Fracción entre 0 y 1, por ejemplo 0.99 para el percentil 99.
+         * @return El límite superior de la cubeta que contiene el percentil, en nanosegundos; 0 si no hay valores.
+         * @throws IllegalArgumentException Si el cuantil no está entre 0 y 1.
+         */
+        public long getPercentilNanos(double cuantil) {
+            if (!(cuantil >= 0 && cuantil <= 1)) {
+                throw new IllegalArgumentException("El cuantil debe estar entre 0 y 1.");
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long posicion = Math.max(1, (long) Math.ceil(cuantil * total));
+            long acumulado = 0;
+            for (int i = 0; i < CUBETAS; i++) {
+                acumulado += conteos[i];
+                if (acumulado >= posicion) {
+                    return limiteSuperior(i);
+                }
+            }
+            return MAXIMO_NANOS;
+        }
+
+        /**
+         * @return El límite superior de la cubeta más alta con valores, en nanosegundos; 0 si no hay valores.
+         */
+        public long getMaximoNanos() {
+            for (int i = CUBETAS - 1; i >= 0; i--) {
+                if (conteos[i] != 0) {
+                    return limiteSuperior(i);
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.mibanco.metricas;
+
+import com.mibanco.model.TipoProducto;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Punto de acceso global a las métricas de las operaciones de los productos financieros: cuántas se ejecutan, cuántas
+ * fallan y cuánto tardan, por tipo de producto y por {@link Operacion}. Se exportan con
+ * {@link ExportadorPrometheus}.
+ * <p>
+ * La instrumentación se activa o desactiva al arrancar con la propiedad del sistema {@code mibanco.metricas}: está
+ * activa salvo con {@code -Dmibanco.metricas=false}. {@link #ACTIVAS} es una constante, así que con las métricas
+ * desactivadas el compilador JIT elimina por completo las mediciones de los métodos instrumentados, incluida la
+ * lectura del reloj.
+ * <p>
+ * Los contadores de ejecuciones y fallos son siempre exactos. Leer el reloj dos veces puede costar más que la
+ * operación medida, así que solo se mide la latencia de una de cada {@value #MUESTREO_POR_DEFECTO} operaciones,
+ * elegidas al azar. {@code -Dmibanco.metricas.muestreo=N} (una potencia de dos) cambia esa proporción; con
+ * {@code N=1} se miden todas.
+ * <p>
+ * Solo se miden las operaciones individuales; las aplicaciones agrupadas de {@code ProcesadorLotes} y los procesos
+ * de interés por lotes no pasan por aquí.
+ */
+public final class Metricas {
+
+    /**
+     * Si la instrumentación está activa en esta JVM.
+     */
+    public static final boolean ACTIVAS = !"false".equalsIgnoreCase(System.getProperty("mibanco.metricas"));
+
+    /**
+     * Valor de {@link #iniciar()} para una operación cuya latencia no se mide.
+     */
+    static final long SIN_MEDICION = Long.MIN_VALUE;
+
+    /**
+     * Cada cuántas operaciones se mide una latencia si no se indica {@code mibanco.metricas.muestreo}.
+     */
+    public static final int MUESTREO_POR_DEFECTO = 64;
+
+    private static final int MASCARA_MUESTREO = mascaraMuestreo(
+            Integer.getInteger("mibanco.metricas.muestreo", MUESTREO_POR_DEFECTO));
+
+    private static final int OPERACIONES = Operacion.values().length;
+    private static final MetricasOperacion[] METRICAS;
+
+    static {
+        METRICAS = new MetricasOperacion[ACTIVAS ? TipoProducto.values().length * OPERACIONES : 0];
+        for (int i = 0; i < METRICAS.length; i++) {
+            METRICAS[i] = new MetricasOperacion();
+        }
+    }
+
+    private Metricas() {
+    }
+
+    /**
+     * Marca el comienzo de una operación medida.
+     *
+     * @return El instante actual en nanosegundos, un valor que indica que esta ejecución no se mide, o 0 si las
+     * métricas están desactivadas.
+     */
+    public static long iniciar() {
+        if (!ACTIVAS) {
+            return 0;
+        }
+        if (MASCARA_MUESTREO == 0 || (ThreadLocalRandom.current().nextInt() & MASCARA_MUESTREO) == 0) {
+            return System.nanoTime();
+        }
+        return SIN_MEDICION;
+    }
+
+    /**
+     * Registra el fin de una operación medida. No hace nada si las métricas están desactivadas.
+     *
+     * @param tipo Tipo del producto sobre el que se ejecutó.
+     * @param operacion Operación ejecutada.
+     * @param inicio Valor devuelto por {@link #iniciar()} al comenzar la operación.
+     * @param exito false si la operación fue rechazada o lanzó una excepción.
+     */
+    public static void registrar(TipoProducto tipo, Operacion operacion, long inicio, boolean exito) {
+        if (ACTIVAS) {
+            MetricasOperacion metricas = METRICAS[tipo.ordinal() * OPERACIONES + operacion.ordinal()];
+            if (inicio == SIN_MEDICION) {
+                metricas.contar(exito);
+            } else {
+                metricas.registrar(System.nanoTime() - inicio, exito);
+            }
+        }
+    }
+
+    /**
+     * @param tipo Tipo de producto.
+     * @param operacion Operación.
+     * @return Las métricas acumuladas de la operación sobre ese tipo de producto.
+     * @throws IllegalStateException Si las métricas están desactivadas.
+     */
+    public static MetricasOperacion de(TipoProducto tipo, Operacion operacion) {
+        if (!ACTIVAS) {
+            throw new IllegalStateException("Las métricas están desactivadas.");
+        }
+        return METRICAS[tipo.ordinal() * OPERACIONES + operacion.ordinal()];
+    }
+
+    /**
+     * @return Cada cuántas operaciones se mide una latencia.
+     */
+    public static int getMuestreo() {
+        return MASCARA_MUESTREO + 1;
+    }
+
+    /**
+     * Pone en cero todas las métricas, por ejemplo entre las fases de una medición.
+     */
+    public static void reiniciar() {
+        for (MetricasOperacion metricas : METRICAS) {
+            metricas.reiniciar();
+        }
+    }
+
+    private static int mascaraMuestreo(int muestreo) {
+        if (muestreo <= 0 || Integer.bitCount(muestreo) != 1) {
+            throw new IllegalArgumentException("El muestreo de métricas debe ser una potencia de dos positiva.");
+        }
+        return muestreo - 1;
+    }
+}
@@ -0,0 +1,68 @@
+package com.mibanco.metricas;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores y latencias de una operación sobre un tipo de producto. Los contadores son {@link LongAdder}, que
+ * reparten las actualizaciones concurrentes en celdas distintas en lugar de competir por un solo valor.
+ */
+public final class MetricasOperacion {
+
+    private final LongAdder exitos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder nanosAcumulados = new LongAdder();
+    private final HistogramaLatencia latencias = new HistogramaLatencia();
+
+    MetricasOperacion() {
+    }
+
+    /**
+     * Registra una ejecución de la operación.
+     *
+     * @param nanos Duración en nanosegundos.
+     * @param exito false si la operación fue rechazada o lanzó una excepción.
+     */
+    void registrar(long nanos, boolean exito) {
+        contar(exito);
+        nanosAcumulados.add(nanos);
+        latencias.registrar(nanos);
+    }
+
+    /**
+     * Registra una ejecución cuya latencia no se midió.
+     *
+     * @param exito false si la operación fue rechazada o lanzó una excepción.
+     */
+    void contar(boolean exito) {
+        (exito ? exitos : fallos).increment();
+    }
+
+    void reiniciar() {
+        exitos.reset();
+        fallos.reset();
+        nanosAcumulados.reset();
+        latencias.reiniciar();
+    }
+
+    public long getExitos() {
+        return exitos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    /**
+     * @return Suma de las duraciones de las ejecuciones medidas, en nanosegundos.
+     */
+    public long getNanosAcumulados() {
+        return nanosAcumulados.sum();
+    }
+
+    /**
+     * @return Las latencias de las ejecuciones medidas; con muestreo, una de cada {@link Metricas#getMuestreo()}.
+     */
+    public HistogramaLatencia getLatencias() {
+        return latencias;
+    }
+}
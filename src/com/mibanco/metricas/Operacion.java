@@ -0,0 +1,21 @@
+package com.mibanco.metricas;
+
+/**
+ * Operaciones de los productos financieros que se miden en {@link Metricas}.
+ */
+public enum Operacion {
+    DEPOSITO,
+    RETIRO,
+    /**
+     * Compra con tarjeta de crédito, incluidas las que llegan por {@code MotorAutorizaciones}.
+     */
+    COMPRA,
+    /**
+     * Pago al saldo utilizado de una tarjeta de crédito.
+     */
+    PAGO,
+    /**
+     * Cálculo y abono del interés mensual con {@code calcularInteresMensual}.
+     */
+    INTERES_MENSUAL
+}
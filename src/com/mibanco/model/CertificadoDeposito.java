@@ -1,12 +1,15 @@
 package com.mibanco.model;
 
+import com.mibanco.metricas.Metricas;
+import com.mibanco.metricas.Operacion;
+
 /**
  * Representa un certificado de depósito (CD) que es un tipo de producto financiero con un plazo fijo y una tasa de interés anual.
  * Este producto permite al cliente invertir su dinero por un período determinado con una tasa de interés garantizada.
  */
 public class CertificadoDeposito extends ProductoFinanciero {
     private int plazoMeses;
-    private double tasaInteres;
+    private volatile Tasa tasaInteres;
 
     /**
      * Construye un nuevo certificado de depósito.
@@ -19,8 +22,22 @@ public class CertificadoDeposito extends ProductoFinanciero {
      * @throws IllegalArgumentException Si el plazo o la tasa de interés son negativos.
      */
     public CertificadoDeposito(String numeroCuenta, double saldo, Cliente cliente, int plazoMeses, double tasaInteres) {
+        this(numeroCuenta, Dinero.de(saldo), cliente, plazoMeses, Tasa.dePorcentaje(tasaInteres));
+    }
+
+    /**
+     * Construye un nuevo certificado de depósito con montos y tasa en punto fijo.
+     *
+     * @param numeroCuenta Número de cuenta asociado al certificado.
+     * @param saldo Saldo inicial depositado en el certificado.
+     * @param cliente Cliente titular del certificado.
+     * @param plazoMeses Duración del certificado en meses.
+     * @param tasaInteres Tasa de interés anual aplicada al certificado.
+     * @throws IllegalArgumentException Si el plazo o la tasa de interés son negativos.
+     */
+    public CertificadoDeposito(String numeroCuenta, Dinero saldo, Cliente cliente, int plazoMeses, Tasa tasaInteres) {
         super(numeroCuenta, saldo, cliente);
-        if (plazoMeses <= 0 || tasaInteres < 0) {
+        if (plazoMeses <= 0 || tasaInteres == null || tasaInteres.esNegativa()) {
             throw new IllegalArgumentException("El plazo debe ser mayor que cero y la tasa de interés no puede ser negativa.");
         }
         this.plazoMeses = plazoMeses;
@@ -29,9 +46,19 @@ public class CertificadoDeposito extends ProductoFinanciero {
 
     @Override
     public void calcularInteresMensual() {
-        double interes = (saldo * (tasaInteres / 100)) / 12;
-        saldo += interes;
-        System.out.println("Intereses acumulados para este mes: " + interes + ". Saldo actual: " + saldo);
+        long inicio = Metricas.iniciar();
+        aplicarInteresMensual();
+        medir(Operacion.INTERES_MENSUAL, inicio, true);
+    }
+
+    @Override
+    public long aplicarInteresMensual() {
+        return acumularInteres(tasaInteres, 12);
+    }
+
+    @Override
+    public TipoProducto getTipo() {
+        return TipoProducto.CERTIFICADO_DEPOSITO;
     }
 
     /**
@@ -40,7 +67,19 @@ public class CertificadoDeposito extends ProductoFinanciero {
      * @return El total de pago al final del plazo.
      */
     public double calcularPagoFinal() {
-        double interesTotal = (saldo * (tasaInteres / 100) * (plazoMeses / 12.0));
+        return aMonto(calcularPagoFinalCentavos());
+    }
+
+    /**
+     * Calcula el total a pagar al final del plazo, con interés simple redondeado una sola vez al centavo.
+     *
+     * @return El total de pago al final del plazo, en centavos.
+     */
+    public long calcularPagoFinalCentavos() {
+        long saldo = getSaldoCentavos();
+        // Interés simple: saldo * tasa * plazoMeses / 12, redondeado al final.
+        long interesTotal = Tasa.aplicar(saldo, Math.multiplyExact(tasaInteres.getEscalada(), (long) plazoMeses), 12,
+                REDONDEO_INTERES);
         return saldo + interesTotal;
     }
 
@@ -58,14 +97,31 @@ public class CertificadoDeposito extends ProductoFinanciero {
     }
 
     public double getTasaInteres() {
+        return tasaInteres.getPorcentaje();
+    }
+
+    public Tasa getTasa() {
+        return tasaInteres;
+    }
+
+    @Override
+    protected Tasa getTasaDevengo() {
         return tasaInteres;
     }
 
+    @Override
+    protected long getPeriodosDevengo() {
+        return 12;
+    }
+
     public void setTasaInteres(double tasaInteres) {
-        if (tasaInteres < 0) {
-            throw new IllegalArgumentException("La tasa de interés no puede ser negativa.");
-        }
-        this.tasaInteres = tasaInteres;
+        setTasa(Tasa.dePorcentaje(tasaInteres));
+    }
+
+    public void setTasa(Tasa tasaInteres) {
+        Tasa nueva = validarTasa(tasaInteres);
+        cerrarTramoDevengo();
+        this.tasaInteres = nueva;
     }
 }
 
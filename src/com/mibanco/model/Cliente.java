@@ -28,25 +28,18 @@ public class Cliente {
      * @param direccion Dirección residencial del cliente.
      */
     public Cliente(String documentoIdentidad, String nombre, String correoElectronico, String numeroCelular, String direccion) {
-        this.documentoIdentidad = Objects.requireNonNull(documentoIdentidad, "El documento de identidad no puede ser nulo.");
+        this.documentoIdentidad = ValidadorCliente.INSTANCIA.validarDocumento(documentoIdentidad);
         this.nombre = Objects.requireNonNull(nombre, "El nombre no puede ser nulo.");
-        this.correoElectronico = validateEmail(correoElectronico);
-        this.numeroCelular = validatePhoneNumber(numeroCelular);
+        this.correoElectronico = ValidadorCliente.INSTANCIA.validarCorreo(correoElectronico);
+        this.numeroCelular = ValidadorCliente.INSTANCIA.validarCelular(numeroCelular);
         this.direccion = Objects.requireNonNull(direccion, "La dirección no puede ser nula.");
     }
 
-    private String validateEmail(String email) {
-        if (email == null || !email.contains("@")) {
-            throw new IllegalArgumentException("Correo electrónico inválido.");
-        }
-        return email;
-    }
-
-    private String validatePhoneNumber(String phoneNumber) {
-        if (phoneNumber == null || !phoneNumber.matches("\\d+")) {
-            throw new IllegalArgumentException("Número de teléfono inválido. Debe contener solo números.");
-        }
-        return phoneNumber;
+    /**
+     * Constructor para subclases que guardan los datos fuera del objeto, como las vistas de un directorio de
+     * clientes en archivo. Deben sobrescribir todos los getters y setters.
+     */
+    protected Cliente() {
     }
 
     public String getDocumentoIdentidad() {
@@ -66,7 +59,7 @@ public class Cliente {
     }
 
     public void setCorreoElectronico(String correoElectronico) {
-        this.correoElectronico = validateEmail(correoElectronico);
+        this.correoElectronico = ValidadorCliente.INSTANCIA.validarCorreo(correoElectronico);
     }
 
     public String getNumeroCelular() {
@@ -74,7 +67,7 @@ public class Cliente {
     }
 
     public void setNumeroCelular(String numeroCelular) {
-        this.numeroCelular = validatePhoneNumber(numeroCelular);
+        this.numeroCelular = ValidadorCliente.INSTANCIA.validarCelular(numeroCelular);
     }
 
     public String getDireccion() {
@@ -1,5 +1,8 @@
 package com.mibanco.model;
 
+import com.mibanco.metricas.Metricas;
+import com.mibanco.metricas.Operacion;
+
 /**
  * Clase CuentaAhorro que extiende ProductoFinanciero para representar una cuenta de ahorros específica en un sistema bancario.
  * Esta clase maneja el cálculo de intereses basados en la tasa de interés establecida para la cuenta.
@@ -7,7 +10,7 @@ package com.mibanco.model;
  * @author Luis Fernando Millan Rivera
  */
 public class CuentaAhorro extends ProductoFinanciero {
-    private double tasaInteres;
+    private volatile Tasa tasaInteres;
 
     /**
      * Constructor para crear una nueva cuenta de ahorro con un cliente específico, saldo inicial y tasa de interés.
@@ -19,22 +22,43 @@ public class CuentaAhorro extends ProductoFinanciero {
      * @throws IllegalArgumentException Si la tasa de interés es negativa.
      */
     public CuentaAhorro(String numeroCuenta, double saldo, Cliente cliente, double tasaInteres) {
+        this(numeroCuenta, Dinero.de(saldo), cliente, Tasa.dePorcentaje(tasaInteres));
+    }
+
+    /**
+     * Constructor para crear una nueva cuenta de ahorro con montos y tasa en punto fijo.
+     *
+     * @param numeroCuenta El número de la cuenta de ahorros.
+     * @param saldo El saldo inicial de la cuenta.
+     * @param cliente El cliente al que pertenece esta cuenta.
+     * @param tasaInteres La tasa de interés aplicada cada mes.
+     * @throws IllegalArgumentException Si la tasa de interés es negativa.
+     */
+    public CuentaAhorro(String numeroCuenta, Dinero saldo, Cliente cliente, Tasa tasaInteres) {
         super(numeroCuenta, saldo, cliente);
-        if (tasaInteres < 0) {
-            throw new IllegalArgumentException("La tasa de interés no puede ser negativa.");
-        }
-        this.tasaInteres = tasaInteres;
+        this.tasaInteres = validarTasa(tasaInteres);
     }
 
     /**
      * Calcula y aplica el interés mensual al saldo de la cuenta.
-     * El interés se añade directamente al saldo de la cuenta y se imprime el monto del interés añadido.
+     * El interés se añade directamente al saldo de la cuenta y {@link #aplicarInteresMensual()} publica un evento
+     * con el monto añadido.
      */
     @Override
     public void calcularInteresMensual() {
-        double interes = saldo * tasaInteres / 100;
-        saldo += interes;
-        System.out.println("Intereses añadidos: " + interes);
+        long inicio = Metricas.iniciar();
+        aplicarInteresMensual();
+        medir(Operacion.INTERES_MENSUAL, inicio, true);
+    }
+
+    @Override
+    public long aplicarInteresMensual() {
+        return acumularInteres(tasaInteres, 1);
+    }
+
+    @Override
+    public TipoProducto getTipo() {
+        return TipoProducto.CUENTA_AHORRO;
     }
 
     /**
@@ -43,6 +67,15 @@ public class CuentaAhorro extends ProductoFinanciero {
      * @return La tasa de interés actual.
      */
     public double getTasaInteres() {
+        return tasaInteres.getPorcentaje();
+    }
+
+    public Tasa getTasa() {
+        return tasaInteres;
+    }
+
+    @Override
+    protected Tasa getTasaDevengo() {
         return tasaInteres;
     }
 
@@ -53,10 +86,13 @@ public class CuentaAhorro extends ProductoFinanciero {
      * @throws IllegalArgumentException Si la tasa de interés es negativa.
      */
     public void setTasaInteres(double tasaInteres) {
-        if (tasaInteres < 0) {
-            throw new IllegalArgumentException("La tasa de interés no puede ser negativa.");
-        }
-        this.tasaInteres = tasaInteres;
+        setTasa(Tasa.dePorcentaje(tasaInteres));
+    }
+
+    public void setTasa(Tasa tasaInteres) {
+        Tasa nueva = validarTasa(tasaInteres);
+        cerrarTramoDevengo();
+        this.tasaInteres = nueva;
     }
 }
 
@@ -1,5 +1,10 @@
 package com.mibanco.model;
 
+import com.mibanco.eventos.TipoEvento;
+import com.mibanco.metricas.Metricas;
+import com.mibanco.metricas.Operacion;
+import com.mibanco.riesgo.RechazoPorRiesgoException;
+
 /**
  * Clase que representa una cuenta corriente en un sistema bancario.
  * Permite operaciones como el cálculo de intereses y el retiro de fondos,
@@ -8,8 +13,8 @@ package com.mibanco.model;
  * @author Luis Fernando Millan Rivera
  */
 public class CuentaCorriente extends ProductoFinanciero {
-    private double tasaInteres;  // Tasa de interés aplicada al saldo
-    private double limiteSobregiro;  // Límite máximo de sobregiro permitido
+    private volatile Tasa tasaInteres;  // Tasa de interés aplicada al saldo
+    private volatile long limiteSobregiroCentavos;  // Límite máximo de sobregiro permitido
 
     /**
      * Constructor para la cuenta corriente.
@@ -22,12 +27,26 @@ public class CuentaCorriente extends ProductoFinanciero {
      * @throws IllegalArgumentException si la tasa de interés o el límite de sobregiro son negativos.
      */
     public CuentaCorriente(String numeroCuenta, double saldo, Cliente cliente, double tasaInteres, double limiteSobregiro) {
+        this(numeroCuenta, Dinero.de(saldo), cliente, Tasa.dePorcentaje(tasaInteres), Dinero.de(limiteSobregiro));
+    }
+
+    /**
+     * Constructor para la cuenta corriente con montos y tasa en punto fijo.
+     *
+     * @param numeroCuenta Número de la cuenta.
+     * @param saldo Saldo inicial de la cuenta.
+     * @param cliente Cliente titular de la cuenta.
+     * @param tasaInteres Tasa de interés mensual aplicada.
+     * @param limiteSobregiro Máximo permitido para sobregiro.
+     * @throws IllegalArgumentException si la tasa de interés o el límite de sobregiro son negativos.
+     */
+    public CuentaCorriente(String numeroCuenta, Dinero saldo, Cliente cliente, Tasa tasaInteres, Dinero limiteSobregiro) {
         super(numeroCuenta, saldo, cliente);
-        if (tasaInteres < 0 || limiteSobregiro < 0) {
+        if (tasaInteres == null || tasaInteres.esNegativa() || limiteSobregiro == null || limiteSobregiro.esNegativo()) {
             throw new IllegalArgumentException("La tasa de interés y el límite de sobregiro no pueden ser negativos.");
         }
         this.tasaInteres = tasaInteres;
-        this.limiteSobregiro = limiteSobregiro;
+        this.limiteSobregiroCentavos = limiteSobregiro.getCentavos();
     }
 
     /**
@@ -35,51 +54,104 @@ public class CuentaCorriente extends ProductoFinanciero {
      */
     @Override
     public void calcularInteresMensual() {
-        double interes = saldo * (tasaInteres / 100);
-        saldo += interes;
-        System.out.println("Intereses añadidos: " + interes + ". Nuevo saldo: " + saldo);
+        long inicio = Metricas.iniciar();
+        aplicarInteresMensual();
+        medir(Operacion.INTERES_MENSUAL, inicio, true);
+    }
+
+    @Override
+    public long aplicarInteresMensual() {
+        return acumularInteres(tasaInteres, 1);
+    }
+
+    @Override
+    public TipoProducto getTipo() {
+        return TipoProducto.CUENTA_CORRIENTE;
     }
 
     /**
      * Intenta retirar una cantidad de dinero de la cuenta. Si el monto excede el saldo más el límite de sobregiro,
-     * el retiro no se realiza y se retorna false.
+     * el retiro no se realiza y se retorna false. La verificación del sobregiro y el descuento se hacen de forma atómica.
      *
-     * @param monto Monto a retirar.
+     * @param montoCentavos Monto a retirar, en centavos.
      * @return true si el retiro es exitoso, false si no hay fondos suficientes.
+     * @throws RechazoPorRiesgoException Si el control de riesgo rechaza el retiro.
      */
-    public boolean retirar(double monto) {
-        if (monto <= saldo + limiteSobregiro) {
-            saldo -= monto;
-            System.out.println("Retiro exitoso. Nuevo saldo: " + saldo);
+    @Override
+    public boolean retirarCentavos(long montoCentavos) {
+        long inicio = Metricas.iniciar();
+        if (montoCentavos <= 0) {
+            medir(Operacion.RETIRO, inicio, false);
+            throw new IllegalArgumentException("El monto a retirar debe ser positivo.");
+        }
+        if (!aprobadoPorRiesgo(TipoEvento.RETIRO, montoCentavos)) {
+            medir(Operacion.RETIRO, inicio, false);
+            throw new RechazoPorRiesgoException(RETIRO_RECHAZADO_POR_RIESGO);
+        }
+        long nuevoSaldo = descontarCentavos(montoCentavos, getPisoCentavos());
+        if (nuevoSaldo != FONDOS_INSUFICIENTES) {
+            publicar(TipoEvento.RETIRO, montoCentavos, nuevoSaldo);
+            medir(Operacion.RETIRO, inicio, true);
             return true;
         } else {
-            System.out.println("Fondos insuficientes, incluyendo sobregiro.");
+            retiroRechazado(montoCentavos);
+            medir(Operacion.RETIRO, inicio, false);
             return false;
         }
     }
 
+    @Override
+    protected long getPisoCentavos() {
+        return -limiteSobregiroCentavos;
+    }
+
+    @Override
+    protected void retiroRechazado(long montoCentavos) {
+        publicar(TipoEvento.RETIRO_RECHAZADO, montoCentavos, getSaldoCentavos());
+    }
+
     // Getters y Setters con validaciones
 
     public double getTasaInteres() {
+        return tasaInteres.getPorcentaje();
+    }
+
+    public Tasa getTasa() {
+        return tasaInteres;
+    }
+
+    @Override
+    protected Tasa getTasaDevengo() {
         return tasaInteres;
     }
 
     public void setTasaInteres(double tasaInteres) {
-        if (tasaInteres < 0) {
-            throw new IllegalArgumentException("La tasa de interés no puede ser negativa.");
-        }
-        this.tasaInteres = tasaInteres;
+        setTasa(Tasa.dePorcentaje(tasaInteres));
+    }
+
+    public void setTasa(Tasa tasaInteres) {
+        Tasa nueva = validarTasa(tasaInteres);
+        cerrarTramoDevengo();
+        this.tasaInteres = nueva;
     }
 
     public double getLimiteSobregiro() {
-        return limiteSobregiro;
+        return aMonto(limiteSobregiroCentavos);
+    }
+
+    public Dinero getLimiteSobregiroDinero() {
+        return Dinero.deCentavos(limiteSobregiroCentavos);
     }
 
     public void setLimiteSobregiro(double limiteSobregiro) {
-        if (limiteSobregiro < 0) {
+        setLimiteSobregiro(Dinero.de(limiteSobregiro));
+    }
+
+    public void setLimiteSobregiro(Dinero limiteSobregiro) {
+        if (limiteSobregiro == null || limiteSobregiro.esNegativo()) {
             throw new IllegalArgumentException("El límite de sobregiro no puede ser negativo.");
         }
-        this.limiteSobregiro = limiteSobregiro;
+        this.limiteSobregiroCentavos = limiteSobregiro.getCentavos();
     }
 }
 
@@ -0,0 +1,164 @@
+package com.mibanco.model;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Punto de acceso global al devengo continuo de intereses. Desactivado por omisión: los productos solo generan
+ * interés cuando se les aplica el cierre mensual, como siempre.
+ * <p>
+ * Activado, cada producto lleva el instante hasta el que devengó y el interés devengado sin liquidar, y se pone al
+ * día antes de cada movimiento: el interés de un tramo se calcula sobre el saldo que hubo durante ese tramo, así que
+ * un saldo que cambia a mitad de mes genera exactamente lo que le corresponde. Al cruzar el fin de un periodo (un mes
+ * calendario en la zona indicada) el producto liquida lo devengado en ese periodo. Los productos sin movimientos no
+ * cruzan el fin de periodo por sí solos; para ellos está {@code LiquidadorInteres}, que los recorre en lotes pequeños
+ * en segundo plano. Con el devengo activo, {@link ProductoFinanciero#aplicarInteresMensual()} liquida lo devengado
+ * hasta el momento en lugar de aplicar un mes completo de interés.
+ * <p>
+ * Debe activarse antes de operar con los productos y no cambiarse después: los periodos ya abiertos conservan los
+ * límites calculados con el reloj y la zona anteriores.
+ */
+public final class DevengoInteres {
+
+    /**
+     * Millonésimas de centavo por centavo: unidad en que los productos guardan el interés devengado sin liquidar.
+     */
+    static final long MILLONESIMAS = 1_000_000L;
+
+    private static final BigInteger MASCARA_64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+    // Cociente entre la escala de las tasas y las millonésimas de centavo.
+    private static final long ESCALA_POR_MILLONESIMA = Tasa.ESCALA / MILLONESIMAS;
+
+    private static volatile boolean activo;
+    private static volatile LongSupplier reloj = System::currentTimeMillis;
+    private static volatile ZoneId zona = ZoneId.of("UTC");
+    // Último mes calculado: casi todos los productos abren el mismo, y calcularlo con java.time reserva memoria.
+    private static volatile Periodo reciente = new Periodo(0, 0);
+
+    private static final class Periodo {
+        final long inicioMillis;
+        final long finMillis;
+
+        Periodo(long inicioMillis, long finMillis) {
+            this.inicioMillis = inicioMillis;
+            this.finMillis = finMillis;
+        }
+    }
+
+    private DevengoInteres() {
+    }
+
+    /**
+     * Activa el devengo continuo con el reloj del sistema y periodos mensuales en UTC.
+     */
+    public static void activar() {
+        activar(System::currentTimeMillis, ZoneId.of("UTC"));
+    }
+
+    /**
+     * Activa el devengo continuo.
+     *
+     * @param nuevoReloj Fuente del instante actual, en milisegundos desde la época; puede ser simulada.
+     * @param nuevaZona Zona horaria en la que empiezan y terminan los meses de liquidación.
+     */
+    public static void activar(LongSupplier nuevoReloj, ZoneId nuevaZona) {
+        reloj = Objects.requireNonNull(nuevoReloj, "El reloj no puede ser nulo.");
+        zona = Objects.requireNonNull(nuevaZona, "La zona horaria no puede ser nula.");
+        reciente = new Periodo(0, 0);
+        activo = true;
+    }
+
+    /**
+     * Vuelve al interés por cierre mensual. Lo devengado y no liquidado queda guardado en cada producto.
+     */
+    public static void desactivar() {
+        activo = false;
+    }
+
+    public static boolean estaActivo() {
+        return activo;
+    }
+
+    /**
+     * @return El instante actual según el reloj del devengo, en milisegundos.
+     */
+    public static long ahora() {
+        return reloj.getAsLong();
+    }
+
+    /**
+     * @return El instante en que empieza el mes de liquidación que contiene al indicado, en milisegundos.
+     */
+    public static long inicioPeriodo(long instanteMillis) {
+        return periodo(instanteMillis).inicioMillis;
+    }
+
+    /**
+     * @return El instante en que empieza el mes de liquidación siguiente al que contiene el indicado, en
+     * milisegundos.
+     */
+    public static long finPeriodo(long instanteMillis) {
+        return periodo(instanteMillis).finMillis;
+    }
+
+    private static Periodo periodo(long instanteMillis) {
+        Periodo actual = reciente;
+        if (instanteMillis >= actual.inicioMillis && instanteMillis < actual.finMillis) {
+            return actual;
+        }
+        ZonedDateTime inicio = ZonedDateTime.ofInstant(Instant.ofEpochMilli(instanteMillis), zona)
+                .withDayOfMonth(1)
+                .truncatedTo(ChronoUnit.DAYS);
+        actual = new Periodo(inicio.toInstant().toEpochMilli(), inicio.plusMonths(1).toInstant().toEpochMilli());
+        reciente = actual;
+        return actual;
+    }
+
+    /**
+     * Convierte saldo por tiempo en interés: {@code saldo·ms · escalada / (ESCALA · periodos · duracion)}, en
+     * millonésimas de centavo truncadas; lo que se pierde no llega a una millonésima de centavo por tramo. Solo
+     * reserva memoria si algún producto intermedio no cabe en un {@code long}.
+     *
+     * @param alto Mitad alta del saldo por tiempo, en centavos por milisegundo (128 bits en complemento a dos).
+     * @param bajo Mitad baja del saldo por tiempo.
+     * @param escalada Tasa escalada del producto.
+     * @param periodos Periodos en que se divide la tasa en un mes (1 si es mensual, 12 si es anual).
+     * @param duracionMillis Duración del periodo de liquidación en que se acumuló el saldo por tiempo.
+     */
+    static long aMillonesimas(long alto, long bajo, long escalada, long periodos, long duracionMillis) {
+        if ((alto == 0 && bajo == 0) || escalada == 0) {
+            return 0;
+        }
+        if (alto == bajo >> 63 && periodos <= Long.MAX_VALUE / ESCALA_POR_MILLONESIMA / duracionMillis) {
+            // Se separa el saldo promedio del resto, s·ms = promedio·duracion + resto, para que cada producto
+            // quepa en un long; el promedio y el resto tienen el mismo signo, así que truncar la suma es exacto.
+            long promedio = bajo / duracionMillis;
+            long resto = bajo % duracionMillis;
+            long divisorPromedio = ESCALA_POR_MILLONESIMA * periodos;
+            long porPromedio = promedio * escalada;
+            long porResto = resto * escalada;
+            if (Math.multiplyHigh(promedio, escalada) == porPromedio >> 63
+                    && Math.multiplyHigh(resto, escalada) == porResto >> 63) {
+                long cociente = porPromedio / divisorPromedio;
+                long sobrante = (porPromedio % divisorPromedio) * duracionMillis;
+                long numerador = sobrante + porResto;
+                // Sumandos del mismo signo: si la suma cambia de signo, desbordó.
+                if ((numerador ^ porResto) >= 0) {
+                    return cociente + numerador / (divisorPromedio * duracionMillis);
+                }
+            }
+        }
+        BigInteger saldoPorTiempo = BigInteger.valueOf(alto).shiftLeft(64).or(BigInteger.valueOf(bajo).and(MASCARA_64));
+        return saldoPorTiempo.multiply(BigInteger.valueOf(escalada))
+                .divide(BigInteger.valueOf(ESCALA_POR_MILLONESIMA)
+                        .multiply(BigInteger.valueOf(periodos))
+                        .multiply(BigInteger.valueOf(duracionMillis)))
+                .longValueExact();
+    }
+}
@@ -0,0 +1,258 @@
+package com.mibanco.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Monto de dinero en punto fijo, representado como un número entero de centavos en un {@code long}.
+ * <p>
+ * Es inmutable. Las operaciones que pueden perder precisión (conversiones desde decimales con más de dos cifras,
+ * divisiones, aplicación de tasas) reciben un {@link RoundingMode} explícito; las que pueden desbordar lanzan
+ * {@link ArithmeticException} en lugar de dar un resultado incorrecto. Para los caminos críticos, donde no se
+ * quiere reservar un objeto por operación, los productos trabajan directamente con centavos y las utilidades
+ * estáticas de esta clase y de {@link Tasa}.
+ */
+public final class Dinero implements Comparable<Dinero> {
+
+    public static final Dinero CERO = new Dinero(0);
+
+    private final long centavos;
+
+    private Dinero(long centavos) {
+        this.centavos = centavos;
+    }
+
+    /**
+     * @param centavos Monto en centavos.
+     * @return El monto.
+     */
+    public static Dinero deCentavos(long centavos) {
+        return centavos == 0 ? CERO : new Dinero(centavos);
+    }
+
+    /**
+     * Convierte un {@code double}, redondeando al centavo más cercano. Existe para compatibilidad con las firmas
+     * que reciben {@code double}; el valor puede no representar exactamente el monto decimal.
+     *
+     * @param monto Monto en unidades monetarias.
+     * @return El monto.
+     * @throws IllegalArgumentException Si el monto no es un número finito o no cabe en un {@code long} de centavos.
+     */
+    public static Dinero de(double monto) {
+        return deCentavos(ProductoFinanciero.aCentavos(monto));
+    }
+
+    /**
+     * Convierte un {@link BigDecimal} de forma exacta salvo por el redondeo a centavos.
+     *
+     * @param monto Monto en unidades monetarias.
+     * @param modo Redondeo para montos con más de dos decimales.
+     * @return El monto.
+     * @throws ArithmeticException Si el monto no cabe en un {@code long} de centavos, o requiere redondeo y el
+     *                             modo es {@link RoundingMode#UNNECESSARY}.
+     */
+    public static Dinero de(BigDecimal monto, RoundingMode modo) {
+        return deCentavos(monto.movePointRight(2).setScale(0, modo).longValueExact());
+    }
+
+    /**
+     * Interpreta un monto decimal como {@code "1234.56"} o {@code "-0.5"} sin pasar por {@code double}.
+     *
+     * @param monto Texto del monto, con punto decimal opcional.
+     * @param modo Redondeo para montos con más de dos decimales.
+     * @return El monto.
+     * @throws NumberFormatException Si el texto no es un número decimal válido.
+     * @throws ArithmeticException Si el monto no cabe en un {@code long} de centavos, o requiere redondeo y el
+     *                             modo es {@link RoundingMode#UNNECESSARY}.
+     */
+    public static Dinero de(String monto, RoundingMode modo) {
+        int longitud = monto.length();
+        int i = 0;
+        boolean negativo = false;
+        if (i < longitud && (monto.charAt(i) == '-' || monto.charAt(i) == '+')) {
+            negativo = monto.charAt(i) == '-';
+            i++;
+        }
+        long valor = 0;
+        int decimales = 0;
+        boolean punto = false;
+        boolean digitos = false;
+        long resto = 0;
+        long escalaResto = 1;
+        for (; i < longitud; i++) {
+            char c = monto.charAt(i);
+            if (c == '.' && !punto) {
+                punto = true;
+            } else if (c >= '0' && c <= '9') {
+                digitos = true;
+                if (decimales < 2) {
+                    valor = Math.addExact(Math.multiplyExact(valor, 10), c - '0');
+                    if (punto) {
+                        decimales++;
+                    }
+                } else if (escalaResto < 1_000_000_000_000_000L) {
+                    // Las cifras más allá del centavo solo cuentan para decidir el redondeo.
+                    resto = resto * 10 + (c - '0');
+                    escalaResto *= 10;
+                } else if (c != '0' && resto % 10 == 0) {
+                    resto++;
+                }
+            } else {
+                throw new NumberFormatException("Monto inválido: " + monto);
+            }
+        }
+        if (!digitos) {
+            throw new NumberFormatException("Monto inválido: " + monto);
+        }
+        for (; decimales < 2; decimales++) {
+            valor = Math.multiplyExact(valor, 10);
+        }
+        if (resto != 0) {
+            // Solo el último bit de los centavos influye en el redondeo (empates al par), así que se divide
+            // la fracción junto con ese bit en lugar del monto completo, que podría desbordar.
+            long paridad = valor & 1;
+            long numerador = paridad * escalaResto + resto;
+            long base = valor - paridad;
+            return deCentavos((negativo ? -base : base) + dividir(negativo ? -numerador : numerador, escalaResto, modo));
+        }
+        return deCentavos(negativo ? -valor : valor);
+    }
+
+    /**
+     * Divide dos enteros redondeando el cociente según el modo indicado, sin reservar memoria.
+     *
+     * @param dividendo Dividendo.
+     * @param divisor Divisor positivo.
+     * @param modo Modo de redondeo.
+     * @return El cociente redondeado.
+     * @throws ArithmeticException Si el divisor no es positivo, o el modo es {@link RoundingMode#UNNECESSARY}
+     *                             y la división no es exacta.
+     */
+    public static long dividir(long dividendo, long divisor, RoundingMode modo) {
+        if (divisor <= 0) {
+            throw new ArithmeticException("El divisor debe ser positivo.");
+        }
+        long cociente = dividendo / divisor;
+        long residuo = dividendo - cociente * divisor;
+        if (residuo == 0) {
+            return cociente;
+        }
+        long signo = dividendo < 0 ? -1 : 1;
+        switch (modo) {
+            case DOWN:
+                return cociente;
+            case UP:
+                return cociente + signo;
+            case FLOOR:
+                return signo < 0 ? cociente - 1 : cociente;
+            case CEILING:
+                return signo > 0 ? cociente + 1 : cociente;
+            case HALF_UP:
+            case HALF_DOWN:
+            case HALF_EVEN: {
+                long absoluto = Math.abs(residuo);
+                // Se compara el residuo con su complemento en vez de duplicarlo, para no desbordar.
+                int comparacion = Long.compare(absoluto, divisor - absoluto);
+                if (comparacion > 0) {
+                    return cociente + signo;
+                }
+                if (comparacion < 0) {
+                    return cociente;
+                }
+                if (modo == RoundingMode.HALF_UP) {
+                    return cociente + signo;
+                }
+                if (modo == RoundingMode.HALF_DOWN) {
+                    return cociente;
+                }
+                return (cociente & 1) == 0 ? cociente : cociente + signo;
+            }
+            default:
+                throw new ArithmeticException("La división requiere redondeo.");
+        }
+    }
+
+    public long getCentavos() {
+        return centavos;
+    }
+
+    public Dinero sumar(Dinero otro) {
+        return deCentavos(Math.addExact(centavos, otro.centavos));
+    }
+
+    public Dinero restar(Dinero otro) {
+        return deCentavos(Math.subtractExact(centavos, otro.centavos));
+    }
+
+    public Dinero multiplicar(long factor) {
+        return deCentavos(Math.multiplyExact(centavos, factor));
+    }
+
+    public Dinero negar() {
+        return deCentavos(Math.negateExact(centavos));
+    }
+
+    /**
+     * @param tasa Tasa a aplicar.
+     * @param modo Redondeo al centavo.
+     * @return El resultado de aplicar la tasa a este monto (por ejemplo, el interés de un periodo).
+     */
+    public Dinero aplicar(Tasa tasa, RoundingMode modo) {
+        return deCentavos(tasa.aplicar(centavos, modo));
+    }
+
+    public boolean esPositivo() {
+        return centavos > 0;
+    }
+
+    public boolean esNegativo() {
+        return centavos < 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    public double toDouble() {
+        return ProductoFinanciero.aMonto(centavos);
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        return Long.compare(centavos, otro.centavos);
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        return otro instanceof Dinero && ((Dinero) otro).centavos == centavos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centavos);
+    }
+
+    /**
+     * @return El monto con dos decimales, por ejemplo {@code "-12.05"}.
+     */
+    @Override
+    public String toString() {
+        return formatear(centavos, new StringBuilder(24)).toString();
+    }
+
+    /**
+     * Escribe un monto en centavos con dos decimales sin reservar objetos intermedios.
+     *
+     * @param centavos Monto en centavos.
+     * @param destino Destino del texto.
+     * @return El mismo destino.
+     */
+    public static StringBuilder formatear(long centavos, StringBuilder destino) {
+        long unidades = centavos / 100;
+        long resto = Math.abs(centavos % 100);
+        if (centavos < 0 && unidades == 0) {
+            destino.append('-');
+        }
+        return destino.append(unidades).append('.').append(resto < 10 ? "0" : "").append(resto);
+    }
+}
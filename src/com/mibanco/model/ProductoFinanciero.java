@@ -1,14 +1,100 @@
 package com.mibanco.model;
 
+import com.mibanco.eventos.Eventos;
+import com.mibanco.eventos.TipoEvento;
+import com.mibanco.idempotencia.CacheIdempotencia;
+import com.mibanco.idempotencia.Idempotencia;
+import com.mibanco.metricas.Metricas;
+import com.mibanco.metricas.Operacion;
+import com.mibanco.riesgo.Decision;
+import com.mibanco.riesgo.RechazoPorRiesgoException;
+import com.mibanco.riesgo.Riesgo;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.RoundingMode;
+
 /**
  * Clase abstracta que representa un producto financiero básico en un sistema bancario.
  * Define operaciones comunes y requiere que se implementen detalles específicos para cada tipo de producto.
+ * <p>
+ * El saldo se almacena internamente en centavos ({@code long}) y se actualiza mediante operaciones
+ * atómicas (CAS), de modo que depósitos y retiros concurrentes no pierden actualizaciones y las
+ * validaciones de fondos se evalúan sobre el mismo valor que se modifica. Los montos se exponen como
+ * {@link Dinero} y las tasas como {@link Tasa}, ambos en punto fijo; las firmas con {@code double} se conservan por
+ * compatibilidad y convierten al centavo más cercano en la entrada.
+ * <p>
+ * Las operaciones individuales registran su duración y su resultado en {@link Metricas}.
+ * <p>
+ * Las operaciones que modifican el saldo tienen además una variante con clave de idempotencia, para pedidos que
+ * pueden llegar repetidos por reintentos: la primera ejecución con una clave se registra en {@link Idempotencia} y las
+ * repeticiones devuelven el resultado original sin volver a aplicarse.
+ * <p>
+ * Antes de aplicar un retiro se consulta el evaluador de {@link Riesgo}, que puede rechazarlo por control de fraude.
+ * <p>
+ * Con {@link DevengoInteres} activo, el interés se devenga de forma continua: antes de cada movimiento el producto
+ * suma el saldo por el tiempo transcurrido desde el anterior y, al pasar a un nuevo mes, liquida lo devengado. El
+ * devengo se pone al día justo antes de aplicar el movimiento y sin bloquearlo, así que con movimientos concurrentes
+ * los microsegundos entre ambos pueden devengarse con el saldo anterior. Los eventos {@code INTERES} del devengo se
+ * publican bajo el monitor del producto, y {@link #capturarDevengo(ReceptorDevengo)} entrega el estado bajo el mismo
+ * monitor, para que quien lo persista lo registre ordenado respecto de ellos.
  */
 public abstract class ProductoFinanciero {
+
+    /**
+     * Receptor del estado del devengo continuo de un producto.
+     */
+    @FunctionalInterface
+    public interface ReceptorDevengo {
+        /**
+         * @param devengadoHastaMillis Instante hasta el que el producto devengó, o 0 si nunca devengó.
+         * @param devengadoMillonesimas Interés devengado sin liquidar, en millonésimas de centavo.
+         */
+        void devengo(long devengadoHastaMillis, long devengadoMillonesimas);
+    }
+
+    /**
+     * Redondeo con el que se liquidan los intereses: al centavo más cercano y, en empates, al par.
+     */
+    public static final RoundingMode REDONDEO_INTERES = RoundingMode.HALF_EVEN;
+
+    /**
+     * Valor devuelto por {@link #descontarCentavos(long, long)} y {@link #aplicarMovimientosCentavos} cuando un
+     * retiro dejaría el saldo por debajo del piso.
+     */
+    public static final long FONDOS_INSUFICIENTES = Long.MIN_VALUE;
+
+    /**
+     * Mensaje de la excepción con que se rechaza un retiro por control de riesgo.
+     */
+    protected static final String RETIRO_RECHAZADO_POR_RIESGO = "Retiro rechazado por control de riesgo.";
+
+    private static final VarHandle SALDO_CENTAVOS;
+
+    static {
+        try {
+            SALDO_CENTAVOS = MethodHandles.lookup()
+                    .findVarHandle(ProductoFinanciero.class, "saldoCentavos", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     protected String numeroCuenta;
-    protected double saldo;
+    private volatile long saldoCentavos;
     protected Cliente cliente;
 
+    // Estado del devengo continuo, protegido por el monitor del producto; devengadoHastaMillis se lee además sin lock
+    // para no tomarlo cuando el producto ya está al día. El saldo por tiempo del periodo abierto (centavos por
+    // milisegundo) es un entero de 128 bits; lo devengado en tramos cerrados y no liquidado va en millonésimas de
+    // centavo, para que liquidar al centavo no pierda fracciones entre un mes y otro.
+    private volatile long devengadoHastaMillis;  // 0 mientras el producto no haya devengado nunca.
+    private long finPeriodoMillis;
+    private long duracionPeriodoMillis;
+    private long saldoPorTiempoAlto;
+    private long saldoPorTiempoBajo;
+    private long devengadoMillonesimas;
+
     /**
      * Constructor que inicializa un producto financiero con detalles básicos.
      *
@@ -17,14 +103,25 @@ public abstract class ProductoFinanciero {
      * @param cliente Cliente titular del producto financiero.
      */
     public ProductoFinanciero(String numeroCuenta, double saldo, Cliente cliente) {
+        this(numeroCuenta, Dinero.de(saldo), cliente);
+    }
+
+    /**
+     * Constructor que inicializa un producto financiero con un saldo en punto fijo.
+     *
+     * @param numeroCuenta Número de la cuenta asociada al producto financiero.
+     * @param saldo Saldo inicial de la cuenta.
+     * @param cliente Cliente titular del producto financiero.
+     */
+    public ProductoFinanciero(String numeroCuenta, Dinero saldo, Cliente cliente) {
         if (numeroCuenta == null || numeroCuenta.isEmpty()) {
             throw new IllegalArgumentException("El número de cuenta no puede ser nulo o vacío.");
         }
-        if (saldo < 0) {
+        if (saldo == null || saldo.esNegativo()) {
             throw new IllegalArgumentException("El saldo inicial no puede ser negativo.");
         }
         this.numeroCuenta = numeroCuenta;
-        this.saldo = saldo;
+        this.saldoCentavos = saldo.getCentavos();
         this.cliente = cliente;
     }
 
@@ -33,17 +130,85 @@ public abstract class ProductoFinanciero {
      */
     public abstract void calcularInteresMensual();
 
+    /**
+     * Aplica el interés mensual del producto sin producir salida por consola, para procesos por lotes. Publica un
+     * evento {@code INTERES} con el monto aplicado, de modo que el diario y la conciliación lo vean igual que
+     * cualquier otro movimiento.
+     *
+     * @return El interés aplicado, en centavos.
+     */
+    public abstract long aplicarInteresMensual();
+
+    /**
+     * Obtiene el tipo de este producto financiero.
+     *
+     * @return El tipo de producto.
+     */
+    public abstract TipoProducto getTipo();
+
     /**
      * Deposita dinero en la cuenta, asegurándose de que el monto sea positivo.
      *
      * @param monto Cantidad de dinero a depositar.
      */
     public void depositar(double monto) {
-        if (monto <= 0) {
+        depositarCentavos(aCentavos(monto));
+    }
+
+    /**
+     * Deposita dinero en la cuenta, asegurándose de que el monto sea positivo.
+     *
+     * @param monto Cantidad de dinero a depositar.
+     */
+    public void depositar(Dinero monto) {
+        depositarCentavos(monto.getCentavos());
+    }
+
+    /**
+     * Deposita un monto en centavos, asegurándose de que sea positivo.
+     *
+     * @param montoCentavos Monto a depositar, en centavos.
+     */
+    public void depositarCentavos(long montoCentavos) {
+        abonarCentavos(montoCentavos);
+    }
+
+    /**
+     * Deposita dinero en la cuenta una sola vez por clave de idempotencia.
+     *
+     * @param claveIdempotencia Clave que identifica el pedido entre reintentos.
+     * @param monto Cantidad de dinero a depositar.
+     * @return El saldo que dejó el depósito original.
+     * @throws IllegalArgumentException Si el monto no es positivo, o si la clave ya se usó con otros parámetros.
+     */
+    public Dinero depositar(String claveIdempotencia, Dinero monto) {
+        return Dinero.deCentavos(depositarCentavos(claveIdempotencia, monto.getCentavos()));
+    }
+
+    /**
+     * Deposita un monto en centavos una sola vez por clave de idempotencia: si la clave ya se usó para este mismo
+     * depósito, no vuelve a depositar.
+     *
+     * @param claveIdempotencia Clave que identifica el pedido entre reintentos.
+     * @param montoCentavos Monto a depositar, en centavos.
+     * @return El saldo que dejó el depósito original, en centavos.
+     * @throws IllegalArgumentException Si el monto no es positivo, o si la clave ya se usó con otros parámetros.
+     */
+    public long depositarCentavos(String claveIdempotencia, long montoCentavos) {
+        return idempotente(claveIdempotencia, "DEPOSITO", montoCentavos, () -> abonarCentavos(montoCentavos));
+    }
+
+    private long abonarCentavos(long montoCentavos) {
+        long inicio = Metricas.iniciar();
+        if (montoCentavos <= 0) {
+            medir(Operacion.DEPOSITO, inicio, false);
             throw new IllegalArgumentException("El monto a depositar debe ser positivo.");
         }
-        saldo += monto;
-        System.out.println("Depósito realizado. Nuevo saldo: " + saldo);
+        devengarInteres();
+        long nuevoSaldo = (long) SALDO_CENTAVOS.getAndAdd(this, montoCentavos) + montoCentavos;
+        publicar(TipoEvento.DEPOSITO, montoCentavos, nuevoSaldo);
+        medir(Operacion.DEPOSITO, inicio, true);
+        return nuevoSaldo;
     }
 
     /**
@@ -53,17 +218,445 @@ public abstract class ProductoFinanciero {
      * @return true si el retiro es exitoso, false si no hay fondos suficientes.
      */
     public boolean retirar(double monto) {
-        if (monto <= 0) {
+        return retirarCentavos(aCentavos(monto));
+    }
+
+    /**
+     * Intenta retirar una cantidad de dinero de la cuenta.
+     *
+     * @param monto Cantidad de dinero a retirar.
+     * @return true si el retiro es exitoso, false si no hay fondos suficientes.
+     */
+    public boolean retirar(Dinero monto) {
+        return retirarCentavos(monto.getCentavos());
+    }
+
+    /**
+     * Intenta retirar un monto en centavos. Las subclases que admiten sobregiro redefinen este método; las demás
+     * formas de retirar delegan en él.
+     *
+     * @param montoCentavos Monto a retirar, en centavos.
+     * @return true si el retiro es exitoso.
+     * @throws IllegalStateException Si no hay fondos suficientes.
+     * @throws RechazoPorRiesgoException Si el control de riesgo rechaza el retiro.
+     */
+    public boolean retirarCentavos(long montoCentavos) {
+        long inicio = Metricas.iniciar();
+        if (montoCentavos <= 0) {
+            medir(Operacion.RETIRO, inicio, false);
             throw new IllegalArgumentException("El monto a retirar debe ser positivo.");
         }
-        if (monto > saldo) {
+        if (!aprobadoPorRiesgo(TipoEvento.RETIRO, montoCentavos)) {
+            medir(Operacion.RETIRO, inicio, false);
+            throw new RechazoPorRiesgoException(RETIRO_RECHAZADO_POR_RIESGO);
+        }
+        long nuevoSaldo = descontarCentavos(montoCentavos, 0);
+        if (nuevoSaldo == FONDOS_INSUFICIENTES) {
+            medir(Operacion.RETIRO, inicio, false);
             throw new IllegalStateException("Fondos insuficientes para el retiro.");
         }
-        saldo -= monto;
-        System.out.println("Retiro realizado. Saldo restante: " + saldo);
+        publicar(TipoEvento.RETIRO, montoCentavos, nuevoSaldo);
+        medir(Operacion.RETIRO, inicio, true);
         return true;
     }
 
+    /**
+     * Intenta retirar dinero de la cuenta una sola vez por clave de idempotencia.
+     *
+     * @param claveIdempotencia Clave que identifica el pedido entre reintentos.
+     * @param monto Cantidad de dinero a retirar.
+     * @return El resultado del retiro original.
+     * @throws IllegalArgumentException Si la clave ya se usó con otros parámetros.
+     * @throws IllegalStateException Si el retiro original se rechazó por fondos insuficientes.
+     */
+    public boolean retirar(String claveIdempotencia, Dinero monto) {
+        return retirarCentavos(claveIdempotencia, monto.getCentavos());
+    }
+
+    /**
+     * Intenta retirar un monto en centavos una sola vez por clave de idempotencia: si la clave ya se usó para este
+     * mismo retiro, no vuelve a retirar y devuelve el resultado original, o lanza de nuevo la excepción con que se
+     * rechazó.
+     *
+     * @param claveIdempotencia Clave que identifica el pedido entre reintentos.
+     * @param montoCentavos Monto a retirar, en centavos.
+     * @return El resultado del retiro original, como {@link #retirarCentavos(long)}.
+     * @throws IllegalArgumentException Si la clave ya se usó con otros parámetros.
+     * @throws IllegalStateException Si el retiro original se rechazó por fondos insuficientes.
+     */
+    public boolean retirarCentavos(String claveIdempotencia, long montoCentavos) {
+        return idempotente(claveIdempotencia, "RETIRO", montoCentavos,
+                () -> retirarCentavos(montoCentavos) ? 1 : 0) != 0;
+    }
+
+    /**
+     * Aplica el interés mensual una sola vez por clave de idempotencia, para procesos por lotes que pueden
+     * reintentarse; por ejemplo, con el número de cuenta y el periodo liquidado como clave.
+     *
+     * @param claveIdempotencia Clave que identifica la liquidación entre reintentos.
+     * @return El interés aplicado en la liquidación original, en centavos.
+     */
+    public final long aplicarInteresMensual(String claveIdempotencia) {
+        return idempotente(claveIdempotencia, "INTERES", 0, this::aplicarInteresMensual);
+    }
+
+    /**
+     * Descuenta atómicamente un monto del saldo siempre que el resultado no quede por debajo del piso indicado.
+     * La verificación y la actualización se hacen sobre el mismo valor leído, por lo que dos retiros
+     * concurrentes nunca pueden superar juntos los fondos disponibles.
+     *
+     * @param montoCentavos Monto a retirar, en centavos.
+     * @param pisoCentavos Saldo mínimo permitido tras el retiro (0, o el sobregiro en negativo).
+     * @return El nuevo saldo en centavos, o {@link #FONDOS_INSUFICIENTES} si el retiro no procede.
+     */
+    protected final long descontarCentavos(long montoCentavos, long pisoCentavos) {
+        devengarInteres();
+        long actual;
+        long nuevo;
+        do {
+            actual = saldoCentavos;
+            nuevo = actual - montoCentavos;
+            if (nuevo < pisoCentavos) {
+                return FONDOS_INSUFICIENTES;
+            }
+        } while (!SALDO_CENTAVOS.weakCompareAndSet(this, actual, nuevo));
+        return nuevo;
+    }
+
+    /**
+     * Aplica en orden una secuencia de depósitos y retiros con una sola actualización atómica del saldo, con el
+     * mismo resultado que aplicarlos uno por uno: cada retiro se evalúa sobre el saldo que dejan los movimientos
+     * anteriores y se rechaza si lo dejaría por debajo del piso del producto (cero, o el sobregiro permitido).
+     * Publica un evento por movimiento después de aplicar el conjunto.
+     *
+     * @param movimientos Montos en centavos: positivos para depósitos y negativos para retiros; ninguno puede ser cero.
+     * @param cantidad Número de movimientos a aplicar desde el inicio del arreglo.
+     * @param saldos Salida: el saldo tras cada movimiento, o {@link #FONDOS_INSUFICIENTES} si el retiro se rechazó.
+     * @return El saldo final, en centavos.
+     * @throws IllegalArgumentException Si algún movimiento es cero.
+     */
+    public long aplicarMovimientosCentavos(long[] movimientos, int cantidad, long[] saldos) {
+        for (int i = 0; i < cantidad; i++) {
+            if (movimientos[i] == 0) {
+                throw new IllegalArgumentException("El monto del movimiento no puede ser cero.");
+            }
+        }
+        devengarInteres();
+        long piso = getPisoCentavos();
+        long actual;
+        long saldo;
+        do {
+            actual = saldoCentavos;
+            saldo = actual;
+            for (int i = 0; i < cantidad; i++) {
+                long movimiento = movimientos[i];
+                if (movimiento < 0 && saldo + movimiento < piso) {
+                    saldos[i] = FONDOS_INSUFICIENTES;
+                } else {
+                    saldo += movimiento;
+                    saldos[i] = saldo;
+                }
+            }
+        } while (!SALDO_CENTAVOS.weakCompareAndSet(this, actual, saldo));
+        for (int i = 0; i < cantidad; i++) {
+            long movimiento = movimientos[i];
+            if (movimiento > 0) {
+                publicar(TipoEvento.DEPOSITO, movimiento, saldos[i]);
+            } else if (saldos[i] != FONDOS_INSUFICIENTES) {
+                publicar(TipoEvento.RETIRO, -movimiento, saldos[i]);
+            } else {
+                retiroRechazado(-movimiento);
+            }
+        }
+        return saldo;
+    }
+
+    /**
+     * @return Saldo mínimo que puede dejar un retiro, en centavos: cero, salvo en productos con sobregiro.
+     */
+    protected long getPisoCentavos() {
+        return 0;
+    }
+
+    /**
+     * Se invoca cuando {@link #aplicarMovimientosCentavos} rechaza un retiro. Por omisión no hace nada; los
+     * productos que informan los rechazos lo redefinen.
+     *
+     * @param montoCentavos Monto del retiro rechazado, en centavos.
+     */
+    protected void retiroRechazado(long montoCentavos) {
+    }
+
+    /**
+     * Aplica atómicamente al saldo actual una fracción de una tasa, redondeada al centavo con
+     * {@link #REDONDEO_INTERES}. Solo usa aritmética entera, así que no reserva memoria. Con {@link DevengoInteres}
+     * activo, en cambio, liquida lo devengado hasta el momento con {@link #liquidarInteresDevengado()}. En ambos
+     * casos publica un evento {@code INTERES} con el monto abonado.
+     *
+     * @param tasa Tasa de interés.
+     * @param periodos Número de periodos en que se divide la tasa (1 si es mensual, 12 si es anual).
+     * @return El interés abonado, en centavos.
+     */
+    protected final long acumularInteres(Tasa tasa, long periodos) {
+        if (DevengoInteres.estaActivo()) {
+            synchronized (this) {
+                long liquidado = liquidarInteresDevengado();
+                publicar(TipoEvento.INTERES, liquidado, saldoCentavos);
+                return liquidado;
+            }
+        }
+        long escalada = tasa.getEscalada();
+        long actual;
+        long interes;
+        do {
+            actual = saldoCentavos;
+            interes = Tasa.aplicar(actual, escalada, periodos, REDONDEO_INTERES);
+        } while (!SALDO_CENTAVOS.weakCompareAndSet(this, actual, actual + interes));
+        publicar(TipoEvento.INTERES, interes, actual + interes);
+        return interes;
+    }
+
+    /**
+     * Pone al día el devengo continuo hasta el instante actual y liquida los meses que hayan terminado desde la
+     * última vez. Sin {@link DevengoInteres} activo, o si el producto ya devengó en este mismo milisegundo, no hace
+     * nada ni toma el lock.
+     *
+     * @return El interés liquidado por meses terminados, en centavos.
+     */
+    public final long devengarInteres() {
+        if (!DevengoInteres.estaActivo()) {
+            return 0;
+        }
+        long ahora = DevengoInteres.ahora();
+        if (ahora == devengadoHastaMillis) {
+            return 0;
+        }
+        synchronized (this) {
+            return devengarHasta(ahora, true);
+        }
+    }
+
+    /**
+     * Liquida ya todo lo devengado, incluidos los meses terminados que no se hubieran liquidado y lo del mes en
+     * curso. No publica eventos: {@link #aplicarInteresMensual()} informa el total una sola vez, y debe hacerlo sin
+     * soltar el monitor del producto entre la liquidación y el evento.
+     *
+     * @return El interés abonado, en centavos.
+     */
+    protected final long liquidarInteresDevengado() {
+        synchronized (this) {
+            long liquidado = devengarHasta(DevengoInteres.ahora(), false);
+            cerrarTramo();
+            return liquidado + liquidarCerrado(false);
+        }
+    }
+
+    /**
+     * Convierte en interés el saldo por tiempo acumulado con la tasa vigente. Las subclases lo invocan antes de
+     * cambiar la tasa, para que el nuevo valor solo se aplique desde ese momento.
+     */
+    protected final void cerrarTramoDevengo() {
+        synchronized (this) {
+            if (DevengoInteres.estaActivo()) {
+                devengarHasta(DevengoInteres.ahora(), true);
+            }
+            cerrarTramo();
+        }
+    }
+
+    /**
+     * @return Tasa con la que devenga el producto. Por omisión cero; cada producto devuelve la suya.
+     */
+    protected Tasa getTasaDevengo() {
+        return Tasa.CERO;
+    }
+
+    /**
+     * @return Número de meses en que se divide la tasa de devengo: 1 si es mensual, 12 si es anual.
+     */
+    protected long getPeriodosDevengo() {
+        return 1;
+    }
+
+    /**
+     * @return Monto sobre el que se devenga el interés, en centavos: el saldo, salvo en productos de crédito.
+     */
+    protected long getBaseDevengoCentavos() {
+        return saldoCentavos;
+    }
+
+    /**
+     * Suma un interés liquidado al producto: al saldo, salvo en productos de crédito.
+     *
+     * @param interesCentavos Interés a sumar, en centavos; puede ser negativo.
+     * @return El saldo resultante que se informa en el evento, en centavos.
+     */
+    protected long abonarInteres(long interesCentavos) {
+        return (long) SALDO_CENTAVOS.getAndAdd(this, interesCentavos) + interesCentavos;
+    }
+
+    /**
+     * @param publicarEvento true para publicar un evento por cada mes terminado que se liquide; false si quien
+     *                       llama informa el total.
+     */
+    private long devengarHasta(long ahora, boolean publicarEvento) {
+        long desde = devengadoHastaMillis;
+        if (desde == 0) {
+            abrirPeriodo(ahora);
+            devengadoHastaMillis = ahora;
+            return 0;
+        }
+        long liquidado = 0;
+        while (ahora >= finPeriodoMillis) {
+            acumularSaldoPorTiempo(finPeriodoMillis - desde);
+            desde = finPeriodoMillis;
+            // Se marca antes de liquidar: el abono publica un evento y quien lo recibe puede volver a consultar.
+            devengadoHastaMillis = desde;
+            cerrarTramo();
+            liquidado += liquidarCerrado(publicarEvento);
+            abrirPeriodo(desde);
+        }
+        if (ahora > desde) {
+            acumularSaldoPorTiempo(ahora - desde);
+            devengadoHastaMillis = ahora;
+        }
+        return liquidado;
+    }
+
+    private void abrirPeriodo(long instanteMillis) {
+        finPeriodoMillis = DevengoInteres.finPeriodo(instanteMillis);
+        duracionPeriodoMillis = finPeriodoMillis - DevengoInteres.inicioPeriodo(instanteMillis);
+    }
+
+    private void acumularSaldoPorTiempo(long millis) {
+        long base = getBaseDevengoCentavos();
+        long bajo = base * millis;
+        long alto = Math.multiplyHigh(base, millis);
+        long suma = saldoPorTiempoBajo + bajo;
+        if (Long.compareUnsigned(suma, saldoPorTiempoBajo) < 0) {
+            alto++;
+        }
+        saldoPorTiempoAlto += alto;
+        saldoPorTiempoBajo = suma;
+    }
+
+    private void cerrarTramo() {
+        devengadoMillonesimas += DevengoInteres.aMillonesimas(saldoPorTiempoAlto, saldoPorTiempoBajo,
+                getTasaDevengo().getEscalada(), getPeriodosDevengo(), duracionPeriodoMillis);
+        saldoPorTiempoAlto = 0;
+        saldoPorTiempoBajo = 0;
+    }
+
+    private long liquidarCerrado(boolean publicarEvento) {
+        long interes = Dinero.dividir(devengadoMillonesimas, DevengoInteres.MILLONESIMAS, REDONDEO_INTERES);
+        if (interes == 0) {
+            return 0;
+        }
+        devengadoMillonesimas -= interes * DevengoInteres.MILLONESIMAS;
+        long saldo = abonarInteres(interes);
+        if (publicarEvento) {
+            publicar(TipoEvento.INTERES, interes, saldo);
+        }
+        return interes;
+    }
+
+    /**
+     * Verifica que una tasa de interés exista y no sea negativa.
+     *
+     * @param tasa Tasa a verificar.
+     * @return La misma tasa.
+     * @throws IllegalArgumentException Si la tasa es nula o negativa.
+     */
+    protected static Tasa validarTasa(Tasa tasa) {
+        if (tasa == null || tasa.esNegativa()) {
+            throw new IllegalArgumentException("La tasa de interés no puede ser negativa.");
+        }
+        return tasa;
+    }
+
+    /**
+     * Publica un evento de transacción de este producto en el sumidero activo de {@link Eventos}.
+     *
+     * @param tipo Tipo de evento.
+     * @param montoCentavos Monto de la operación, en centavos.
+     * @param saldoCentavos Saldo resultante de la operación, en centavos.
+     */
+    protected final void publicar(TipoEvento tipo, long montoCentavos, long saldoCentavos) {
+        Eventos.getSumidero().publicar(tipo, this, montoCentavos, saldoCentavos);
+    }
+
+    /**
+     * Consulta al evaluador activo de {@link Riesgo} antes de aplicar un retiro o una compra.
+     *
+     * @param tipo {@link TipoEvento#RETIRO} o {@link TipoEvento#COMPRA}.
+     * @param montoCentavos Monto de la operación, en centavos.
+     * @return true si el evaluador aprueba la operación.
+     */
+    protected final boolean aprobadoPorRiesgo(TipoEvento tipo, long montoCentavos) {
+        return Riesgo.getEvaluador().evaluar(tipo, this, montoCentavos) == Decision.APROBADA;
+    }
+
+    /**
+     * Ejecuta una operación de este producto a lo sumo una vez por clave en el registro activo de
+     * {@link Idempotencia}. La huella del pedido combina la cuenta, la operación y sus parámetros, así que reutilizar
+     * la clave para otra cuenta, otra operación u otro monto se rechaza.
+     *
+     * @param claveIdempotencia Clave que identifica el pedido entre reintentos.
+     * @param operacion Nombre de la operación.
+     * @param parametros Monto de la operación, o la combinación de sus montos con {@link CacheIdempotencia#combinar}.
+     * @param accion Operación a ejecutar, que devuelve su resultado como {@code long}.
+     * @return El resultado de la primera ejecución.
+     */
+    protected final long idempotente(String claveIdempotencia, String operacion, long parametros,
+                                     CacheIdempotencia.Accion accion) {
+        long huella = CacheIdempotencia.combinar(CacheIdempotencia.combinar(numeroCuenta.hashCode(), operacion.hashCode()),
+                parametros);
+        return Idempotencia.getCache().ejecutar(claveIdempotencia, huella, accion);
+    }
+
+    /**
+     * Registra en {@link Metricas} la duración y el resultado de una operación de este producto. Con las métricas
+     * desactivadas no hace nada.
+     *
+     * @param operacion Operación medida.
+     * @param inicio Valor de {@link Metricas#iniciar()} al comenzar la operación.
+     * @param exito false si la operación fue rechazada o va a lanzar una excepción.
+     */
+    protected final void medir(Operacion operacion, long inicio, boolean exito) {
+        if (Metricas.ACTIVAS) {
+            Metricas.registrar(getTipo(), operacion, inicio, exito);
+        }
+    }
+
+    /**
+     * Convierte un monto en unidades monetarias a centavos, redondeando al centavo más cercano.
+     *
+     * @param monto Monto en unidades monetarias.
+     * @return El monto expresado en centavos.
+     * @throws IllegalArgumentException Si el monto no es un número finito o no cabe en un {@code long} de centavos.
+     */
+    public static long aCentavos(double monto) {
+        double centavos = monto * 100;
+        if (Double.isNaN(centavos) || Double.isInfinite(centavos)) {
+            throw new IllegalArgumentException("El monto debe ser un número finito.");
+        }
+        // Math.round satura en los extremos en lugar de fallar; 2^63 es el primer double que ya no cabe.
+        if (centavos >= 0x1p63 || centavos < -0x1p63) {
+            throw new IllegalArgumentException("El monto está fuera de rango: " + monto);
+        }
+        return Math.round(centavos);
+    }
+
+    /**
+     * Convierte un monto en centavos a unidades monetarias.
+     *
+     * @param centavos Monto en centavos.
+     * @return El monto expresado en unidades monetarias.
+     */
+    public static double aMonto(long centavos) {
+        return centavos / 100.0;
+    }
+
     // Getters y Setters
     public String getNumeroCuenta() {
         return numeroCuenta;
@@ -74,11 +667,87 @@ public abstract class ProductoFinanciero {
     }
 
     public double getSaldo() {
-        return saldo;
+        return aMonto(saldoCentavos);
+    }
+
+    public long getSaldoCentavos() {
+        return saldoCentavos;
     }
 
-    public void setSaldo(double saldo) {
-        this.saldo = saldo;
+    public Dinero getSaldoDinero() {
+        return Dinero.deCentavos(saldoCentavos);
+    }
+
+    /**
+     * Reemplaza el saldo sin publicar eventos. Solo debe usarse para restaurar un estado que ya es durable, como el
+     * de una instantánea o el reconstruido desde el diario; los movimientos deben pasar por los métodos que publican
+     * su evento, o el diario y la conciliación no los verán.
+     *
+     * @param saldoCentavos Saldo restaurado, en centavos.
+     */
+    public void restaurarSaldoCentavos(long saldoCentavos) {
+        devengarInteres();
+        this.saldoCentavos = saldoCentavos;
+    }
+
+    /**
+     * Entrega al receptor el estado del devengo continuo sin soltar el monitor del producto, de modo que lo que el
+     * receptor registre quede ordenado respecto de los eventos {@code INTERES} del devengo. Antes convierte en interés
+     * el saldo por tiempo del tramo abierto, para que el estado se reduzca al instante y lo devengado; no pone al día
+     * el devengo, porque el saldo no cambió desde ese instante.
+     *
+     * @param receptor Receptor del estado.
+     */
+    public final void capturarDevengo(ReceptorDevengo receptor) {
+        synchronized (this) {
+            cerrarTramo();
+            receptor.devengo(devengadoHastaMillis, devengadoMillonesimas);
+        }
+    }
+
+    /**
+     * Reemplaza el estado del devengo continuo sin liquidar ni publicar eventos. Como
+     * {@link #restaurarSaldoCentavos(long)}, solo debe usarse para restaurar un estado que ya es durable, y después
+     * de restaurar los saldos. El periodo abierto se calcula con la configuración vigente de {@link DevengoInteres}.
+     *
+     * @param devengadoHastaMillis Instante hasta el que el producto devengó, o 0 si nunca devengó.
+     * @param devengadoMillonesimas Interés devengado sin liquidar, en millonésimas de centavo.
+     */
+    public final void restaurarDevengo(long devengadoHastaMillis, long devengadoMillonesimas) {
+        synchronized (this) {
+            saldoPorTiempoAlto = 0;
+            saldoPorTiempoBajo = 0;
+            this.devengadoMillonesimas = devengadoMillonesimas;
+            if (devengadoHastaMillis != 0) {
+                abrirPeriodo(devengadoHastaMillis);
+            }
+            this.devengadoHastaMillis = devengadoHastaMillis;
+        }
+    }
+
+    /**
+     * @return El instante hasta el que el producto devengó interés, en milisegundos, o 0 si nunca devengó.
+     */
+    public long getDevengadoHastaMillis() {
+        return devengadoHastaMillis;
+    }
+
+    /**
+     * Pone al día el devengo y calcula el interés devengado que todavía no se liquidó.
+     *
+     * @return El interés devengado sin liquidar, redondeado al centavo.
+     */
+    public long getInteresDevengadoCentavos() {
+        devengarInteres();
+        synchronized (this) {
+            long total = devengadoMillonesimas + DevengoInteres.aMillonesimas(saldoPorTiempoAlto, saldoPorTiempoBajo,
+                    getTasaDevengo().getEscalada(), getPeriodosDevengo(), duracionPeriodoMillis);
+            return Dinero.dividir(total, DevengoInteres.MILLONESIMAS, REDONDEO_INTERES);
+        }
+    }
+
+    public Dinero getInteresDevengado() {
+        return Dinero.deCentavos(getInteresDevengadoCentavos());
     }
 
     public Cliente getCliente() {
@@ -89,4 +758,3 @@ public abstract class ProductoFinanciero {
         this.cliente = cliente;
     }
 }
-
@@ -1,16 +1,44 @@
 package com.mibanco.model;
 
+import com.mibanco.eventos.TipoEvento;
+import com.mibanco.idempotencia.CacheIdempotencia;
+import com.mibanco.metricas.Metricas;
+import com.mibanco.metricas.Operacion;
+import com.mibanco.riesgo.RechazoPorRiesgoException;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * Representa una tarjeta de crédito en el sistema bancario.
  * Permite a los clientes realizar compras a crédito hasta un límite especificado y manejar los pagos de su saldo utilizado.
  * Además, calcula los intereses sobre el saldo utilizado si no se paga completamente cada mes.
+ * <p>
+ * El crédito comprometido (saldo utilizado más retenciones de preautorizaciones) se guarda en centavos en un solo
+ * {@code long} que se actualiza con CAS, de modo que compras y retenciones concurrentes nunca superan juntas el
+ * límite de crédito.
  *
  * @author Luis Fernando Millan Rivera
  */
 public class TarjetaCredito extends ProductoFinanciero {
-    private double limiteCredito;  // Máximo saldo que puede ser utilizado en la tarjeta.
-    private double saldoUtilizado; // Saldo actualmente utilizado que aún no se ha pagado.
-    private double tasaInteres;    // Tasa de interés aplicada al saldo utilizado.
+
+    private static final VarHandle COMPROMETIDO_CENTAVOS;
+    private static final VarHandle RETENIDO_CENTAVOS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            COMPROMETIDO_CENTAVOS = lookup.findVarHandle(TarjetaCredito.class, "comprometidoCentavos", long.class);
+            RETENIDO_CENTAVOS = lookup.findVarHandle(TarjetaCredito.class, "retenidoCentavos", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long limiteCentavos;       // Máximo crédito que puede comprometerse en la tarjeta.
+    private volatile long comprometidoCentavos; // Saldo utilizado más retenciones vigentes.
+    private volatile long retenidoCentavos;     // Parte de lo comprometido que corresponde a retenciones.
+    private volatile Tasa tasaInteres;          // Tasa de interés aplicada al saldo utilizado.
 
     /**
      * Construye una nueva tarjeta de crédito asignada a un cliente.
@@ -23,13 +51,27 @@ public class TarjetaCredito extends ProductoFinanciero {
      * @throws IllegalArgumentException Si el límite de crédito o la tasa de interés son negativos.
      */
     public TarjetaCredito(String numeroCuenta, double saldo, Cliente cliente, double limiteCredito, double tasaInteres) {
+        this(numeroCuenta, Dinero.de(saldo), cliente, Dinero.de(limiteCredito), Tasa.dePorcentaje(tasaInteres));
+    }
+
+    /**
+     * Construye una nueva tarjeta de crédito con montos y tasa en punto fijo.
+     *
+     * @param numeroCuenta Número identificador de la cuenta de la tarjeta.
+     * @param saldo Saldo inicial de la cuenta (generalmente 0 para tarjetas de crédito).
+     * @param cliente Cliente titular de la tarjeta de crédito.
+     * @param limiteCredito Límite máximo de crédito permitido para el uso de la tarjeta.
+     * @param tasaInteres Tasa de interés mensual aplicada al saldo utilizado.
+     * @throws IllegalArgumentException Si el límite de crédito o la tasa de interés son negativos.
+     */
+    public TarjetaCredito(String numeroCuenta, Dinero saldo, Cliente cliente, Dinero limiteCredito, Tasa tasaInteres) {
         super(numeroCuenta, saldo, cliente);
-        if (limiteCredito < 0 || tasaInteres < 0) {
+        if (limiteCredito == null || limiteCredito.esNegativo() || tasaInteres == null || tasaInteres.esNegativa()) {
             throw new IllegalArgumentException("Ni el límite de crédito ni la tasa de interés pueden ser negativos.");
         }
-        this.limiteCredito = limiteCredito;
+        this.limiteCentavos = limiteCredito.getCentavos();
         this.tasaInteres = tasaInteres;
-        this.saldoUtilizado = 0;  // Inicialmente no se ha utilizado crédito.
+        this.comprometidoCentavos = 0;  // Inicialmente no se ha utilizado crédito.
     }
 
     /**
@@ -38,9 +80,39 @@ public class TarjetaCredito extends ProductoFinanciero {
      */
     @Override
     public void calcularInteresMensual() {
-        double interes = saldoUtilizado * (tasaInteres / 100);
-        saldoUtilizado += interes;
-        System.out.println("Intereses de tarjeta de crédito añadidos: " + interes);
+        long inicio = Metricas.iniciar();
+        aplicarInteresMensual();
+        medir(Operacion.INTERES_MENSUAL, inicio, true);
+    }
+
+    /**
+     * Aplica el interés mensual al saldo utilizado, redondeado al centavo. El interés se suma aunque deje el
+     * crédito comprometido por encima del límite. Con {@link DevengoInteres} activo, liquida lo devengado hasta el
+     * momento. En ambos casos publica un evento {@code INTERES} con el monto aplicado.
+     */
+    @Override
+    public long aplicarInteresMensual() {
+        if (DevengoInteres.estaActivo()) {
+            synchronized (this) {
+                long liquidado = liquidarInteresDevengado();
+                publicar(TipoEvento.INTERES, liquidado, getSaldoUtilizadoCentavos());
+                return liquidado;
+            }
+        }
+        long escalada = tasaInteres.getEscalada();
+        long actual;
+        long interes;
+        do {
+            actual = comprometidoCentavos;
+            interes = Tasa.aplicar(actual - retenidoCentavos, escalada, 1, REDONDEO_INTERES);
+        } while (!COMPROMETIDO_CENTAVOS.weakCompareAndSet(this, actual, actual + interes));
+        publicar(TipoEvento.INTERES, interes, getSaldoUtilizadoCentavos());
+        return interes;
+    }
+
+    @Override
+    public TipoProducto getTipo() {
+        return TipoProducto.TARJETA_CREDITO;
     }
 
     /**
@@ -48,16 +120,196 @@ public class TarjetaCredito extends ProductoFinanciero {
      *
      * @param monto Monto de la compra a realizar.
      * @throws IllegalStateException Si la compra excede el límite de crédito disponible.
+     * @throws RechazoPorRiesgoException Si el control de riesgo rechaza la compra.
      */
     public void realizarCompra(double monto) {
-        if (monto + saldoUtilizado <= limiteCredito) {
-            saldoUtilizado += monto;
-            System.out.println("Compra realizada exitosamente. Saldo utilizado: " + saldoUtilizado);
-        } else {
+        realizarCompra(Dinero.de(monto));
+    }
+
+    /**
+     * Permite realizar una compra con la tarjeta de crédito si no se excede el límite de crédito. Antes de cargarla
+     * se consulta el evaluador de {@link com.mibanco.riesgo.Riesgo}.
+     *
+     * @param monto Monto de la compra a realizar.
+     * @throws IllegalStateException Si la compra excede el límite de crédito disponible.
+     * @throws RechazoPorRiesgoException Si el control de riesgo rechaza la compra.
+     */
+    public void realizarCompra(Dinero monto) {
+        long centavos = monto.getCentavos();
+        if (centavos > 0 && !aprobadoPorRiesgo(TipoEvento.COMPRA, centavos)) {
+            medir(Operacion.COMPRA, Metricas.iniciar(), false);
+            throw new RechazoPorRiesgoException("Compra rechazada por control de riesgo.");
+        }
+        if (!cargarCentavos(centavos)) {
             throw new IllegalStateException("Compra rechazada. Límite de crédito excedido.");
         }
     }
 
+    /**
+     * Realiza una compra una sola vez por clave de idempotencia: si la clave ya se usó para esta misma compra, no
+     * vuelve a cargarla.
+     *
+     * @param claveIdempotencia Clave que identifica el pedido entre reintentos.
+     * @param monto Monto de la compra a realizar.
+     * @return El saldo utilizado tras la compra original.
+     * @throws IllegalArgumentException Si la clave ya se usó con otros parámetros.
+     * @throws IllegalStateException Si la compra original se rechazó por exceder el límite de crédito.
+     */
+    public Dinero realizarCompra(String claveIdempotencia, Dinero monto) {
+        long centavos = monto.getCentavos();
+        return Dinero.deCentavos(idempotente(claveIdempotencia, "COMPRA", centavos, () -> {
+            realizarCompra(monto);
+            return getSaldoUtilizadoCentavos();
+        }));
+    }
+
+    /**
+     * Carga una compra una sola vez por clave de idempotencia.
+     *
+     * @param claveIdempotencia Clave que identifica el pedido entre reintentos.
+     * @param montoCentavos Monto de la compra, en centavos.
+     * @return El resultado de la carga original, como {@link #cargarCentavos(long)}.
+     * @throws IllegalArgumentException Si la clave ya se usó con otros parámetros.
+     */
+    public boolean cargarCentavos(String claveIdempotencia, long montoCentavos) {
+        return idempotente(claveIdempotencia, "CARGO", montoCentavos, () -> cargarCentavos(montoCentavos) ? 1 : 0) != 0;
+    }
+
+    /**
+     * Carga una compra al saldo utilizado si cabe en el crédito disponible, sin lanzar excepciones al rechazarla.
+     * La verificación y la actualización se hacen sobre el mismo valor leído.
+     *
+     * @param montoCentavos Monto de la compra, en centavos.
+     * @return true si la compra se aplicó, false si excede el crédito disponible.
+     */
+    public boolean cargarCentavos(long montoCentavos) {
+        long inicio = Metricas.iniciar();
+        if (montoCentavos <= 0) {
+            medir(Operacion.COMPRA, inicio, false);
+            throw new IllegalArgumentException("El monto debe ser positivo.");
+        }
+        devengarInteres();
+        if (!comprometer(montoCentavos)) {
+            medir(Operacion.COMPRA, inicio, false);
+            return false;
+        }
+        publicar(TipoEvento.COMPRA, montoCentavos, getSaldoUtilizadoCentavos());
+        medir(Operacion.COMPRA, inicio, true);
+        return true;
+    }
+
+    /**
+     * Retiene crédito para una preautorización: el monto deja de estar disponible pero aún no es saldo utilizado.
+     *
+     * @param montoCentavos Monto a retener, en centavos.
+     * @return true si el monto se retuvo, false si excede el crédito disponible.
+     * @throws IllegalArgumentException Si el monto no es positivo.
+     */
+    public boolean retenerCentavos(long montoCentavos) {
+        if (montoCentavos <= 0) {
+            throw new IllegalArgumentException("El monto debe ser positivo.");
+        }
+        // Al retener, lo retenido se ajusta antes que lo comprometido para que el saldo utilizado (comprometido
+        // menos retenido) no parezca mayor de lo que es. Al capturar o liberar se descuenta primero lo retenido y
+        // solo después se devuelve el crédito, de modo que si la retención no existe no hay nada que deshacer y
+        // lo comprometido nunca supera el límite.
+        RETENIDO_CENTAVOS.getAndAdd(this, montoCentavos);
+        if (!comprometer(montoCentavos)) {
+            RETENIDO_CENTAVOS.getAndAdd(this, -montoCentavos);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Retiene crédito una sola vez por clave de idempotencia.
+     *
+     * @param claveIdempotencia Clave que identifica el pedido entre reintentos.
+     * @param montoCentavos Monto a retener, en centavos.
+     * @return El resultado de la retención original, como {@link #retenerCentavos(long)}.
+     * @throws IllegalArgumentException Si la clave ya se usó con otros parámetros.
+     */
+    public boolean retenerCentavos(String claveIdempotencia, long montoCentavos) {
+        return idempotente(claveIdempotencia, "RETENCION", montoCentavos, () -> retenerCentavos(montoCentavos) ? 1 : 0) != 0;
+    }
+
+    /**
+     * Convierte en compra parte o la totalidad de una retención y libera el resto.
+     *
+     * @param montoRetenidoCentavos Monto retenido originalmente, en centavos.
+     * @param montoCentavos Monto de la compra, en centavos; no puede superar lo retenido.
+     * @throws IllegalArgumentException Si el monto retenido no es positivo o el capturado no está entre cero y él.
+     * @throws IllegalStateException Si la tarjeta no tiene retenido al menos ese monto.
+     */
+    public void capturarRetencionCentavos(long montoRetenidoCentavos, long montoCentavos) {
+        if (montoRetenidoCentavos <= 0) {
+            throw new IllegalArgumentException("El monto retenido debe ser positivo.");
+        }
+        if (montoCentavos < 0 || montoCentavos > montoRetenidoCentavos) {
+            throw new IllegalArgumentException("El monto capturado debe estar entre cero y el monto retenido.");
+        }
+        devengarInteres();
+        if (!descontarRetenido(montoRetenidoCentavos)) {
+            throw new IllegalStateException("No hay una retención por ese monto en la tarjeta.");
+        }
+        long sobrante = montoRetenidoCentavos - montoCentavos;
+        if (sobrante > 0) {
+            COMPROMETIDO_CENTAVOS.getAndAdd(this, -sobrante);
+        }
+        publicar(TipoEvento.COMPRA, montoCentavos, getSaldoUtilizadoCentavos());
+    }
+
+    /**
+     * Captura una retención una sola vez por clave de idempotencia, de modo que un reintento no libere dos veces
+     * el sobrante ni publique dos compras.
+     *
+     * @param claveIdempotencia Clave que identifica el pedido entre reintentos.
+     * @param montoRetenidoCentavos Monto retenido originalmente, en centavos.
+     * @param montoCentavos Monto de la compra, en centavos; no puede superar lo retenido.
+     * @return El saldo utilizado tras la captura original, en centavos.
+     * @throws IllegalArgumentException Si el monto capturado no es válido, o si la clave ya se usó con otros
+     *                                  parámetros.
+     */
+    public long capturarRetencionCentavos(String claveIdempotencia, long montoRetenidoCentavos, long montoCentavos) {
+        return idempotente(claveIdempotencia, "CAPTURA", CacheIdempotencia.combinar(montoRetenidoCentavos, montoCentavos),
+                () -> {
+                    capturarRetencionCentavos(montoRetenidoCentavos, montoCentavos);
+                    return getSaldoUtilizadoCentavos();
+                });
+    }
+
+    /**
+     * Libera una retención, devolviendo el monto al crédito disponible.
+     *
+     * @param montoRetenidoCentavos Monto retenido, en centavos.
+     * @throws IllegalArgumentException Si el monto no es positivo.
+     * @throws IllegalStateException Si la tarjeta no tiene retenido al menos ese monto.
+     */
+    public void liberarRetencionCentavos(long montoRetenidoCentavos) {
+        if (montoRetenidoCentavos <= 0) {
+            throw new IllegalArgumentException("El monto retenido debe ser positivo.");
+        }
+        if (!descontarRetenido(montoRetenidoCentavos)) {
+            throw new IllegalStateException("No hay una retención por ese monto en la tarjeta.");
+        }
+        COMPROMETIDO_CENTAVOS.getAndAdd(this, -montoRetenidoCentavos);
+    }
+
+    /**
+     * Libera una retención una sola vez por clave de idempotencia, de modo que un reintento no devuelva dos veces el
+     * monto al crédito disponible.
+     *
+     * @param claveIdempotencia Clave que identifica el pedido entre reintentos.
+     * @param montoRetenidoCentavos Monto retenido, en centavos.
+     * @throws IllegalArgumentException Si la clave ya se usó con otros parámetros.
+     */
+    public void liberarRetencionCentavos(String claveIdempotencia, long montoRetenidoCentavos) {
+        idempotente(claveIdempotencia, "LIBERACION", montoRetenidoCentavos, () -> {
+            liberarRetencionCentavos(montoRetenidoCentavos);
+            return 0;
+        });
+    }
+
     /**
      * Realiza un pago hacia el saldo utilizado en la tarjeta de crédito.
      *
@@ -65,44 +317,235 @@ public class TarjetaCredito extends ProductoFinanciero {
      * @throws IllegalArgumentException Si el monto del pago excede el saldo utilizado.
      */
     public void realizarPago(double monto) {
-        if (monto > saldoUtilizado) {
-            throw new IllegalArgumentException("El monto del pago excede el saldo utilizado.");
+        realizarPagoCentavos(aCentavos(monto));
+    }
+
+    /**
+     * Realiza un pago hacia el saldo utilizado en la tarjeta de crédito.
+     *
+     * @param monto Monto del pago a aplicar.
+     * @throws IllegalArgumentException Si el monto del pago excede el saldo utilizado.
+     */
+    public void realizarPago(Dinero monto) {
+        realizarPagoCentavos(monto.getCentavos());
+    }
+
+    /**
+     * Realiza un pago una sola vez por clave de idempotencia: si la clave ya se usó para este mismo pago, no vuelve
+     * a aplicarlo.
+     *
+     * @param claveIdempotencia Clave que identifica el pedido entre reintentos.
+     * @param monto Monto del pago a aplicar.
+     * @return El saldo utilizado tras el pago original.
+     * @throws IllegalArgumentException Si el pago original excedía el saldo utilizado, o si la clave ya se usó con
+     *                                  otros parámetros.
+     */
+    public Dinero realizarPago(String claveIdempotencia, Dinero monto) {
+        return Dinero.deCentavos(realizarPagoCentavos(claveIdempotencia, monto.getCentavos()));
+    }
+
+    /**
+     * Realiza un pago en centavos una sola vez por clave de idempotencia.
+     *
+     * @param claveIdempotencia Clave que identifica el pedido entre reintentos.
+     * @param montoCentavos Monto del pago, en centavos.
+     * @return El saldo utilizado tras el pago original, en centavos.
+     * @throws IllegalArgumentException Si el pago original excedía el saldo utilizado, o si la clave ya se usó con
+     *                                  otros parámetros.
+     */
+    public long realizarPagoCentavos(String claveIdempotencia, long montoCentavos) {
+        return idempotente(claveIdempotencia, "PAGO", montoCentavos, () -> realizarPagoCentavos(montoCentavos));
+    }
+
+    private long realizarPagoCentavos(long centavos) {
+        long inicio = Metricas.iniciar();
+        devengarInteres();
+        long actual;
+        do {
+            actual = comprometidoCentavos;
+            if (centavos > actual - retenidoCentavos) {
+                medir(Operacion.PAGO, inicio, false);
+                throw new IllegalArgumentException("El monto del pago excede el saldo utilizado.");
+            }
+        } while (!COMPROMETIDO_CENTAVOS.weakCompareAndSet(this, actual, actual - centavos));
+        long utilizado = getSaldoUtilizadoCentavos();
+        publicar(TipoEvento.PAGO, centavos, utilizado);
+        medir(Operacion.PAGO, inicio, true);
+        return utilizado;
+    }
+
+    /**
+     * Aplica en orden una secuencia de compras y pagos con una sola actualización atómica del crédito, con el mismo
+     * resultado que aplicarlos uno por uno: cada compra se rechaza si excede el crédito disponible y cada pago si
+     * excede el saldo utilizado que dejan los movimientos anteriores. Publica un evento por movimiento aplicado.
+     *
+     * @param movimientos Montos en centavos: positivos para compras y negativos para pagos; ninguno puede ser cero.
+     * @param cantidad Número de movimientos a aplicar desde el inicio del arreglo.
+     * @param utilizados Salida: el saldo utilizado tras cada movimiento, o {@link #FONDOS_INSUFICIENTES} si se
+     *                   rechazó.
+     * @return El saldo utilizado final, en centavos.
+     * @throws IllegalArgumentException Si algún movimiento es cero.
+     */
+    public long aplicarMovimientosCreditoCentavos(long[] movimientos, int cantidad, long[] utilizados) {
+        for (int i = 0; i < cantidad; i++) {
+            if (movimientos[i] == 0) {
+                throw new IllegalArgumentException("El monto del movimiento no puede ser cero.");
+            }
+        }
+        devengarInteres();
+        long actual;
+        long comprometido;
+        long retenido;
+        do {
+            actual = comprometidoCentavos;
+            retenido = retenidoCentavos;
+            long limite = limiteCentavos;
+            comprometido = actual;
+            for (int i = 0; i < cantidad; i++) {
+                long movimiento = movimientos[i];
+                long nuevo = comprometido + movimiento;
+                if (movimiento > 0 ? nuevo > limite : nuevo < retenido) {
+                    utilizados[i] = FONDOS_INSUFICIENTES;
+                } else {
+                    comprometido = nuevo;
+                    utilizados[i] = nuevo - retenido;
+                }
+            }
+        } while (!COMPROMETIDO_CENTAVOS.weakCompareAndSet(this, actual, comprometido));
+        for (int i = 0; i < cantidad; i++) {
+            if (utilizados[i] != FONDOS_INSUFICIENTES) {
+                publicar(movimientos[i] > 0 ? TipoEvento.COMPRA : TipoEvento.PAGO, Math.abs(movimientos[i]), utilizados[i]);
+            }
+        }
+        return comprometido - retenido;
+    }
+
+    /**
+     * Descuenta de lo retenido un monto que no lo supere. Se llama antes de devolver lo comprometido, para que un
+     * fallo no obligue a restaurarlo después de que otra compra haya podido usar ese crédito.
+     *
+     * @return true si se descontó, false si lo retenido es menor que el monto.
+     */
+    private boolean descontarRetenido(long montoCentavos) {
+        long actual;
+        do {
+            actual = retenidoCentavos;
+            if (montoCentavos > actual) {
+                return false;
+            }
+        } while (!RETENIDO_CENTAVOS.weakCompareAndSet(this, actual, actual - montoCentavos));
+        return true;
+    }
+
+    private boolean comprometer(long montoCentavos) {
+        if (montoCentavos <= 0) {
+            throw new IllegalArgumentException("El monto debe ser positivo.");
         }
-        saldoUtilizado -= monto;
-        System.out.println("Pago realizado. Saldo actual: " + saldoUtilizado);
+        long actual;
+        long nuevo;
+        do {
+            actual = comprometidoCentavos;
+            nuevo = actual + montoCentavos;
+            if (nuevo > limiteCentavos) {
+                return false;
+            }
+        } while (!COMPROMETIDO_CENTAVOS.weakCompareAndSet(this, actual, nuevo));
+        return true;
     }
 
     // Getters y Setters con validaciones y descripciones completas.
 
     public double getLimiteCredito() {
-        return limiteCredito;
+        return aMonto(limiteCentavos);
+    }
+
+    public Dinero getLimiteCreditoDinero() {
+        return Dinero.deCentavos(limiteCentavos);
     }
 
     public void setLimiteCredito(double limiteCredito) {
-        if (limiteCredito < 0) {
+        setLimiteCredito(Dinero.de(limiteCredito));
+    }
+
+    public void setLimiteCredito(Dinero limiteCredito) {
+        if (limiteCredito == null || limiteCredito.esNegativo()) {
             throw new IllegalArgumentException("El límite de crédito no puede ser negativo.");
         }
-        this.limiteCredito = limiteCredito;
+        this.limiteCentavos = limiteCredito.getCentavos();
     }
 
     public double getSaldoUtilizado() {
-        return saldoUtilizado;
+        return aMonto(getSaldoUtilizadoCentavos());
     }
 
-    public void setSaldoUtilizado(double saldoUtilizado) {
-        this.saldoUtilizado = saldoUtilizado;  // No hay restricciones adicionales mencionadas para este setter.
+    public long getSaldoUtilizadoCentavos() {
+        return comprometidoCentavos - retenidoCentavos;
+    }
+
+    /**
+     * Reemplaza el saldo utilizado sin publicar eventos. Como {@link #restaurarSaldoCentavos(long)}, solo debe usarse
+     * para restaurar un estado que ya es durable.
+     *
+     * @param saldoUtilizadoCentavos Saldo utilizado restaurado, en centavos.
+     */
+    public void restaurarSaldoUtilizadoCentavos(long saldoUtilizadoCentavos) {
+        devengarInteres();
+        this.comprometidoCentavos = saldoUtilizadoCentavos + retenidoCentavos;
+    }
+
+    /**
+     * @return Crédito retenido por preautorizaciones vigentes, en centavos.
+     */
+    public long getRetenidoCentavos() {
+        return retenidoCentavos;
+    }
+
+    /**
+     * @return Crédito aún disponible para compras o retenciones, en centavos.
+     */
+    public long getDisponibleCentavos() {
+        return limiteCentavos - comprometidoCentavos;
     }
 
     public double getTasaInteres() {
+        return tasaInteres.getPorcentaje();
+    }
+
+    public Tasa getTasa() {
         return tasaInteres;
     }
 
     public void setTasaInteres(double tasaInteres) {
-        if (tasaInteres < 0) {
-            throw new IllegalArgumentException("La tasa de interés no puede ser negativa.");
-        }
-        this.tasaInteres = tasaInteres;
+        setTasa(Tasa.dePorcentaje(tasaInteres));
+    }
+
+    public void setTasa(Tasa tasaInteres) {
+        Tasa nueva = validarTasa(tasaInteres);
+        cerrarTramoDevengo();
+        this.tasaInteres = nueva;
+    }
+
+    @Override
+    protected Tasa getTasaDevengo() {
+        return tasaInteres;
     }
-}
 
+    /**
+     * La tarjeta devenga sobre el saldo utilizado, sin contar las retenciones.
+     */
+    @Override
+    protected long getBaseDevengoCentavos() {
+        return getSaldoUtilizadoCentavos();
+    }
 
+    /**
+     * El interés liquidado se suma al crédito comprometido, aunque lo deje por encima del límite.
+     *
+     * @return El saldo utilizado resultante, en centavos.
+     */
+    @Override
+    protected long abonarInteres(long interesCentavos) {
+        COMPROMETIDO_CENTAVOS.getAndAdd(this, interesCentavos);
+        return getSaldoUtilizadoCentavos();
+    }
+}
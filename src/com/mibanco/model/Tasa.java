@@ -0,0 +1,172 @@
+package com.mibanco.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Tasa de interés en punto fijo, con ocho decimales de fracción (seis decimales de porcentaje).
+ * <p>
+ * Es inmutable. Internamente se guarda como un {@code long} "escalado" en el que {@link #ESCALA} equivale al 100%,
+ * de modo que aplicar una tasa a un monto en centavos es una multiplicación y una división enteras con un modo de
+ * redondeo explícito, sin {@code double} ni {@link BigDecimal} salvo cuando el producto no cabe en un {@code long}.
+ */
+public final class Tasa implements Comparable<Tasa> {
+
+    /**
+     * Valor escalado que representa una tasa del 100%.
+     */
+    public static final long ESCALA = 100_000_000L;
+
+    private static final long ESCALA_PORCENTAJE = ESCALA / 100;
+
+    public static final Tasa CERO = new Tasa(0);
+
+    private final long escalada;
+
+    private Tasa(long escalada) {
+        this.escalada = escalada;
+    }
+
+    /**
+     * @param escalada Tasa escalada, donde {@link #ESCALA} es el 100%.
+     * @return La tasa.
+     */
+    public static Tasa deEscalada(long escalada) {
+        return escalada == 0 ? CERO : new Tasa(escalada);
+    }
+
+    /**
+     * Convierte un porcentaje expresado como {@code double} (e.g., 5 para 5%), redondeando al sexto decimal.
+     *
+     * @param porcentaje Tasa en porcentaje.
+     * @return La tasa.
+     */
+    public static Tasa dePorcentaje(double porcentaje) {
+        return deEscalada(escalar(porcentaje));
+    }
+
+    /**
+     * Convierte un porcentaje decimal exacto (e.g., {@code new BigDecimal("4.75")}).
+     *
+     * @param porcentaje Tasa en porcentaje.
+     * @return La tasa.
+     * @throws ArithmeticException Si tiene más de seis decimales o no cabe en la representación.
+     */
+    public static Tasa dePorcentaje(BigDecimal porcentaje) {
+        return deEscalada(porcentaje.movePointRight(6).longValueExact());
+    }
+
+    /**
+     * Convierte un porcentaje en {@code double} al valor escalado, para quien guarda tasas en arreglos primitivos.
+     *
+     * @param porcentaje Tasa en porcentaje (e.g., 5 para 5%).
+     * @return La tasa escalada, donde {@link #ESCALA} es el 100%.
+     */
+    public static long escalar(double porcentaje) {
+        if (Double.isNaN(porcentaje) || Double.isInfinite(porcentaje)) {
+            throw new IllegalArgumentException("La tasa de interés debe ser un número finito.");
+        }
+        return Math.round(porcentaje * ESCALA_PORCENTAJE);
+    }
+
+    /**
+     * Aplica la tasa a un monto, redondeando al centavo.
+     *
+     * @param centavos Monto en centavos.
+     * @param modo Modo de redondeo.
+     * @return El monto por la tasa, en centavos.
+     */
+    public long aplicar(long centavos, RoundingMode modo) {
+        return aplicar(centavos, escalada, 1, modo);
+    }
+
+    /**
+     * Aplica una fracción de la tasa a un monto, redondeando al centavo una sola vez; por ejemplo, con
+     * {@code periodos = 12} se obtiene el interés de un mes de una tasa anual.
+     *
+     * @param centavos Monto en centavos.
+     * @param periodos Número de periodos en que se divide la tasa.
+     * @param modo Modo de redondeo.
+     * @return El monto por la tasa dividida entre los periodos, en centavos.
+     */
+    public long aplicar(long centavos, long periodos, RoundingMode modo) {
+        return aplicar(centavos, escalada, periodos, modo);
+    }
+
+    /**
+     * Versión sobre valores primitivos de {@link #aplicar(long, long, RoundingMode)}, que no reserva memoria salvo
+     * cuando el producto del monto por la tasa no cabe en un {@code long}.
+     *
+     * @param centavos Monto en centavos.
+     * @param escalada Tasa escalada, donde {@link #ESCALA} es el 100%.
+     * @param periodos Número de periodos en que se divide la tasa; debe ser positivo.
+     * @param modo Modo de redondeo.
+     * @return El resultado, en centavos.
+     * @throws ArithmeticException Si el resultado no cabe en un {@code long}, o el modo es
+     *                             {@link RoundingMode#UNNECESSARY} y hace falta redondear.
+     */
+    public static long aplicar(long centavos, long escalada, long periodos, RoundingMode modo) {
+        if (periodos <= 0) {
+            throw new IllegalArgumentException("El número de periodos debe ser positivo.");
+        }
+        long bajo = centavos * escalada;
+        long alto = Math.multiplyHigh(centavos, escalada);
+        if ((alto == 0 && bajo >= 0) || (alto == -1 && bajo < 0)) {
+            if (periodos <= Long.MAX_VALUE / ESCALA) {
+                return Dinero.dividir(bajo, ESCALA * periodos, modo);
+            }
+        }
+        return BigDecimal.valueOf(centavos)
+                .multiply(BigDecimal.valueOf(escalada))
+                .divide(BigDecimal.valueOf(ESCALA).multiply(BigDecimal.valueOf(periodos)), 0, modo)
+                .longValueExact();
+    }
+
+    /**
+     * @return La tasa escalada, donde {@link #ESCALA} es el 100%.
+     */
+    public long getEscalada() {
+        return escalada;
+    }
+
+    /**
+     * @return La tasa en porcentaje (e.g., 5 para 5%), aproximada como {@code double}.
+     */
+    public double getPorcentaje() {
+        return (double) escalada / ESCALA_PORCENTAJE;
+    }
+
+    /**
+     * @return La tasa en porcentaje, exacta.
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(escalada, 6).stripTrailingZeros();
+    }
+
+    public boolean esNegativa() {
+        return escalada < 0;
+    }
+
+    @Override
+    public int compareTo(Tasa otra) {
+        return Long.compare(escalada, otra.escalada);
+    }
+
+    @Override
+    public boolean equals(Object otra) {
+        return otra instanceof Tasa && ((Tasa) otra).escalada == escalada;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(escalada);
+    }
+
+    /**
+     * @return La tasa en porcentaje, por ejemplo {@code "4.75%"}.
+     */
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + '%';
+    }
+}
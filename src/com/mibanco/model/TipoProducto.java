@@ -0,0 +1,12 @@
+package com.mibanco.model;
+
+/**
+ * Tipos de producto financiero ofrecidos por el banco.
+ * Se usa para agrupar resultados por tipo sin depender de la jerarquía de clases.
+ */
+public enum TipoProducto {
+    CUENTA_AHORRO,
+    CUENTA_CORRIENTE,
+    CERTIFICADO_DEPOSITO,
+    TARJETA_CREDITO
+}
@@ -0,0 +1,121 @@
+package com.mibanco.model;
+
+import java.util.Objects;
+
+/**
+ * Validación de los datos de un {@link Cliente}: documento de identidad, correo electrónico y número de celular.
+ * <p>
+ * Las comprobaciones recorren los caracteres directamente en lugar de usar expresiones regulares, de modo que
+ * no reservan memoria ni compilan patrones en cada llamada; esto importa en cargas masivas, donde se validan
+ * millones de clientes. El validador no tiene estado y puede compartirse entre hilos.
+ */
+public final class ValidadorCliente {
+
+    /**
+     * Instancia compartida.
+     */
+    public static final ValidadorCliente INSTANCIA = new ValidadorCliente();
+
+    private ValidadorCliente() {
+    }
+
+    /**
+     * @param documento Documento de identidad.
+     * @return true si el documento no es nulo ni está vacío.
+     */
+    public boolean esDocumentoValido(String documento) {
+        return documento != null && !documento.isEmpty();
+    }
+
+    /**
+     * @param correo Correo electrónico.
+     * @return true si el correo no es nulo y contiene una arroba.
+     */
+    public boolean esCorreoValido(String correo) {
+        return correo != null && correo.indexOf('@') >= 0;
+    }
+
+    /**
+     * @param celular Número de celular.
+     * @return true si el número no es nulo, no está vacío y solo contiene dígitos ASCII.
+     */
+    public boolean esCelularValido(String celular) {
+        if (celular == null || celular.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < celular.length(); i++) {
+            char c = celular.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param documento Documento de identidad.
+     * @return El mismo documento si es válido.
+     * @throws NullPointerException Si el documento es nulo.
+     * @throws IllegalArgumentException Si el documento está vacío.
+     */
+    public String validarDocumento(String documento) {
+        Objects.requireNonNull(documento, "El documento de identidad no puede ser nulo.");
+        if (!esDocumentoValido(documento)) {
+            throw new IllegalArgumentException("El documento de identidad no puede estar vacío.");
+        }
+        return documento;
+    }
+
+    /**
+     * @param correo Correo electrónico.
+     * @return El mismo correo si es válido.
+     * @throws IllegalArgumentException Si el correo es inválido.
+     */
+    public String validarCorreo(String correo) {
+        if (!esCorreoValido(correo)) {
+            throw new IllegalArgumentException("Correo electrónico inválido.");
+        }
+        return correo;
+    }
+
+    /**
+     * @param celular Número de celular.
+     * @return El mismo número si es válido.
+     * @throws IllegalArgumentException Si el número es inválido.
+     */
+    public String validarCelular(String celular) {
+        if (!esCelularValido(celular)) {
+            throw new IllegalArgumentException("Número de teléfono inválido. Debe contener solo números.");
+        }
+        return celular;
+    }
+
+    /**
+     * Valida un lote de registros de clientes dados como arreglos paralelos, sin lanzar excepciones ni reservar
+     * memoria. El registro {@code i} se compone de {@code documentos[i]}, {@code correos[i]} y {@code celulares[i]}.
+     *
+     * @param documentos Documentos de identidad.
+     * @param correos Correos electrónicos.
+     * @param celulares Números de celular.
+     * @param validos Arreglo donde se escribe si cada registro es válido; debe tener al menos la longitud del lote.
+     * @return Número de registros inválidos.
+     * @throws IllegalArgumentException Si los arreglos no tienen longitudes compatibles.
+     */
+    public int validarLote(String[] documentos, String[] correos, String[] celulares, boolean[] validos) {
+        int cantidad = documentos.length;
+        if (correos.length != cantidad || celulares.length != cantidad || validos.length < cantidad) {
+            throw new IllegalArgumentException("Los arreglos del lote deben tener la misma longitud.");
+        }
+        int invalidos = 0;
+        for (int i = 0; i < cantidad; i++) {
+            boolean valido = esDocumentoValido(documentos[i])
+                    && esCorreoValido(correos[i])
+                    && esCelularValido(celulares[i]);
+            validos[i] = valido;
+            if (!valido) {
+                invalidos++;
+            }
+        }
+        return invalidos;
+    }
+}
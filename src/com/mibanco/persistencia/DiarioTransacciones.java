@@ -0,0 +1,459 @@
+package com.mibanco.persistencia;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Diario de transacciones de solo escritura al final (write-ahead log) sobre segmentos de archivo
+ * preasignados y mapeados en memoria.
+ * <p>
+ * Cada registro ocupa {@code [longitud:int][tipo:byte][valor:long][longitudClave:short][clave:bytes][crc:int]}.
+ * Escribir un registro es una copia en memoria; la durabilidad la da un hilo de fondo que fuerza a disco
+ * todo lo escrito desde la última vez (group commit), de modo que muchos escritores concurrentes comparten
+ * un mismo fsync. Quien necesite garantizar que su registro sobrevive a una caída llama a
+ * {@link #confirmar(long)} con la posición devuelta por {@link #agregar(byte, String, long)}.
+ * <p>
+ * Al abrir un directorio existente se localiza el final de los datos válidos del último segmento; un registro
+ * incompleto por una caída se detecta por su CRC y se descarta.
+ */
+public class DiarioTransacciones implements AutoCloseable {
+
+    /** Fija el saldo de la cuenta al valor del registro (apertura o ajuste administrativo). */
+    public static final byte FIJAR_SALDO = 1;
+    /** Suma el valor del registro al saldo de la cuenta. */
+    public static final byte AJUSTAR_SALDO = 2;
+    /** Fija el saldo utilizado de la tarjeta al valor del registro. */
+    public static final byte FIJAR_UTILIZADO = 3;
+    /** Suma el valor del registro al saldo utilizado de la tarjeta. */
+    public static final byte AJUSTAR_UTILIZADO = 4;
+    /**
+     * Interés devengado sin liquidar, en millonésimas de centavo. Solo tiene efecto junto con el
+     * {@link #DEVENGADO_HASTA} que lo sigue.
+     */
+    public static final byte DEVENGADO = 5;
+    /**
+     * Instante hasta el que la cuenta devengó, en milisegundos. Fija el estado del devengo al último
+     * {@link #DEVENGADO} de la cuenta; si una caída deja solo el primero de los dos, se ignora.
+     */
+    public static final byte DEVENGADO_HASTA = 6;
+
+    private static final int TAMANO_SEGMENTO_POR_DEFECTO = 64 * 1024 * 1024;
+    private static final long INTERVALO_POR_DEFECTO_NANOS = 1_000_000;
+    private static final int SOBRECARGA_REGISTRO = 4 + 1 + 8 + 2 + 4;
+    private static final String PREFIJO = "diario-";
+    private static final String SUFIJO = ".seg";
+
+    /**
+     * Receptor de los registros leídos al reproducir el diario.
+     */
+    @FunctionalInterface
+    public interface LectorRegistros {
+        void registro(byte tipo, String numeroCuenta, long valor);
+    }
+
+    private final Path directorio;
+    private final int tamanoSegmento;
+    private final long intervaloNanos;
+    private final CRC32C crc = new CRC32C();
+
+    private MappedByteBuffer segmento;
+    private ByteBuffer vistaCrc;
+    private long baseSegmento;
+    private long escrito;
+    private final List<MappedByteBuffer> salientes = new ArrayList<>(); // Segmentos rotados aún sin forzar.
+
+    private final Object monitorConfirmacion = new Object();
+    private long confirmado;
+    private volatile boolean cerrado;
+    private final Thread forzador;
+
+    /**
+     * Abre (o crea) un diario con el tamaño de segmento y el intervalo de group commit por defecto.
+     *
+     * @param directorio Directorio de los segmentos.
+     */
+    public DiarioTransacciones(Path directorio) throws IOException {
+        this(directorio, TAMANO_SEGMENTO_POR_DEFECTO, INTERVALO_POR_DEFECTO_NANOS);
+    }
+
+    /**
+     * Abre (o crea) un diario.
+     *
+     * @param directorio Directorio de los segmentos.
+     * @param tamanoSegmento Tamaño en bytes de cada segmento preasignado.
+     * @param intervaloNanos Tiempo máximo entre dos fsync cuando nadie espera confirmación.
+     * @throws IllegalArgumentException Si el tamaño de segmento o el intervalo no son válidos.
+     */
+    public DiarioTransacciones(Path directorio, int tamanoSegmento, long intervaloNanos) throws IOException {
+        if (tamanoSegmento < 1024 || intervaloNanos <= 0) {
+            throw new IllegalArgumentException("El segmento debe tener al menos 1 KiB y el intervalo debe ser positivo.");
+        }
+        this.directorio = Objects.requireNonNull(directorio, "El directorio no puede ser nulo.");
+        this.tamanoSegmento = tamanoSegmento;
+        this.intervaloNanos = intervaloNanos;
+        Files.createDirectories(directorio);
+
+        List<Path> segmentos = listarSegmentos(directorio);
+        if (segmentos.isEmpty()) {
+            abrirSegmento(0);
+            sincronizarDirectorio(directorio);
+        } else {
+            Path ultimo = segmentos.get(segmentos.size() - 1);
+            long base = baseDe(ultimo);
+            segmento = mapear(ultimo, FileChannel.MapMode.READ_WRITE, Math.max(tamanoSegmento, Files.size(ultimo)));
+            baseSegmento = base;
+            int fin = finDatosValidos(segmento);
+            for (int i = fin; i < segmento.limit(); i++) {
+                segmento.put(i, (byte) 0);
+            }
+            segmento.position(fin);
+            vistaCrc = segmento.duplicate();
+            escrito = base + fin;
+        }
+        confirmado = escrito;
+
+        forzador = new Thread(this::forzarPeriodicamente, "diario-group-commit");
+        forzador.setDaemon(true);
+        forzador.start();
+    }
+
+    /**
+     * Agrega un registro al diario. El registro queda visible para una reproducción posterior en cuanto
+     * retorna, y durable tras el siguiente group commit.
+     *
+     * @param tipo Tipo de registro ({@link #FIJAR_SALDO}, {@link #AJUSTAR_SALDO}, etc.).
+     * @param numeroCuenta Número de la cuenta afectada.
+     * @param valor Valor del registro, en centavos.
+     * @return Posición lógica del final del registro, para usar con {@link #confirmar(long)}.
+     */
+    public synchronized long agregar(byte tipo, String numeroCuenta, long valor) {
+        if (cerrado) {
+            throw new IllegalStateException("El diario está cerrado.");
+        }
+        int longitudClave = longitudUtf8(numeroCuenta);
+        int tamano = SOBRECARGA_REGISTRO + longitudClave;
+        if (longitudClave > Short.MAX_VALUE || tamano + 4 > tamanoSegmento) {
+            throw new IllegalArgumentException("El número de cuenta es demasiado largo.");
+        }
+        if (segmento.remaining() < tamano + 4) {
+            rotarSegmento();
+        }
+
+        int inicio = segmento.position();
+        segmento.putInt(tamano - 4);
+        segmento.put(tipo);
+        segmento.putLong(valor);
+        segmento.putShort((short) longitudClave);
+        escribirClave(numeroCuenta, longitudClave);
+        crc.reset();
+        crc.update(vistaCrc.limit(segmento.position()).position(inicio + 4));
+        segmento.putInt((int) crc.getValue());
+
+        escrito = baseSegmento + segmento.position();
+        return escrito;
+    }
+
+    /**
+     * Bloquea hasta que el diario se haya forzado a disco al menos hasta la posición indicada.
+     * Varios hilos que esperan a la vez se confirman con un único fsync.
+     *
+     * @param posicion Posición devuelta por {@link #agregar(byte, String, long)}.
+     */
+    public void confirmar(long posicion) throws InterruptedException {
+        synchronized (monitorConfirmacion) {
+            while (confirmado < posicion) {
+                if (cerrado) {
+                    throw new IllegalStateException("El diario se cerró antes de confirmar la posición.");
+                }
+                LockSupport.unpark(forzador);
+                monitorConfirmacion.wait();
+            }
+        }
+    }
+
+    /**
+     * Reproduce todos los registros válidos de los segmentos del directorio, en orden de escritura.
+     *
+     * @param directorio Directorio de los segmentos.
+     * @param lector Receptor de cada registro.
+     */
+    public static void reproducir(Path directorio, LectorRegistros lector) throws IOException {
+        reproducir(directorio, 0, Long.MAX_VALUE, lector);
+    }
+
+    /**
+     * Reproduce, en orden de escritura, los registros cuya posición final está en el rango {@code (desde, hasta]}.
+     * Las posiciones son las devueltas por {@link #agregar(byte, String, long)} y {@link #getPosicion()}.
+     *
+     * @param directorio Directorio de los segmentos.
+     * @param desde Posición exclusiva a partir de la cual se reproducen registros.
+     * @param hasta Posición inclusiva hasta la que se reproducen registros.
+     * @param lector Receptor de cada registro.
+     */
+    public static void reproducir(Path directorio, long desde, long hasta, LectorRegistros lector) throws IOException {
+        List<Path> segmentos = listarSegmentos(directorio);
+        for (int i = 0; i < segmentos.size(); i++) {
+            Path archivo = segmentos.get(i);
+            long base = baseDe(archivo);
+            if (base >= hasta) {
+                break;
+            }
+            if (i + 1 < segmentos.size() && baseDe(segmentos.get(i + 1)) <= desde) {
+                continue;
+            }
+            MappedByteBuffer datos = mapear(archivo, FileChannel.MapMode.READ_ONLY, Files.size(archivo));
+            CRC32C verificador = new CRC32C();
+            int posicion = 0;
+            int longitud;
+            while ((longitud = longitudRegistroValido(datos, posicion, verificador)) > 0) {
+                long fin = base + posicion + longitud;
+                if (fin > hasta) {
+                    break;
+                }
+                if (fin <= desde) {
+                    posicion += longitud;
+                    continue;
+                }
+                byte tipo = datos.get(posicion + 4);
+                long valor = datos.getLong(posicion + 5);
+                int longitudClave = datos.getShort(posicion + 13);
+                byte[] clave = new byte[longitudClave];
+                datos.get(posicion + 15, clave);
+                lector.registro(tipo, new String(clave, StandardCharsets.UTF_8), valor);
+                posicion += longitud;
+            }
+        }
+    }
+
+    /**
+     * Elimina los segmentos cuyos registros terminan todos en o antes de la posición indicada,
+     * por ejemplo porque ya están incluidos en una instantánea. El segmento en uso nunca se elimina.
+     *
+     * @param posicion Posición hasta la que los registros ya no son necesarios.
+     * @return Número de segmentos eliminados.
+     */
+    public int truncarHasta(long posicion) throws IOException {
+        long baseActual;
+        synchronized (this) {
+            baseActual = baseSegmento;
+        }
+        List<Path> segmentos = listarSegmentos(directorio);
+        int eliminados = 0;
+        for (int i = 0; i + 1 < segmentos.size(); i++) {
+            long siguienteBase = baseDe(segmentos.get(i + 1));
+            if (siguienteBase > posicion || baseDe(segmentos.get(i)) >= baseActual) {
+                break;
+            }
+            Files.delete(segmentos.get(i));
+            eliminados++;
+        }
+        return eliminados;
+    }
+
+    /**
+     * @return Posición lógica del final del último registro escrito.
+     */
+    public synchronized long getPosicion() {
+        return escrito;
+    }
+
+    public Path getDirectorio() {
+        return directorio;
+    }
+
+    /**
+     * Fuerza a disco lo pendiente y detiene el hilo de group commit.
+     */
+    @Override
+    public void close() {
+        cerrado = true;
+        LockSupport.unpark(forzador);
+        try {
+            forzador.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        forzar();
+        synchronized (monitorConfirmacion) {
+            monitorConfirmacion.notifyAll();
+        }
+    }
+
+    private void forzarPeriodicamente() {
+        while (!cerrado) {
+            forzar();
+            LockSupport.parkNanos(this, intervaloNanos);
+        }
+    }
+
+    private void forzar() {
+        MappedByteBuffer actual;
+        MappedByteBuffer[] rotados;
+        long base;
+        long fin;
+        synchronized (this) {
+            actual = segmento;
+            base = baseSegmento;
+            fin = escrito;
+            rotados = salientes.toArray(new MappedByteBuffer[0]);
+            salientes.clear();
+        }
+        // Los segmentos rotados se fuerzan aquí, fuera del lock de agregar, y antes de confirmar cualquier
+        // posición del segmento actual, que es posterior a todos ellos. Si hubo rotación, el segmento actual es un
+        // archivo nuevo: también se sincroniza el directorio para que su entrada sobreviva a un corte de energía.
+        for (MappedByteBuffer rotado : rotados) {
+            rotado.force();
+        }
+        if (rotados.length > 0) {
+            try {
+                sincronizarDirectorio(directorio);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo sincronizar el directorio del diario.", e);
+            }
+        }
+        long desde;
+        synchronized (monitorConfirmacion) {
+            if (fin <= confirmado) {
+                return;
+            }
+            desde = Math.max(confirmado, base);
+        }
+        actual.force((int) (desde - base), (int) (fin - desde));
+        synchronized (monitorConfirmacion) {
+            if (fin > confirmado) {
+                confirmado = fin;
+            }
+            monitorConfirmacion.notifyAll();
+        }
+    }
+
+    private void rotarSegmento() {
+        // El segmento saliente lo fuerza el hilo de group commit; hacerlo aquí detendría a todos los escritores
+        // durante un fsync completo en cada rotación.
+        salientes.add(segmento);
+        abrirSegmento(baseSegmento + segmento.capacity());
+        LockSupport.unpark(forzador);
+    }
+
+    private void abrirSegmento(long base) {
+        try {
+            segmento = mapear(directorio.resolve(nombreSegmento(base)), FileChannel.MapMode.READ_WRITE, tamanoSegmento);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el segmento del diario.", e);
+        }
+        vistaCrc = segmento.duplicate();
+        baseSegmento = base;
+        escrito = base;
+    }
+
+    private void escribirClave(String numeroCuenta, int longitudClave) {
+        if (longitudClave == numeroCuenta.length()) {
+            for (int i = 0; i < longitudClave; i++) {
+                segmento.put((byte) numeroCuenta.charAt(i));
+            }
+        } else {
+            segmento.put(numeroCuenta.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static int longitudUtf8(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) >= 0x80) {
+                return texto.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return texto.length();
+    }
+
+    private static int finDatosValidos(ByteBuffer datos) {
+        CRC32C verificador = new CRC32C();
+        int posicion = 0;
+        int longitud;
+        while ((longitud = longitudRegistroValido(datos, posicion, verificador)) > 0) {
+            posicion += longitud;
+        }
+        return posicion;
+    }
+
+    /**
+     * @return Longitud total del registro que empieza en la posición, o 0 si no hay un registro válido.
+     */
+    private static int longitudRegistroValido(ByteBuffer datos, int posicion, CRC32C verificador) {
+        if (posicion + SOBRECARGA_REGISTRO > datos.limit()) {
+            return 0;
+        }
+        int cuerpo = datos.getInt(posicion);
+        if (cuerpo < SOBRECARGA_REGISTRO - 4 || posicion + 4 + cuerpo > datos.limit()) {
+            return 0;
+        }
+        int finCarga = posicion + cuerpo;
+        verificador.reset();
+        verificador.update(datos.duplicate().position(posicion + 4).limit(finCarga));
+        if ((int) verificador.getValue() != datos.getInt(finCarga)) {
+            return 0;
+        }
+        return cuerpo + 4;
+    }
+
+    private static MappedByteBuffer mapear(Path archivo, FileChannel.MapMode modo, long tamano) throws IOException {
+        StandardOpenOption[] opciones = modo == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE};
+        try (FileChannel canal = FileChannel.open(archivo, opciones)) {
+            return canal.map(modo, 0, tamano);
+        }
+    }
+
+    /**
+     * Hace durables las entradas creadas o renombradas en un directorio sincronizándolo. Algunos sistemas, como
+     * Windows, no permiten abrir un directorio; allí no hay forma portable de sincronizarlo y se omite.
+     */
+    static void sincronizarDirectorio(Path directorio) throws IOException {
+        FileChannel canal;
+        try {
+            canal = FileChannel.open(directorio, StandardOpenOption.READ);
+        } catch (AccessDeniedException e) {
+            return;
+        }
+        try (canal) {
+            canal.force(true);
+        }
+    }
+
+    private static List<Path> listarSegmentos(Path directorio) throws IOException {
+        List<Path> segmentos = new ArrayList<>();
+        if (!Files.isDirectory(directorio)) {
+            return segmentos;
+        }
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.filter(p -> {
+                String nombre = p.getFileName().toString();
+                return nombre.startsWith(PREFIJO) && nombre.endsWith(SUFIJO);
+            }).sorted().forEach(segmentos::add);
+        }
+        return segmentos;
+    }
+
+    private static String nombreSegmento(long base) {
+        return String.format("%s%019d%s", PREFIJO, base, SUFIJO);
+    }
+
+    private static long baseDe(Path segmento) {
+        String nombre = segmento.getFileName().toString();
+        return Long.parseLong(nombre.substring(PREFIJO.length(), nombre.length() - SUFIJO.length()));
+    }
+}
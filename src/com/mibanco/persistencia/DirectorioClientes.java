@@ -0,0 +1,673 @@
+package com.mibanco.persistencia;
+
+import com.mibanco.model.Cliente;
+import com.mibanco.model.ValidadorCliente;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Directorio de clientes fuera del heap, en archivos mapeados en memoria, para decenas de millones de clientes sin
+ * que sus datos cuenten para el recolector de basura.
+ * <p>
+ * Cada cliente es un registro {@code [version:int][capacidad:int]} seguido de sus cinco campos en UTF-8, cada uno
+ * como {@code [longitud:u16][bytes]}, en el archivo de datos. Un segundo archivo guarda, para cada cliente, la
+ * posición actual de su registro, y un tercero es una tabla hash de direccionamiento abierto sobre el documento de
+ * identidad, con ranuras de 8 bytes {@code [hash:int][id+1:int]}. Los archivos se mapean por regiones de 1 GiB, así
+ * que no están limitados a los 2 GiB de un {@link MappedByteBuffer}.
+ * <p>
+ * Las búsquedas devuelven vistas: objetos {@link Cliente} de dos campos que decodifican cada dato del archivo al
+ * pedirlo. Los setters de la vista reescriben el registro en su lugar si el nuevo contenido cabe en su capacidad;
+ * durante la escritura la versión del registro es impar y los lectores reintentan (seqlock), por lo que nunca ven
+ * un registro a medio escribir. Si no cabe, se escribe una copia con holgura al final del archivo y se publica su
+ * nueva posición; el espacio anterior queda descartado. Las lecturas no toman locks; las escrituras se serializan.
+ * <p>
+ * El documento de identidad no cambia y no hay bajas. Los datos llegan a disco con {@link #forzar()} o al cerrar;
+ * al abrir un directorio existente se retoma tal como quedó en la última de esas llamadas.
+ */
+public class DirectorioClientes implements AutoCloseable {
+
+    private static final int BITS_REGION = 30;
+    private static final long TAMANO_REGION = 1L << BITS_REGION;
+    private static final long MASCARA_REGION = TAMANO_REGION - 1;
+    private static final int CAMPOS = 5;
+    private static final int DOCUMENTO = 0;
+    private static final int NOMBRE = 1;
+    private static final int CORREO = 2;
+    private static final int CELULAR = 3;
+    private static final int DIRECCION = 4;
+    private static final int CABECERA_REGISTRO = 8;
+    private static final int LONGITUD_MAXIMA_CAMPO = 0xFFFF;
+    private static final int CAPACIDAD_INDICE_MINIMA = 1_024;
+
+    private static final long MAGIA = 0x4D4942434C490001L;
+    private static final int POS_MAGIA = 0;
+    private static final int POS_CANTIDAD = 8;
+    private static final int POS_FIN_DATOS = 16;
+    private static final int POS_CAPACIDAD_INDICE = 24;
+    private static final int POS_DESCARTADOS = 32;
+    private static final int CABECERA = 64;
+
+    private static final String ARCHIVO_DATOS = "clientes-datos.dat";
+    private static final String ARCHIVO_POSICIONES = "clientes-posiciones.dat";
+    private static final String ARCHIVO_INDICE = "clientes-indice.dat";
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path directorio;
+    private final Archivo datos;
+    private final Archivo posiciones;
+    private volatile Indice indice;
+    private volatile long cantidad;
+    private volatile boolean cerrado;
+    private long finDatos;
+    private long descartados;
+    private long reubicaciones;
+    private long reescrituras;
+
+    /**
+     * Abre (o crea) un directorio con la capacidad inicial mínima del índice.
+     *
+     * @param directorio Directorio de los archivos.
+     */
+    public DirectorioClientes(Path directorio) throws IOException {
+        this(directorio, 0);
+    }
+
+    /**
+     * Abre (o crea) un directorio.
+     *
+     * @param directorio Directorio de los archivos.
+     * @param capacidadEsperada Número de clientes previsto, para dimensionar el índice sin redimensionarlo al crecer;
+     *                          no se usa si el directorio ya existe.
+     * @throws IllegalArgumentException Si la capacidad es negativa.
+     * @throws IOException Si los archivos existen pero no son de un directorio de clientes.
+     */
+    public DirectorioClientes(Path directorio, long capacidadEsperada) throws IOException {
+        if (capacidadEsperada < 0) {
+            throw new IllegalArgumentException("La capacidad esperada no puede ser negativa.");
+        }
+        this.directorio = Objects.requireNonNull(directorio, "El directorio no puede ser nulo.");
+        Files.createDirectories(directorio);
+        boolean existente = Files.exists(directorio.resolve(ARCHIVO_POSICIONES));
+        this.posiciones = new Archivo(directorio.resolve(ARCHIVO_POSICIONES));
+        this.datos = new Archivo(directorio.resolve(ARCHIVO_DATOS));
+        posiciones.asegurar(CABECERA);
+        MappedByteBuffer cabecera = posiciones.region(0);
+        if (existente) {
+            if (cabecera.getLong(POS_MAGIA) != MAGIA) {
+                throw new IOException("El archivo " + posiciones.ruta + " no es de un directorio de clientes.");
+            }
+            cantidad = cabecera.getLong(POS_CANTIDAD);
+            finDatos = cabecera.getLong(POS_FIN_DATOS);
+            descartados = cabecera.getLong(POS_DESCARTADOS);
+            posiciones.asegurar(posicionDe(cantidad));
+            datos.asegurar(finDatos);
+            indice = new Indice(new Archivo(directorio.resolve(ARCHIVO_INDICE)), cabecera.getLong(POS_CAPACIDAD_INDICE));
+        } else {
+            long capacidad = CAPACIDAD_INDICE_MINIMA;
+            while (capacidad * 3 / 4 < capacidadEsperada) {
+                capacidad <<= 1;
+            }
+            indice = new Indice(new Archivo(directorio.resolve(ARCHIVO_INDICE)), capacidad);
+            cabecera.putLong(POS_MAGIA, MAGIA);
+            escribirCabecera();
+        }
+    }
+
+    /**
+     * Registra un cliente nuevo.
+     *
+     * @return Vista del cliente registrado.
+     * @throws IllegalArgumentException Si algún dato es inválido, un campo supera 65.535 bytes en UTF-8 o ya existe un
+     * cliente con el mismo documento.
+     * @throws IllegalStateException Si el directorio está cerrado.
+     */
+    public Cliente registrar(String documentoIdentidad, String nombre, String correoElectronico, String numeroCelular,
+                             String direccion) {
+        String[] campos = new String[CAMPOS];
+        campos[DOCUMENTO] = ValidadorCliente.INSTANCIA.validarDocumento(documentoIdentidad);
+        campos[NOMBRE] = Objects.requireNonNull(nombre, "El nombre no puede ser nulo.");
+        campos[CORREO] = ValidadorCliente.INSTANCIA.validarCorreo(correoElectronico);
+        campos[CELULAR] = ValidadorCliente.INSTANCIA.validarCelular(numeroCelular);
+        campos[DIRECCION] = Objects.requireNonNull(direccion, "La dirección no puede ser nula.");
+        byte[][] codificados = new byte[CAMPOS][];
+        int longitud = 0;
+        for (int i = 0; i < CAMPOS; i++) {
+            codificados[i] = codificar(campos[i]);
+            longitud += 2 + codificados[i].length;
+        }
+        byte[] contenido = new byte[longitud];
+        int posicion = 0;
+        for (byte[] campo : codificados) {
+            posicion = escribirCampo(contenido, posicion, campo);
+        }
+        byte[] clave = codificados[DOCUMENTO];
+        int hash = hash(clave);
+        synchronized (this) {
+            verificarAbierto();
+            if (buscarId(clave, hash) >= 0) {
+                throw new IllegalArgumentException("Ya existe un cliente con el documento " + documentoIdentidad + ".");
+            }
+            long id = cantidad;
+            if (id + 1 >= 0xFFFF_FFFFL) {
+                throw new IllegalStateException("El directorio alcanzó el número máximo de clientes.");
+            }
+            if ((id + 1) > indice.capacidad * 3 / 4) {
+                redimensionarIndice();
+            }
+            long registro = agregarRegistro(contenido, redondear(contenido.length));
+            posiciones.asegurar(posicionDe(id + 1));
+            LONG.setRelease(posiciones.region(posicionDe(id)), desplazamiento(posicionDe(id)), registro);
+            indice.insertar(hash, id);
+            cantidad = id + 1;
+            escribirCabecera();
+            return new Vista(this, id);
+        }
+    }
+
+    /**
+     * Registra una copia de los datos de un cliente.
+     *
+     * @param cliente Cliente a copiar.
+     * @return Vista del cliente registrado.
+     * @throws IllegalArgumentException Si ya existe un cliente con el mismo documento.
+     */
+    public Cliente registrar(Cliente cliente) {
+        Objects.requireNonNull(cliente, "El cliente no puede ser nulo.");
+        return registrar(cliente.getDocumentoIdentidad(), cliente.getNombre(), cliente.getCorreoElectronico(),
+                cliente.getNumeroCelular(), cliente.getDireccion());
+    }
+
+    /**
+     * @param documentoIdentidad Documento de identidad.
+     * @return Vista del cliente, o null si no está registrado.
+     */
+    public Cliente buscar(String documentoIdentidad) {
+        if (documentoIdentidad == null) {
+            return null;
+        }
+        byte[] clave = codificar(documentoIdentidad);
+        long id = buscarId(clave, hash(clave));
+        return id < 0 ? null : new Vista(this, id);
+    }
+
+    public boolean contiene(String documentoIdentidad) {
+        return buscar(documentoIdentidad) != null;
+    }
+
+    /**
+     * Entrega una vista de cada cliente, en orden de registro.
+     *
+     * @param accion Acción a aplicar a cada cliente.
+     */
+    public void recorrer(Consumer<? super Cliente> accion) {
+        long total = cantidad;
+        for (long id = 0; id < total; id++) {
+            accion.accept(new Vista(this, id));
+        }
+    }
+
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * @return Bytes ocupados en el archivo de datos, incluido el espacio descartado.
+     */
+    public synchronized long getBytesDatos() {
+        return finDatos;
+    }
+
+    /**
+     * @return Bytes del archivo de datos que ya no pertenecen a ningún registro: copias anteriores de registros
+     * reubicados y el relleno al final de cada región.
+     */
+    public synchronized long getBytesDescartados() {
+        return descartados;
+    }
+
+    /**
+     * @return Actualizaciones que cupieron en el registro y se escribieron en su lugar.
+     */
+    public synchronized long getReescrituras() {
+        return reescrituras;
+    }
+
+    /**
+     * @return Actualizaciones que no cupieron y movieron el registro al final del archivo.
+     */
+    public synchronized long getReubicaciones() {
+        return reubicaciones;
+    }
+
+    public Path getDirectorio() {
+        return directorio;
+    }
+
+    /**
+     * Escribe en disco los datos, las posiciones y el índice.
+     */
+    public synchronized void forzar() {
+        escribirCabecera();
+        datos.forzar();
+        indice.archivo.forzar();
+        posiciones.forzar();
+    }
+
+    /**
+     * Escribe en disco y cierra los archivos. Las vistas obtenidas antes siguen pudiendo leerse, pero sus setters
+     * lanzan {@link IllegalStateException}.
+     */
+    @Override
+    public synchronized void close() {
+        if (cerrado) {
+            return;
+        }
+        forzar();
+        cerrado = true;
+        datos.cerrar();
+        posiciones.cerrar();
+        indice.archivo.cerrar();
+    }
+
+    /**
+     * Lee un campo con el protocolo del seqlock: si la versión era impar o cambió durante la lectura, el registro
+     * se estaba reescribiendo y se vuelve a leer.
+     */
+    private String leer(long id, int campo) {
+        long posicionId = posicionDe(id);
+        MappedByteBuffer regionId = posiciones.region(posicionId);
+        int desplazamientoId = desplazamiento(posicionId);
+        while (true) {
+            long registro = (long) LONG.getAcquire(regionId, desplazamientoId);
+            MappedByteBuffer region = datos.region(registro);
+            int inicio = desplazamiento(registro);
+            int version = (int) INT.getAcquire(region, inicio);
+            if ((version & 1) == 0) {
+                int fin = inicio + CABECERA_REGISTRO + region.getInt(inicio + 4);
+                int posicion = inicio + CABECERA_REGISTRO;
+                for (int i = 0; i < campo && posicion + 2 <= fin; i++) {
+                    posicion += 2 + Short.toUnsignedInt(region.getShort(posicion));
+                }
+                byte[] bytes = null;
+                if (posicion + 2 <= fin) {
+                    int longitud = Short.toUnsignedInt(region.getShort(posicion));
+                    if (posicion + 2 + longitud <= fin) {
+                        bytes = new byte[longitud];
+                        region.get(posicion + 2, bytes);
+                    }
+                }
+                VarHandle.acquireFence();
+                if ((int) INT.get(region, inicio) == version) {
+                    if (bytes == null) {
+                        throw new IllegalStateException("Registro de cliente dañado en la posición " + registro + ".");
+                    }
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private synchronized void actualizar(long id, int campo, String valor) {
+        verificarAbierto();
+        byte[] nuevo = codificar(valor);
+        long posicionId = posicionDe(id);
+        MappedByteBuffer regionId = posiciones.region(posicionId);
+        int desplazamientoId = desplazamiento(posicionId);
+        long registro = regionId.getLong(desplazamientoId);
+        MappedByteBuffer region = datos.region(registro);
+        int inicio = desplazamiento(registro);
+        int capacidad = region.getInt(inicio + 4);
+
+        // Aquí no hay escritores concurrentes: se lee el registro directamente y se arma el contenido nuevo.
+        int[] limites = new int[CAMPOS + 1];
+        int posicion = inicio + CABECERA_REGISTRO;
+        for (int i = 0; i < CAMPOS; i++) {
+            limites[i] = posicion;
+            posicion += 2 + Short.toUnsignedInt(region.getShort(posicion));
+        }
+        limites[CAMPOS] = posicion;
+        int anterior = limites[campo + 1] - limites[campo];
+        byte[] contenido = new byte[limites[CAMPOS] - inicio - CABECERA_REGISTRO - anterior + 2 + nuevo.length];
+        region.get(inicio + CABECERA_REGISTRO, contenido, 0, limites[campo] - inicio - CABECERA_REGISTRO);
+        int escrito = escribirCampo(contenido, limites[campo] - inicio - CABECERA_REGISTRO, nuevo);
+        region.get(limites[campo + 1], contenido, escrito, limites[CAMPOS] - limites[campo + 1]);
+
+        if (contenido.length <= capacidad) {
+            int version = region.getInt(inicio);
+            INT.setOpaque(region, inicio, version + 1);
+            VarHandle.storeStoreFence();
+            region.put(inicio + CABECERA_REGISTRO, contenido);
+            INT.setRelease(region, inicio, version + 2);
+            reescrituras++;
+        } else {
+            // Holgura de un 25% para que las siguientes ediciones del mismo cliente quepan en su lugar.
+            long nuevoRegistro = agregarRegistro(contenido, redondear(contenido.length + contenido.length / 4));
+            LONG.setRelease(regionId, desplazamientoId, nuevoRegistro);
+            descartados += CABECERA_REGISTRO + capacidad;
+            reubicaciones++;
+        }
+        escribirCabecera();
+    }
+
+    /**
+     * Escribe un registro al final del archivo de datos. Un registro nunca cruza el límite de una región.
+     *
+     * @return Posición del registro.
+     */
+    private long agregarRegistro(byte[] contenido, int capacidad) {
+        long tamano = CABECERA_REGISTRO + capacidad;
+        long registro = finDatos;
+        if ((registro & MASCARA_REGION) + tamano > TAMANO_REGION) {
+            long siguienteRegion = (registro | MASCARA_REGION) + 1;
+            descartados += siguienteRegion - registro;
+            registro = siguienteRegion;
+        }
+        datos.asegurar(registro + tamano);
+        MappedByteBuffer region = datos.region(registro);
+        int inicio = desplazamiento(registro);
+        region.putInt(inicio, 0);
+        region.putInt(inicio + 4, capacidad);
+        region.put(inicio + CABECERA_REGISTRO, contenido);
+        finDatos = registro + tamano;
+        return registro;
+    }
+
+    private long buscarId(byte[] clave, int hash) {
+        Indice actual = indice;
+        long ranura = hash & actual.mascara;
+        while (true) {
+            long valor = actual.leer(ranura);
+            if (valor == 0) {
+                return -1;
+            }
+            if ((int) (valor >>> 32) == hash) {
+                long id = (valor & 0xFFFF_FFFFL) - 1;
+                if (documentoIgual(id, clave)) {
+                    return id;
+                }
+            }
+            ranura = (ranura + 1) & actual.mascara;
+        }
+    }
+
+    /**
+     * Compara el documento guardado con la clave sin decodificarlo. El documento no cambia y una reescritura del
+     * registro vuelve a escribir los mismos bytes, así que no hace falta el seqlock.
+     */
+    private boolean documentoIgual(long id, byte[] clave) {
+        long posicionId = posicionDe(id);
+        long registro = (long) LONG.getAcquire(posiciones.region(posicionId), desplazamiento(posicionId));
+        MappedByteBuffer region = datos.region(registro);
+        int inicio = desplazamiento(registro) + CABECERA_REGISTRO;
+        if (Short.toUnsignedInt(region.getShort(inicio)) != clave.length) {
+            return false;
+        }
+        for (int i = 0; i < clave.length; i++) {
+            if (region.get(inicio + 2 + i) != clave[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Duplica el índice en un archivo nuevo y lo reemplaza. Los lectores que ya tenían el índice anterior terminan
+     * su búsqueda sobre él; su mapeo sigue siendo válido después de reemplazar el archivo.
+     */
+    private void redimensionarIndice() {
+        Indice anterior = indice;
+        Path temporal = directorio.resolve(ARCHIVO_INDICE + ".nuevo");
+        Indice nuevo;
+        try {
+            Files.deleteIfExists(temporal);
+            nuevo = new Indice(new Archivo(temporal), anterior.capacidad * 2);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el índice de clientes.", e);
+        }
+        for (long ranura = 0; ranura < anterior.capacidad; ranura++) {
+            long valor = anterior.leer(ranura);
+            if (valor != 0) {
+                nuevo.insertar((int) (valor >>> 32), (valor & 0xFFFF_FFFFL) - 1);
+            }
+        }
+        nuevo.archivo.forzar();
+        try {
+            Files.move(temporal, directorio.resolve(ARCHIVO_INDICE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo reemplazar el índice de clientes.", e);
+        }
+        indice = nuevo;
+        anterior.archivo.cerrar();
+        escribirCabecera();
+    }
+
+    private void escribirCabecera() {
+        MappedByteBuffer cabecera = posiciones.region(0);
+        cabecera.putLong(POS_CANTIDAD, cantidad);
+        cabecera.putLong(POS_FIN_DATOS, finDatos);
+        cabecera.putLong(POS_CAPACIDAD_INDICE, indice.capacidad);
+        cabecera.putLong(POS_DESCARTADOS, descartados);
+    }
+
+    private void verificarAbierto() {
+        if (cerrado) {
+            throw new IllegalStateException("El directorio de clientes está cerrado.");
+        }
+    }
+
+    private static long posicionDe(long id) {
+        return CABECERA + id * 8;
+    }
+
+    private static int desplazamiento(long posicion) {
+        return (int) (posicion & MASCARA_REGION);
+    }
+
+    private static int redondear(int longitud) {
+        return (longitud + 7) & ~7;
+    }
+
+    private static byte[] codificar(String texto) {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > LONGITUD_MAXIMA_CAMPO) {
+            throw new IllegalArgumentException("Un campo del cliente no puede superar 65.535 bytes en UTF-8.");
+        }
+        return bytes;
+    }
+
+    private static int escribirCampo(byte[] destino, int posicion, byte[] campo) {
+        destino[posicion] = (byte) campo.length;
+        destino[posicion + 1] = (byte) (campo.length >>> 8);
+        System.arraycopy(campo, 0, destino, posicion + 2, campo.length);
+        return posicion + 2 + campo.length;
+    }
+
+    private static int hash(byte[] clave) {
+        int h = Arrays.hashCode(clave);
+        h ^= h >>> 16;
+        h *= 0x85EB_CA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2_AE35;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Archivo mapeado por regiones de 1 GiB que se agregan a medida que crece.
+     */
+    private static final class Archivo {
+
+        final Path ruta;
+        final FileChannel canal;
+        volatile MappedByteBuffer[] regiones = new MappedByteBuffer[0];
+
+        Archivo(Path ruta) throws IOException {
+            this.ruta = ruta;
+            this.canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        MappedByteBuffer region(long posicion) {
+            return regiones[(int) (posicion >>> BITS_REGION)];
+        }
+
+        /**
+         * Mapea las regiones que hagan falta para que las posiciones hasta {@code fin}, exclusivo, sean accesibles.
+         * Solo lo llama el escritor.
+         */
+        void asegurar(long fin) {
+            int necesarias = (int) ((fin + MASCARA_REGION) >>> BITS_REGION);
+            MappedByteBuffer[] actuales = regiones;
+            if (necesarias <= actuales.length) {
+                return;
+            }
+            MappedByteBuffer[] nuevas = Arrays.copyOf(actuales, necesarias);
+            try {
+                for (int i = actuales.length; i < necesarias; i++) {
+                    nuevas[i] = canal.map(FileChannel.MapMode.READ_WRITE, (long) i << BITS_REGION, TAMANO_REGION);
+                    nuevas[i].order(ByteOrder.LITTLE_ENDIAN);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo mapear el archivo " + ruta + ".", e);
+            }
+            regiones = nuevas;
+        }
+
+        void forzar() {
+            for (MappedByteBuffer region : regiones) {
+                region.force();
+            }
+        }
+
+        void cerrar() {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo cerrar el archivo " + ruta + ".", e);
+            }
+        }
+    }
+
+    /**
+     * Tabla hash de direccionamiento abierto con sondeo lineal. Una ranura vacía vale cero; el id se guarda más uno
+     * para que ninguna ranura ocupada valga cero.
+     */
+    private static final class Indice {
+
+        final Archivo archivo;
+        final long capacidad;
+        final long mascara;
+
+        Indice(Archivo archivo, long capacidad) {
+            this.archivo = archivo;
+            this.capacidad = capacidad;
+            this.mascara = capacidad - 1;
+            archivo.asegurar(capacidad * 8);
+        }
+
+        long leer(long ranura) {
+            long posicion = ranura * 8;
+            return (long) LONG.getAcquire(archivo.region(posicion), desplazamiento(posicion));
+        }
+
+        void insertar(int hash, long id) {
+            long ranura = hash & mascara;
+            while (leer(ranura) != 0) {
+                ranura = (ranura + 1) & mascara;
+            }
+            long posicion = ranura * 8;
+            LONG.setRelease(archivo.region(posicion), desplazamiento(posicion), ((long) hash << 32) | (id + 1));
+        }
+    }
+
+    /**
+     * Cliente cuyos datos están en el directorio. Cada getter decodifica el campo del archivo y cada setter valida y
+     * reescribe el registro, como los de {@link Cliente}. Dos vistas del mismo cliente son iguales.
+     */
+    private static final class Vista extends Cliente {
+
+        private final DirectorioClientes directorio;
+        private final long id;
+
+        Vista(DirectorioClientes directorio, long id) {
+            this.directorio = directorio;
+            this.id = id;
+        }
+
+        @Override
+        public String getDocumentoIdentidad() {
+            return directorio.leer(id, DOCUMENTO);
+        }
+
+        @Override
+        public String getNombre() {
+            return directorio.leer(id, NOMBRE);
+        }
+
+        @Override
+        public void setNombre(String nombre) {
+            directorio.actualizar(id, NOMBRE, Objects.requireNonNull(nombre, "El nombre no puede ser nulo."));
+        }
+
+        @Override
+        public String getCorreoElectronico() {
+            return directorio.leer(id, CORREO);
+        }
+
+        @Override
+        public void setCorreoElectronico(String correoElectronico) {
+            directorio.actualizar(id, CORREO, ValidadorCliente.INSTANCIA.validarCorreo(correoElectronico));
+        }
+
+        @Override
+        public String getNumeroCelular() {
+            return directorio.leer(id, CELULAR);
+        }
+
+        @Override
+        public void setNumeroCelular(String numeroCelular) {
+            directorio.actualizar(id, CELULAR, ValidadorCliente.INSTANCIA.validarCelular(numeroCelular));
+        }
+
+        @Override
+        public String getDireccion() {
+            return directorio.leer(id, DIRECCION);
+        }
+
+        @Override
+        public void setDireccion(String direccion) {
+            directorio.actualizar(id, DIRECCION, Objects.requireNonNull(direccion, "La dirección no puede ser nula."));
+        }
+
+        @Override
+        public boolean equals(Object otro) {
+            if (!(otro instanceof Vista)) {
+                return false;
+            }
+            Vista vista = (Vista) otro;
+            return vista.directorio == directorio && vista.id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id);
+        }
+    }
+}
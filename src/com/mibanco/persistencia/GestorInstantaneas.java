@@ -0,0 +1,423 @@
+package com.mibanco.persistencia;
+
+import com.mibanco.model.CertificadoDeposito;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.CuentaCorriente;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.model.TipoProducto;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Toma instantáneas periódicas del libro de cuentas y compacta el {@link DiarioTransacciones}.
+ * <p>
+ * Los saldos de la instantánea no se leen de los productos vivos, sino que se obtienen compactando el diario:
+ * a los saldos de la instantánea anterior se les aplican los registros hasta la posición actual del diario.
+ * Así la instantánea es exactamente consistente con esa posición sin detener las transacciones, y al arrancar
+ * basta con cargarla y reproducir el tramo posterior. Un producto del catálogo sin registros hasta esa posición
+ * se abrió después de ella: se escribe con saldos en cero y su registro de apertura, que está en el tramo posterior,
+ * fija sus saldos al recuperar. Nunca se usan los saldos vivos, que pueden incluir movimientos posteriores a la
+ * posición y se contarían dos veces al reproducir el diario. El estado del devengo continuo de cada producto
+ * (el instante hasta el que devengó y lo devengado sin liquidar) también sale del diario: antes de fijar la
+ * posición, el gestor registra en el diario el estado de cada producto que devenga, y la compactación conserva el
+ * último de cada cuenta. Los atributos de cada producto (tasas, límites, plazo)
+ * y los datos de sus clientes se toman de los objetos vivos. Tras escribir la instantánea se eliminan las
+ * anteriores y los segmentos del diario que ya contiene.
+ * <p>
+ * Formato: una secuencia de registros {@code 'C'} (cliente), {@code 'P'} (producto) y un {@code 'F'} final,
+ * precedidos por una cabecera con la posición del diario y seguidos por un CRC32C de todo el contenido. Las
+ * instantáneas de la versión 1, sin el estado del devengo, se siguen pudiendo leer.
+ */
+public class GestorInstantaneas implements AutoCloseable {
+
+    private static final int MAGICO = 0x4D42534E;
+    private static final short VERSION = 2;
+    private static final short VERSION_SIN_DEVENGO = 1;
+    private static final byte REGISTRO_CLIENTE = 'C';
+    private static final byte REGISTRO_PRODUCTO = 'P';
+    private static final byte REGISTRO_FIN = 'F';
+    private static final int TAMANO_BUFFER = 1 << 20;
+    private static final String PREFIJO = "instantanea-";
+    private static final String SUFIJO = ".snap";
+    private static final TipoProducto[] TIPOS = TipoProducto.values();
+
+    // Posiciones en el estado compactado de cada cuenta.
+    private static final int SALDO = 0;
+    private static final int UTILIZADO = 1;
+    private static final int DEVENGADO_HASTA = 2;
+    private static final int DEVENGADO = 3;
+    private static final int DEVENGADO_PENDIENTE = 4;
+
+    private final DiarioTransacciones diario;
+    private final Path directorio;
+    private final Supplier<? extends Collection<? extends ProductoFinanciero>> catalogo;
+    private final Map<String, long[]> compactado = new HashMap<>();
+    private long posicionCompactada;
+    private ScheduledExecutorService programador;
+
+    /**
+     * Crea el gestor. Si existe una instantánea previa, sus saldos se cargan como punto de partida de la compactación.
+     *
+     * @param diario Diario de transacciones activo.
+     * @param directorio Directorio donde se guardan las instantáneas.
+     * @param catalogo Proveedor de los productos vivos del libro; se consulta en cada instantánea.
+     */
+    public GestorInstantaneas(DiarioTransacciones diario, Path directorio,
+                              Supplier<? extends Collection<? extends ProductoFinanciero>> catalogo) throws IOException {
+        this.diario = Objects.requireNonNull(diario, "El diario no puede ser nulo.");
+        this.directorio = Objects.requireNonNull(directorio, "El directorio no puede ser nulo.");
+        this.catalogo = Objects.requireNonNull(catalogo, "El catálogo no puede ser nulo.");
+        Files.createDirectories(directorio);
+        Path ultima = ultimaInstantanea(directorio);
+        if (ultima != null) {
+            posicionCompactada = leer(ultima, (numero, saldo, utilizado, devengadoHasta, devengado) ->
+                    compactado.put(numero, new long[]{saldo, utilizado, devengadoHasta, devengado, 0}), null);
+        }
+    }
+
+    /**
+     * Toma instantáneas periódicamente en un hilo de fondo.
+     *
+     * @param periodo Tiempo entre instantáneas.
+     * @param unidad Unidad del periodo.
+     */
+    public synchronized void iniciar(long periodo, TimeUnit unidad) {
+        if (programador != null) {
+            throw new IllegalStateException("Las instantáneas periódicas ya están activas.");
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "instantaneas-libro");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        programador.scheduleWithFixedDelay(() -> {
+            try {
+                tomarInstantanea();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error al tomar la instantánea: " + e.getMessage());
+            }
+        }, periodo, periodo, unidad);
+    }
+
+    /**
+     * Toma una instantánea consistente con la posición actual del diario y compacta los datos anteriores. El diario
+     * solo se trunca cuando la instantánea y su entrada en el directorio ya son durables, para que una caída en medio
+     * no deje sin respaldo los registros descartados.
+     *
+     * @return Ruta de la instantánea escrita.
+     */
+    public synchronized Path tomarInstantanea() throws IOException {
+        for (ProductoFinanciero producto : catalogo.get()) {
+            SumideroDiario.registrarDevengo(diario, producto);
+        }
+        long posicion = diario.getPosicion();
+        DiarioTransacciones.reproducir(diario.getDirectorio(), posicionCompactada, posicion, this::compactar);
+        posicionCompactada = posicion;
+
+        Path destino = directorio.resolve(nombreInstantanea(posicion));
+        Path temporal = directorio.resolve(nombreInstantanea(posicion) + ".tmp");
+        escribir(temporal, posicion);
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        DiarioTransacciones.sincronizarDirectorio(directorio);
+
+        for (Path anterior : listarInstantaneas(directorio)) {
+            if (!anterior.equals(destino)) {
+                Files.delete(anterior);
+            }
+        }
+        diario.truncarHasta(posicion);
+        return destino;
+    }
+
+    /**
+     * Recupera el libro de cuentas cargando la última instantánea y aplicando el diario posterior.
+     *
+     * @param directorioInstantaneas Directorio de las instantáneas.
+     * @param directorioDiario Directorio del diario.
+     * @return Los productos recuperados y los saldos del diario posteriores a la instantánea.
+     */
+    public static LibroRecuperado recuperar(Path directorioInstantaneas, Path directorioDiario) throws IOException {
+        Map<String, ProductoFinanciero> productos = new LinkedHashMap<>();
+        Map<String, long[]> devengos = new HashMap<>();
+        Path ultima = ultimaInstantanea(directorioInstantaneas);
+        long posicion = ultima == null ? 0 : leer(ultima, (numero, saldo, utilizado, devengadoHasta, devengado) -> {
+            if (devengadoHasta != 0) {
+                devengos.put(numero, new long[]{devengadoHasta, devengado});
+            }
+        }, productos);
+        SaldosRecuperados posteriores = SaldosRecuperados.desdeDiario(directorioDiario, posicion);
+        for (ProductoFinanciero producto : productos.values()) {
+            posteriores.restaurar(producto);
+            // El devengo se restaura después de los saldos, y el registrado en el diario posterior es más reciente.
+            long[] devengo = devengos.get(producto.getNumeroCuenta());
+            if (devengo != null && posteriores.getDevengadoHastaMillis(producto.getNumeroCuenta()) == 0) {
+                producto.restaurarDevengo(devengo[0], devengo[1]);
+            }
+        }
+        return new LibroRecuperado(productos, posicion, posteriores);
+    }
+
+    /**
+     * Detiene las instantáneas periódicas.
+     */
+    @Override
+    public synchronized void close() {
+        if (programador != null) {
+            programador.shutdown();
+            programador = null;
+        }
+    }
+
+    private void compactar(byte tipo, String numeroCuenta, long valor) {
+        long[] saldos = compactado.computeIfAbsent(numeroCuenta, k -> new long[5]);
+        switch (tipo) {
+            case DiarioTransacciones.FIJAR_SALDO:
+                saldos[SALDO] = valor;
+                break;
+            case DiarioTransacciones.AJUSTAR_SALDO:
+                saldos[SALDO] += valor;
+                break;
+            case DiarioTransacciones.FIJAR_UTILIZADO:
+                saldos[UTILIZADO] = valor;
+                break;
+            case DiarioTransacciones.AJUSTAR_UTILIZADO:
+                saldos[UTILIZADO] += valor;
+                break;
+            case DiarioTransacciones.DEVENGADO:
+                saldos[DEVENGADO_PENDIENTE] = valor;
+                break;
+            case DiarioTransacciones.DEVENGADO_HASTA:
+                saldos[DEVENGADO] = saldos[DEVENGADO_PENDIENTE];
+                saldos[DEVENGADO_HASTA] = valor;
+                break;
+            default:
+                throw new IllegalStateException("Tipo de registro desconocido en el diario: " + tipo);
+        }
+    }
+
+    private void escribir(Path archivo, long posicion) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream archivoSalida = Channels.newOutputStream(canal);
+            CheckedOutputStream verificado = new CheckedOutputStream(new BufferedOutputStream(archivoSalida, TAMANO_BUFFER), crc);
+            DataOutputStream salida = new DataOutputStream(verificado);
+            salida.writeInt(MAGICO);
+            salida.writeShort(VERSION);
+            salida.writeLong(posicion);
+
+            Map<Cliente, Integer> clientes = new IdentityHashMap<>();
+            for (ProductoFinanciero producto : catalogo.get()) {
+                Cliente cliente = producto.getCliente();
+                int indiceCliente = -1;
+                if (cliente != null) {
+                    Integer indice = clientes.get(cliente);
+                    if (indice == null) {
+                        indice = clientes.size();
+                        clientes.put(cliente, indice);
+                        escribirCliente(salida, cliente);
+                    }
+                    indiceCliente = indice;
+                }
+                escribirProducto(salida, producto, indiceCliente);
+            }
+            salida.writeByte(REGISTRO_FIN);
+            salida.flush();
+            new DataOutputStream(archivoSalida).writeLong(crc.getValue());
+            canal.force(true);
+        }
+    }
+
+    private static void escribirCliente(DataOutputStream salida, Cliente cliente) throws IOException {
+        salida.writeByte(REGISTRO_CLIENTE);
+        salida.writeUTF(cliente.getDocumentoIdentidad());
+        salida.writeUTF(cliente.getNombre());
+        salida.writeUTF(cliente.getCorreoElectronico());
+        salida.writeUTF(cliente.getNumeroCelular());
+        salida.writeUTF(cliente.getDireccion());
+    }
+
+    private void escribirProducto(DataOutputStream salida, ProductoFinanciero producto, int indiceCliente)
+            throws IOException {
+        long[] saldos = compactado.get(producto.getNumeroCuenta());
+        long saldo = saldos != null ? saldos[SALDO] : 0;
+        long utilizado = 0;
+        double tasa;
+        long limite = 0;
+        int plazo = 0;
+        switch (producto.getTipo()) {
+            case CUENTA_AHORRO:
+                tasa = ((CuentaAhorro) producto).getTasaInteres();
+                break;
+            case CUENTA_CORRIENTE:
+                CuentaCorriente corriente = (CuentaCorriente) producto;
+                tasa = corriente.getTasaInteres();
+                limite = ProductoFinanciero.aCentavos(corriente.getLimiteSobregiro());
+                break;
+            case CERTIFICADO_DEPOSITO:
+                CertificadoDeposito certificado = (CertificadoDeposito) producto;
+                tasa = certificado.getTasaInteres();
+                plazo = certificado.getPlazoMeses();
+                break;
+            default:
+                TarjetaCredito tarjeta = (TarjetaCredito) producto;
+                tasa = tarjeta.getTasaInteres();
+                limite = ProductoFinanciero.aCentavos(tarjeta.getLimiteCredito());
+                utilizado = saldos != null ? saldos[UTILIZADO] : 0;
+                break;
+        }
+        salida.writeByte(REGISTRO_PRODUCTO);
+        salida.writeByte(producto.getTipo().ordinal());
+        salida.writeUTF(producto.getNumeroCuenta());
+        salida.writeInt(indiceCliente);
+        salida.writeLong(saldo);
+        salida.writeLong(utilizado);
+        salida.writeDouble(tasa);
+        salida.writeLong(limite);
+        salida.writeInt(plazo);
+        salida.writeLong(saldos != null ? saldos[DEVENGADO_HASTA] : 0);
+        salida.writeLong(saldos != null ? saldos[DEVENGADO] : 0);
+    }
+
+    @FunctionalInterface
+    private interface LectorSaldos {
+        void saldos(String numeroCuenta, long saldo, long utilizado, long devengadoHastaMillis, long devengado);
+    }
+
+    /**
+     * Lee una instantánea entregando los saldos y el estado del devengo al lector y, si se indica, reconstruyendo los
+     * productos.
+     *
+     * @return La posición del diario incluida en la instantánea.
+     */
+    private static long leer(Path archivo, LectorSaldos lector, Map<String, ProductoFinanciero> productos)
+            throws IOException {
+        CRC32C crc = new CRC32C();
+        try (InputStream buffer = new BufferedInputStream(Files.newInputStream(archivo), TAMANO_BUFFER)) {
+            DataInputStream entrada = new DataInputStream(new CheckedInputStream(buffer, crc));
+            if (entrada.readInt() != MAGICO) {
+                throw new IOException("Formato de instantánea no reconocido: " + archivo);
+            }
+            short version = entrada.readShort();
+            if (version != VERSION && version != VERSION_SIN_DEVENGO) {
+                throw new IOException("Formato de instantánea no reconocido: " + archivo);
+            }
+            long posicion = entrada.readLong();
+            List<Cliente> clientes = new ArrayList<>();
+            byte registro;
+            while ((registro = entrada.readByte()) != REGISTRO_FIN) {
+                if (registro == REGISTRO_CLIENTE) {
+                    String documento = entrada.readUTF();
+                    String nombre = entrada.readUTF();
+                    String correo = entrada.readUTF();
+                    String celular = entrada.readUTF();
+                    String direccion = entrada.readUTF();
+                    if (productos != null) {
+                        clientes.add(new Cliente(documento, nombre, correo, celular, direccion));
+                    }
+                } else if (registro == REGISTRO_PRODUCTO) {
+                    TipoProducto tipo = TIPOS[entrada.readByte()];
+                    String numero = entrada.readUTF();
+                    int indiceCliente = entrada.readInt();
+                    long saldo = entrada.readLong();
+                    long utilizado = entrada.readLong();
+                    double tasa = entrada.readDouble();
+                    long limite = entrada.readLong();
+                    int plazo = entrada.readInt();
+                    long devengadoHasta = version == VERSION ? entrada.readLong() : 0;
+                    long devengado = version == VERSION ? entrada.readLong() : 0;
+                    if (lector != null) {
+                        lector.saldos(numero, saldo, utilizado, devengadoHasta, devengado);
+                    }
+                    if (productos != null) {
+                        Cliente cliente = indiceCliente < 0 ? null : clientes.get(indiceCliente);
+                        productos.put(numero, crearProducto(tipo, numero, cliente, saldo, utilizado, tasa, limite, plazo));
+                    }
+                } else {
+                    throw new IOException("Registro desconocido en la instantánea: " + registro);
+                }
+            }
+            // El CRC final se lee directamente del buffer para que no forme parte del cálculo.
+            if (new DataInputStream(buffer).readLong() != crc.getValue()) {
+                throw new IOException("La instantánea está corrupta: " + archivo);
+            }
+            return posicion;
+        }
+    }
+
+    private static ProductoFinanciero crearProducto(TipoProducto tipo, String numero, Cliente cliente, long saldo,
+                                                    long utilizado, double tasa, long limite, int plazo) {
+        ProductoFinanciero producto;
+        switch (tipo) {
+            case CUENTA_AHORRO:
+                producto = new CuentaAhorro(numero, 0, cliente, tasa);
+                break;
+            case CUENTA_CORRIENTE:
+                producto = new CuentaCorriente(numero, 0, cliente, tasa, ProductoFinanciero.aMonto(limite));
+                break;
+            case CERTIFICADO_DEPOSITO:
+                producto = new CertificadoDeposito(numero, 0, cliente, plazo, tasa);
+                break;
+            default:
+                TarjetaCredito tarjeta = new TarjetaCredito(numero, 0, cliente, ProductoFinanciero.aMonto(limite), tasa);
+                tarjeta.restaurarSaldoUtilizadoCentavos(utilizado);
+                producto = tarjeta;
+                break;
+        }
+        producto.restaurarSaldoCentavos(saldo);
+        return producto;
+    }
+
+    private static Path ultimaInstantanea(Path directorio) throws IOException {
+        List<Path> instantaneas = listarInstantaneas(directorio);
+        return instantaneas.isEmpty() ? null : instantaneas.get(instantaneas.size() - 1);
+    }
+
+    private static List<Path> listarInstantaneas(Path directorio) throws IOException {
+        List<Path> instantaneas = new ArrayList<>();
+        if (!Files.isDirectory(directorio)) {
+            return instantaneas;
+        }
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            archivos.filter(p -> {
+                String nombre = p.getFileName().toString();
+                return nombre.startsWith(PREFIJO) && nombre.endsWith(SUFIJO);
+            }).sorted().forEach(instantaneas::add);
+        }
+        return instantaneas;
+    }
+
+    private static String nombreInstantanea(long posicion) {
+        return String.format("%s%019d%s", PREFIJO, posicion, SUFIJO);
+    }
+}
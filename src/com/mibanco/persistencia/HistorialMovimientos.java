@@ -0,0 +1,439 @@
+package com.mibanco.persistencia;
+
+import com.mibanco.eventos.SumideroEventos;
+import com.mibanco.eventos.SumideroNulo;
+import com.mibanco.eventos.TipoEvento;
+import com.mibanco.model.ProductoFinanciero;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Historial de movimientos por cuenta, para extractos y consultas por rango de fechas. Se alimenta como sumidero de
+ * eventos: cada depósito, retiro, compra, pago o abono de interés se guarda con su instante, su monto y el saldo
+ * que dejó, y luego se reenvía el evento a otro sumidero.
+ * <p>
+ * Los movimientos de cada cuenta se guardan en bloques de solo escritura al final, como registros binarios de
+ * {@value #TAMANO_REGISTRO} bytes {@code [instante:int][tipo:byte][monto:long][saldo:long]}, donde el instante va
+ * en milisegundos relativos al primer movimiento del bloque. Los instantes de una cuenta nunca retroceden, así que
+ * los bloques y los registros dentro de cada uno están ordenados: una consulta por rango localiza por búsqueda
+ * binaria el primer bloque y el primer registro, y solo lee los bloques que se solapan con el rango.
+ * <p>
+ * La memoria está acotada: cuando los bloques en memoria superan el límite, los que no se han usado recientemente
+ * (algoritmo del reloj, una aproximación de LRU que no toma locks al leer o escribir) se escriben en un archivo de
+ * páginas y se liberan; si era el bloque en uso de la cuenta, sus siguientes movimientos empiezan uno nuevo. Las
+ * consultas leen los bloques paginados desde el archivo sin volver a cargarlos en memoria.
+ * <p>
+ * El archivo de páginas es un área de intercambio: se crea vacío al abrir y se elimina al cerrar. La durabilidad de
+ * los movimientos la da {@link DiarioTransacciones}.
+ */
+public class HistorialMovimientos implements SumideroEventos, AutoCloseable {
+
+    /**
+     * Tamaño en bytes de cada movimiento guardado.
+     */
+    public static final int TAMANO_REGISTRO = 4 + 1 + 8 + 8;
+
+    private static final long MEMORIA_POR_DEFECTO = 256L * 1024 * 1024;
+    private static final int REGISTROS_INICIALES = 8;
+    private static final int REGISTROS_POR_BLOQUE = 1_024;
+    private static final String ARCHIVO_PAGINAS = "historial-paginas.dat";
+    private static final TipoEvento[] TIPOS = TipoEvento.values();
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Receptor de los movimientos de una consulta, como primitivos para no construir un objeto por movimiento.
+     */
+    @FunctionalInterface
+    public interface LectorMovimientos {
+        void movimiento(long instanteMillis, TipoEvento tipo, long montoCentavos, long saldoCentavos);
+    }
+
+    private final Map<String, Historial> historiales = new ConcurrentHashMap<>();
+    private final Queue<Bloque> residentes = new ConcurrentLinkedQueue<>();
+    private final AtomicLong memoriaResidente = new AtomicLong();
+    private final AtomicLong finArchivo = new AtomicLong();
+    private final AtomicLong bloquesPaginados = new AtomicLong();
+    private final AtomicBoolean desalojando = new AtomicBoolean();
+    private final Path archivo;
+    private final FileChannel paginas;
+    private final long memoriaMaxima;
+    private final SumideroEventos siguiente;
+    private final LongSupplier reloj;
+
+    /**
+     * Crea un historial con el límite de memoria por defecto (256 MiB), que no reenvía los eventos y usa el reloj
+     * del sistema.
+     *
+     * @param directorio Directorio del archivo de páginas.
+     */
+    public HistorialMovimientos(Path directorio) throws IOException {
+        this(directorio, MEMORIA_POR_DEFECTO, SumideroNulo.INSTANCIA, System::currentTimeMillis);
+    }
+
+    /**
+     * Crea un historial.
+     *
+     * @param directorio Directorio del archivo de páginas.
+     * @param memoriaMaxima Bytes de bloques que pueden quedar en memoria antes de paginar.
+     * @param siguiente Sumidero al que se reenvía cada evento tras guardarlo.
+     * @param reloj Fuente del instante de cada movimiento, en milisegundos desde la época.
+     * @throws IllegalArgumentException Si el límite de memoria no alcanza para un bloque completo.
+     */
+    public HistorialMovimientos(Path directorio, long memoriaMaxima, SumideroEventos siguiente, LongSupplier reloj)
+            throws IOException {
+        if (memoriaMaxima < (long) REGISTROS_POR_BLOQUE * TAMANO_REGISTRO) {
+            throw new IllegalArgumentException("El límite de memoria debe alcanzar al menos para un bloque.");
+        }
+        this.memoriaMaxima = memoriaMaxima;
+        this.siguiente = Objects.requireNonNull(siguiente, "El sumidero siguiente no puede ser nulo.");
+        this.reloj = Objects.requireNonNull(reloj, "El reloj no puede ser nulo.");
+        Files.createDirectories(directorio);
+        this.archivo = directorio.resolve(ARCHIVO_PAGINAS);
+        this.paginas = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    @Override
+    public void publicar(TipoEvento tipo, ProductoFinanciero producto, long montoCentavos, long saldoCentavos) {
+        if (tipo != TipoEvento.RETIRO_RECHAZADO) {
+            registrar(producto.getNumeroCuenta(), reloj.getAsLong(), tipo, montoCentavos, saldoCentavos);
+        }
+        siguiente.publicar(tipo, producto, montoCentavos, saldoCentavos);
+    }
+
+    /**
+     * Guarda un movimiento. Si el instante es anterior al último movimiento de la cuenta se guarda con el instante
+     * de ese último movimiento, para conservar el orden.
+     *
+     * @param numeroCuenta Número de la cuenta.
+     * @param instanteMillis Instante del movimiento, en milisegundos desde la época.
+     * @param tipo Tipo de movimiento.
+     * @param montoCentavos Monto, en centavos.
+     * @param saldoCentavos Saldo resultante, en centavos.
+     */
+    public void registrar(String numeroCuenta, long instanteMillis, TipoEvento tipo, long montoCentavos,
+                          long saldoCentavos) {
+        Historial historial = historiales.computeIfAbsent(numeroCuenta, cuenta -> new Historial());
+        synchronized (historial) {
+            long instante = Math.max(instanteMillis, historial.ultimoInstante);
+            historial.ultimoInstante = instante;
+            Bloque bloque = historial.activo;
+            if (bloque == null || bloque.cantidad == REGISTROS_POR_BLOQUE || instante - bloque.base > Integer.MAX_VALUE) {
+                bloque = new Bloque(historial, instante);
+                historial.bloques.add(bloque);
+                historial.activo = bloque;
+                residentes.add(bloque);
+                memoriaResidente.addAndGet(bloque.datos.length);
+            } else if ((bloque.cantidad + 1) * TAMANO_REGISTRO > bloque.datos.length) {
+                byte[] mayor = new byte[Math.min(bloque.datos.length * 2, REGISTROS_POR_BLOQUE * TAMANO_REGISTRO)];
+                System.arraycopy(bloque.datos, 0, mayor, 0, bloque.cantidad * TAMANO_REGISTRO);
+                memoriaResidente.addAndGet(mayor.length - bloque.datos.length);
+                bloque.datos = mayor;
+            }
+            int desplazamiento = bloque.cantidad * TAMANO_REGISTRO;
+            INT.set(bloque.datos, desplazamiento, (int) (instante - bloque.base));
+            bloque.datos[desplazamiento + 4] = (byte) tipo.ordinal();
+            LONG.set(bloque.datos, desplazamiento + 5, montoCentavos);
+            LONG.set(bloque.datos, desplazamiento + 13, saldoCentavos);
+            bloque.ultimoInstante = instante;
+            bloque.cantidad++;
+            bloque.usado = true;
+        }
+        if (memoriaResidente.get() > memoriaMaxima) {
+            desalojar();
+        }
+    }
+
+    /**
+     * Entrega en orden cronológico los movimientos de una cuenta en un rango de tiempo. Refleja los movimientos
+     * guardados al iniciar la consulta.
+     *
+     * @param numeroCuenta Número de la cuenta.
+     * @param desdeMillis Inicio del rango, inclusivo.
+     * @param hastaMillis Fin del rango, exclusivo.
+     * @param lector Receptor de cada movimiento.
+     */
+    public void recorrer(String numeroCuenta, long desdeMillis, long hastaMillis, LectorMovimientos lector) {
+        recorrer(numeroCuenta, desdeMillis, hastaMillis, PaginaMovimientos.INICIO, Integer.MAX_VALUE, lector);
+    }
+
+    /**
+     * Devuelve una página de los movimientos de una cuenta en un rango de tiempo. Para recorrer el rango completo
+     * se empieza con {@link PaginaMovimientos#INICIO} y se pasa el cursor de cada página a la siguiente consulta,
+     * con el mismo rango.
+     *
+     * @param numeroCuenta Número de la cuenta.
+     * @param desdeMillis Inicio del rango, inclusivo.
+     * @param hastaMillis Fin del rango, exclusivo.
+     * @param cursor {@link PaginaMovimientos#INICIO} o el cursor devuelto por la página anterior.
+     * @param tamano Número máximo de movimientos de la página.
+     * @return La página.
+     * @throws IllegalArgumentException Si el tamaño no es positivo.
+     */
+    public PaginaMovimientos pagina(String numeroCuenta, long desdeMillis, long hastaMillis, long cursor, int tamano) {
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo.");
+        }
+        List<Movimiento> movimientos = new ArrayList<>(Math.min(tamano, REGISTROS_POR_BLOQUE));
+        long siguienteCursor = recorrer(numeroCuenta, desdeMillis, hastaMillis, cursor, tamano,
+                (instante, tipo, monto, saldo) -> movimientos.add(new Movimiento(instante, tipo, monto, saldo)));
+        return new PaginaMovimientos(movimientos, siguienteCursor);
+    }
+
+    /**
+     * @return Bytes de bloques en memoria.
+     */
+    public long getMemoriaResidente() {
+        return memoriaResidente.get();
+    }
+
+    /**
+     * @return Número de bloques que se han escrito en el archivo de páginas.
+     */
+    public long getBloquesPaginados() {
+        return bloquesPaginados.get();
+    }
+
+    /**
+     * @return Bytes escritos en el archivo de páginas.
+     */
+    public long getBytesPaginados() {
+        return finArchivo.get();
+    }
+
+    /**
+     * Cierra y elimina el archivo de páginas.
+     */
+    @Override
+    public void close() throws IOException {
+        paginas.close();
+        Files.deleteIfExists(archivo);
+    }
+
+    /**
+     * @return El cursor que apunta al siguiente movimiento por entregar, o {@link PaginaMovimientos#FIN}.
+     */
+    private long recorrer(String numeroCuenta, long desde, long hasta, long cursor, int limite,
+                          LectorMovimientos lector) {
+        Historial historial = historiales.get(numeroCuenta);
+        if (historial == null || desde >= hasta) {
+            return PaginaMovimientos.FIN;
+        }
+        int primero;
+        int registroInicial;
+        byte[][] datos;
+        int[] cantidades;
+        long[] bases;
+        long[] posiciones;
+        synchronized (historial) {
+            List<Bloque> bloques = historial.bloques;
+            if (cursor == PaginaMovimientos.INICIO) {
+                primero = primerBloqueHasta(bloques, desde);
+                registroInicial = -1;
+            } else {
+                primero = (int) ((cursor - 1) >>> 32);
+                registroInicial = (int) (cursor - 1);
+            }
+            int ultimo = ultimoBloqueAntes(bloques, hasta);
+            int cantidad = Math.max(0, ultimo - primero + 1);
+            datos = new byte[cantidad][];
+            cantidades = new int[cantidad];
+            bases = new long[cantidad];
+            posiciones = new long[cantidad];
+            for (int k = 0; k < cantidad; k++) {
+                Bloque bloque = bloques.get(primero + k);
+                datos[k] = bloque.datos;
+                cantidades[k] = bloque.cantidad;
+                bases[k] = bloque.base;
+                posiciones[k] = bloque.posicionArchivo;
+                if (bloque.datos != null) {
+                    bloque.usado = true;
+                }
+            }
+        }
+
+        int entregados = 0;
+        for (int k = 0; k < datos.length; k++) {
+            byte[] bloque = datos[k] != null ? datos[k] : leerPaginado(posiciones[k], cantidades[k]);
+            int i = k == 0 && registroInicial >= 0 ? registroInicial : primerRegistroDesde(bloque, cantidades[k], bases[k], desde);
+            for (; i < cantidades[k]; i++) {
+                int desplazamiento = i * TAMANO_REGISTRO;
+                long instante = bases[k] + (int) INT.get(bloque, desplazamiento);
+                if (instante >= hasta) {
+                    return PaginaMovimientos.FIN;
+                }
+                if (entregados == limite) {
+                    return ((long) (primero + k) << 32 | i) + 1;
+                }
+                lector.movimiento(instante, TIPOS[bloque[desplazamiento + 4]],
+                        (long) LONG.get(bloque, desplazamiento + 5), (long) LONG.get(bloque, desplazamiento + 13));
+                entregados++;
+            }
+        }
+        return PaginaMovimientos.FIN;
+    }
+
+    /**
+     * Escribe en el archivo de páginas los bloques menos usados hasta volver al límite de memoria. Un solo hilo
+     * desaloja a la vez; los demás siguen registrando.
+     */
+    private void desalojar() {
+        if (!desalojando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (memoriaResidente.get() > memoriaMaxima) {
+                Bloque bloque = residentes.poll();
+                if (bloque == null) {
+                    return;
+                }
+                if (bloque.usado) {
+                    // Segunda oportunidad: vuelve al final de la cola sin la marca de uso.
+                    bloque.usado = false;
+                    residentes.add(bloque);
+                } else {
+                    paginar(bloque);
+                }
+            }
+        } finally {
+            desalojando.set(false);
+        }
+    }
+
+    private void paginar(Bloque bloque) {
+        Historial historial = bloque.historial;
+        synchronized (historial) {
+            if (historial.activo == bloque) {
+                historial.activo = null;
+            }
+            int bytes = bloque.cantidad * TAMANO_REGISTRO;
+            long posicion = finArchivo.getAndAdd(bytes);
+            ByteBuffer contenido = ByteBuffer.wrap(bloque.datos, 0, bytes);
+            try {
+                while (contenido.hasRemaining()) {
+                    paginas.write(contenido, posicion + contenido.position());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo paginar un bloque del historial.", e);
+            }
+            bloque.posicionArchivo = posicion;
+            memoriaResidente.addAndGet(-bloque.datos.length);
+            bloque.datos = null;
+        }
+        bloquesPaginados.incrementAndGet();
+    }
+
+    private byte[] leerPaginado(long posicion, int cantidad) {
+        byte[] datos = new byte[cantidad * TAMANO_REGISTRO];
+        ByteBuffer destino = ByteBuffer.wrap(datos);
+        try {
+            while (destino.hasRemaining()) {
+                if (paginas.read(destino, posicion + destino.position()) < 0) {
+                    throw new IOException("El archivo de páginas terminó antes de lo esperado.");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer un bloque paginado del historial.", e);
+        }
+        return datos;
+    }
+
+    /**
+     * @return Índice del primer bloque cuyo último movimiento es igual o posterior al instante.
+     */
+    private static int primerBloqueHasta(List<Bloque> bloques, long instante) {
+        int bajo = 0;
+        int alto = bloques.size();
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (bloques.get(medio).ultimoInstante < instante) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * @return Índice del último bloque cuyo primer movimiento es anterior al instante, o -1 si no hay ninguno.
+     */
+    private static int ultimoBloqueAntes(List<Bloque> bloques, long instante) {
+        int bajo = 0;
+        int alto = bloques.size();
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (bloques.get(medio).base < instante) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo - 1;
+    }
+
+    private static int primerRegistroDesde(byte[] datos, int cantidad, long base, long instante) {
+        long relativo = instante - base;
+        int bajo = 0;
+        int alto = cantidad;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if ((int) INT.get(datos, medio * TAMANO_REGISTRO) < relativo) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * Bloques de una cuenta, en orden cronológico. Se protege con su propio monitor.
+     */
+    private static final class Historial {
+        final List<Bloque> bloques = new ArrayList<>();
+        Bloque activo;
+        long ultimoInstante = Long.MIN_VALUE;
+    }
+
+    /**
+     * Bloque de movimientos. Sus datos están en memoria o, una vez paginado, en el archivo de páginas; en ambos
+     * casos los registros ya escritos no cambian.
+     */
+    private static final class Bloque {
+        final Historial historial;
+        final long base;
+        byte[] datos;
+        int cantidad;
+        long ultimoInstante;
+        long posicionArchivo = -1;
+        volatile boolean usado = true;
+
+        Bloque(Historial historial, long base) {
+            this.historial = historial;
+            this.base = base;
+            this.ultimoInstante = base;
+            this.datos = new byte[REGISTROS_INICIALES * TAMANO_REGISTRO];
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.mibanco.persistencia;
+
+import com.mibanco.model.ProductoFinanciero;
+
+import java.util.Map;
+
+/**
+ * Resultado de recuperar el libro de cuentas desde la última instantánea más el tramo posterior del diario.
+ */
+public class LibroRecuperado {
+
+    private final Map<String, ProductoFinanciero> productos;
+    private final long posicionInstantanea;
+    private final SaldosRecuperados saldosPosteriores;
+
+    LibroRecuperado(Map<String, ProductoFinanciero> productos, long posicionInstantanea,
+                    SaldosRecuperados saldosPosteriores) {
+        this.productos = productos;
+        this.posicionInstantanea = posicionInstantanea;
+        this.saldosPosteriores = saldosPosteriores;
+    }
+
+    /**
+     * @return Productos de la instantánea, indexados por número de cuenta, con el diario posterior ya aplicado.
+     */
+    public Map<String, ProductoFinanciero> getProductos() {
+        return productos;
+    }
+
+    /**
+     * @return Posición del diario incluida en la instantánea cargada (0 si no había instantánea).
+     */
+    public long getPosicionInstantanea() {
+        return posicionInstantanea;
+    }
+
+    /**
+     * Saldos del diario posteriores a la instantánea. Incluye cuentas abiertas después de ella, que deben
+     * reconstruirse y restaurarse con {@link SaldosRecuperados#restaurar(ProductoFinanciero)}.
+     *
+     * @return Los saldos del tramo posterior del diario.
+     */
+    public SaldosRecuperados getSaldosPosteriores() {
+        return saldosPosteriores;
+    }
+}
@@ -0,0 +1,52 @@
+package com.mibanco.persistencia;
+
+import com.mibanco.eventos.TipoEvento;
+import com.mibanco.model.Dinero;
+
+import java.time.Instant;
+
+/**
+ * Movimiento de una cuenta guardado en {@link HistorialMovimientos}. Es inmutable.
+ */
+public final class Movimiento {
+
+    private final long instanteMillis;
+    private final TipoEvento tipo;
+    private final long montoCentavos;
+    private final long saldoCentavos;
+
+    Movimiento(long instanteMillis, TipoEvento tipo, long montoCentavos, long saldoCentavos) {
+        this.instanteMillis = instanteMillis;
+        this.tipo = tipo;
+        this.montoCentavos = montoCentavos;
+        this.saldoCentavos = saldoCentavos;
+    }
+
+    /**
+     * @return Momento del movimiento, en milisegundos desde la época.
+     */
+    public long getInstanteMillis() {
+        return instanteMillis;
+    }
+
+    public TipoEvento getTipo() {
+        return tipo;
+    }
+
+    public long getMontoCentavos() {
+        return montoCentavos;
+    }
+
+    /**
+     * @return Saldo (saldo utilizado, en tarjetas) que dejó el movimiento, en centavos.
+     */
+    public long getSaldoCentavos() {
+        return saldoCentavos;
+    }
+
+    @Override
+    public String toString() {
+        return Instant.ofEpochMilli(instanteMillis) + " " + tipo + ' ' + Dinero.deCentavos(montoCentavos)
+                + " saldo " + Dinero.deCentavos(saldoCentavos);
+    }
+}
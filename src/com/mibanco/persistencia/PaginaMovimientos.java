@@ -0,0 +1,43 @@
+package com.mibanco.persistencia;
+
+import java.util.List;
+
+/**
+ * Página de una consulta paginada de {@link HistorialMovimientos}: los movimientos, en orden cronológico, y el
+ * cursor con el que se pide la página siguiente.
+ */
+public final class PaginaMovimientos {
+
+    /**
+     * Cursor de la primera página de una consulta.
+     */
+    public static final long INICIO = 0;
+
+    /**
+     * Cursor que indica que no hay más páginas.
+     */
+    public static final long FIN = -1;
+
+    private final List<Movimiento> movimientos;
+    private final long cursorSiguiente;
+
+    PaginaMovimientos(List<Movimiento> movimientos, long cursorSiguiente) {
+        this.movimientos = List.copyOf(movimientos);
+        this.cursorSiguiente = cursorSiguiente;
+    }
+
+    public List<Movimiento> getMovimientos() {
+        return movimientos;
+    }
+
+    /**
+     * @return El cursor para pedir la página siguiente, o {@link #FIN} si esta es la última.
+     */
+    public long getCursorSiguiente() {
+        return cursorSiguiente;
+    }
+
+    public boolean hayMas() {
+        return cursorSiguiente != FIN;
+    }
+}
@@ -0,0 +1,138 @@
+package com.mibanco.persistencia;
+
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Saldos reconstruidos al reproducir un {@link DiarioTransacciones} durante el arranque.
+ * Para cada cuenta se acumula el saldo y el saldo utilizado, y se recuerda si el diario los fijó a un valor
+ * absoluto o solo contiene ajustes relativos al estado anterior (por ejemplo, el de una instantánea), junto con el
+ * último estado del devengo continuo que el diario registró para la cuenta.
+ */
+public class SaldosRecuperados {
+
+    private static final int SALDO = 0;
+    private static final int UTILIZADO = 1;
+    private static final int SALDO_FIJADO = 2;
+    private static final int UTILIZADO_FIJADO = 3;
+    private static final int DEVENGADO_PENDIENTE = 4;
+    private static final int DEVENGADO = 5;
+    private static final int DEVENGADO_HASTA = 6;
+
+    private final Map<String, long[]> saldos = new HashMap<>();
+
+    /**
+     * Reconstruye los saldos a partir de todos los segmentos del diario.
+     *
+     * @param directorio Directorio del diario.
+     * @return Los saldos de cada cuenta presente en el diario.
+     */
+    public static SaldosRecuperados desdeDiario(Path directorio) throws IOException {
+        return desdeDiario(directorio, 0);
+    }
+
+    /**
+     * Reconstruye los saldos a partir de los registros del diario posteriores a una posición.
+     *
+     * @param directorio Directorio del diario.
+     * @param desde Posición exclusiva desde la que se reproduce, típicamente la de una instantánea.
+     * @return Los saldos y ajustes de cada cuenta presente en ese tramo del diario.
+     */
+    public static SaldosRecuperados desdeDiario(Path directorio, long desde) throws IOException {
+        SaldosRecuperados recuperados = new SaldosRecuperados();
+        DiarioTransacciones.reproducir(directorio, desde, Long.MAX_VALUE, recuperados::aplicar);
+        return recuperados;
+    }
+
+    /**
+     * Aplica un registro del diario sobre los saldos acumulados.
+     *
+     * @param tipo Tipo de registro.
+     * @param numeroCuenta Número de la cuenta.
+     * @param valor Valor del registro, en centavos.
+     */
+    void aplicar(byte tipo, String numeroCuenta, long valor) {
+        long[] cuenta = saldos.computeIfAbsent(numeroCuenta, k -> new long[7]);
+        switch (tipo) {
+            case DiarioTransacciones.FIJAR_SALDO:
+                cuenta[SALDO] = valor;
+                cuenta[SALDO_FIJADO] = 1;
+                break;
+            case DiarioTransacciones.AJUSTAR_SALDO:
+                cuenta[SALDO] += valor;
+                break;
+            case DiarioTransacciones.FIJAR_UTILIZADO:
+                cuenta[UTILIZADO] = valor;
+                cuenta[UTILIZADO_FIJADO] = 1;
+                break;
+            case DiarioTransacciones.AJUSTAR_UTILIZADO:
+                cuenta[UTILIZADO] += valor;
+                break;
+            case DiarioTransacciones.DEVENGADO:
+                cuenta[DEVENGADO_PENDIENTE] = valor;
+                break;
+            case DiarioTransacciones.DEVENGADO_HASTA:
+                cuenta[DEVENGADO] = cuenta[DEVENGADO_PENDIENTE];
+                cuenta[DEVENGADO_HASTA] = valor;
+                break;
+            default:
+                throw new IllegalStateException("Tipo de registro desconocido en el diario: " + tipo);
+        }
+    }
+
+    /**
+     * Restaura en el producto los saldos recuperados para su número de cuenta, si los hay.
+     * Los valores fijados en el diario reemplazan los del producto; los ajustes se suman a los actuales. Si el diario
+     * registró el estado del devengo de la cuenta, el último reemplaza el del producto.
+     *
+     * @param producto Producto a restaurar.
+     * @return true si el diario contenía la cuenta.
+     */
+    public boolean restaurar(ProductoFinanciero producto) {
+        long[] cuenta = saldos.get(producto.getNumeroCuenta());
+        if (cuenta == null) {
+            return false;
+        }
+        long saldo = cuenta[SALDO_FIJADO] == 1 ? cuenta[SALDO] : producto.getSaldoCentavos() + cuenta[SALDO];
+        producto.restaurarSaldoCentavos(saldo);
+        if (producto instanceof TarjetaCredito) {
+            TarjetaCredito tarjeta = (TarjetaCredito) producto;
+            long utilizado = cuenta[UTILIZADO_FIJADO] == 1
+                    ? cuenta[UTILIZADO]
+                    : tarjeta.getSaldoUtilizadoCentavos() + cuenta[UTILIZADO];
+            tarjeta.restaurarSaldoUtilizadoCentavos(utilizado);
+        }
+        if (cuenta[DEVENGADO_HASTA] != 0) {
+            producto.restaurarDevengo(cuenta[DEVENGADO_HASTA], cuenta[DEVENGADO]);
+        }
+        return true;
+    }
+
+    public long getSaldoCentavos(String numeroCuenta) {
+        long[] cuenta = saldos.get(numeroCuenta);
+        return cuenta == null ? 0 : cuenta[SALDO];
+    }
+
+    public long getUtilizadoCentavos(String numeroCuenta) {
+        long[] cuenta = saldos.get(numeroCuenta);
+        return cuenta == null ? 0 : cuenta[UTILIZADO];
+    }
+
+    /**
+     * @return El instante del último estado del devengo que el diario registró para la cuenta, o 0 si no hay.
+     */
+    public long getDevengadoHastaMillis(String numeroCuenta) {
+        long[] cuenta = saldos.get(numeroCuenta);
+        return cuenta == null ? 0 : cuenta[DEVENGADO_HASTA];
+    }
+
+    public Set<String> getCuentas() {
+        return saldos.keySet();
+    }
+}
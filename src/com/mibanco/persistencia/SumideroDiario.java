@@ -0,0 +1,126 @@
+package com.mibanco.persistencia;
+
+import com.mibanco.eventos.SumideroEventos;
+import com.mibanco.eventos.SumideroNulo;
+import com.mibanco.eventos.TipoEvento;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.model.TipoProducto;
+
+import java.util.Objects;
+
+/**
+ * Sumidero de eventos que registra cada cambio de saldo en un {@link DiarioTransacciones} antes de
+ * reenviar el evento a otro sumidero. Los movimientos se registran como ajustes (deltas), que conmutan entre sí,
+ * de modo que la reproducción da el saldo correcto aunque dos hilos registren sus operaciones en distinto orden
+ * del que las aplicaron. Tras cada evento {@code INTERES} registra además el estado del devengo continuo del producto,
+ * para que al recuperar no se pierda lo devengado y todavía no liquidado.
+ * <p>
+ * Debe instalarse directamente en {@code Eventos}, no detrás de un {@code SumideroAsincrono}, porque este
+ * último puede descartar eventos cuando su buffer se llena.
+ */
+public class SumideroDiario implements SumideroEventos {
+
+    private final DiarioTransacciones diario;
+    private final SumideroEventos siguiente;
+    private final boolean esperarConfirmacion;
+
+    /**
+     * Crea un sumidero que no espera el fsync y no reenvía los eventos.
+     *
+     * @param diario Diario en el que se registran los movimientos.
+     */
+    public SumideroDiario(DiarioTransacciones diario) {
+        this(diario, SumideroNulo.INSTANCIA, false);
+    }
+
+    /**
+     * Crea el sumidero.
+     *
+     * @param diario Diario en el que se registran los movimientos.
+     * @param siguiente Sumidero al que se reenvía cada evento tras registrarlo.
+     * @param esperarConfirmacion Si es true, cada operación espera al group commit que hace durable su registro.
+     */
+    public SumideroDiario(DiarioTransacciones diario, SumideroEventos siguiente, boolean esperarConfirmacion) {
+        this.diario = Objects.requireNonNull(diario, "El diario no puede ser nulo.");
+        this.siguiente = Objects.requireNonNull(siguiente, "El sumidero siguiente no puede ser nulo.");
+        this.esperarConfirmacion = esperarConfirmacion;
+    }
+
+    /**
+     * Registra el estado inicial de un producto recién abierto. Debe llamarse antes de operar sobre él.
+     *
+     * @param producto Producto abierto.
+     */
+    public void registrarApertura(ProductoFinanciero producto) {
+        diario.agregar(DiarioTransacciones.FIJAR_SALDO, producto.getNumeroCuenta(), producto.getSaldoCentavos());
+        long posicion = 0;
+        if (producto instanceof TarjetaCredito) {
+            long utilizado = ((TarjetaCredito) producto).getSaldoUtilizadoCentavos();
+            posicion = diario.agregar(DiarioTransacciones.FIJAR_UTILIZADO, producto.getNumeroCuenta(), utilizado);
+        }
+        confirmarSiCorresponde(posicion);
+    }
+
+    @Override
+    public void publicar(TipoEvento tipo, ProductoFinanciero producto, long montoCentavos, long saldoCentavos) {
+        String cuenta = producto.getNumeroCuenta();
+        long posicion;
+        switch (tipo) {
+            case DEPOSITO:
+                posicion = diario.agregar(DiarioTransacciones.AJUSTAR_SALDO, cuenta, montoCentavos);
+                break;
+            case RETIRO:
+                posicion = diario.agregar(DiarioTransacciones.AJUSTAR_SALDO, cuenta, -montoCentavos);
+                break;
+            case COMPRA:
+                posicion = diario.agregar(DiarioTransacciones.AJUSTAR_UTILIZADO, cuenta, montoCentavos);
+                break;
+            case PAGO:
+                posicion = diario.agregar(DiarioTransacciones.AJUSTAR_UTILIZADO, cuenta, -montoCentavos);
+                break;
+            case INTERES:
+                posicion = diario.agregar(producto.getTipo() == TipoProducto.TARJETA_CREDITO
+                        ? DiarioTransacciones.AJUSTAR_UTILIZADO
+                        : DiarioTransacciones.AJUSTAR_SALDO, cuenta, montoCentavos);
+                posicion = Math.max(posicion, registrarDevengo(diario, producto));
+                break;
+            default:
+                posicion = 0;
+                break;
+        }
+        confirmarSiCorresponde(posicion);
+        siguiente.publicar(tipo, producto, montoCentavos, saldoCentavos);
+    }
+
+    /**
+     * Registra el estado del devengo continuo del producto, si alguna vez devengó: primero lo devengado y después el
+     * instante hasta el que devengó, que es el registro que lo fija al reproducir. Ambos se escriben bajo el monitor
+     * del producto, así que quedan ordenados respecto de sus eventos {@code INTERES}.
+     *
+     * @return Posición del último registro escrito, o 0 si no escribió ninguno.
+     */
+    static long registrarDevengo(DiarioTransacciones diario, ProductoFinanciero producto) {
+        long[] posicion = new long[1];
+        producto.capturarDevengo((devengadoHastaMillis, devengadoMillonesimas) -> {
+            if (devengadoHastaMillis != 0) {
+                String cuenta = producto.getNumeroCuenta();
+                diario.agregar(DiarioTransacciones.DEVENGADO, cuenta, devengadoMillonesimas);
+                posicion[0] = diario.agregar(DiarioTransacciones.DEVENGADO_HASTA, cuenta, devengadoHastaMillis);
+            }
+        });
+        return posicion[0];
+    }
+
+    private void confirmarSiCorresponde(long posicion) {
+        if (!esperarConfirmacion || posicion == 0) {
+            return;
+        }
+        try {
+            diario.confirmar(posicion);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se confirmaba el diario.", e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.mibanco.riesgo;
+
+/**
+ * Decisión de un {@link EvaluadorRiesgo} sobre una operación.
+ */
+public enum Decision {
+    APROBADA,
+    RECHAZADA
+}
@@ -0,0 +1,28 @@
+package com.mibanco.riesgo;
+
+import com.mibanco.eventos.TipoEvento;
+import com.mibanco.model.ProductoFinanciero;
+
+/**
+ * Etapa de control de fraude que se consulta antes de aplicar un retiro o una compra. Decide en el mismo hilo de la
+ * operación, así que debe responder en pocos microsegundos y sin bloquearse en entrada y salida.
+ */
+@FunctionalInterface
+public interface EvaluadorRiesgo {
+
+    /**
+     * Evaluador que aprueba todas las operaciones.
+     */
+    EvaluadorRiesgo NINGUNO = (tipo, producto, montoCentavos) -> Decision.APROBADA;
+
+    /**
+     * Evalúa una operación antes de aplicarla. Si la aprueba, el evaluador puede contarla como realizada aunque luego
+     * el producto la rechace por fondos o por límite de crédito.
+     *
+     * @param tipo {@link TipoEvento#RETIRO} o {@link TipoEvento#COMPRA}.
+     * @param producto Producto sobre el que se opera.
+     * @param montoCentavos Monto de la operación, en centavos; siempre positivo.
+     * @return La decisión.
+     */
+    Decision evaluar(TipoEvento tipo, ProductoFinanciero producto, long montoCentavos);
+}
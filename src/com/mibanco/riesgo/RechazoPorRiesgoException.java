@@ -0,0 +1,18 @@
+package com.mibanco.riesgo;
+
+/**
+ * Operación rechazada por el evaluador de {@link Riesgo}. Extiende {@link IllegalStateException}, como los demás
+ * rechazos de los productos, pero tiene su propio tipo para que quien unifica los rechazos por fondos no lo confunda
+ * con uno de ellos.
+ */
+public class RechazoPorRiesgoException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param mensaje Descripción del rechazo.
+     */
+    public RechazoPorRiesgoException(String mensaje) {
+        super(mensaje);
+    }
+}
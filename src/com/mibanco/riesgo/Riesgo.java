@@ -0,0 +1,31 @@
+package com.mibanco.riesgo;
+
+import java.util.Objects;
+
+/**
+ * Punto de acceso global al evaluador de riesgo que consultan los productos financieros antes de cada retiro y cada
+ * compra. Por defecto es {@link EvaluadorRiesgo#NINGUNO}; se reemplaza con {@link #setEvaluador(EvaluadorRiesgo)}.
+ */
+public final class Riesgo {
+
+    private static volatile EvaluadorRiesgo evaluador = EvaluadorRiesgo.NINGUNO;
+
+    private Riesgo() {
+    }
+
+    /**
+     * @return El evaluador activo.
+     */
+    public static EvaluadorRiesgo getEvaluador() {
+        return evaluador;
+    }
+
+    /**
+     * Reemplaza el evaluador activo.
+     *
+     * @param nuevo Nuevo evaluador de riesgo.
+     */
+    public static void setEvaluador(EvaluadorRiesgo nuevo) {
+        evaluador = Objects.requireNonNull(nuevo, "El evaluador de riesgo no puede ser nulo.");
+    }
+}
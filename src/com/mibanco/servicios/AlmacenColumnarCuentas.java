@@ -0,0 +1,374 @@
+package com.mibanco.servicios;
+
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.Tasa;
+import com.mibanco.model.TipoProducto;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Repositorio de cuentas en formato columnar (struct-of-arrays) pensado para portafolios muy grandes.
+ * En lugar de un objeto {@link ProductoFinanciero} por cuenta, cada atributo se guarda en un arreglo primitivo
+ * indexado por posición, y el número de cuenta se resuelve a su posición con una tabla hash de direccionamiento
+ * abierto cuyas claves se almacenan como bytes Latin-1 en un único arreglo.
+ * <p>
+ * Las operaciones reproducen las reglas de cada tipo de producto: el retiro de una {@code CuentaCorriente}
+ * admite sobregiro hasta su límite y devuelve false al rechazarse, mientras que los demás productos lanzan
+ * {@link IllegalStateException} por fondos insuficientes. Los montos se actualizan con CAS sobre los arreglos y
+ * las consultas no toman bloqueos; solo el alta de cuentas se sincroniza. La capacidad es fija.
+ */
+public class AlmacenColumnarCuentas {
+
+    private static final VarHandle MONTOS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle INDICE = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final TipoProducto[] TIPOS = TipoProducto.values();
+
+    private final int capacidad;
+    private final long[] saldosCentavos;
+    private final long[] utilizadosCentavos;
+    private final long[] limitesCentavos;
+    private final long[] tasasEscaladas;
+    private final short[] plazosMeses;
+    private final byte[] tipos;
+
+    private final int[] finClave;
+    private volatile byte[] claves;
+    private final int[] indice;
+    private final int mascara;
+    private int cantidad;
+
+    /**
+     * Crea un almacén con capacidad para el número de cuentas indicado.
+     *
+     * @param capacidad Número máximo de cuentas.
+     * @throws IllegalArgumentException Si la capacidad no es positiva o es demasiado grande.
+     */
+    public AlmacenColumnarCuentas(int capacidad) {
+        if (capacidad <= 0 || capacidad > (1 << 29)) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva y menor a 2^29.");
+        }
+        this.capacidad = capacidad;
+        this.saldosCentavos = new long[capacidad];
+        this.utilizadosCentavos = new long[capacidad];
+        this.limitesCentavos = new long[capacidad];
+        this.tasasEscaladas = new long[capacidad];
+        this.plazosMeses = new short[capacidad];
+        this.tipos = new byte[capacidad];
+        this.finClave = new int[capacidad];
+        this.claves = new byte[Math.min(capacidad, 1 << 20) * 12];
+        int tamanoIndice = Integer.highestOneBit(capacidad * 2 - 1) << 1;
+        this.indice = new int[tamanoIndice];
+        this.mascara = tamanoIndice - 1;
+    }
+
+    /**
+     * Registra una cuenta en el almacén.
+     *
+     * @param numeroCuenta Número de la cuenta; solo admite caracteres Latin-1.
+     * @param tipo Tipo de producto.
+     * @param saldo Saldo inicial.
+     * @param tasaInteres Tasa de interés en porcentaje, con la misma semántica que el producto correspondiente.
+     * @param limite Límite de sobregiro (cuenta corriente) o de crédito (tarjeta); se ignora en los demás tipos.
+     * @param plazoMeses Plazo del certificado de depósito; se ignora en los demás tipos.
+     * @return La posición asignada a la cuenta.
+     * @throws IllegalArgumentException Si los datos son inválidos o el número de cuenta ya existe.
+     * @throws IllegalStateException Si el almacén está lleno.
+     */
+    public synchronized int agregar(String numeroCuenta, TipoProducto tipo, double saldo, double tasaInteres,
+                                    double limite, int plazoMeses) {
+        Objects.requireNonNull(tipo, "El tipo de producto no puede ser nulo.");
+        if (numeroCuenta == null || numeroCuenta.isEmpty()) {
+            throw new IllegalArgumentException("El número de cuenta no puede ser nulo o vacío.");
+        }
+        if (saldo < 0 || tasaInteres < 0 || limite < 0) {
+            throw new IllegalArgumentException("El saldo, la tasa de interés y el límite no pueden ser negativos.");
+        }
+        if (tipo == TipoProducto.CERTIFICADO_DEPOSITO && (plazoMeses <= 0 || plazoMeses > Short.MAX_VALUE)) {
+            throw new IllegalArgumentException("El plazo debe ser mayor que cero.");
+        }
+        if (buscar(numeroCuenta) >= 0) {
+            throw new IllegalArgumentException("La cuenta ya existe: " + numeroCuenta);
+        }
+        if (cantidad == capacidad) {
+            throw new IllegalStateException("El almacén de cuentas está lleno.");
+        }
+
+        int posicion = cantidad;
+        guardarClave(posicion, numeroCuenta);
+        saldosCentavos[posicion] = ProductoFinanciero.aCentavos(saldo);
+        limitesCentavos[posicion] = ProductoFinanciero.aCentavos(limite);
+        tasasEscaladas[posicion] = Tasa.escalar(tasaInteres);
+        plazosMeses[posicion] = (short) (tipo == TipoProducto.CERTIFICADO_DEPOSITO ? plazoMeses : 0);
+        tipos[posicion] = (byte) tipo.ordinal();
+
+        int i = numeroCuenta.hashCode() & mascara;
+        while (indice[i] != 0) {
+            i = (i + 1) & mascara;
+        }
+        // La publicación con release garantiza que los lectores vean las columnas ya escritas.
+        INDICE.setRelease(indice, i, posicion + 1);
+        cantidad++;
+        return posicion;
+    }
+
+    /**
+     * Deposita dinero en la cuenta, asegurándose de que el monto sea positivo.
+     *
+     * @param numeroCuenta Número de la cuenta.
+     * @param monto Cantidad de dinero a depositar.
+     */
+    public void depositar(String numeroCuenta, double monto) {
+        if (monto <= 0) {
+            throw new IllegalArgumentException("El monto a depositar debe ser positivo.");
+        }
+        MONTOS.getAndAdd(saldosCentavos, posicion(numeroCuenta), ProductoFinanciero.aCentavos(monto));
+    }
+
+    /**
+     * Intenta retirar una cantidad de dinero de la cuenta aplicando las reglas de su tipo de producto.
+     *
+     * @param numeroCuenta Número de la cuenta.
+     * @param monto Cantidad de dinero a retirar.
+     * @return true si el retiro es exitoso; false si una cuenta corriente excede su sobregiro.
+     * @throws IllegalStateException Si un producto sin sobregiro no tiene fondos suficientes.
+     */
+    public boolean retirar(String numeroCuenta, double monto) {
+        int posicion = posicion(numeroCuenta);
+        boolean corriente = tipos[posicion] == TipoProducto.CUENTA_CORRIENTE.ordinal();
+        if (!corriente && monto <= 0) {
+            throw new IllegalArgumentException("El monto a retirar debe ser positivo.");
+        }
+        long piso = corriente ? -limitesCentavos[posicion] : 0;
+        long montoCentavos = ProductoFinanciero.aCentavos(monto);
+        long actual;
+        do {
+            actual = (long) MONTOS.getVolatile(saldosCentavos, posicion);
+            if (actual - montoCentavos < piso) {
+                if (corriente) {
+                    return false;
+                }
+                throw new IllegalStateException("Fondos insuficientes para el retiro.");
+            }
+        } while (!MONTOS.weakCompareAndSet(saldosCentavos, posicion, actual, actual - montoCentavos));
+        return true;
+    }
+
+    /**
+     * Aplica el interés mensual de una cuenta con la fórmula de su tipo de producto.
+     *
+     * @param numeroCuenta Número de la cuenta.
+     * @return El interés aplicado, en centavos.
+     */
+    public long calcularInteresMensual(String numeroCuenta) {
+        return aplicarInteres(posicion(numeroCuenta));
+    }
+
+    /**
+     * Aplica el interés mensual a todas las cuentas del almacén recorriendo las columnas en orden.
+     *
+     * @return Totales por tipo de producto y tiempo transcurrido.
+     */
+    public ResumenInteres calcularInteresMensualTodas() {
+        long inicio = System.nanoTime();
+        long[] cantidades = new long[TIPOS.length];
+        long[] intereses = new long[TIPOS.length];
+        int total = cantidad();
+        for (int posicion = 0; posicion < total; posicion++) {
+            int tipo = tipos[posicion];
+            cantidades[tipo]++;
+            intereses[tipo] += aplicarInteres(posicion);
+        }
+        return new ResumenInteres(cantidades, intereses, System.nanoTime() - inicio);
+    }
+
+    /**
+     * Realiza una compra con una tarjeta de crédito si no se excede el límite de crédito.
+     *
+     * @param numeroCuenta Número de la tarjeta.
+     * @param monto Monto de la compra.
+     * @throws IllegalStateException Si la compra excede el límite de crédito disponible.
+     */
+    public void realizarCompra(String numeroCuenta, double monto) {
+        int posicion = posicionTarjeta(numeroCuenta);
+        long montoCentavos = ProductoFinanciero.aCentavos(monto);
+        long actual;
+        do {
+            actual = (long) MONTOS.getVolatile(utilizadosCentavos, posicion);
+            if (actual + montoCentavos > limitesCentavos[posicion]) {
+                throw new IllegalStateException("Compra rechazada. Límite de crédito excedido.");
+            }
+        } while (!MONTOS.weakCompareAndSet(utilizadosCentavos, posicion, actual, actual + montoCentavos));
+    }
+
+    /**
+     * Realiza un pago hacia el saldo utilizado de una tarjeta de crédito.
+     *
+     * @param numeroCuenta Número de la tarjeta.
+     * @param monto Monto del pago.
+     * @throws IllegalArgumentException Si el monto del pago excede el saldo utilizado.
+     */
+    public void realizarPago(String numeroCuenta, double monto) {
+        int posicion = posicionTarjeta(numeroCuenta);
+        long montoCentavos = ProductoFinanciero.aCentavos(monto);
+        long actual;
+        do {
+            actual = (long) MONTOS.getVolatile(utilizadosCentavos, posicion);
+            if (montoCentavos > actual) {
+                throw new IllegalArgumentException("El monto del pago excede el saldo utilizado.");
+            }
+        } while (!MONTOS.weakCompareAndSet(utilizadosCentavos, posicion, actual, actual - montoCentavos));
+    }
+
+    private long aplicarInteres(int posicion) {
+        TipoProducto tipo = TIPOS[tipos[posicion]];
+        // Las tarjetas generan interés sobre el saldo utilizado; el resto, sobre el saldo.
+        long[] columna = tipo == TipoProducto.TARJETA_CREDITO ? utilizadosCentavos : saldosCentavos;
+        long escalada = tasasEscaladas[posicion];
+        long periodos = tipo == TipoProducto.CERTIFICADO_DEPOSITO ? 12 : 1;
+        long actual;
+        long interes;
+        do {
+            actual = (long) MONTOS.getVolatile(columna, posicion);
+            interes = Tasa.aplicar(actual, escalada, periodos, ProductoFinanciero.REDONDEO_INTERES);
+        } while (!MONTOS.weakCompareAndSet(columna, posicion, actual, actual + interes));
+        return interes;
+    }
+
+    /**
+     * Calcula el total a pagar al final del plazo de un certificado de depósito.
+     *
+     * @param numeroCuenta Número del certificado.
+     * @return El total de pago al final del plazo.
+     */
+    public double calcularPagoFinal(String numeroCuenta) {
+        int posicion = posicion(numeroCuenta);
+        if (tipos[posicion] != TipoProducto.CERTIFICADO_DEPOSITO.ordinal()) {
+            throw new IllegalArgumentException("La cuenta no es un certificado de depósito: " + numeroCuenta);
+        }
+        long saldo = (long) MONTOS.getVolatile(saldosCentavos, posicion);
+        long interes = Tasa.aplicar(saldo, tasasEscaladas[posicion] * plazosMeses[posicion], 12,
+                ProductoFinanciero.REDONDEO_INTERES);
+        return ProductoFinanciero.aMonto(saldo + interes);
+    }
+
+    /**
+     * Crea un proyector de vencimientos con los certificados de depósito del almacén. Copia sus columnas en una
+     * sola pasada, tomando el saldo actual como principal, así que la proyección no ve cambios posteriores.
+     *
+     * @return El proyector.
+     */
+    public ProyectorVencimientos proyectorCertificados() {
+        int total = cantidad();
+        int certificados = 0;
+        for (int i = 0; i < total; i++) {
+            if (tipos[i] == TipoProducto.CERTIFICADO_DEPOSITO.ordinal()) {
+                certificados++;
+            }
+        }
+        long[] principales = new long[certificados];
+        long[] tasas = new long[certificados];
+        int[] plazos = new int[certificados];
+        int j = 0;
+        for (int i = 0; i < total && j < certificados; i++) {
+            if (tipos[i] == TipoProducto.CERTIFICADO_DEPOSITO.ordinal()) {
+                principales[j] = (long) MONTOS.getVolatile(saldosCentavos, i);
+                tasas[j] = tasasEscaladas[i];
+                plazos[j] = plazosMeses[i];
+                j++;
+            }
+        }
+        return new ProyectorVencimientos(principales, tasas, plazos, j);
+    }
+
+    public double getSaldo(String numeroCuenta) {
+        return ProductoFinanciero.aMonto((long) MONTOS.getVolatile(saldosCentavos, posicion(numeroCuenta)));
+    }
+
+    public double getSaldoUtilizado(String numeroCuenta) {
+        return ProductoFinanciero.aMonto((long) MONTOS.getVolatile(utilizadosCentavos, posicionTarjeta(numeroCuenta)));
+    }
+
+    public TipoProducto getTipo(String numeroCuenta) {
+        return TIPOS[tipos[posicion(numeroCuenta)]];
+    }
+
+    /**
+     * @param numeroCuenta Número de la cuenta.
+     * @return true si la cuenta está registrada.
+     */
+    public boolean contiene(String numeroCuenta) {
+        return buscar(numeroCuenta) >= 0;
+    }
+
+    public synchronized int cantidad() {
+        return cantidad;
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    private int posicion(String numeroCuenta) {
+        int posicion = buscar(Objects.requireNonNull(numeroCuenta, "El número de cuenta no puede ser nulo."));
+        if (posicion < 0) {
+            throw new IllegalArgumentException("La cuenta no existe: " + numeroCuenta);
+        }
+        return posicion;
+    }
+
+    private int posicionTarjeta(String numeroCuenta) {
+        int posicion = posicion(numeroCuenta);
+        if (tipos[posicion] != TipoProducto.TARJETA_CREDITO.ordinal()) {
+            throw new IllegalArgumentException("La cuenta no es una tarjeta de crédito: " + numeroCuenta);
+        }
+        return posicion;
+    }
+
+    private int buscar(String numeroCuenta) {
+        int i = numeroCuenta.hashCode() & mascara;
+        int entrada;
+        while ((entrada = (int) INDICE.getAcquire(indice, i)) != 0) {
+            if (claveIgual(entrada - 1, numeroCuenta)) {
+                return entrada - 1;
+            }
+            i = (i + 1) & mascara;
+        }
+        return -1;
+    }
+
+    private boolean claveIgual(int posicion, String numeroCuenta) {
+        int inicio = posicion == 0 ? 0 : finClave[posicion - 1];
+        int longitud = finClave[posicion] - inicio;
+        if (longitud != numeroCuenta.length()) {
+            return false;
+        }
+        byte[] bytes = claves;
+        for (int k = 0; k < longitud; k++) {
+            if ((bytes[inicio + k] & 0xFF) != numeroCuenta.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void guardarClave(int posicion, String numeroCuenta) {
+        int inicio = posicion == 0 ? 0 : finClave[posicion - 1];
+        int longitud = numeroCuenta.length();
+        byte[] bytes = claves;
+        if (inicio + longitud > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, inicio + longitud));
+        }
+        for (int k = 0; k < longitud; k++) {
+            char c = numeroCuenta.charAt(k);
+            if (c > 0xFF) {
+                throw new IllegalArgumentException("El número de cuenta solo admite caracteres Latin-1.");
+            }
+            bytes[inicio + k] = (byte) c;
+        }
+        finClave[posicion] = inicio + longitud;
+        claves = bytes;
+    }
+}
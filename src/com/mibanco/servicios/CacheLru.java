@@ -0,0 +1,137 @@
+package com.mibanco.servicios;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caché acotado con desalojo del elemento menos usado recientemente (LRU), dividido en segmentos
+ * independientes para que hilos que consultan claves distintas rara vez compitan por el mismo lock.
+ * El orden LRU es exacto dentro de cada segmento y aproximado en el conjunto.
+ *
+ * @param <V> Tipo de los valores almacenados.
+ */
+final class CacheLru<V> {
+
+    private final Segmento<V>[] segmentos;
+    private final int mascara;
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+
+    /**
+     * @param capacidad Número máximo total de entradas.
+     * @param segmentos Número de segmentos; se redondea a la potencia de dos inferior y nunca supera la capacidad.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    CacheLru(int capacidad, int segmentos) {
+        if (capacidad <= 0 || segmentos <= 0) {
+            throw new IllegalArgumentException("La capacidad y el número de segmentos deben ser positivos.");
+        }
+        int cantidad = Integer.highestOneBit(Math.min(segmentos, capacidad));
+        int capacidadSegmento = capacidad / cantidad;
+        this.segmentos = new Segmento[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            this.segmentos[i] = new Segmento<>(capacidadSegmento, desalojos);
+        }
+        this.mascara = cantidad - 1;
+    }
+
+    /**
+     * Busca un valor y lo marca como usado recientemente. Registra un acierto o un fallo.
+     */
+    V obtener(String clave) {
+        Segmento<V> segmento = segmento(clave);
+        V valor;
+        synchronized (segmento) {
+            valor = segmento.get(clave);
+        }
+        (valor != null ? aciertos : fallos).increment();
+        return valor;
+    }
+
+    /**
+     * Busca un valor y lo marca como usado recientemente; si no está, lo crea y lo guarda dentro del mismo lock, de
+     * modo que dos hilos nunca crean valores distintos para una clave. Registra un acierto o un fallo.
+     */
+    V obtenerOCrear(String clave, Function<String, V> fabrica) {
+        Segmento<V> segmento = segmento(clave);
+        V valor;
+        boolean creado = false;
+        synchronized (segmento) {
+            valor = segmento.get(clave);
+            if (valor == null) {
+                valor = fabrica.apply(clave);
+                segmento.put(clave, valor);
+                creado = true;
+            }
+        }
+        (creado ? fallos : aciertos).increment();
+        return valor;
+    }
+
+    void guardar(String clave, V valor) {
+        Segmento<V> segmento = segmento(clave);
+        synchronized (segmento) {
+            segmento.put(clave, valor);
+        }
+    }
+
+    void eliminar(String clave) {
+        Segmento<V> segmento = segmento(clave);
+        synchronized (segmento) {
+            segmento.remove(clave);
+        }
+    }
+
+    int tamano() {
+        int total = 0;
+        for (Segmento<V> segmento : segmentos) {
+            synchronized (segmento) {
+                total += segmento.size();
+            }
+        }
+        return total;
+    }
+
+    long getAciertos() {
+        return aciertos.sum();
+    }
+
+    long getFallos() {
+        return fallos.sum();
+    }
+
+    long getDesalojos() {
+        return desalojos.sum();
+    }
+
+    private Segmento<V> segmento(String clave) {
+        int h = clave.hashCode();
+        return segmentos[(h ^ (h >>> 16)) & mascara];
+    }
+
+    private static final class Segmento<V> extends LinkedHashMap<String, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacidad;
+        private final transient LongAdder desalojos;
+
+        Segmento(int capacidad, LongAdder desalojos) {
+            super(16, 0.75f, true);
+            this.capacidad = capacidad;
+            this.desalojos = desalojos;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, V> mayor) {
+            if (size() > capacidad) {
+                desalojos.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.mibanco.servicios;
+
+import com.mibanco.model.CertificadoDeposito;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.CuentaAhorro;
+import com.mibanco.model.CuentaCorriente;
+import com.mibanco.model.Dinero;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.model.Tasa;
+import com.mibanco.model.TipoProducto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cargador masivo de clientes y productos desde archivos CSV, pensado para migrar portafolios completos.
+ * <p>
+ * Cada fila describe un producto y su titular:
+ * {@code documento,nombre,correo,celular,direccion,tipo,numeroCuenta,saldo,tasaInteres,limite,plazoMeses},
+ * donde {@code tipo} es el nombre de un {@link TipoProducto}, {@code limite} es el sobregiro o el límite de
+ * crédito según el tipo y {@code plazoMeses} solo aplica a certificados. Los campos pueden ir entre comillas
+ * dobles y, entre comillas, contener comas, comillas duplicadas y saltos de línea; una fila así ocupa varias líneas
+ * del archivo, hasta {@value #LINEAS_MAXIMAS_POR_FILA}, y se reporta con la línea en que empieza. Una primera fila
+ * que empiece por {@code documento} se toma como encabezado.
+ * <p>
+ * El archivo se lee en flujo por lotes de filas; los lotes se validan y convierten en paralelo y el número de
+ * lotes en vuelo está acotado, por lo que la memoria no depende del tamaño del archivo. Las filas inválidas se
+ * reportan con su número de línea sin detener la carga. Filas consecutivas con los mismos datos de titular
+ * comparten el mismo {@link Cliente}. Los productos se entregan desde varios hilos y sin orden garantizado.
+ */
+public class CargadorMasivoCsv {
+
+    private static final int COLUMNAS = 11;
+    private static final int FILAS_POR_LOTE_POR_DEFECTO = 8_192;
+    // Acota cuánto se une una fila con comillas sin cerrar, para que una sola no absorba el resto del archivo.
+    private static final int LINEAS_MAXIMAS_POR_FILA = 16;
+
+    private final int paralelismo;
+    private final int filasPorLote;
+
+    /**
+     * Crea un cargador que usa todos los procesadores disponibles.
+     */
+    public CargadorMasivoCsv() {
+        this(Runtime.getRuntime().availableProcessors(), FILAS_POR_LOTE_POR_DEFECTO);
+    }
+
+    /**
+     * Crea un cargador.
+     *
+     * @param paralelismo Número de hilos que validan y construyen productos.
+     * @param filasPorLote Número de filas por lote de trabajo.
+     * @throws IllegalArgumentException Si alguno de los parámetros no es positivo.
+     */
+    public CargadorMasivoCsv(int paralelismo, int filasPorLote) {
+        if (paralelismo <= 0 || filasPorLote <= 0) {
+            throw new IllegalArgumentException("El paralelismo y el tamaño de lote deben ser positivos.");
+        }
+        this.paralelismo = paralelismo;
+        this.filasPorLote = filasPorLote;
+    }
+
+    /**
+     * Carga un archivo CSV.
+     *
+     * @param archivo Archivo a cargar, en UTF-8.
+     * @param destino Receptor de cada producto creado; debe admitir llamadas concurrentes.
+     * @param errores Receptor de cada fila rechazada; debe admitir llamadas concurrentes.
+     * @return Resumen de la carga.
+     */
+    public ResultadoCarga cargar(Path archivo, Consumer<? super ProductoFinanciero> destino,
+                                 Consumer<? super ErrorCarga> errores) throws IOException, InterruptedException {
+        Objects.requireNonNull(destino, "El destino no puede ser nulo.");
+        Objects.requireNonNull(errores, "El receptor de errores no puede ser nulo.");
+        long inicio = System.nanoTime();
+        AtomicLong creados = new AtomicLong();
+        AtomicLong fallidos = new AtomicLong();
+        Semaphore lotesEnVuelo = new Semaphore(paralelismo * 2);
+        ExecutorService trabajadores = Executors.newFixedThreadPool(paralelismo, tarea -> {
+            Thread hilo = new Thread(tarea, "carga-csv");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long filas = 0;
+        try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            List<String> lote = new ArrayList<>(filasPorLote);
+            long[] lineas = new long[filasPorLote];
+            long numeroLinea = 0;
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                numeroLinea++;
+                if (numeroLinea == 1 && linea.startsWith("documento")) {
+                    continue;
+                }
+                lineas[lote.size()] = numeroLinea;
+                if (linea.indexOf('"') >= 0 && comillasImpares(linea)) {
+                    // Un campo entre comillas sigue en la línea siguiente: cada línea con un número impar de
+                    // comillas cambia si la fila queda abierta o cerrada.
+                    StringBuilder fila = new StringBuilder(linea);
+                    String siguiente;
+                    int unidas = 1;
+                    while (unidas < LINEAS_MAXIMAS_POR_FILA && (siguiente = lector.readLine()) != null) {
+                        numeroLinea++;
+                        unidas++;
+                        fila.append('\n').append(siguiente);
+                        if (comillasImpares(siguiente)) {
+                            break;
+                        }
+                    }
+                    linea = fila.toString();
+                }
+                lote.add(linea);
+                filas++;
+                if (lote.size() == filasPorLote) {
+                    enviar(trabajadores, lotesEnVuelo, lote, lineas, destino, errores, creados, fallidos);
+                    lote = new ArrayList<>(filasPorLote);
+                    lineas = new long[filasPorLote];
+                }
+            }
+            if (!lote.isEmpty()) {
+                enviar(trabajadores, lotesEnVuelo, lote, lineas, destino, errores, creados, fallidos);
+            }
+        } finally {
+            trabajadores.shutdown();
+            trabajadores.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        return new ResultadoCarga(filas, creados.get(), fallidos.get(), System.nanoTime() - inicio);
+    }
+
+    private static void enviar(ExecutorService trabajadores, Semaphore lotesEnVuelo, List<String> lote, long[] lineas,
+                               Consumer<? super ProductoFinanciero> destino, Consumer<? super ErrorCarga> errores,
+                               AtomicLong creados, AtomicLong fallidos) throws InterruptedException {
+        lotesEnVuelo.acquire();
+        trabajadores.execute(() -> {
+            try {
+                procesarLote(lote, lineas, destino, errores, creados, fallidos);
+            } finally {
+                lotesEnVuelo.release();
+            }
+        });
+    }
+
+    private static void procesarLote(List<String> lote, long[] lineas, Consumer<? super ProductoFinanciero> destino,
+                                     Consumer<? super ErrorCarga> errores, AtomicLong creados, AtomicLong fallidos) {
+        String[] campos = new String[COLUMNAS];
+        Cliente anterior = null;
+        long creadosLote = 0;
+        long fallidosLote = 0;
+        for (int i = 0; i < lote.size(); i++) {
+            long linea = lineas[i];
+            try {
+                separarCampos(lote.get(i), campos);
+                Cliente cliente = mismoCliente(anterior, campos)
+                        ? anterior
+                        : new Cliente(campos[0], campos[1], campos[2], campos[3], campos[4]);
+                destino.accept(crearProducto(campos, cliente));
+                anterior = cliente;
+                creadosLote++;
+            } catch (RuntimeException e) {
+                fallidosLote++;
+                errores.accept(new ErrorCarga(linea, e.getMessage()));
+            }
+        }
+        creados.addAndGet(creadosLote);
+        fallidos.addAndGet(fallidosLote);
+    }
+
+    private static boolean mismoCliente(Cliente cliente, String[] campos) {
+        return cliente != null
+                && cliente.getDocumentoIdentidad().equals(campos[0])
+                && cliente.getNombre().equals(campos[1])
+                && cliente.getCorreoElectronico().equals(campos[2])
+                && cliente.getNumeroCelular().equals(campos[3])
+                && cliente.getDireccion().equals(campos[4]);
+    }
+
+    private static ProductoFinanciero crearProducto(String[] campos, Cliente cliente) {
+        TipoProducto tipo;
+        try {
+            tipo = TipoProducto.valueOf(campos[5]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Tipo de producto desconocido: " + campos[5]);
+        }
+        String numeroCuenta = campos[6];
+        Dinero saldo = monto(campos[7], "saldo");
+        Tasa tasa = tasa(campos[8], "tasaInteres");
+        switch (tipo) {
+            case CUENTA_AHORRO:
+                return new CuentaAhorro(numeroCuenta, saldo, cliente, tasa);
+            case CUENTA_CORRIENTE:
+                return new CuentaCorriente(numeroCuenta, saldo, cliente, tasa, monto(campos[9], "limite"));
+            case CERTIFICADO_DEPOSITO:
+                return new CertificadoDeposito(numeroCuenta, saldo, cliente, entero(campos[10], "plazoMeses"), tasa);
+            default:
+                return new TarjetaCredito(numeroCuenta, saldo, cliente, monto(campos[9], "limite"), tasa);
+        }
+    }
+
+    /**
+     * Interpreta un monto decimal sin pasar por {@code double}, de modo que textos como {@code NaN} o
+     * {@code Infinity} se rechazan en lugar de convertirse en cero o en el mayor saldo posible.
+     */
+    private static Dinero monto(String campo, String nombre) {
+        obligatorio(campo, nombre);
+        try {
+            return Dinero.de(campo, RoundingMode.HALF_UP);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El campo " + nombre + " no es numérico: " + campo);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("El campo " + nombre + " está fuera de rango: " + campo);
+        }
+    }
+
+    private static Tasa tasa(String campo, String nombre) {
+        obligatorio(campo, nombre);
+        try {
+            return Tasa.dePorcentaje(new BigDecimal(campo).setScale(6, RoundingMode.HALF_UP));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El campo " + nombre + " no es numérico: " + campo);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("El campo " + nombre + " está fuera de rango: " + campo);
+        }
+    }
+
+    private static int entero(String campo, String nombre) {
+        obligatorio(campo, nombre);
+        try {
+            return Integer.parseInt(campo);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El campo " + nombre + " no es un número entero: " + campo);
+        }
+    }
+
+    private static void obligatorio(String campo, String nombre) {
+        if (campo.isEmpty()) {
+            throw new IllegalArgumentException("El campo " + nombre + " es obligatorio.");
+        }
+    }
+
+    /**
+     * @return true si la línea tiene un número impar de comillas dobles.
+     */
+    private static boolean comillasImpares(String linea) {
+        boolean impar = false;
+        for (int i = linea.indexOf('"'); i >= 0; i = linea.indexOf('"', i + 1)) {
+            impar = !impar;
+        }
+        return impar;
+    }
+
+    /**
+     * Separa una fila CSV en exactamente {@link #COLUMNAS} campos, respetando comillas dobles.
+     */
+    private static void separarCampos(String linea, String[] campos) {
+        int campo = 0;
+        int i = 0;
+        int longitud = linea.length();
+        while (true) {
+            if (campo == COLUMNAS) {
+                throw new IllegalArgumentException("La fila tiene más de " + COLUMNAS + " columnas.");
+            }
+            if (i < longitud && linea.charAt(i) == '"') {
+                StringBuilder valor = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= longitud) {
+                        throw new IllegalArgumentException("Comillas sin cerrar.");
+                    }
+                    char c = linea.charAt(i++);
+                    if (c == '"') {
+                        if (i < longitud && linea.charAt(i) == '"') {
+                            valor.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        valor.append(c);
+                    }
+                }
+                campos[campo++] = valor.toString();
+            } else {
+                int fin = linea.indexOf(',', i);
+                if (fin < 0) {
+                    fin = longitud;
+                }
+                campos[campo++] = linea.substring(i, fin).trim();
+                i = fin;
+            }
+            if (i >= longitud) {
+                break;
+            }
+            if (linea.charAt(i) != ',') {
+                throw new IllegalArgumentException("Se esperaba una coma en la posición " + i + ".");
+            }
+            i++;
+        }
+        if (campo != COLUMNAS) {
+            throw new IllegalArgumentException("La fila tiene " + campo + " columnas; se esperaban " + COLUMNAS + ".");
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.mibanco.servicios;
+
+import com.mibanco.model.Cliente;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TipoProducto;
+import com.mibanco.servicios.ResultadoConciliacion.Campo;
+import com.mibanco.servicios.ResultadoConciliacion.Diferencia;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Conciliación de cierre de día: agrega saldos y crédito utilizado del libro por tipo de producto, por cliente y en
+ * total, y compara cada producto con lo que deberían dejar los movimientos publicados según un
+ * {@link SumideroConciliacion}.
+ * <p>
+ * La versión paralela divide el portafolio con fork/join. Cada tarea acumula en centavos con suma exacta (un
+ * desborde lanza {@link ArithmeticException} en lugar de dar un total falso) y las tareas se combinan por suma, así
+ * que el resultado es idéntico al de la versión secuencial.
+ * <p>
+ * No hace falta detener las operaciones. Cada producto se lee atómicamente, pero el conjunto no es una foto de un
+ * único instante. Un movimiento aplicado cuyo evento aún no llegó al sumidero hace que el producto no coincida por
+ * unos microsegundos. Por eso los productos que no coinciden se vuelven a leer tras una breve espera, y solo se
+ * informan los que siguen sin coincidir. Con tráfico continuo sobre una cuenta, una diferencia real y una en
+ * tránsito son indistinguibles; para un cierre exacto se concilia una vez que el tráfico del día terminó.
+ */
+public class ConciliadorCierre {
+
+    private static final int UMBRAL_POR_DEFECTO = 4_096;
+    private static final int TIPOS = TipoProducto.values().length;
+    private static final int REVISIONES = 3;
+    private static final long ESPERA_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ForkJoinPool pool;
+    private final int umbral;
+
+    /**
+     * Crea un conciliador que usa el pool común de fork/join.
+     */
+    public ConciliadorCierre() {
+        this(ForkJoinPool.commonPool(), UMBRAL_POR_DEFECTO);
+    }
+
+    /**
+     * Crea un conciliador con un pool y un tamaño mínimo de tarea específicos.
+     *
+     * @param pool Pool de fork/join en el que se ejecuta la corrida paralela.
+     * @param umbral Número de productos a partir del cual una tarea se divide.
+     * @throws IllegalArgumentException Si el umbral no es positivo.
+     */
+    public ConciliadorCierre(ForkJoinPool pool, int umbral) {
+        if (umbral <= 0) {
+            throw new IllegalArgumentException("El umbral debe ser positivo.");
+        }
+        this.pool = Objects.requireNonNull(pool, "El pool no puede ser nulo.");
+        this.umbral = umbral;
+    }
+
+    /**
+     * Concilia el portafolio en paralelo.
+     *
+     * @param portafolio Productos a conciliar; se recomienda una lista de acceso aleatorio.
+     * @param movimientos Sumidero con lo esperado de cada producto, o null para calcular solo los agregados.
+     * @return Agregados y diferencias.
+     */
+    public ResultadoConciliacion conciliar(List<? extends ProductoFinanciero> portafolio,
+                                           SumideroConciliacion movimientos) {
+        long inicio = System.nanoTime();
+        ConcurrentHashMap<String, long[]> clientes = new ConcurrentHashMap<>();
+        Parcial parcial = pool.invoke(new TareaConciliacion(portafolio, movimientos, clientes, 0, portafolio.size(),
+                umbral));
+        return crearResultado(portafolio, movimientos, parcial, clientes, inicio);
+    }
+
+    /**
+     * Concilia el portafolio en el hilo actual.
+     *
+     * @param portafolio Productos a conciliar.
+     * @param movimientos Sumidero con lo esperado de cada producto, o null para calcular solo los agregados.
+     * @return Agregados y diferencias.
+     */
+    public ResultadoConciliacion conciliarSecuencial(List<? extends ProductoFinanciero> portafolio,
+                                                     SumideroConciliacion movimientos) {
+        long inicio = System.nanoTime();
+        ConcurrentHashMap<String, long[]> clientes = new ConcurrentHashMap<>();
+        Parcial parcial = procesar(portafolio, movimientos, clientes, 0, portafolio.size());
+        return crearResultado(portafolio, movimientos, parcial, clientes, inicio);
+    }
+
+    /**
+     * Procesa un rango del portafolio. Los totales por cliente se acumulan primero en un mapa local, porque los
+     * productos de un cliente suelen estar juntos, y al final se suman al mapa compartido: cada rango lo toca una vez
+     * por cliente en lugar de combinar mapas en cada nivel de la división.
+     */
+    private static Parcial procesar(List<? extends ProductoFinanciero> portafolio, SumideroConciliacion movimientos,
+                                    ConcurrentHashMap<String, long[]> clientes, int desde, int hasta) {
+        Parcial parcial = new Parcial();
+        long[] totales = parcial.totales;
+        HashMap<String, long[]> locales = new HashMap<>();
+        for (int i = desde; i < hasta; i++) {
+            ProductoFinanciero producto = portafolio.get(i);
+            int tipo = producto.getTipo().ordinal();
+            long saldo = producto.getSaldoCentavos();
+            long utilizado = SumideroConciliacion.utilizadoDe(producto);
+            totales[tipo]++;
+            totales[TIPOS + tipo] = Math.addExact(totales[TIPOS + tipo], saldo);
+            totales[2 * TIPOS + tipo] = Math.addExact(totales[2 * TIPOS + tipo], utilizado);
+            Cliente cliente = producto.getCliente();
+            if (cliente != null) {
+                long[] porCliente = locales.computeIfAbsent(cliente.getDocumentoIdentidad(), clave -> new long[3]);
+                porCliente[0]++;
+                porCliente[1] = Math.addExact(porCliente[1], saldo);
+                porCliente[2] = Math.addExact(porCliente[2], utilizado);
+            }
+            if (movimientos != null) {
+                SumideroConciliacion.Esperado esperado = movimientos.esperado(producto);
+                if (esperado == null) {
+                    parcial.sinApertura++;
+                } else {
+                    long saldoEsperado = esperado.getSaldoCentavos();
+                    long utilizadoEsperado = esperado.getUtilizadoCentavos();
+                    parcial.saldoEsperado = Math.addExact(parcial.saldoEsperado, saldoEsperado);
+                    parcial.utilizadoEsperado = Math.addExact(parcial.utilizadoEsperado, utilizadoEsperado);
+                    if (saldo != saldoEsperado || utilizado != utilizadoEsperado) {
+                        parcial.agregarCandidato(i);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String, long[]> entrada : locales.entrySet()) {
+            clientes.merge(entrada.getKey(), entrada.getValue(), ConciliadorCierre::sumarCliente);
+        }
+        return parcial;
+    }
+
+    private static long[] sumarCliente(long[] acumulado, long[] parcial) {
+        acumulado[0] += parcial[0];
+        acumulado[1] = Math.addExact(acumulado[1], parcial[1]);
+        acumulado[2] = Math.addExact(acumulado[2], parcial[2]);
+        return acumulado;
+    }
+
+    private static ResultadoConciliacion crearResultado(List<? extends ProductoFinanciero> portafolio,
+                                                        SumideroConciliacion movimientos, Parcial parcial,
+                                                        Map<String, long[]> porCliente, long inicio) {
+        List<Diferencia> diferencias = new ArrayList<>();
+        long transitorias = 0;
+        if (movimientos != null) {
+            int[] pendientes = Arrays.copyOf(parcial.candidatos, parcial.cantidadCandidatos);
+            for (int revision = 0; revision < REVISIONES && pendientes.length > 0; revision++) {
+                LockSupport.parkNanos(ESPERA_NANOS);
+                int quedan = 0;
+                for (int indice : pendientes) {
+                    if (!coincide(portafolio.get(indice), movimientos)) {
+                        pendientes[quedan++] = indice;
+                    }
+                }
+                transitorias += pendientes.length - quedan;
+                pendientes = Arrays.copyOf(pendientes, quedan);
+            }
+            for (int indice : pendientes) {
+                agregarDiferencias(portafolio.get(indice), movimientos, diferencias);
+            }
+        }
+        Map<String, ResumenPortafolio> clientes = new HashMap<>(porCliente.size() * 4 / 3 + 1);
+        for (Map.Entry<String, long[]> entrada : porCliente.entrySet()) {
+            long[] valores = entrada.getValue();
+            clientes.put(entrada.getKey(), new ResumenPortafolio(entrada.getKey(), (int) valores[0], valores[1], valores[2]));
+        }
+        long[] totales = parcial.totales;
+        return new ResultadoConciliacion(Arrays.copyOfRange(totales, 0, TIPOS),
+                Arrays.copyOfRange(totales, TIPOS, 2 * TIPOS), Arrays.copyOfRange(totales, 2 * TIPOS, 3 * TIPOS),
+                parcial.saldoEsperado, parcial.utilizadoEsperado, clientes, diferencias, transitorias,
+                parcial.sinApertura, System.nanoTime() - inicio);
+    }
+
+    private static boolean coincide(ProductoFinanciero producto, SumideroConciliacion movimientos) {
+        SumideroConciliacion.Esperado esperado = movimientos.esperado(producto);
+        return producto.getSaldoCentavos() == esperado.getSaldoCentavos()
+                && SumideroConciliacion.utilizadoDe(producto) == esperado.getUtilizadoCentavos();
+    }
+
+    private static void agregarDiferencias(ProductoFinanciero producto, SumideroConciliacion movimientos,
+                                           List<Diferencia> diferencias) {
+        SumideroConciliacion.Esperado esperado = movimientos.esperado(producto);
+        long saldo = producto.getSaldoCentavos();
+        if (saldo != esperado.getSaldoCentavos()) {
+            diferencias.add(new Diferencia(producto.getNumeroCuenta(), producto.getTipo(), Campo.SALDO, saldo,
+                    esperado.getSaldoCentavos()));
+        }
+        long utilizado = SumideroConciliacion.utilizadoDe(producto);
+        if (utilizado != esperado.getUtilizadoCentavos()) {
+            diferencias.add(new Diferencia(producto.getNumeroCuenta(), producto.getTipo(), Campo.CREDITO_UTILIZADO,
+                    utilizado, esperado.getUtilizadoCentavos()));
+        }
+    }
+
+    /**
+     * Acumulado de un rango del portafolio: cantidades, saldos y crédito utilizado por tipo, en ese orden; lo
+     * esperado y las posiciones de los productos que no coincidieron. Los totales por documento de identidad
+     * (productos, saldo, utilizado) van en el mapa compartido de la corrida.
+     */
+    private static final class Parcial {
+        final long[] totales = new long[3 * TIPOS];
+        long saldoEsperado;
+        long utilizadoEsperado;
+        long sinApertura;
+        int[] candidatos = new int[0];
+        int cantidadCandidatos;
+
+        void agregarCandidato(int indice) {
+            if (cantidadCandidatos == candidatos.length) {
+                candidatos = Arrays.copyOf(candidatos, Math.max(8, 2 * candidatos.length));
+            }
+            candidatos[cantidadCandidatos++] = indice;
+        }
+
+        void combinar(Parcial otro) {
+            for (int i = 0; i < totales.length; i++) {
+                totales[i] = Math.addExact(totales[i], otro.totales[i]);
+            }
+            saldoEsperado = Math.addExact(saldoEsperado, otro.saldoEsperado);
+            utilizadoEsperado = Math.addExact(utilizadoEsperado, otro.utilizadoEsperado);
+            sinApertura += otro.sinApertura;
+            for (int i = 0; i < otro.cantidadCandidatos; i++) {
+                agregarCandidato(otro.candidatos[i]);
+            }
+        }
+    }
+
+    private static final class TareaConciliacion extends RecursiveTask<Parcial> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<? extends ProductoFinanciero> portafolio;
+        private final transient SumideroConciliacion movimientos;
+        private final transient ConcurrentHashMap<String, long[]> clientes;
+        private final int desde;
+        private final int hasta;
+        private final int umbral;
+
+        TareaConciliacion(List<? extends ProductoFinanciero> portafolio, SumideroConciliacion movimientos,
+                          ConcurrentHashMap<String, long[]> clientes, int desde, int hasta, int umbral) {
+            this.portafolio = portafolio;
+            this.movimientos = movimientos;
+            this.clientes = clientes;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.umbral = umbral;
+        }
+
+        @Override
+        protected Parcial compute() {
+            if (hasta - desde <= umbral) {
+                return procesar(portafolio, movimientos, clientes, desde, hasta);
+            }
+            int medio = (desde + hasta) >>> 1;
+            TareaConciliacion izquierda = new TareaConciliacion(portafolio, movimientos, clientes, desde, medio, umbral);
+            izquierda.fork();
+            Parcial derecha = new TareaConciliacion(portafolio, movimientos, clientes, medio, hasta, umbral).compute();
+            Parcial resultado = izquierda.join();
+            resultado.combinar(derecha);
+            return resultado;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.mibanco.servicios;
+
+import com.mibanco.model.Dinero;
+
+/**
+ * Flujo de caja mes a mes de un portafolio de certificados de depósito, producido por
+ * {@link ProyectorVencimientos}. Para cada mes guarda el interés generado, lo que se paga por los certificados
+ * que vencen ese mes (principal más intereses) y el saldo que sigue invertido al cierre del mes. Todos los montos
+ * están en centavos y el mes 0 corresponde al momento de la proyección.
+ */
+public final class CronogramaVencimientos {
+
+    private final long[] interesesCentavos;
+    private final long[] vencimientosCentavos;
+    private final long[] saldosVigentesCentavos;
+    private final int[] certificadosQueVencen;
+    private final long duracionNanos;
+
+    CronogramaVencimientos(long[] interesesCentavos, long[] vencimientosCentavos, long[] saldosVigentesCentavos,
+                           int[] certificadosQueVencen, long duracionNanos) {
+        this.interesesCentavos = interesesCentavos;
+        this.vencimientosCentavos = vencimientosCentavos;
+        this.saldosVigentesCentavos = saldosVigentesCentavos;
+        this.certificadosQueVencen = certificadosQueVencen;
+        this.duracionNanos = duracionNanos;
+    }
+
+    /**
+     * @return Último mes con movimientos, es decir, el plazo más largo del portafolio.
+     */
+    public int getMeses() {
+        return interesesCentavos.length - 1;
+    }
+
+    /**
+     * @param mes Mes de la proyección, entre 0 y {@link #getMeses()}.
+     * @return Interés generado durante el mes, en centavos.
+     */
+    public long getInteresCentavos(int mes) {
+        return interesesCentavos[mes];
+    }
+
+    /**
+     * @param mes Mes de la proyección, entre 0 y {@link #getMeses()}.
+     * @return Total a pagar por los certificados que vencen al cierre del mes, en centavos.
+     */
+    public long getVencimientosCentavos(int mes) {
+        return vencimientosCentavos[mes];
+    }
+
+    /**
+     * @param mes Mes de la proyección, entre 0 y {@link #getMeses()}.
+     * @return Saldo de los certificados que siguen vigentes al cierre del mes, en centavos.
+     */
+    public long getSaldoVigenteCentavos(int mes) {
+        return saldosVigentesCentavos[mes];
+    }
+
+    /**
+     * @param mes Mes de la proyección, entre 0 y {@link #getMeses()}.
+     * @return Número de certificados que vencen al cierre del mes.
+     */
+    public int getCertificadosQueVencen(int mes) {
+        return certificadosQueVencen[mes];
+    }
+
+    public long getInteresTotalCentavos() {
+        long total = 0;
+        for (long interes : interesesCentavos) {
+            total += interes;
+        }
+        return total;
+    }
+
+    public long getVencimientosTotalCentavos() {
+        long total = 0;
+        for (long vencimiento : vencimientosCentavos) {
+            total += vencimiento;
+        }
+        return total;
+    }
+
+    public long getDuracionNanos() {
+        return duracionNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "CronogramaVencimientos{meses=" + getMeses()
+                + ", interesTotal=" + Dinero.deCentavos(getInteresTotalCentavos())
+                + ", vencimientosTotal=" + Dinero.deCentavos(getVencimientosTotalCentavos())
+                + ", duracionMs=" + duracionNanos / 1_000_000 + '}';
+    }
+}
@@ -0,0 +1,28 @@
+package com.mibanco.servicios;
+
+/**
+ * Error de una fila durante una carga masiva. La fila se descarta y la carga continúa.
+ */
+public final class ErrorCarga {
+
+    private final long linea;
+    private final String mensaje;
+
+    public ErrorCarga(long linea, String mensaje) {
+        this.linea = linea;
+        this.mensaje = mensaje;
+    }
+
+    public long getLinea() {
+        return linea;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    @Override
+    public String toString() {
+        return "Línea " + linea + ": " + mensaje;
+    }
+}
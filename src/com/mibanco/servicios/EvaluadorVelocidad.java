@@ -0,0 +1,165 @@
+package com.mibanco.servicios;
+
+import com.mibanco.eventos.TipoEvento;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.riesgo.Decision;
+import com.mibanco.riesgo.EvaluadorRiesgo;
+import com.mibanco.riesgo.Riesgo;
+import com.mibanco.servicios.LimitesVelocidad.Ventana;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Control de velocidad para retiros y compras: rechaza una operación si con ella una cuenta, o el conjunto de
+ * cuentas de un cliente, superaría el número de operaciones o el monto acumulado permitidos en el último minuto, la
+ * última hora o el último día. Se instala con {@link Riesgo#setEvaluador(EvaluadorRiesgo)}.
+ * <p>
+ * Los contadores de cada número de cuenta y de cada documento de identidad son anillos de cubetas en arreglos de
+ * primitivos ({@link LimitesVelocidad.Ventana} indica la resolución de cada ventana), así que evaluar una operación no
+ * depende de cuántas haya en la ventana ni reserva memoria salvo la primera vez que aparece una clave. El número
+ * de claves seguidas está acotado: al superarlo se olvidan las que llevan más tiempo sin operar (LRU), y una clave
+ * olvidada vuelve a empezar sin historial.
+ * <p>
+ * Una operación aprobada se cuenta de inmediato, aunque después el producto la rechace por fondos o por límite de
+ * crédito; las rechazadas aquí no se cuentan. La verificación y el registro se hacen bajo el lock de la cuenta y el
+ * del cliente, en ese orden, así que operaciones concurrentes no pueden superar juntas un límite.
+ */
+public class EvaluadorVelocidad implements EvaluadorRiesgo {
+
+    private final LimitesVelocidad porCuenta;
+    private final LimitesVelocidad porCliente;
+    private final CacheLru<VentanasVelocidad> cuentas;
+    private final CacheLru<VentanasVelocidad> clientes;
+    private final LongSupplier reloj;
+    private final LongAdder aprobadas = new LongAdder();
+    private final LongAdder rechazadasPorCuenta = new LongAdder();
+    private final LongAdder rechazadasPorCliente = new LongAdder();
+
+    /**
+     * Crea un evaluador que usa el reloj del sistema.
+     *
+     * @param porCuenta Límites de cada número de cuenta.
+     * @param porCliente Límites de todas las cuentas de un mismo documento de identidad.
+     * @param maximoClaves Número máximo de cuentas, y por separado de clientes, con contadores en memoria.
+     */
+    public EvaluadorVelocidad(LimitesVelocidad porCuenta, LimitesVelocidad porCliente, int maximoClaves) {
+        this(porCuenta, porCliente, maximoClaves, System::currentTimeMillis);
+    }
+
+    /**
+     * Crea un evaluador con un reloj propio, útil para simular el paso del tiempo.
+     *
+     * @param porCuenta Límites de cada número de cuenta.
+     * @param porCliente Límites de todas las cuentas de un mismo documento de identidad.
+     * @param maximoClaves Número máximo de cuentas, y por separado de clientes, con contadores en memoria.
+     * @param reloj Fuente del instante actual, en milisegundos.
+     * @throws IllegalArgumentException Si el número máximo de claves no es positivo.
+     */
+    public EvaluadorVelocidad(LimitesVelocidad porCuenta, LimitesVelocidad porCliente, int maximoClaves,
+                              LongSupplier reloj) {
+        if (maximoClaves <= 0) {
+            throw new IllegalArgumentException("El número máximo de claves debe ser positivo.");
+        }
+        this.porCuenta = Objects.requireNonNull(porCuenta, "Los límites por cuenta no pueden ser nulos.");
+        this.porCliente = Objects.requireNonNull(porCliente, "Los límites por cliente no pueden ser nulos.");
+        this.reloj = Objects.requireNonNull(reloj, "El reloj no puede ser nulo.");
+        int segmentos = Runtime.getRuntime().availableProcessors() * 4;
+        this.cuentas = new CacheLru<>(maximoClaves, segmentos);
+        this.clientes = new CacheLru<>(maximoClaves, segmentos);
+    }
+
+    @Override
+    public Decision evaluar(TipoEvento tipo, ProductoFinanciero producto, long montoCentavos) {
+        long ahora = reloj.getAsLong();
+        VentanasVelocidad cuenta = cuentas.obtenerOCrear(producto.getNumeroCuenta(), clave -> new VentanasVelocidad());
+        Cliente titular = producto.getCliente();
+        VentanasVelocidad cliente = titular == null ? null
+                : clientes.obtenerOCrear(titular.getDocumentoIdentidad(), clave -> new VentanasVelocidad());
+        synchronized (cuenta) {
+            cuenta.avanzar(ahora);
+            if (cuenta.excede(porCuenta, montoCentavos)) {
+                rechazadasPorCuenta.increment();
+                return Decision.RECHAZADA;
+            }
+            if (cliente == null) {
+                cuenta.registrar(montoCentavos);
+            } else {
+                synchronized (cliente) {
+                    cliente.avanzar(ahora);
+                    if (cliente.excede(porCliente, montoCentavos)) {
+                        rechazadasPorCliente.increment();
+                        return Decision.RECHAZADA;
+                    }
+                    cuenta.registrar(montoCentavos);
+                    cliente.registrar(montoCentavos);
+                }
+            }
+        }
+        aprobadas.increment();
+        return Decision.APROBADA;
+    }
+
+    /**
+     * @return Número de operaciones aprobadas en una ventana para la cuenta, o 0 si no tiene contadores en memoria.
+     */
+    public long getOperacionesCuenta(String numeroCuenta, Ventana ventana) {
+        VentanasVelocidad ventanas = cuentas.obtener(numeroCuenta);
+        if (ventanas == null) {
+            return 0;
+        }
+        synchronized (ventanas) {
+            ventanas.avanzar(reloj.getAsLong());
+            return ventanas.getConteo(ventana);
+        }
+    }
+
+    /**
+     * @return Monto aprobado en una ventana para la cuenta, en centavos, o 0 si no tiene contadores en memoria.
+     */
+    public long getMontoCuentaCentavos(String numeroCuenta, Ventana ventana) {
+        VentanasVelocidad ventanas = cuentas.obtener(numeroCuenta);
+        if (ventanas == null) {
+            return 0;
+        }
+        synchronized (ventanas) {
+            ventanas.avanzar(reloj.getAsLong());
+            return ventanas.getSuma(ventana);
+        }
+    }
+
+    public long getAprobadas() {
+        return aprobadas.sum();
+    }
+
+    public long getRechazadasPorCuenta() {
+        return rechazadasPorCuenta.sum();
+    }
+
+    public long getRechazadasPorCliente() {
+        return rechazadasPorCliente.sum();
+    }
+
+    /**
+     * @return Número de cuentas y clientes cuyos contadores se olvidaron por superar el máximo de claves.
+     */
+    public long getClavesOlvidadas() {
+        return cuentas.getDesalojos() + clientes.getDesalojos();
+    }
+
+    /**
+     * @return Número de cuentas y clientes con contadores en memoria.
+     */
+    public int getClavesSeguidas() {
+        return cuentas.tamano() + clientes.tamano();
+    }
+
+    /**
+     * @return Bytes de contadores de cada cuenta o cliente seguido, sin contar las estructuras del caché.
+     */
+    public static int getBytesPorClave() {
+        return VentanasVelocidad.bytesPorClave();
+    }
+}
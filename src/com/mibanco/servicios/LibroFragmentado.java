@@ -0,0 +1,521 @@
+package com.mibanco.servicios;
+
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.riesgo.RechazoPorRiesgoException;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Libro de cuentas repartido en fragmentos, cada uno propiedad exclusiva de un hilo. Las cuentas se asignan a un
+ * fragmento por el hash de su número y solo el hilo del fragmento las lee o modifica, así que no se necesitan
+ * bloqueos: las operaciones se envían como mensajes a la cola del fragmento, que las ejecuta en orden de llegada,
+ * y el resultado se entrega a una {@link Respuesta} desde el hilo del fragmento.
+ * <p>
+ * Las transferencias entre cuentas de un mismo fragmento se ejecutan de una vez. Entre fragmentos distintos se
+ * usa un protocolo de dos fases: el fragmento de origen retira los fondos y los deja en tránsito; el de destino
+ * los abona, o rechaza la operación si la cuenta no existe; y el de origen confirma la transferencia o la anula
+ * devolviendo los fondos. La respuesta se entrega al confirmar o anular, de modo que cuando el llamador la recibe
+ * ambas cuentas ya reflejan el resultado. Si aplicar una operación lanza una excepción, se responde con
+ * {@link Estado#FALLIDA}; si falla el abono en el destino, el origen anula la transferencia como si la cuenta no
+ * existiera.
+ * <p>
+ * Las respuestas se ejecutan en el hilo del fragmento y deben ser breves. Las colas no tienen límite: quien
+ * envía muchas operaciones sin esperar sus respuestas debe acotar las que tiene pendientes.
+ */
+public class LibroFragmentado implements AutoCloseable {
+
+    /**
+     * Resultado de una operación.
+     */
+    public enum Estado {
+        APLICADA,
+        FONDOS_INSUFICIENTES,
+        /**
+         * El evaluador de {@link com.mibanco.riesgo.Riesgo} rechazó el retiro.
+         */
+        RECHAZADA_POR_RIESGO,
+        CUENTA_INEXISTENTE,
+        /**
+         * Se intentó abrir una cuenta con un número que ya existe.
+         */
+        CUENTA_DUPLICADA,
+        /**
+         * Transferencia con el mismo origen y destino.
+         */
+        MISMA_CUENTA,
+        MONTO_INVALIDO,
+        /**
+         * La operación falló por un error inesperado al aplicarla. En una transferencia entre fragmentos, los
+         * fondos ya se devolvieron al origen.
+         */
+        FALLIDA
+    }
+
+    /**
+     * Recibe el resultado de una operación, desde el hilo del fragmento que la terminó.
+     */
+    @FunctionalInterface
+    public interface Respuesta {
+        /**
+         * @param estado Resultado de la operación.
+         * @param saldoCentavos Saldo de la cuenta (el origen, en transferencias) tras la operación; 0 si la cuenta
+         *                      no existe.
+         */
+        void recibir(Estado estado, long saldoCentavos);
+    }
+
+    private static final byte ABRIR = 0;
+    private static final byte CONSULTAR = 1;
+    private static final byte DEPOSITAR = 2;
+    private static final byte RETIRAR = 3;
+    private static final byte TRANSFERIR = 4;
+    private static final byte ABONAR = 5;
+    private static final byte CONFIRMAR = 6;
+    private static final byte ANULAR = 7;
+    private static final byte SINCRONIZAR = 8;
+    private static final byte DETENER = 9;
+
+    private static final int GIROS_ANTES_DE_DORMIR = 256;
+
+    private static final VarHandle COLA;
+
+    static {
+        try {
+            COLA = MethodHandles.lookup().findVarHandle(Fragmento.class, "cola", Mensaje.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Fragmento[] fragmentos;
+    private volatile boolean abierto = true;
+    private volatile boolean detenido;
+
+    /**
+     * Crea el libro y arranca un hilo por fragmento.
+     *
+     * @param fragmentos Número de fragmentos; normalmente uno por núcleo.
+     * @throws IllegalArgumentException Si el número de fragmentos no es positivo.
+     */
+    public LibroFragmentado(int fragmentos) {
+        if (fragmentos <= 0) {
+            throw new IllegalArgumentException("El número de fragmentos debe ser positivo.");
+        }
+        this.fragmentos = new Fragmento[fragmentos];
+        for (int i = 0; i < fragmentos; i++) {
+            this.fragmentos[i] = new Fragmento(i);
+        }
+        for (Fragmento fragmento : this.fragmentos) {
+            fragmento.hilo.start();
+        }
+    }
+
+    /**
+     * Agrega una cuenta al libro. A partir de ese momento solo debe modificarse a través del libro.
+     *
+     * @param producto Cuenta a agregar.
+     * @param respuesta Recibe {@link Estado#APLICADA} o {@link Estado#CUENTA_DUPLICADA}.
+     */
+    public void abrir(ProductoFinanciero producto, Respuesta respuesta) {
+        Objects.requireNonNull(producto, "El producto no puede ser nulo.");
+        Mensaje mensaje = new Mensaje(ABRIR, producto.getNumeroCuenta(), null, 0, respuesta);
+        mensaje.producto = producto;
+        enviar(mensaje);
+    }
+
+    /**
+     * Consulta el saldo de una cuenta.
+     *
+     * @param numeroCuenta Número de la cuenta.
+     * @param respuesta Recibe el saldo.
+     */
+    public void consultar(String numeroCuenta, Respuesta respuesta) {
+        enviar(new Mensaje(CONSULTAR, numeroCuenta, null, 0, respuesta));
+    }
+
+    /**
+     * Deposita en una cuenta.
+     *
+     * @param numeroCuenta Número de la cuenta.
+     * @param montoCentavos Monto a depositar, en centavos.
+     * @param respuesta Recibe el saldo resultante.
+     */
+    public void depositar(String numeroCuenta, long montoCentavos, Respuesta respuesta) {
+        enviar(new Mensaje(DEPOSITAR, numeroCuenta, null, montoCentavos, respuesta));
+    }
+
+    /**
+     * Retira de una cuenta, respetando el sobregiro de las cuentas corrientes.
+     *
+     * @param numeroCuenta Número de la cuenta.
+     * @param montoCentavos Monto a retirar, en centavos.
+     * @param respuesta Recibe el saldo resultante, {@link Estado#FONDOS_INSUFICIENTES} o
+     *                  {@link Estado#RECHAZADA_POR_RIESGO}.
+     */
+    public void retirar(String numeroCuenta, long montoCentavos, Respuesta respuesta) {
+        enviar(new Mensaje(RETIRAR, numeroCuenta, null, montoCentavos, respuesta));
+    }
+
+    /**
+     * Transfiere entre dos cuentas, que pueden estar en fragmentos distintos.
+     *
+     * @param origen Número de la cuenta de la que se retiran los fondos.
+     * @param destino Número de la cuenta a la que se abonan.
+     * @param montoCentavos Monto a transferir, en centavos.
+     * @param respuesta Recibe el saldo resultante del origen, una vez aplicada o anulada la transferencia en ambas
+     *                  cuentas.
+     */
+    public void transferir(String origen, String destino, long montoCentavos, Respuesta respuesta) {
+        Objects.requireNonNull(destino, "El número de cuenta de destino no puede ser nulo.");
+        enviar(new Mensaje(TRANSFERIR, origen, destino, montoCentavos, respuesta));
+    }
+
+    /**
+     * @param numeroCuenta Número de cuenta.
+     * @return Índice del fragmento dueño de la cuenta.
+     */
+    public int fragmentoDe(String numeroCuenta) {
+        long mezcla = (numeroCuenta.hashCode() * 0x9E3779B9L) & 0xFFFFFFFFL;
+        return (int) ((mezcla * fragmentos.length) >>> 32);
+    }
+
+    public int getFragmentos() {
+        return fragmentos.length;
+    }
+
+    /**
+     * @return Número de transferencias que pasaron por el protocolo de dos fases. Solo es exacto después de
+     * {@link #close()}.
+     */
+    public long getTransferenciasCruzadas() {
+        long total = 0;
+        for (Fragmento fragmento : fragmentos) {
+            total += fragmento.transferenciasCruzadas;
+        }
+        return total;
+    }
+
+    /**
+     * Recorre todas las cuentas del libro, por ejemplo para verificar saldos al terminar.
+     *
+     * @param accion Acción aplicada a cada cuenta.
+     * @throws IllegalStateException Si el libro sigue abierto, porque las cuentas pertenecen a sus hilos.
+     */
+    public void recorrer(Consumer<ProductoFinanciero> accion) {
+        if (!detenido) {
+            throw new IllegalStateException("Las cuentas solo pueden recorrerse con el libro cerrado.");
+        }
+        for (Fragmento fragmento : fragmentos) {
+            fragmento.cuentas.values().forEach(accion);
+        }
+    }
+
+    /**
+     * Espera a que terminen las operaciones enviadas, incluidas las transferencias en curso entre fragmentos, y
+     * detiene los hilos. No debe llamarse mientras otros hilos siguen enviando operaciones.
+     */
+    @Override
+    public void close() {
+        if (!abierto) {
+            return;
+        }
+        abierto = false;
+        try {
+            // Tras la primera ronda ya no se inician transferencias; las siguientes esperan a que las que estaban
+            // en curso se confirmen o anulen en su origen.
+            long pendientes;
+            do {
+                long[] porFragmento = new long[fragmentos.length];
+                CountDownLatch listos = new CountDownLatch(fragmentos.length);
+                for (Fragmento fragmento : fragmentos) {
+                    Mensaje mensaje = new Mensaje(SINCRONIZAR, null, null, 0, null);
+                    mensaje.sincronizacion = listos;
+                    mensaje.pendientes = porFragmento;
+                    fragmento.enviar(mensaje);
+                }
+                listos.await();
+                pendientes = 0;
+                for (long valor : porFragmento) {
+                    pendientes += valor;
+                }
+            } while (pendientes > 0);
+            for (Fragmento fragmento : fragmentos) {
+                fragmento.enviar(new Mensaje(DETENER, null, null, 0, null));
+            }
+            for (Fragmento fragmento : fragmentos) {
+                fragmento.hilo.join();
+            }
+            detenido = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enviar(Mensaje mensaje) {
+        if (!abierto) {
+            throw new IllegalStateException("El libro está cerrado.");
+        }
+        Objects.requireNonNull(mensaje.cuenta, "El número de cuenta no puede ser nulo.");
+        Objects.requireNonNull(mensaje.respuesta, "La respuesta no puede ser nula.");
+        fragmentos[fragmentoDe(mensaje.cuenta)].enviar(mensaje);
+    }
+
+    /**
+     * Mensaje entre hilos. Los fragmentos nunca reenvían un mensaje recibido, porque el último nodo leído de una
+     * cola sigue formando parte de ella; crean uno nuevo.
+     */
+    private static final class Mensaje {
+        final byte tipo;
+        final String cuenta;
+        final String destino;
+        final long montoCentavos;
+        final Respuesta respuesta;
+        ProductoFinanciero producto;
+        int fragmentoOrigen;
+        Estado estado;          // Motivo con que se responde a un ANULAR.
+        boolean respondido;
+        CountDownLatch sincronizacion;
+        long[] pendientes;
+        volatile Mensaje siguiente;
+
+        Mensaje(byte tipo, String cuenta, String destino, long montoCentavos, Respuesta respuesta) {
+            this.tipo = tipo;
+            this.cuenta = cuenta;
+            this.destino = destino;
+            this.montoCentavos = montoCentavos;
+            this.respuesta = respuesta;
+        }
+    }
+
+    /**
+     * Un fragmento: sus cuentas, su hilo y su cola de mensajes, una cola enlazada de varios productores y un
+     * consumidor en la que encolar es un solo intercambio atómico.
+     */
+    private final class Fragmento implements Runnable {
+
+        private final int indice;
+        private final Thread hilo;
+        private final Map<String, ProductoFinanciero> cuentas = new HashMap<>();
+
+        private Mensaje cabeza = new Mensaje(SINCRONIZAR, null, null, 0, null); // Nodo inicial; nunca se procesa.
+        @SuppressWarnings("unused") // Se accede mediante COLA.
+        private volatile Mensaje cola = cabeza;
+        private volatile boolean dormido;
+
+        private long transferenciasPendientes;
+        private long transferenciasCruzadas;
+        private boolean activo = true;
+
+        Fragmento(int indice) {
+            this.indice = indice;
+            this.hilo = new Thread(this, "libro-fragmento-" + indice);
+            this.hilo.setDaemon(true);
+        }
+
+        void enviar(Mensaje mensaje) {
+            Mensaje anterior = (Mensaje) COLA.getAndSet(this, mensaje);
+            anterior.siguiente = mensaje;
+            if (dormido) {
+                dormido = false;
+                LockSupport.unpark(hilo);
+            }
+        }
+
+        private Mensaje tomar() {
+            Mensaje siguiente = cabeza.siguiente;
+            if (siguiente != null) {
+                cabeza = siguiente;
+            }
+            return siguiente;
+        }
+
+        @Override
+        public void run() {
+            int giros = 0;
+            while (activo) {
+                Mensaje mensaje = tomar();
+                if (mensaje == null) {
+                    if (++giros < GIROS_ANTES_DE_DORMIR) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    dormido = true;
+                    // Si un productor ya cambió la cola pero aún no enlazó su mensaje, este lo verá dormido y lo
+                    // despertará; si no, la cola está vacía de verdad.
+                    if (cabeza.siguiente == null && cola == cabeza) {
+                        LockSupport.park(this);
+                    }
+                    dormido = false;
+                    giros = 0;
+                    continue;
+                }
+                giros = 0;
+                try {
+                    procesar(mensaje);
+                } catch (RuntimeException e) {
+                    fallar(mensaje);
+                }
+            }
+        }
+
+        /**
+         * Cierra un mensaje cuyo procesamiento lanzó una excepción, para que nadie espere una respuesta que no
+         * llegará: un abono fallido se anula en el origen, que devuelve los fondos en tránsito, y cualquier otra
+         * operación sin responder recibe {@link Estado#FALLIDA}.
+         */
+        private void fallar(Mensaje mensaje) {
+            if (mensaje.tipo == ABONAR) {
+                Mensaje anulacion = new Mensaje(ANULAR, mensaje.cuenta, mensaje.destino, mensaje.montoCentavos,
+                        mensaje.respuesta);
+                anulacion.estado = Estado.FALLIDA;
+                fragmentos[mensaje.fragmentoOrigen].enviar(anulacion);
+            } else if (mensaje.respuesta != null && !mensaje.respondido) {
+                try {
+                    responder(mensaje, Estado.FALLIDA, 0);
+                } catch (RuntimeException e) {
+                    // Una respuesta que lanza es un error de quien la pasó; no debe detener el fragmento.
+                }
+            }
+        }
+
+        private void responder(Mensaje mensaje, Estado estado, long saldoCentavos) {
+            mensaje.respondido = true;
+            mensaje.respuesta.recibir(estado, saldoCentavos);
+        }
+
+        private void procesar(Mensaje mensaje) {
+            switch (mensaje.tipo) {
+                case ABRIR:
+                    if (cuentas.putIfAbsent(mensaje.cuenta, mensaje.producto) != null) {
+                        responder(mensaje, Estado.CUENTA_DUPLICADA, 0);
+                    } else {
+                        responder(mensaje, Estado.APLICADA, mensaje.producto.getSaldoCentavos());
+                    }
+                    break;
+                case CONSULTAR: {
+                    ProductoFinanciero cuenta = cuentas.get(mensaje.cuenta);
+                    if (cuenta == null) {
+                        responder(mensaje, Estado.CUENTA_INEXISTENTE, 0);
+                    } else {
+                        responder(mensaje, Estado.APLICADA, cuenta.getSaldoCentavos());
+                    }
+                    break;
+                }
+                case DEPOSITAR:
+                case RETIRAR:
+                    depositarORetirar(mensaje);
+                    break;
+                case TRANSFERIR:
+                    transferir(mensaje);
+                    break;
+                case ABONAR: {
+                    ProductoFinanciero destino = cuentas.get(mensaje.destino);
+                    if (destino != null) {
+                        destino.depositarCentavos(mensaje.montoCentavos);
+                    }
+                    Mensaje cierre = new Mensaje(destino != null ? CONFIRMAR : ANULAR, mensaje.cuenta, mensaje.destino,
+                            mensaje.montoCentavos, mensaje.respuesta);
+                    cierre.estado = Estado.CUENTA_INEXISTENTE;
+                    fragmentos[mensaje.fragmentoOrigen].enviar(cierre);
+                    break;
+                }
+                case CONFIRMAR:
+                case ANULAR: {
+                    ProductoFinanciero origen = cuentas.get(mensaje.cuenta);
+                    transferenciasPendientes--;
+                    if (mensaje.tipo == ANULAR) {
+                        origen.depositarCentavos(mensaje.montoCentavos);
+                        responder(mensaje, mensaje.estado, origen.getSaldoCentavos());
+                    } else {
+                        responder(mensaje, Estado.APLICADA, origen.getSaldoCentavos());
+                    }
+                    break;
+                }
+                case SINCRONIZAR:
+                    mensaje.pendientes[indice] = transferenciasPendientes;
+                    mensaje.sincronizacion.countDown();
+                    break;
+                default:
+                    activo = false;
+                    break;
+            }
+        }
+
+        private void depositarORetirar(Mensaje mensaje) {
+            if (mensaje.montoCentavos <= 0) {
+                responder(mensaje, Estado.MONTO_INVALIDO, 0);
+                return;
+            }
+            ProductoFinanciero cuenta = cuentas.get(mensaje.cuenta);
+            if (cuenta == null) {
+                responder(mensaje, Estado.CUENTA_INEXISTENTE, 0);
+            } else if (mensaje.tipo == DEPOSITAR) {
+                cuenta.depositarCentavos(mensaje.montoCentavos);
+                responder(mensaje, Estado.APLICADA, cuenta.getSaldoCentavos());
+            } else {
+                responder(mensaje, retirar(cuenta, mensaje.montoCentavos), cuenta.getSaldoCentavos());
+            }
+        }
+
+        private void transferir(Mensaje mensaje) {
+            if (mensaje.montoCentavos <= 0) {
+                responder(mensaje, Estado.MONTO_INVALIDO, 0);
+                return;
+            }
+            if (mensaje.cuenta.equals(mensaje.destino)) {
+                responder(mensaje, Estado.MISMA_CUENTA, 0);
+                return;
+            }
+            ProductoFinanciero origen = cuentas.get(mensaje.cuenta);
+            if (origen == null) {
+                responder(mensaje, Estado.CUENTA_INEXISTENTE, 0);
+                return;
+            }
+            int indiceDestino = fragmentoDe(mensaje.destino);
+            ProductoFinanciero destino = indiceDestino == indice ? cuentas.get(mensaje.destino) : null;
+            if (indiceDestino == indice && destino == null) {
+                responder(mensaje, Estado.CUENTA_INEXISTENTE, origen.getSaldoCentavos());
+                return;
+            }
+            Estado retiro = retirar(origen, mensaje.montoCentavos);
+            if (retiro != Estado.APLICADA) {
+                responder(mensaje, retiro, origen.getSaldoCentavos());
+                return;
+            }
+            if (destino != null) {
+                try {
+                    destino.depositarCentavos(mensaje.montoCentavos);
+                } catch (RuntimeException e) {
+                    origen.depositarCentavos(mensaje.montoCentavos);
+                    throw e;
+                }
+                responder(mensaje, Estado.APLICADA, origen.getSaldoCentavos());
+                return;
+            }
+            // Primera fase: los fondos quedan en tránsito hasta que el destino los abone o los rechace.
+            transferenciasPendientes++;
+            transferenciasCruzadas++;
+            Mensaje abono = new Mensaje(ABONAR, mensaje.cuenta, mensaje.destino, mensaje.montoCentavos,
+                    mensaje.respuesta);
+            abono.fragmentoOrigen = indice;
+            fragmentos[indiceDestino].enviar(abono);
+        }
+    }
+
+    private static Estado retirar(ProductoFinanciero cuenta, long montoCentavos) {
+        try {
+            return cuenta.retirarCentavos(montoCentavos) ? Estado.APLICADA : Estado.FONDOS_INSUFICIENTES;
+        } catch (RechazoPorRiesgoException e) {
+            return Estado.RECHAZADA_POR_RIESGO;
+        } catch (IllegalStateException e) {
+            return Estado.FONDOS_INSUFICIENTES;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.mibanco.servicios;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Límites de velocidad de {@link EvaluadorVelocidad}: número máximo de operaciones y monto máximo acumulado en cada
+ * {@link Ventana}. Es inmutable; cada {@link #conMaximo} devuelve una copia con el límite cambiado.
+ */
+public final class LimitesVelocidad {
+
+    /**
+     * Ventana de tiempo deslizante sobre la que se cuentan las operaciones. Cada una se divide en cubetas y avanza de
+     * cubeta en cubeta, así que cubre entre {@code cubetas - 1} y {@code cubetas} cubetas completas del pasado.
+     */
+    public enum Ventana {
+        MINUTO(60_000L, 12),
+        HORA(3_600_000L, 12),
+        DIA(86_400_000L, 24);
+
+        private final long duracionMillis;
+        private final int cubetas;
+
+        Ventana(long duracionMillis, int cubetas) {
+            this.duracionMillis = duracionMillis;
+            this.cubetas = cubetas;
+        }
+
+        public long getDuracionMillis() {
+            return duracionMillis;
+        }
+
+        /**
+         * @return Número de cubetas en que se divide la ventana: su resolución es la duración entre este número.
+         */
+        public int getCubetas() {
+            return cubetas;
+        }
+    }
+
+    /**
+     * Límites que no rechazan ninguna operación.
+     */
+    public static final LimitesVelocidad SIN_LIMITE;
+
+    static {
+        long[] sinLimite = new long[Ventana.values().length];
+        Arrays.fill(sinLimite, Long.MAX_VALUE);
+        SIN_LIMITE = new LimitesVelocidad(sinLimite, sinLimite);
+    }
+
+    private final long[] operaciones;
+    private final long[] montosCentavos;
+
+    private LimitesVelocidad(long[] operaciones, long[] montosCentavos) {
+        this.operaciones = operaciones;
+        this.montosCentavos = montosCentavos;
+    }
+
+    /**
+     * Devuelve una copia de estos límites con los máximos de una ventana cambiados.
+     *
+     * @param ventana Ventana a limitar.
+     * @param operaciones Número máximo de operaciones en la ventana, o {@link Long#MAX_VALUE} para no limitarlo.
+     * @param montoCentavos Monto máximo acumulado en la ventana, en centavos, o {@link Long#MAX_VALUE} para no
+     *                      limitarlo.
+     * @return Los nuevos límites.
+     * @throws IllegalArgumentException Si algún máximo no es positivo.
+     */
+    public LimitesVelocidad conMaximo(Ventana ventana, long operaciones, long montoCentavos) {
+        Objects.requireNonNull(ventana, "La ventana no puede ser nula.");
+        if (operaciones <= 0 || montoCentavos <= 0) {
+            throw new IllegalArgumentException("Los límites de velocidad deben ser positivos.");
+        }
+        long[] nuevasOperaciones = this.operaciones.clone();
+        long[] nuevosMontos = this.montosCentavos.clone();
+        nuevasOperaciones[ventana.ordinal()] = operaciones;
+        nuevosMontos[ventana.ordinal()] = montoCentavos;
+        return new LimitesVelocidad(nuevasOperaciones, nuevosMontos);
+    }
+
+    public long getOperaciones(Ventana ventana) {
+        return operaciones[ventana.ordinal()];
+    }
+
+    public long getMontoCentavos(Ventana ventana) {
+        return montosCentavos[ventana.ordinal()];
+    }
+
+    long maximoOperaciones(int ventana) {
+        return operaciones[ventana];
+    }
+
+    long maximoMontoCentavos(int ventana) {
+        return montosCentavos[ventana];
+    }
+}
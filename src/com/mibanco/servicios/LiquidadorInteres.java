@@ -0,0 +1,171 @@
+package com.mibanco.servicios;
+
+import com.mibanco.model.DevengoInteres;
+import com.mibanco.model.ProductoFinanciero;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Liquidación en segundo plano del interés de los productos inactivos, para usar con {@link DevengoInteres} activo
+ * en lugar de {@link MotorInteresMensual}.
+ * <p>
+ * Con el devengo continuo, un producto que se mueve después de terminar el mes liquida solo el mes anterior en ese
+ * movimiento; los que no se mueven se quedan con el interés sin liquidar. Este liquidador recorre el portafolio en
+ * lotes pequeños, cada uno acotado en número de productos y en tiempo, y pone al día únicamente los que no han
+ * devengado desde el inicio del mes en curso. Cuando termina una pasada completa dentro de un mes, no vuelve a
+ * revisar nada hasta el mes siguiente. Así el cierre de mes deja de ser un recorrido de todo el portafolio en una
+ * sola corrida y se reparte en pausas cortas, mientras los productos activos se liquidan por su cuenta.
+ */
+public class LiquidadorInteres implements AutoCloseable {
+
+    // Cada cuántos productos se consulta el reloj para respetar el presupuesto de tiempo del lote.
+    private static final int PRODUCTOS_POR_CONSULTA_RELOJ = 16;
+
+    private final List<? extends ProductoFinanciero> portafolio;
+    private final int lote;
+    private final long presupuestoNanos;
+    private final LongAdder revisados = new LongAdder();
+    private final LongAdder liquidados = new LongAdder();
+    private final LongAdder interesCentavos = new LongAdder();
+    private final LongAdder lotes = new LongAdder();
+    private int cursor;
+    private long periodoPasada = Long.MIN_VALUE;
+    private int revisadosEnPasada;
+    private ScheduledExecutorService programador;
+
+    /**
+     * Crea un liquidador sobre un portafolio.
+     *
+     * @param portafolio Productos a recorrer; debe ser una lista de acceso aleatorio. Puede crecer mientras el
+     *                   liquidador trabaja, pero no reordenarse.
+     * @param lote Número máximo de productos revisados en cada lote.
+     * @param presupuesto Tiempo máximo de cada lote; se respeta con una tolerancia de unos pocos productos.
+     * @param unidad Unidad del presupuesto.
+     * @throws IllegalArgumentException Si el lote o el presupuesto no son positivos.
+     */
+    public LiquidadorInteres(List<? extends ProductoFinanciero> portafolio, int lote, long presupuesto, TimeUnit unidad) {
+        if (lote <= 0 || presupuesto <= 0) {
+            throw new IllegalArgumentException("El lote y el presupuesto de tiempo deben ser positivos.");
+        }
+        this.portafolio = Objects.requireNonNull(portafolio, "El portafolio no puede ser nulo.");
+        this.lote = lote;
+        this.presupuestoNanos = unidad.toNanos(presupuesto);
+    }
+
+    /**
+     * Revisa el siguiente lote del portafolio y pone al día los productos que no han devengado en el mes en curso.
+     * Sin devengo activo, o si ya se completó la pasada de este mes, no hace nada.
+     *
+     * @return Número de productos puestos al día en el lote.
+     */
+    public synchronized int procesarLote() {
+        int cantidad = portafolio.size();
+        if (!DevengoInteres.estaActivo() || cantidad == 0) {
+            return 0;
+        }
+        long inicioPeriodo = DevengoInteres.inicioPeriodo(DevengoInteres.ahora());
+        if (inicioPeriodo != periodoPasada) {
+            periodoPasada = inicioPeriodo;
+            revisadosEnPasada = 0;
+        }
+        if (revisadosEnPasada >= cantidad) {
+            return 0;
+        }
+        long limite = System.nanoTime() + presupuestoNanos;
+        int revisadosLote = 0;
+        int liquidadosLote = 0;
+        long interesLote = 0;
+        while (revisadosLote < lote && revisadosEnPasada < cantidad) {
+            if (cursor >= cantidad) {
+                cursor = 0;
+            }
+            ProductoFinanciero producto = portafolio.get(cursor++);
+            revisadosLote++;
+            revisadosEnPasada++;
+            if (producto.getDevengadoHastaMillis() < inicioPeriodo) {
+                interesLote += producto.devengarInteres();
+                liquidadosLote++;
+            }
+            if (revisadosLote % PRODUCTOS_POR_CONSULTA_RELOJ == 0 && System.nanoTime() - limite >= 0) {
+                break;
+            }
+        }
+        revisados.add(revisadosLote);
+        liquidados.add(liquidadosLote);
+        interesCentavos.add(interesLote);
+        lotes.increment();
+        return liquidadosLote;
+    }
+
+    /**
+     * @return true si ya se revisó todo el portafolio en el mes en curso.
+     */
+    public synchronized boolean pasadaCompleta() {
+        return DevengoInteres.estaActivo()
+                && periodoPasada == DevengoInteres.inicioPeriodo(DevengoInteres.ahora())
+                && revisadosEnPasada >= portafolio.size();
+    }
+
+    /**
+     * Procesa un lote periódicamente en un hilo de fondo.
+     *
+     * @param periodo Tiempo entre lotes.
+     * @param unidad Unidad del periodo.
+     */
+    public synchronized void iniciar(long periodo, TimeUnit unidad) {
+        if (programador != null) {
+            throw new IllegalStateException("La liquidación periódica ya está activa.");
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "liquidacion-interes");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // Una excepción que escapara de la tarea cancelaría todas las ejecuciones siguientes sin avisar.
+        programador.scheduleWithFixedDelay(() -> {
+            try {
+                procesarLote();
+            } catch (RuntimeException e) {
+                System.err.println("Error al liquidar el lote de intereses: " + e.getMessage());
+            }
+        }, periodo, periodo, unidad);
+    }
+
+    /**
+     * Detiene la liquidación periódica.
+     */
+    @Override
+    public synchronized void close() {
+        if (programador != null) {
+            programador.shutdown();
+            programador = null;
+        }
+    }
+
+    public long getRevisados() {
+        return revisados.sum();
+    }
+
+    /**
+     * @return Número de productos inactivos que este liquidador puso al día.
+     */
+    public long getLiquidados() {
+        return liquidados.sum();
+    }
+
+    /**
+     * @return Interés liquidado por este liquidador, en centavos.
+     */
+    public long getInteresLiquidadoCentavos() {
+        return interesCentavos.sum();
+    }
+
+    public long getLotes() {
+        return lotes.sum();
+    }
+}
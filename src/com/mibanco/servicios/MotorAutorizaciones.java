@@ -0,0 +1,273 @@
+package com.mibanco.servicios;
+
+import com.mibanco.eventos.TipoEvento;
+import com.mibanco.model.Dinero;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.riesgo.Decision;
+import com.mibanco.riesgo.Riesgo;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Motor de autorización de compras con tarjeta de crédito.
+ * <p>
+ * El crédito disponible se descuenta atómicamente en la propia {@link TarjetaCredito}, así que las autorizaciones
+ * concurrentes sobre una tarjeta nunca superan su límite. Cada solicitud devuelve un {@link ResultadoAutorizacion}
+ * en lugar de lanzar excepciones al rechazar.
+ * <p>
+ * Las compras y las preautorizaciones se consultan con el evaluador de {@link Riesgo}, igual que
+ * {@link TarjetaCredito#realizarCompra(Dinero)}. La captura no vuelve a evaluarse: completa una operación que ya se
+ * aprobó al retener.
+ * <p>
+ * Las preautorizaciones retienen crédito durante un tiempo limitado. Una retención puede capturarse (total o
+ * parcialmente) o liberarse una sola vez; las vencidas se liberan con {@link #expirarRetenciones()}, que puede
+ * ejecutarse periódicamente en segundo plano con {@link #iniciar(long, TimeUnit)}. Una retención vencida ya no
+ * puede capturarse aunque todavía no se haya liberado.
+ */
+public class MotorAutorizaciones implements AutoCloseable {
+
+    private static final class Retencion {
+        final TarjetaCredito tarjeta;
+        final long montoCentavos;
+        final long venceNanos;
+
+        Retencion(TarjetaCredito tarjeta, long montoCentavos, long venceNanos) {
+            this.tarjeta = tarjeta;
+            this.montoCentavos = montoCentavos;
+            this.venceNanos = venceNanos;
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Retencion> retenciones = new ConcurrentHashMap<>();
+    private final AtomicLong siguienteId = new AtomicLong();
+    private final long vigenciaNanos;
+    private final LongSupplier reloj;
+    private ScheduledExecutorService programador;
+
+    /**
+     * Crea un motor cuyas retenciones vencen tras la vigencia indicada.
+     *
+     * @param vigencia Tiempo de vida de una retención.
+     * @param unidad Unidad de la vigencia.
+     */
+    public MotorAutorizaciones(long vigencia, TimeUnit unidad) {
+        this(vigencia, unidad, System::nanoTime);
+    }
+
+    /**
+     * Crea un motor con un reloj propio, útil para simular el paso del tiempo.
+     *
+     * @param vigencia Tiempo de vida de una retención.
+     * @param unidad Unidad de la vigencia.
+     * @param reloj Fuente de tiempo en nanosegundos, monótona.
+     */
+    public MotorAutorizaciones(long vigencia, TimeUnit unidad, LongSupplier reloj) {
+        if (vigencia <= 0) {
+            throw new IllegalArgumentException("La vigencia de las retenciones debe ser positiva.");
+        }
+        this.vigenciaNanos = unidad.toNanos(vigencia);
+        this.reloj = Objects.requireNonNull(reloj, "El reloj no puede ser nulo.");
+    }
+
+    /**
+     * Autoriza y aplica una compra.
+     *
+     * @param tarjeta Tarjeta con la que se compra.
+     * @param monto Monto de la compra.
+     * @return Aprobación, o rechazo con motivo {@code MONTO_INVALIDO}, {@code RECHAZADA_POR_RIESGO} o
+     *         {@code CUPO_INSUFICIENTE}.
+     */
+    public ResultadoAutorizacion autorizarCompra(TarjetaCredito tarjeta, double monto) {
+        return autorizarCompraCentavos(tarjeta, ProductoFinanciero.aCentavos(monto));
+    }
+
+    /**
+     * Autoriza y aplica una compra.
+     *
+     * @param tarjeta Tarjeta con la que se compra.
+     * @param monto Monto de la compra.
+     * @return Aprobación, o rechazo con motivo {@code MONTO_INVALIDO}, {@code RECHAZADA_POR_RIESGO} o
+     *         {@code CUPO_INSUFICIENTE}.
+     */
+    public ResultadoAutorizacion autorizarCompra(TarjetaCredito tarjeta, Dinero monto) {
+        return autorizarCompraCentavos(tarjeta, monto.getCentavos());
+    }
+
+    private ResultadoAutorizacion autorizarCompraCentavos(TarjetaCredito tarjeta, long centavos) {
+        if (centavos <= 0) {
+            return ResultadoAutorizacion.rechazada(ResultadoAutorizacion.Motivo.MONTO_INVALIDO);
+        }
+        if (!aprobadaPorRiesgo(tarjeta, centavos)) {
+            return ResultadoAutorizacion.rechazada(ResultadoAutorizacion.Motivo.RECHAZADA_POR_RIESGO);
+        }
+        return tarjeta.cargarCentavos(centavos)
+                ? ResultadoAutorizacion.aprobada(0)
+                : ResultadoAutorizacion.rechazada(ResultadoAutorizacion.Motivo.CUPO_INSUFICIENTE);
+    }
+
+    /**
+     * Retiene crédito para una compra que se confirmará después.
+     *
+     * @param tarjeta Tarjeta sobre la que se retiene.
+     * @param monto Monto a retener.
+     * @return Aprobación con el identificador de la retención, o rechazo con motivo.
+     */
+    public ResultadoAutorizacion preautorizar(TarjetaCredito tarjeta, double monto) {
+        return preautorizarCentavos(tarjeta, ProductoFinanciero.aCentavos(monto));
+    }
+
+    /**
+     * Retiene crédito para una compra que se confirmará después.
+     *
+     * @param tarjeta Tarjeta sobre la que se retiene.
+     * @param monto Monto a retener.
+     * @return Aprobación con el identificador de la retención, o rechazo con motivo.
+     */
+    public ResultadoAutorizacion preautorizar(TarjetaCredito tarjeta, Dinero monto) {
+        return preautorizarCentavos(tarjeta, monto.getCentavos());
+    }
+
+    private static boolean aprobadaPorRiesgo(TarjetaCredito tarjeta, long centavos) {
+        return Riesgo.getEvaluador().evaluar(TipoEvento.COMPRA, tarjeta, centavos) == Decision.APROBADA;
+    }
+
+    private ResultadoAutorizacion preautorizarCentavos(TarjetaCredito tarjeta, long centavos) {
+        if (centavos <= 0) {
+            return ResultadoAutorizacion.rechazada(ResultadoAutorizacion.Motivo.MONTO_INVALIDO);
+        }
+        if (!aprobadaPorRiesgo(tarjeta, centavos)) {
+            return ResultadoAutorizacion.rechazada(ResultadoAutorizacion.Motivo.RECHAZADA_POR_RIESGO);
+        }
+        if (!tarjeta.retenerCentavos(centavos)) {
+            return ResultadoAutorizacion.rechazada(ResultadoAutorizacion.Motivo.CUPO_INSUFICIENTE);
+        }
+        long id = siguienteId.incrementAndGet();
+        retenciones.put(id, new Retencion(tarjeta, centavos, reloj.getAsLong() + vigenciaNanos));
+        return ResultadoAutorizacion.aprobada(id);
+    }
+
+    /**
+     * Convierte una retención vigente en compra por un monto no mayor al retenido; el resto se libera.
+     *
+     * @param idRetencion Identificador devuelto por {@link #preautorizar}.
+     * @param monto Monto final de la compra.
+     * @return Aprobación, o rechazo si la retención no existe, ya venció o el monto la supera.
+     */
+    public ResultadoAutorizacion capturar(long idRetencion, double monto) {
+        return capturarCentavos(idRetencion, ProductoFinanciero.aCentavos(monto));
+    }
+
+    /**
+     * Convierte una retención vigente en compra por un monto no mayor al retenido; el resto se libera.
+     *
+     * @param idRetencion Identificador devuelto por {@link #preautorizar}.
+     * @param monto Monto final de la compra.
+     * @return Aprobación, o rechazo si la retención no existe, ya venció o el monto la supera.
+     */
+    public ResultadoAutorizacion capturar(long idRetencion, Dinero monto) {
+        return capturarCentavos(idRetencion, monto.getCentavos());
+    }
+
+    private ResultadoAutorizacion capturarCentavos(long idRetencion, long centavos) {
+        if (centavos <= 0) {
+            return ResultadoAutorizacion.rechazada(ResultadoAutorizacion.Motivo.MONTO_INVALIDO);
+        }
+        Retencion retencion = retenciones.get(idRetencion);
+        if (retencion == null || vencida(retencion, reloj.getAsLong())) {
+            return ResultadoAutorizacion.rechazada(ResultadoAutorizacion.Motivo.RETENCION_INEXISTENTE);
+        }
+        if (centavos > retencion.montoCentavos) {
+            return ResultadoAutorizacion.rechazada(ResultadoAutorizacion.Motivo.MONTO_SUPERA_RETENCION);
+        }
+        // Quitar la retención del mapa decide quién la consume si compiten captura, liberación y vencimiento.
+        if (!retenciones.remove(idRetencion, retencion)) {
+            return ResultadoAutorizacion.rechazada(ResultadoAutorizacion.Motivo.RETENCION_INEXISTENTE);
+        }
+        retencion.tarjeta.capturarRetencionCentavos(retencion.montoCentavos, centavos);
+        return ResultadoAutorizacion.aprobada(0);
+    }
+
+    /**
+     * Libera una retención y devuelve su monto al crédito disponible.
+     *
+     * @param idRetencion Identificador de la retención.
+     * @return true si la retención existía y se liberó.
+     */
+    public boolean liberar(long idRetencion) {
+        Retencion retencion = retenciones.remove(idRetencion);
+        if (retencion == null) {
+            return false;
+        }
+        retencion.tarjeta.liberarRetencionCentavos(retencion.montoCentavos);
+        return true;
+    }
+
+    /**
+     * Libera todas las retenciones vencidas.
+     *
+     * @return Número de retenciones liberadas.
+     */
+    public int expirarRetenciones() {
+        long ahora = reloj.getAsLong();
+        int liberadas = 0;
+        Iterator<Map.Entry<Long, Retencion>> it = retenciones.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Retencion> entrada = it.next();
+            Retencion retencion = entrada.getValue();
+            if (vencida(retencion, ahora) && retenciones.remove(entrada.getKey(), retencion)) {
+                retencion.tarjeta.liberarRetencionCentavos(retencion.montoCentavos);
+                liberadas++;
+            }
+        }
+        return liberadas;
+    }
+
+    /**
+     * @return Número de retenciones pendientes, incluidas las vencidas aún no liberadas.
+     */
+    public int cantidadRetenciones() {
+        return retenciones.size();
+    }
+
+    /**
+     * Libera las retenciones vencidas periódicamente en un hilo de fondo.
+     *
+     * @param periodo Tiempo entre barridos.
+     * @param unidad Unidad del periodo.
+     */
+    public synchronized void iniciar(long periodo, TimeUnit unidad) {
+        if (programador != null) {
+            throw new IllegalStateException("La expiración periódica ya está activa.");
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "expiracion-retenciones");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        programador.scheduleWithFixedDelay(this::expirarRetenciones, periodo, periodo, unidad);
+    }
+
+    /**
+     * Detiene la expiración periódica. Las retenciones pendientes se conservan.
+     */
+    @Override
+    public synchronized void close() {
+        if (programador != null) {
+            programador.shutdown();
+            programador = null;
+        }
+    }
+
+    private static boolean vencida(Retencion retencion, long ahora) {
+        return ahora - retencion.venceNanos >= 0;
+    }
+}
@@ -0,0 +1,124 @@
+package com.mibanco.servicios;
+
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TipoProducto;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Motor de cierre mensual que aplica el interés a todo un portafolio de productos financieros.
+ * La versión paralela divide el portafolio con fork/join; cada producto se procesa exactamente una vez
+ * y los totales se suman en centavos, por lo que el resultado es idéntico al de la versión secuencial.
+ */
+public class MotorInteresMensual {
+
+    private static final int UMBRAL_POR_DEFECTO = 4_096;
+    private static final int TIPOS = TipoProducto.values().length;
+
+    private final ForkJoinPool pool;
+    private final int umbral;
+
+    /**
+     * Crea un motor que usa el pool común de fork/join.
+     */
+    public MotorInteresMensual() {
+        this(ForkJoinPool.commonPool(), UMBRAL_POR_DEFECTO);
+    }
+
+    /**
+     * Crea un motor con un pool y un tamaño mínimo de tarea específicos.
+     *
+     * @param pool Pool de fork/join en el que se ejecuta la corrida paralela.
+     * @param umbral Número de productos a partir del cual una tarea se divide.
+     * @throws IllegalArgumentException Si el umbral no es positivo.
+     */
+    public MotorInteresMensual(ForkJoinPool pool, int umbral) {
+        if (umbral <= 0) {
+            throw new IllegalArgumentException("El umbral debe ser positivo.");
+        }
+        this.pool = Objects.requireNonNull(pool, "El pool no puede ser nulo.");
+        this.umbral = umbral;
+    }
+
+    /**
+     * Aplica el interés mensual a todos los productos en paralelo.
+     *
+     * @param portafolio Productos a procesar; se recomienda una lista de acceso aleatorio.
+     * @return Totales por tipo de producto y tiempo transcurrido.
+     */
+    public ResumenInteres ejecutar(List<? extends ProductoFinanciero> portafolio) {
+        long inicio = System.nanoTime();
+        long[] acumulado = pool.invoke(new TareaInteres(portafolio, 0, portafolio.size(), umbral));
+        return crearResumen(acumulado, System.nanoTime() - inicio);
+    }
+
+    /**
+     * Aplica el interés mensual a todos los productos en el hilo actual.
+     *
+     * @param portafolio Productos a procesar.
+     * @return Totales por tipo de producto y tiempo transcurrido.
+     */
+    public ResumenInteres ejecutarSecuencial(List<? extends ProductoFinanciero> portafolio) {
+        long inicio = System.nanoTime();
+        long[] acumulado = procesar(portafolio, 0, portafolio.size());
+        return crearResumen(acumulado, System.nanoTime() - inicio);
+    }
+
+    /**
+     * Procesa un rango del portafolio. El arreglo devuelto contiene las cantidades por tipo
+     * seguidas de los intereses por tipo, en centavos.
+     */
+    private static long[] procesar(List<? extends ProductoFinanciero> portafolio, int desde, int hasta) {
+        long[] acumulado = new long[2 * TIPOS];
+        for (int i = desde; i < hasta; i++) {
+            ProductoFinanciero producto = portafolio.get(i);
+            int tipo = producto.getTipo().ordinal();
+            acumulado[tipo]++;
+            acumulado[TIPOS + tipo] += producto.aplicarInteresMensual();
+        }
+        return acumulado;
+    }
+
+    private static ResumenInteres crearResumen(long[] acumulado, long duracionNanos) {
+        long[] cantidades = new long[TIPOS];
+        long[] intereses = new long[TIPOS];
+        System.arraycopy(acumulado, 0, cantidades, 0, TIPOS);
+        System.arraycopy(acumulado, TIPOS, intereses, 0, TIPOS);
+        return new ResumenInteres(cantidades, intereses, duracionNanos);
+    }
+
+    private static final class TareaInteres extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<? extends ProductoFinanciero> portafolio;
+        private final int desde;
+        private final int hasta;
+        private final int umbral;
+
+        TareaInteres(List<? extends ProductoFinanciero> portafolio, int desde, int hasta, int umbral) {
+            this.portafolio = portafolio;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.umbral = umbral;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (hasta - desde <= umbral) {
+                return procesar(portafolio, desde, hasta);
+            }
+            int medio = (desde + hasta) >>> 1;
+            TareaInteres izquierda = new TareaInteres(portafolio, desde, medio, umbral);
+            izquierda.fork();
+            long[] derecha = new TareaInteres(portafolio, medio, hasta, umbral).compute();
+            long[] resultado = izquierda.join();
+            for (int i = 0; i < resultado.length; i++) {
+                resultado[i] += derecha[i];
+            }
+            return resultado;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.mibanco.servicios;
+
+import com.mibanco.model.CuentaCorriente;
+import com.mibanco.model.Dinero;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.riesgo.RechazoPorRiesgoException;
+
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Motor de transferencias entre productos financieros basado en bloqueos por franjas (lock striping).
+ * Cada número de cuenta se asigna a una de un número fijo de franjas; una transferencia toma los
+ * bloqueos de las franjas de origen y destino siempre en orden ascendente de índice, lo que evita
+ * interbloqueos y permite que transferencias entre cuentas de franjas distintas avancen en paralelo.
+ */
+public class MotorTransferencias {
+
+    private static final int FRANJAS_POR_DEFECTO = 1024;
+
+    private final ReentrantLock[] franjas;
+    private final int mascara;
+
+    /**
+     * Crea un motor con el número de franjas por defecto.
+     */
+    public MotorTransferencias() {
+        this(FRANJAS_POR_DEFECTO);
+    }
+
+    /**
+     * Crea un motor con al menos el número de franjas indicado (se redondea a la siguiente potencia de dos).
+     *
+     * @param franjas Número mínimo de franjas de bloqueo.
+     * @throws IllegalArgumentException Si el número de franjas no es positivo.
+     */
+    public MotorTransferencias(int franjas) {
+        if (franjas <= 0 || franjas > (1 << 30)) {
+            throw new IllegalArgumentException("El número de franjas debe ser positivo.");
+        }
+        int tamano = Integer.highestOneBit(franjas);
+        if (tamano < franjas) {
+            tamano <<= 1;
+        }
+        this.franjas = new ReentrantLock[tamano];
+        for (int i = 0; i < tamano; i++) {
+            this.franjas[i] = new ReentrantLock();
+        }
+        this.mascara = tamano - 1;
+    }
+
+    /**
+     * Transfiere de forma atómica un monto desde el producto de origen al producto de destino.
+     * El retiro respeta las reglas del producto de origen (incluido el sobregiro de {@link CuentaCorriente}).
+     *
+     * @param origen Producto del que se retiran los fondos.
+     * @param destino Producto al que se depositan los fondos.
+     * @param monto Monto a transferir.
+     * @throws IllegalArgumentException Si el monto no es positivo, origen y destino son la misma cuenta,
+     *                                  o el origen no tiene fondos suficientes.
+     * @throws RechazoPorRiesgoException Si el control de riesgo rechaza el retiro del origen.
+     */
+    public void transferir(ProductoFinanciero origen, ProductoFinanciero destino, double monto) {
+        exigirFondos(transferirCentavos(origen, destino, ProductoFinanciero.aCentavos(monto)));
+    }
+
+    /**
+     * Transfiere de forma atómica un monto desde el producto de origen al producto de destino.
+     *
+     * @param origen Producto del que se retiran los fondos.
+     * @param destino Producto al que se depositan los fondos.
+     * @param monto Monto a transferir.
+     * @throws IllegalArgumentException Si el monto no es positivo, origen y destino son la misma cuenta,
+     *                                  o el origen no tiene fondos suficientes.
+     * @throws RechazoPorRiesgoException Si el control de riesgo rechaza el retiro del origen.
+     */
+    public void transferir(ProductoFinanciero origen, ProductoFinanciero destino, Dinero monto) {
+        exigirFondos(intentarTransferir(origen, destino, monto));
+    }
+
+    /**
+     * Como {@link #transferir(ProductoFinanciero, ProductoFinanciero, Dinero)}, pero informa la falta de fondos del
+     * origen con el retorno en lugar de una excepción, para quien debe distinguir ese rechazo de un error en los
+     * argumentos.
+     *
+     * @param origen Producto del que se retiran los fondos.
+     * @param destino Producto al que se depositan los fondos.
+     * @param monto Monto a transferir.
+     * @return true si se transfirió, false si el origen no tiene fondos suficientes.
+     * @throws IllegalArgumentException Si el monto no es positivo u origen y destino son la misma cuenta.
+     * @throws RechazoPorRiesgoException Si el control de riesgo rechaza el retiro del origen.
+     */
+    public boolean intentarTransferir(ProductoFinanciero origen, ProductoFinanciero destino, Dinero monto) {
+        return transferirCentavos(origen, destino,
+                Objects.requireNonNull(monto, "El monto no puede ser nulo.").getCentavos());
+    }
+
+    private static void exigirFondos(boolean transferido) {
+        if (!transferido) {
+            throw new IllegalArgumentException("Fondos insuficientes para la transferencia.");
+        }
+    }
+
+    private boolean transferirCentavos(ProductoFinanciero origen, ProductoFinanciero destino, long monto) {
+        Objects.requireNonNull(origen, "El producto de origen no puede ser nulo.");
+        Objects.requireNonNull(destino, "El producto de destino no puede ser nulo.");
+        if (monto <= 0) {
+            throw new IllegalArgumentException("El monto a transferir debe ser positivo.");
+        }
+        if (origen == destino || origen.getNumeroCuenta().equals(destino.getNumeroCuenta())) {
+            throw new IllegalArgumentException("El origen y el destino de la transferencia deben ser distintos.");
+        }
+
+        int indiceOrigen = indiceFranja(origen.getNumeroCuenta());
+        int indiceDestino = indiceFranja(destino.getNumeroCuenta());
+        ReentrantLock primero = franjas[Math.min(indiceOrigen, indiceDestino)];
+        ReentrantLock segundo = franjas[Math.max(indiceOrigen, indiceDestino)];
+
+        primero.lock();
+        try {
+            if (segundo != primero) {
+                segundo.lock();
+            }
+            try {
+                if (!retirar(origen, monto)) {
+                    return false;
+                }
+                destino.depositarCentavos(monto);
+                return true;
+            } finally {
+                if (segundo != primero) {
+                    segundo.unlock();
+                }
+            }
+        } finally {
+            primero.unlock();
+        }
+    }
+
+    /**
+     * Ejecuta el retiro del origen unificando las dos formas de rechazo por fondos de los productos:
+     * excepción de fondos insuficientes o retorno false. El rechazo del control de riesgo se propaga.
+     */
+    private static boolean retirar(ProductoFinanciero origen, long montoCentavos) {
+        try {
+            return origen.retirarCentavos(montoCentavos);
+        } catch (RechazoPorRiesgoException e) {
+            throw e;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private int indiceFranja(String numeroCuenta) {
+        int h = numeroCuenta.hashCode();
+        return (h ^ (h >>> 16)) & mascara;
+    }
+}
@@ -0,0 +1,71 @@
+package com.mibanco.servicios;
+
+import com.mibanco.interfaces.OperacionesFinancieras;
+import com.mibanco.model.Dinero;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.riesgo.RechazoPorRiesgoException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+
+/**
+ * Implementación de {@link OperacionesFinancieras} sobre un producto financiero concreto.
+ * Las transferencias se delegan en un {@link MotorTransferencias} compartido para que sean atómicas
+ * y libres de interbloqueos frente a otras transferencias concurrentes.
+ */
+public class OperacionesProducto implements OperacionesFinancieras {
+
+    private final ProductoFinanciero producto;
+    private final MotorTransferencias motor;
+
+    /**
+     * Crea las operaciones para un producto financiero.
+     *
+     * @param producto Producto sobre el que se realizan las operaciones.
+     * @param motor Motor de transferencias compartido por todas las operaciones del sistema.
+     */
+    public OperacionesProducto(ProductoFinanciero producto, MotorTransferencias motor) {
+        this.producto = Objects.requireNonNull(producto, "El producto no puede ser nulo.");
+        this.motor = Objects.requireNonNull(motor, "El motor de transferencias no puede ser nulo.");
+    }
+
+    @Override
+    public void depositar(BigDecimal monto) {
+        producto.depositar(aDinero(monto));
+    }
+
+    /**
+     * Unifica las dos formas de rechazo por fondos de los productos, excepción o retorno false, en el retorno false
+     * que pide el contrato. El rechazo del control de riesgo se propaga.
+     *
+     * @throws RechazoPorRiesgoException Si el control de riesgo rechaza el retiro.
+     */
+    @Override
+    public boolean retirar(BigDecimal monto) {
+        Dinero dinero = aDinero(monto);
+        try {
+            return producto.retirar(dinero);
+        } catch (RechazoPorRiesgoException e) {
+            throw e;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void transferir(BigDecimal monto, ProductoFinanciero destino) {
+        motor.transferir(producto, destino, aDinero(monto));
+    }
+
+    public ProductoFinanciero getProducto() {
+        return producto;
+    }
+
+    /**
+     * Convierte el monto sin pasar por {@code double}; las fracciones de centavo se redondean al par más cercano.
+     */
+    private static Dinero aDinero(BigDecimal monto) {
+        return Dinero.de(Objects.requireNonNull(monto, "El monto no puede ser nulo."), RoundingMode.HALF_EVEN);
+    }
+}
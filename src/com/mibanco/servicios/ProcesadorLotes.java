@@ -0,0 +1,242 @@
+package com.mibanco.servicios;
+
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Etapa de procesamiento por lotes para la ingesta de archivos de compensación, donde llegan muchas transacciones
+ * pequeñas a las mismas cuentas.
+ * <p>
+ * El lote se reparte por número de cuenta en particiones que se procesan en paralelo; dentro de cada partición las
+ * transacciones se agrupan por cuenta conservando su orden en el lote, y cada grupo se aplica con una sola
+ * actualización atómica mediante {@link ProductoFinanciero#aplicarMovimientosCentavos} (depósitos y retiros) o
+ * {@link TarjetaCredito#aplicarMovimientosCreditoCentavos} (compras y pagos). El resultado de cada transacción es
+ * el mismo que si se hubieran aplicado una por una en el orden del lote: los retiros respetan el sobregiro de
+ * {@code CuentaCorriente} y las compras el límite de crédito de la tarjeta. Las transacciones de cuentas distintas
+ * son independientes, así que su orden relativo no afecta el resultado.
+ * <p>
+ * A diferencia de las operaciones individuales, los rechazos no lanzan excepciones: se informan en el
+ * {@link ResultadoLote}.
+ */
+public class ProcesadorLotes {
+
+    private final Map<String, ProductoFinanciero> cuentas;
+    private final ForkJoinPool pool;
+    private final int particiones;
+
+    /**
+     * Crea un procesador que usa el pool común de fork/join, con cuatro particiones por hilo.
+     *
+     * @param cuentas Cuentas accesibles, indexadas por número de cuenta; debe admitir lecturas concurrentes.
+     */
+    public ProcesadorLotes(Map<String, ProductoFinanciero> cuentas) {
+        this(cuentas, ForkJoinPool.commonPool(), ForkJoinPool.commonPool().getParallelism() * 4);
+    }
+
+    /**
+     * Crea un procesador con un pool y un número de particiones específicos.
+     *
+     * @param cuentas Cuentas accesibles, indexadas por número de cuenta; debe admitir lecturas concurrentes.
+     * @param pool Pool en el que se procesan las particiones.
+     * @param particiones Número de particiones en que se reparte cada lote.
+     * @throws IllegalArgumentException Si el número de particiones no es positivo.
+     */
+    public ProcesadorLotes(Map<String, ProductoFinanciero> cuentas, ForkJoinPool pool, int particiones) {
+        if (particiones <= 0) {
+            throw new IllegalArgumentException("El número de particiones debe ser positivo.");
+        }
+        this.cuentas = Objects.requireNonNull(cuentas, "Las cuentas no pueden ser nulas.");
+        this.pool = Objects.requireNonNull(pool, "El pool no puede ser nulo.");
+        this.particiones = particiones;
+    }
+
+    /**
+     * Procesa un lote de transacciones.
+     *
+     * @param lote Transacciones en el orden en que deben aplicarse.
+     * @return El estado y el saldo resultante de cada transacción, en el orden del lote.
+     */
+    public ResultadoLote procesar(List<Transaccion> lote) {
+        long inicio = System.nanoTime();
+        Transaccion[] transacciones = lote.toArray(new Transaccion[0]);
+        int cantidad = transacciones.length;
+        byte[] estados = new byte[cantidad];
+        long[] saldos = new long[cantidad];
+
+        // Reparto estable por partición (ordenamiento por conteo), que conserva el orden del lote en cada cuenta.
+        int[] particionDe = new int[cantidad];
+        int[] inicios = new int[particiones + 1];
+        for (int i = 0; i < cantidad; i++) {
+            int particion = particion(transacciones[i].getNumeroCuenta());
+            particionDe[i] = particion;
+            inicios[particion + 1]++;
+        }
+        for (int p = 0; p < particiones; p++) {
+            inicios[p + 1] += inicios[p];
+        }
+        int[] orden = new int[cantidad];
+        int[] siguiente = Arrays.copyOf(inicios, particiones);
+        for (int i = 0; i < cantidad; i++) {
+            orden[siguiente[particionDe[i]]++] = i;
+        }
+
+        int[] cuentasPorParticion = new int[particiones];
+        List<ForkJoinTask<?>> tareas = new ArrayList<>(particiones);
+        for (int p = 0; p < particiones; p++) {
+            if (inicios[p] == inicios[p + 1]) {
+                continue;
+            }
+            int particion = p;
+            tareas.add(ForkJoinTask.adapt(() -> cuentasPorParticion[particion] = procesarParticion(
+                    transacciones, orden, inicios[particion], inicios[particion + 1], estados, saldos)));
+        }
+        if (tareas.size() == 1) {
+            tareas.get(0).invoke();
+        } else if (!tareas.isEmpty()) {
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tareas)));
+        }
+        int totalCuentas = 0;
+        for (int afectadas : cuentasPorParticion) {
+            totalCuentas += afectadas;
+        }
+        return new ResultadoLote(estados, saldos, totalCuentas, System.nanoTime() - inicio);
+    }
+
+    /**
+     * Agrupa por cuenta las transacciones de una partición y aplica cada grupo de una vez.
+     *
+     * @return Número de cuentas afectadas.
+     */
+    private int procesarParticion(Transaccion[] transacciones, int[] orden, int desde, int hasta,
+                                  byte[] estados, long[] saldos) {
+        Map<String, Grupo> grupos = new HashMap<>();
+        List<Grupo> enOrden = new ArrayList<>();
+        for (int k = desde; k < hasta; k++) {
+            int i = orden[k];
+            Transaccion transaccion = transacciones[i];
+            if (transaccion.getMontoCentavos() <= 0) {
+                estados[i] = (byte) ResultadoLote.Estado.MONTO_INVALIDO.ordinal();
+                continue;
+            }
+            Grupo grupo = grupos.get(transaccion.getNumeroCuenta());
+            if (grupo == null) {
+                grupo = new Grupo(cuentas.get(transaccion.getNumeroCuenta()));
+                grupos.put(transaccion.getNumeroCuenta(), grupo);
+                if (grupo.producto != null) {
+                    enOrden.add(grupo);
+                }
+            }
+            if (grupo.producto == null) {
+                estados[i] = (byte) ResultadoLote.Estado.CUENTA_INEXISTENTE.ordinal();
+                continue;
+            }
+            Transaccion.Tipo tipo = transaccion.getTipo();
+            if (tipo == Transaccion.Tipo.COMPRA || tipo == Transaccion.Tipo.PAGO) {
+                if (!(grupo.producto instanceof TarjetaCredito)) {
+                    estados[i] = (byte) ResultadoLote.Estado.OPERACION_INVALIDA.ordinal();
+                    continue;
+                }
+                grupo.credito = agregar(grupo.credito, grupo.cantidadCredito++, i);
+            } else {
+                grupo.saldo = agregar(grupo.saldo, grupo.cantidadSaldo++, i);
+            }
+        }
+
+        long[] movimientos = new long[16];
+        long[] resultados = new long[16];
+        for (Grupo grupo : enOrden) {
+            int mayor = Math.max(grupo.cantidadSaldo, grupo.cantidadCredito);
+            if (mayor > movimientos.length) {
+                movimientos = new long[Integer.highestOneBit(mayor - 1) << 1];
+                resultados = new long[movimientos.length];
+            }
+            if (grupo.cantidadSaldo > 0) {
+                for (int j = 0; j < grupo.cantidadSaldo; j++) {
+                    Transaccion transaccion = transacciones[grupo.saldo[j]];
+                    long monto = transaccion.getMontoCentavos();
+                    movimientos[j] = transaccion.getTipo() == Transaccion.Tipo.DEPOSITO ? monto : -monto;
+                }
+                grupo.producto.aplicarMovimientosCentavos(movimientos, grupo.cantidadSaldo, resultados);
+                registrar(grupo.saldo, grupo.cantidadSaldo, movimientos, resultados, estados, saldos,
+                        ResultadoLote.Estado.FONDOS_INSUFICIENTES, ResultadoLote.Estado.FONDOS_INSUFICIENTES);
+            }
+            if (grupo.cantidadCredito > 0) {
+                for (int j = 0; j < grupo.cantidadCredito; j++) {
+                    Transaccion transaccion = transacciones[grupo.credito[j]];
+                    long monto = transaccion.getMontoCentavos();
+                    movimientos[j] = transaccion.getTipo() == Transaccion.Tipo.COMPRA ? monto : -monto;
+                }
+                ((TarjetaCredito) grupo.producto).aplicarMovimientosCreditoCentavos(
+                        movimientos, grupo.cantidadCredito, resultados);
+                registrar(grupo.credito, grupo.cantidadCredito, movimientos, resultados, estados, saldos,
+                        ResultadoLote.Estado.LIMITE_EXCEDIDO, ResultadoLote.Estado.PAGO_EXCEDE_SALDO);
+            }
+        }
+        return enOrden.size();
+    }
+
+    private static void registrar(int[] indices, int cantidad, long[] movimientos, long[] resultados,
+                                  byte[] estados, long[] saldos,
+                                  ResultadoLote.Estado rechazoCargo, ResultadoLote.Estado rechazoAbono) {
+        for (int j = 0; j < cantidad; j++) {
+            int i = indices[j];
+            if (resultados[j] == ProductoFinanciero.FONDOS_INSUFICIENTES) {
+                // Los cargos son los movimientos positivos en crédito y los negativos en saldo.
+                boolean cargo = rechazoCargo == rechazoAbono || movimientos[j] > 0;
+                estados[i] = (byte) (cargo ? rechazoCargo : rechazoAbono).ordinal();
+            } else {
+                estados[i] = (byte) ResultadoLote.Estado.APLICADA.ordinal();
+                saldos[i] = resultados[j];
+            }
+        }
+    }
+
+    private static int[] agregar(int[] indices, int posicion, int indice) {
+        if (indices == null) {
+            indices = new int[4];
+        } else if (posicion == indices.length) {
+            indices = Arrays.copyOf(indices, posicion * 2);
+        }
+        indices[posicion] = indice;
+        return indices;
+    }
+
+    /**
+     * Elige la partición con los bits altos de un hash multiplicativo. Los bits bajos del hash de la cadena son los
+     * que usa {@link HashMap} para sus cubetas: si decidieran la partición, todas las cuentas de una partición
+     * caerían en una fracción de las cubetas del mapa de grupos.
+     */
+    private int particion(String numeroCuenta) {
+        long mezcla = (numeroCuenta.hashCode() * 0x9E3779B9L) & 0xFFFFFFFFL;
+        return (int) ((mezcla * particiones) >>> 32);
+    }
+
+    public int getParticiones() {
+        return particiones;
+    }
+
+    /**
+     * Transacciones de una cuenta dentro de una partición, separadas en las que mueven el saldo y las que mueven
+     * el crédito de una tarjeta, que son independientes entre sí.
+     */
+    private static final class Grupo {
+        final ProductoFinanciero producto;
+        int[] saldo;
+        int cantidadSaldo;
+        int[] credito;
+        int cantidadCredito;
+
+        Grupo(ProductoFinanciero producto) {
+            this.producto = producto;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.mibanco.servicios;
+
+import com.mibanco.model.CertificadoDeposito;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.Tasa;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Proyecta el vencimiento de portafolios completos de certificados de depósito para la planeación de flujo de caja.
+ * <p>
+ * Trabaja sobre columnas primitivas (principal en centavos, tasa anual escalada de {@link Tasa} y plazo en meses)
+ * en lugar de objetos, y ofrece dos modalidades: interés simple, con la misma fórmula cerrada que
+ * {@link CertificadoDeposito#calcularPagoFinalCentavos()}, y capitalización mensual, idéntica a aplicar
+ * {@link CertificadoDeposito#aplicarInteresMensual()} una vez por mes. En ambas los centavos se redondean igual que
+ * en los productos, de modo que la proyección coincide exactamente con lo que se liquidará.
+ * <p>
+ * Hay tres formas de consumir la proyección:
+ * <ul>
+ *     <li>{@link #calcularPagosFinales}: el pago al vencimiento de cada certificado.</li>
+ *     <li>{@link #proyectar}: el flujo de caja agregado por mes, calculado en paralelo con fork/join.</li>
+ *     <li>{@link #recorrer}: el cronograma mes a mes de cada certificado, entregado a un consumidor sin
+ *     materializarlo, para portafolios donde la matriz completa no cabría en memoria.</li>
+ * </ul>
+ */
+public class ProyectorVencimientos {
+
+    private static final int UMBRAL_POR_DEFECTO = 4_096;
+
+    /**
+     * Forma en que se acumulan los intereses durante el plazo.
+     */
+    public enum Modalidad {
+        /**
+         * Interés simple sobre el principal, como {@link CertificadoDeposito#calcularPagoFinal()}.
+         */
+        SIMPLE,
+        /**
+         * El interés de cada mes se suma al saldo y genera interés en los meses siguientes.
+         */
+        CAPITALIZACION_MENSUAL
+    }
+
+    /**
+     * Recibe el cronograma de un certificado mes a mes.
+     */
+    @FunctionalInterface
+    public interface ConsumidorCronograma {
+        /**
+         * @param indice Posición del certificado en las columnas.
+         * @param mes Mes del plazo, desde 1.
+         * @param interesCentavos Interés generado en el mes.
+         * @param saldoCentavos Saldo al cierre del mes; en el último mes es el pago al vencimiento.
+         */
+        void aceptar(int indice, int mes, long interesCentavos, long saldoCentavos);
+    }
+
+    private final long[] principalesCentavos;
+    private final long[] tasasEscaladas;
+    private final int[] plazosMeses;
+    private final int cantidad;
+    private final int plazoMaximo;
+    private final ForkJoinPool pool;
+    private final int umbral;
+
+    /**
+     * Crea un proyector sobre columnas existentes, que no se copian y no deben modificarse mientras se usa.
+     *
+     * @param principalesCentavos Principal de cada certificado, en centavos.
+     * @param tasasEscaladas Tasa anual de cada certificado, escalada como en {@link Tasa#getEscalada()}.
+     * @param plazosMeses Plazo de cada certificado, en meses.
+     * @param cantidad Número de certificados; las columnas pueden ser más largas.
+     * @throws IllegalArgumentException Si las columnas son más cortas que la cantidad o algún dato es inválido.
+     */
+    public ProyectorVencimientos(long[] principalesCentavos, long[] tasasEscaladas, int[] plazosMeses, int cantidad) {
+        this(principalesCentavos, tasasEscaladas, plazosMeses, cantidad, ForkJoinPool.commonPool(), UMBRAL_POR_DEFECTO);
+    }
+
+    /**
+     * Crea un proyector con un pool y un tamaño mínimo de tarea específicos.
+     *
+     * @param principalesCentavos Principal de cada certificado, en centavos.
+     * @param tasasEscaladas Tasa anual de cada certificado, escalada como en {@link Tasa#getEscalada()}.
+     * @param plazosMeses Plazo de cada certificado, en meses.
+     * @param cantidad Número de certificados; las columnas pueden ser más largas.
+     * @param pool Pool de fork/join para {@link #proyectar}.
+     * @param umbral Número de certificados a partir del cual una tarea se divide.
+     * @throws IllegalArgumentException Si las columnas son más cortas que la cantidad o algún dato es inválido.
+     */
+    public ProyectorVencimientos(long[] principalesCentavos, long[] tasasEscaladas, int[] plazosMeses, int cantidad,
+                                 ForkJoinPool pool, int umbral) {
+        if (cantidad < 0 || principalesCentavos.length < cantidad || tasasEscaladas.length < cantidad
+                || plazosMeses.length < cantidad) {
+            throw new IllegalArgumentException("Las columnas deben tener al menos la cantidad de certificados.");
+        }
+        if (umbral <= 0) {
+            throw new IllegalArgumentException("El umbral debe ser positivo.");
+        }
+        int maximo = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (principalesCentavos[i] < 0 || tasasEscaladas[i] < 0 || plazosMeses[i] <= 0) {
+                throw new IllegalArgumentException("Certificado inválido en la posición " + i
+                        + ": el principal y la tasa no pueden ser negativos y el plazo debe ser mayor que cero.");
+            }
+            maximo = Math.max(maximo, plazosMeses[i]);
+        }
+        this.principalesCentavos = principalesCentavos;
+        this.tasasEscaladas = tasasEscaladas;
+        this.plazosMeses = plazosMeses;
+        this.cantidad = cantidad;
+        this.plazoMaximo = maximo;
+        this.pool = Objects.requireNonNull(pool, "El pool no puede ser nulo.");
+        this.umbral = umbral;
+    }
+
+    /**
+     * Crea un proyector con los certificados de depósito de un portafolio, ignorando los demás productos.
+     * Toma el saldo actual de cada certificado como principal.
+     *
+     * @param portafolio Productos del portafolio.
+     * @return El proyector.
+     */
+    public static ProyectorVencimientos deCertificados(List<? extends ProductoFinanciero> portafolio) {
+        long[] principales = new long[portafolio.size()];
+        long[] tasas = new long[portafolio.size()];
+        int[] plazos = new int[portafolio.size()];
+        int cantidad = 0;
+        for (ProductoFinanciero producto : portafolio) {
+            if (producto instanceof CertificadoDeposito) {
+                CertificadoDeposito certificado = (CertificadoDeposito) producto;
+                principales[cantidad] = certificado.getSaldoCentavos();
+                tasas[cantidad] = certificado.getTasa().getEscalada();
+                plazos[cantidad] = certificado.getPlazoMeses();
+                cantidad++;
+            }
+        }
+        return new ProyectorVencimientos(principales, tasas, plazos, cantidad);
+    }
+
+    /**
+     * Calcula el pago al vencimiento de cada certificado.
+     *
+     * @param modalidad Forma de acumular los intereses.
+     * @return Un arreglo con el pago de cada certificado, en centavos, en el orden de las columnas.
+     */
+    public long[] calcularPagosFinales(Modalidad modalidad) {
+        long[] pagos = new long[cantidad];
+        if (modalidad == Modalidad.SIMPLE) {
+            // Fórmula cerrada: principal * tasa * plazo / 12, con un solo redondeo.
+            for (int i = 0; i < cantidad; i++) {
+                long principal = principalesCentavos[i];
+                pagos[i] = principal + Tasa.aplicar(principal, Math.multiplyExact(tasasEscaladas[i], plazosMeses[i]),
+                        12, ProductoFinanciero.REDONDEO_INTERES);
+            }
+        } else {
+            for (int i = 0; i < cantidad; i++) {
+                long saldo = principalesCentavos[i];
+                long tasa = tasasEscaladas[i];
+                for (int mes = plazosMeses[i]; mes > 0; mes--) {
+                    saldo += Tasa.aplicar(saldo, tasa, 12, ProductoFinanciero.REDONDEO_INTERES);
+                }
+                pagos[i] = saldo;
+            }
+        }
+        return pagos;
+    }
+
+    /**
+     * Calcula en paralelo el flujo de caja agregado de todo el portafolio, mes a mes.
+     *
+     * @param modalidad Forma de acumular los intereses.
+     * @return El cronograma agregado.
+     */
+    public CronogramaVencimientos proyectar(Modalidad modalidad) {
+        Objects.requireNonNull(modalidad, "La modalidad no puede ser nula.");
+        long inicio = System.nanoTime();
+        long[][] columnas = cantidad == 0 ? vacias() : pool.invoke(new TareaProyeccion(this, modalidad, 0, cantidad));
+        return new CronogramaVencimientos(columnas[0], columnas[1], columnas[2], aEnteros(columnas[3]),
+                System.nanoTime() - inicio);
+    }
+
+    /**
+     * Calcula el flujo de caja agregado en el hilo actual.
+     *
+     * @param modalidad Forma de acumular los intereses.
+     * @return El cronograma agregado.
+     */
+    public CronogramaVencimientos proyectarSecuencial(Modalidad modalidad) {
+        Objects.requireNonNull(modalidad, "La modalidad no puede ser nula.");
+        long inicio = System.nanoTime();
+        long[][] columnas = vacias();
+        proyectarRango(modalidad, 0, cantidad, columnas);
+        return new CronogramaVencimientos(columnas[0], columnas[1], columnas[2], aEnteros(columnas[3]),
+                System.nanoTime() - inicio);
+    }
+
+    /**
+     * Entrega el cronograma de cada certificado al consumidor, certificado por certificado y mes por mes, sin
+     * reservar memoria proporcional al portafolio.
+     *
+     * @param modalidad Forma de acumular los intereses.
+     * @param consumidor Destino de cada fila del cronograma.
+     */
+    public void recorrer(Modalidad modalidad, ConsumidorCronograma consumidor) {
+        Objects.requireNonNull(modalidad, "La modalidad no puede ser nula.");
+        Objects.requireNonNull(consumidor, "El consumidor no puede ser nulo.");
+        boolean simple = modalidad == Modalidad.SIMPLE;
+        for (int i = 0; i < cantidad; i++) {
+            long principal = principalesCentavos[i];
+            long tasa = tasasEscaladas[i];
+            long saldo = principal;
+            long acumulado = 0;
+            for (int mes = 1; mes <= plazosMeses[i]; mes++) {
+                long interes;
+                if (simple) {
+                    long hastaMes = Tasa.aplicar(principal, Math.multiplyExact(tasa, mes), 12,
+                            ProductoFinanciero.REDONDEO_INTERES);
+                    interes = hastaMes - acumulado;
+                    acumulado = hastaMes;
+                } else {
+                    interes = Tasa.aplicar(saldo, tasa, 12, ProductoFinanciero.REDONDEO_INTERES);
+                }
+                saldo += interes;
+                consumidor.aceptar(i, mes, interes, saldo);
+            }
+        }
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    public int getPlazoMaximo() {
+        return plazoMaximo;
+    }
+
+    /**
+     * Proyecta un rango de certificados y suma sus movimientos en las columnas agregadas: intereses,
+     * vencimientos, saldo vigente y cantidad de vencimientos por mes. Cada certificado se recorre completo de una
+     * vez con su saldo en un registro; las columnas por mes son cortas y permanecen en la caché.
+     * <p>
+     * En interés simple el interés del mes es la diferencia entre el acumulado al mes y al mes anterior, de modo
+     * que la suma de todos los meses coincide exactamente con la fórmula cerrada.
+     */
+    private void proyectarRango(Modalidad modalidad, int desde, int hasta, long[][] columnas) {
+        long[] intereses = columnas[0];
+        long[] vencimientos = columnas[1];
+        long[] vigentes = columnas[2];
+        long[] vencidos = columnas[3];
+        boolean simple = modalidad == Modalidad.SIMPLE;
+        for (int i = desde; i < hasta; i++) {
+            long principal = principalesCentavos[i];
+            long tasa = tasasEscaladas[i];
+            int plazo = plazosMeses[i];
+            long saldo = principal;
+            long acumulado = 0;
+            vigentes[0] += principal;
+            for (int mes = 1; mes < plazo; mes++) {
+                long interes;
+                if (simple) {
+                    long hastaMes = Tasa.aplicar(principal, Math.multiplyExact(tasa, mes), 12,
+                            ProductoFinanciero.REDONDEO_INTERES);
+                    interes = hastaMes - acumulado;
+                    acumulado = hastaMes;
+                } else {
+                    interes = Tasa.aplicar(saldo, tasa, 12, ProductoFinanciero.REDONDEO_INTERES);
+                }
+                saldo += interes;
+                intereses[mes] += interes;
+                vigentes[mes] += saldo;
+            }
+            long interesFinal = simple
+                    ? Tasa.aplicar(principal, Math.multiplyExact(tasa, plazo), 12, ProductoFinanciero.REDONDEO_INTERES)
+                            - acumulado
+                    : Tasa.aplicar(saldo, tasa, 12, ProductoFinanciero.REDONDEO_INTERES);
+            intereses[plazo] += interesFinal;
+            vencimientos[plazo] += saldo + interesFinal;
+            vencidos[plazo]++;
+        }
+    }
+
+    private long[][] vacias() {
+        return new long[][]{
+                new long[plazoMaximo + 1], new long[plazoMaximo + 1], new long[plazoMaximo + 1], new long[plazoMaximo + 1]
+        };
+    }
+
+    private static int[] aEnteros(long[] valores) {
+        int[] enteros = new int[valores.length];
+        Arrays.setAll(enteros, i -> (int) valores[i]);
+        return enteros;
+    }
+
+    private static final class TareaProyeccion extends RecursiveTask<long[][]> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ProyectorVencimientos proyector;
+        private final Modalidad modalidad;
+        private final int desde;
+        private final int hasta;
+
+        TareaProyeccion(ProyectorVencimientos proyector, Modalidad modalidad, int desde, int hasta) {
+            this.proyector = proyector;
+            this.modalidad = modalidad;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected long[][] compute() {
+            if (hasta - desde <= proyector.umbral) {
+                long[][] columnas = proyector.vacias();
+                proyector.proyectarRango(modalidad, desde, hasta, columnas);
+                return columnas;
+            }
+            int medio = (desde + hasta) >>> 1;
+            TareaProyeccion izquierda = new TareaProyeccion(proyector, modalidad, desde, medio);
+            izquierda.fork();
+            long[][] derecha = new TareaProyeccion(proyector, modalidad, medio, hasta).compute();
+            long[][] resultado = izquierda.join();
+            for (int c = 0; c < resultado.length; c++) {
+                for (int mes = 0; mes < resultado[c].length; mes++) {
+                    resultado[c][mes] += derecha[c][mes];
+                }
+            }
+            return resultado;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.mibanco.servicios;
+
+import com.mibanco.eventos.SumideroEventos;
+import com.mibanco.eventos.TipoEvento;
+import com.mibanco.model.Cliente;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.model.ValidadorCliente;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registro concurrente de clientes y de sus productos financieros, con búsqueda en tiempo constante por
+ * documento de identidad, correo electrónico, número de celular y número de cuenta.
+ * <p>
+ * Mantiene además un caché LRU acotado de {@link ResumenPortafolio} por cliente. Cada cliente lleva una versión
+ * que se incrementa al invalidarlo; un resumen guardado solo se sirve si fue calculado con la versión vigente, así
+ * que un resumen calculado en paralelo con un movimiento nunca queda servido como si fuera actual. Los
+ * movimientos sobre los productos invalidan el caché si los eventos pasan por {@link #sumideroInvalidacion}.
+ * <p>
+ * El correo y el celular son únicos entre clientes. Para cambiarlos deben usarse
+ * {@link #actualizarCorreo(String, String)} y {@link #actualizarCelular(String, String)}, que mantienen
+ * los índices; cambiarlos directamente en el {@link Cliente} deja los índices desactualizados.
+ */
+public class RegistroClientes {
+
+    private static final int CAPACIDAD_CACHE_POR_DEFECTO = 100_000;
+
+    private final ConcurrentHashMap<String, Entrada> porDocumento = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entrada> porCorreo = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entrada> porCelular = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ProductoFinanciero> porCuenta = new ConcurrentHashMap<>();
+    private final CacheLru<ResumenVersionado> resumenes;
+
+    /**
+     * Estado de un cliente registrado.
+     */
+    private static final class Entrada {
+        final Cliente cliente;
+        final List<ProductoFinanciero> productos = new CopyOnWriteArrayList<>();
+        final AtomicLong version = new AtomicLong();
+
+        Entrada(Cliente cliente) {
+            this.cliente = cliente;
+        }
+    }
+
+    private static final class ResumenVersionado {
+        final ResumenPortafolio resumen;
+        final long version;
+
+        ResumenVersionado(ResumenPortafolio resumen, long version) {
+            this.resumen = resumen;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Crea un registro con un caché de resúmenes de capacidad por defecto.
+     */
+    public RegistroClientes() {
+        this(CAPACIDAD_CACHE_POR_DEFECTO);
+    }
+
+    /**
+     * Crea un registro.
+     *
+     * @param capacidadCache Número máximo de resúmenes de portafolio en caché.
+     */
+    public RegistroClientes(int capacidadCache) {
+        this.resumenes = new CacheLru<>(capacidadCache, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Registra un cliente.
+     *
+     * @param cliente Cliente a registrar.
+     * @throws IllegalArgumentException Si ya existe un cliente con el mismo documento, correo o celular.
+     */
+    public void registrarCliente(Cliente cliente) {
+        Objects.requireNonNull(cliente, "El cliente no puede ser nulo.");
+        Entrada entrada = new Entrada(cliente);
+        String documento = cliente.getDocumentoIdentidad();
+        if (porDocumento.putIfAbsent(documento, entrada) != null) {
+            throw new IllegalArgumentException("Ya existe un cliente con el documento " + documento + ".");
+        }
+        synchronized (entrada) {
+            if (porCorreo.putIfAbsent(cliente.getCorreoElectronico(), entrada) != null) {
+                porDocumento.remove(documento, entrada);
+                throw new IllegalArgumentException("Ya existe un cliente con el correo " + cliente.getCorreoElectronico() + ".");
+            }
+            if (porCelular.putIfAbsent(cliente.getNumeroCelular(), entrada) != null) {
+                porCorreo.remove(cliente.getCorreoElectronico(), entrada);
+                porDocumento.remove(documento, entrada);
+                throw new IllegalArgumentException("Ya existe un cliente con el celular " + cliente.getNumeroCelular() + ".");
+            }
+        }
+    }
+
+    /**
+     * Registra un producto de un cliente ya registrado.
+     *
+     * @param producto Producto a registrar.
+     * @throws IllegalArgumentException Si el titular no está registrado o el número de cuenta ya existe.
+     */
+    public void registrarProducto(ProductoFinanciero producto) {
+        Objects.requireNonNull(producto, "El producto no puede ser nulo.");
+        Entrada entrada = entrada(producto.getCliente().getDocumentoIdentidad());
+        if (entrada.cliente != producto.getCliente()) {
+            throw new IllegalArgumentException("El titular del producto no es el cliente registrado con ese documento.");
+        }
+        if (porCuenta.putIfAbsent(producto.getNumeroCuenta(), producto) != null) {
+            throw new IllegalArgumentException("Ya existe un producto con el número de cuenta " + producto.getNumeroCuenta() + ".");
+        }
+        entrada.productos.add(producto);
+        invalidar(entrada);
+    }
+
+    public Cliente buscarPorDocumento(String documentoIdentidad) {
+        Entrada entrada = porDocumento.get(documentoIdentidad);
+        return entrada == null ? null : entrada.cliente;
+    }
+
+    public Cliente buscarPorCorreo(String correoElectronico) {
+        Entrada entrada = porCorreo.get(correoElectronico);
+        return entrada == null ? null : entrada.cliente;
+    }
+
+    public Cliente buscarPorCelular(String numeroCelular) {
+        Entrada entrada = porCelular.get(numeroCelular);
+        return entrada == null ? null : entrada.cliente;
+    }
+
+    public ProductoFinanciero buscarProducto(String numeroCuenta) {
+        return porCuenta.get(numeroCuenta);
+    }
+
+    /**
+     * @param numeroCuenta Número de cuenta.
+     * @return El titular de la cuenta, o null si la cuenta no está registrada.
+     */
+    public Cliente buscarTitular(String numeroCuenta) {
+        ProductoFinanciero producto = porCuenta.get(numeroCuenta);
+        return producto == null ? null : producto.getCliente();
+    }
+
+    /**
+     * @param documentoIdentidad Documento del cliente.
+     * @return Vista de solo lectura de los productos del cliente, vacía si no está registrado.
+     */
+    public List<ProductoFinanciero> getProductos(String documentoIdentidad) {
+        Entrada entrada = porDocumento.get(documentoIdentidad);
+        return entrada == null ? Collections.emptyList() : Collections.unmodifiableList(entrada.productos);
+    }
+
+    /**
+     * Cambia el correo de un cliente manteniendo el índice por correo.
+     *
+     * @throws IllegalArgumentException Si el cliente no existe, el correo es inválido o ya pertenece a otro cliente.
+     */
+    public void actualizarCorreo(String documentoIdentidad, String correoElectronico) {
+        ValidadorCliente.INSTANCIA.validarCorreo(correoElectronico);
+        Entrada entrada = entrada(documentoIdentidad);
+        synchronized (entrada) {
+            String anterior = entrada.cliente.getCorreoElectronico();
+            if (anterior.equals(correoElectronico)) {
+                return;
+            }
+            if (porCorreo.putIfAbsent(correoElectronico, entrada) != null) {
+                throw new IllegalArgumentException("Ya existe un cliente con el correo " + correoElectronico + ".");
+            }
+            entrada.cliente.setCorreoElectronico(correoElectronico);
+            porCorreo.remove(anterior, entrada);
+        }
+    }
+
+    /**
+     * Cambia el celular de un cliente manteniendo el índice por celular.
+     *
+     * @throws IllegalArgumentException Si el cliente no existe, el número es inválido o ya pertenece a otro cliente.
+     */
+    public void actualizarCelular(String documentoIdentidad, String numeroCelular) {
+        ValidadorCliente.INSTANCIA.validarCelular(numeroCelular);
+        Entrada entrada = entrada(documentoIdentidad);
+        synchronized (entrada) {
+            String anterior = entrada.cliente.getNumeroCelular();
+            if (anterior.equals(numeroCelular)) {
+                return;
+            }
+            if (porCelular.putIfAbsent(numeroCelular, entrada) != null) {
+                throw new IllegalArgumentException("Ya existe un cliente con el celular " + numeroCelular + ".");
+            }
+            entrada.cliente.setNumeroCelular(numeroCelular);
+            porCelular.remove(anterior, entrada);
+        }
+    }
+
+    /**
+     * Devuelve el resumen del portafolio de un cliente, desde el caché si está vigente.
+     *
+     * @param documentoIdentidad Documento del cliente.
+     * @return El resumen, o null si el cliente no está registrado.
+     */
+    public ResumenPortafolio getResumen(String documentoIdentidad) {
+        Entrada entrada = porDocumento.get(documentoIdentidad);
+        if (entrada == null) {
+            return null;
+        }
+        ResumenVersionado guardado = resumenes.obtener(documentoIdentidad);
+        long version = entrada.version.get();
+        if (guardado != null && guardado.version == version) {
+            return guardado.resumen;
+        }
+        ResumenPortafolio resumen = calcularResumen(entrada);
+        resumenes.guardar(documentoIdentidad, new ResumenVersionado(resumen, version));
+        return resumen;
+    }
+
+    /**
+     * Descarta el resumen en caché del titular de un producto. Debe llamarse después de modificar el producto.
+     *
+     * @param producto Producto modificado.
+     */
+    public void invalidar(ProductoFinanciero producto) {
+        Entrada entrada = porDocumento.get(producto.getCliente().getDocumentoIdentidad());
+        if (entrada != null) {
+            invalidar(entrada);
+        }
+    }
+
+    /**
+     * Crea un sumidero que invalida el resumen del titular de cada producto que cambia y luego reenvía el evento.
+     * Debe instalarse en {@code Eventos} para que los movimientos invaliden el caché automáticamente.
+     *
+     * @param siguiente Sumidero al que se reenvían los eventos.
+     * @return El sumidero de invalidación.
+     */
+    public SumideroEventos sumideroInvalidacion(SumideroEventos siguiente) {
+        Objects.requireNonNull(siguiente, "El sumidero siguiente no puede ser nulo.");
+        return (TipoEvento tipo, ProductoFinanciero producto, long montoCentavos, long saldoCentavos) -> {
+            if (tipo != TipoEvento.RETIRO_RECHAZADO) {
+                invalidar(producto);
+            }
+            siguiente.publicar(tipo, producto, montoCentavos, saldoCentavos);
+        };
+    }
+
+    public int cantidadClientes() {
+        return porDocumento.size();
+    }
+
+    public int cantidadProductos() {
+        return porCuenta.size();
+    }
+
+    public long getAciertosCache() {
+        return resumenes.getAciertos();
+    }
+
+    public long getFallosCache() {
+        return resumenes.getFallos();
+    }
+
+    public long getDesalojosCache() {
+        return resumenes.getDesalojos();
+    }
+
+    /**
+     * @return Fracción de consultas de resumen servidas desde el caché, entre 0 y 1.
+     */
+    public double getTasaAciertosCache() {
+        long aciertos = resumenes.getAciertos();
+        long total = aciertos + resumenes.getFallos();
+        return total == 0 ? 0 : (double) aciertos / total;
+    }
+
+    private Entrada entrada(String documentoIdentidad) {
+        Entrada entrada = porDocumento.get(documentoIdentidad);
+        if (entrada == null) {
+            throw new IllegalArgumentException("No existe un cliente con el documento " + documentoIdentidad + ".");
+        }
+        return entrada;
+    }
+
+    private void invalidar(Entrada entrada) {
+        entrada.version.incrementAndGet();
+        resumenes.eliminar(entrada.cliente.getDocumentoIdentidad());
+    }
+
+    private static ResumenPortafolio calcularResumen(Entrada entrada) {
+        long saldo = 0;
+        long utilizado = 0;
+        int cantidad = 0;
+        for (ProductoFinanciero producto : entrada.productos) {
+            saldo += producto.getSaldoCentavos();
+            if (producto instanceof TarjetaCredito) {
+                utilizado += ((TarjetaCredito) producto).getSaldoUtilizadoCentavos();
+            }
+            cantidad++;
+        }
+        return new ResumenPortafolio(entrada.cliente.getDocumentoIdentidad(), cantidad, saldo, utilizado);
+    }
+}
@@ -0,0 +1,78 @@
+package com.mibanco.servicios;
+
+/**
+ * Resultado de una solicitud a {@link MotorAutorizaciones}. Los rechazos se informan con un motivo en lugar de
+ * una excepción, porque en un autorizador son un resultado habitual y no un error.
+ */
+public final class ResultadoAutorizacion {
+
+    /**
+     * Motivo por el que se rechazó una solicitud.
+     */
+    public enum Motivo {
+        MONTO_INVALIDO,
+        /**
+         * El evaluador de {@link com.mibanco.riesgo.Riesgo} rechazó la compra o la preautorización.
+         */
+        RECHAZADA_POR_RIESGO,
+        CUPO_INSUFICIENTE,
+        RETENCION_INEXISTENTE,
+        MONTO_SUPERA_RETENCION
+    }
+
+    private static final ResultadoAutorizacion APROBADA = new ResultadoAutorizacion(true, null, 0);
+    private static final ResultadoAutorizacion[] RECHAZOS = new ResultadoAutorizacion[Motivo.values().length];
+
+    static {
+        for (Motivo motivo : Motivo.values()) {
+            RECHAZOS[motivo.ordinal()] = new ResultadoAutorizacion(false, motivo, 0);
+        }
+    }
+
+    private final boolean aprobada;
+    private final Motivo motivo;
+    private final long idRetencion;
+
+    private ResultadoAutorizacion(boolean aprobada, Motivo motivo, long idRetencion) {
+        this.aprobada = aprobada;
+        this.motivo = motivo;
+        this.idRetencion = idRetencion;
+    }
+
+    /**
+     * Solo las preautorizaciones llevan datos propios; las demás respuestas son instancias compartidas, así que
+     * aprobar una compra o rechazar cualquier solicitud no reserva memoria.
+     */
+    static ResultadoAutorizacion aprobada(long idRetencion) {
+        return idRetencion == 0 ? APROBADA : new ResultadoAutorizacion(true, null, idRetencion);
+    }
+
+    static ResultadoAutorizacion rechazada(Motivo motivo) {
+        return RECHAZOS[motivo.ordinal()];
+    }
+
+    public boolean isAprobada() {
+        return aprobada;
+    }
+
+    /**
+     * @return El motivo del rechazo, o null si la solicitud fue aprobada.
+     */
+    public Motivo getMotivo() {
+        return motivo;
+    }
+
+    /**
+     * @return Identificador de la retención creada por una preautorización aprobada, o 0 en cualquier otro caso.
+     */
+    public long getIdRetencion() {
+        return idRetencion;
+    }
+
+    @Override
+    public String toString() {
+        return aprobada
+                ? "ResultadoAutorizacion{aprobada" + (idRetencion != 0 ? ", idRetencion=" + idRetencion : "") + '}'
+                : "ResultadoAutorizacion{rechazada, motivo=" + motivo + '}';
+    }
+}
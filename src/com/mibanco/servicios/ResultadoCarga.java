@@ -0,0 +1,41 @@
+package com.mibanco.servicios;
+
+/**
+ * Resumen de una carga masiva.
+ */
+public final class ResultadoCarga {
+
+    private final long filasLeidas;
+    private final long productosCreados;
+    private final long filasConError;
+    private final long duracionNanos;
+
+    ResultadoCarga(long filasLeidas, long productosCreados, long filasConError, long duracionNanos) {
+        this.filasLeidas = filasLeidas;
+        this.productosCreados = productosCreados;
+        this.filasConError = filasConError;
+        this.duracionNanos = duracionNanos;
+    }
+
+    public long getFilasLeidas() {
+        return filasLeidas;
+    }
+
+    public long getProductosCreados() {
+        return productosCreados;
+    }
+
+    public long getFilasConError() {
+        return filasConError;
+    }
+
+    public long getDuracionNanos() {
+        return duracionNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoCarga{filasLeidas=" + filasLeidas + ", productosCreados=" + productosCreados
+                + ", filasConError=" + filasConError + ", duracionMs=" + duracionNanos / 1_000_000 + '}';
+    }
+}
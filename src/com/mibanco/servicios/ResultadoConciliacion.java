@@ -0,0 +1,243 @@
+package com.mibanco.servicios;
+
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TipoProducto;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de una conciliación de cierre: saldos y crédito utilizado del libro por tipo de producto, por cliente y
+ * en total, y los productos cuyo estado no coincide con los movimientos publicados. Los totales se acumulan en
+ * centavos con suma exacta, por lo que no dependen del orden ni de la división en tareas. Es inmutable.
+ */
+public final class ResultadoConciliacion {
+
+    /**
+     * Valor de un producto que se concilia.
+     */
+    public enum Campo {
+        SALDO,
+        CREDITO_UTILIZADO
+    }
+
+    /**
+     * Producto cuyo estado en el libro no coincide con lo esperado según sus movimientos, aun después de volver a
+     * leerlo para descartar eventos en tránsito.
+     */
+    public static final class Diferencia {
+
+        private final String numeroCuenta;
+        private final TipoProducto tipo;
+        private final Campo campo;
+        private final long observadoCentavos;
+        private final long esperadoCentavos;
+
+        Diferencia(String numeroCuenta, TipoProducto tipo, Campo campo, long observadoCentavos, long esperadoCentavos) {
+            this.numeroCuenta = numeroCuenta;
+            this.tipo = tipo;
+            this.campo = campo;
+            this.observadoCentavos = observadoCentavos;
+            this.esperadoCentavos = esperadoCentavos;
+        }
+
+        public String getNumeroCuenta() {
+            return numeroCuenta;
+        }
+
+        public TipoProducto getTipo() {
+            return tipo;
+        }
+
+        public Campo getCampo() {
+            return campo;
+        }
+
+        /**
+         * @return Valor en el libro, en centavos.
+         */
+        public long getObservadoCentavos() {
+            return observadoCentavos;
+        }
+
+        /**
+         * @return Valor según los movimientos publicados, en centavos.
+         */
+        public long getEsperadoCentavos() {
+            return esperadoCentavos;
+        }
+
+        @Override
+        public String toString() {
+            return "Diferencia{cuenta=" + numeroCuenta + ", tipo=" + tipo + ", campo=" + campo
+                    + ", observado=" + BigDecimal.valueOf(observadoCentavos, 2).toPlainString()
+                    + ", esperado=" + BigDecimal.valueOf(esperadoCentavos, 2).toPlainString() + '}';
+        }
+    }
+
+    private final long[] cantidades;
+    private final long[] saldosCentavos;
+    private final long[] utilizadosCentavos;
+    private final long saldoEsperadoCentavos;
+    private final long utilizadoEsperadoCentavos;
+    private final Map<String, ResumenPortafolio> clientes;
+    private final List<Diferencia> diferencias;
+    private final long diferenciasTransitorias;
+    private final long sinApertura;
+    private final long duracionNanos;
+
+    ResultadoConciliacion(long[] cantidades, long[] saldosCentavos, long[] utilizadosCentavos,
+                          long saldoEsperadoCentavos, long utilizadoEsperadoCentavos,
+                          Map<String, ResumenPortafolio> clientes, List<Diferencia> diferencias,
+                          long diferenciasTransitorias, long sinApertura, long duracionNanos) {
+        this.cantidades = cantidades;
+        this.saldosCentavos = saldosCentavos;
+        this.utilizadosCentavos = utilizadosCentavos;
+        this.saldoEsperadoCentavos = saldoEsperadoCentavos;
+        this.utilizadoEsperadoCentavos = utilizadoEsperadoCentavos;
+        this.clientes = Collections.unmodifiableMap(clientes);
+        this.diferencias = Collections.unmodifiableList(diferencias);
+        this.diferenciasTransitorias = diferenciasTransitorias;
+        this.sinApertura = sinApertura;
+        this.duracionNanos = duracionNanos;
+    }
+
+    public long getCantidad(TipoProducto tipo) {
+        return cantidades[tipo.ordinal()];
+    }
+
+    /**
+     * @return Suma de los saldos de los productos de ese tipo, en centavos.
+     */
+    public long getSaldoCentavos(TipoProducto tipo) {
+        return saldosCentavos[tipo.ordinal()];
+    }
+
+    /**
+     * @return Suma del crédito utilizado de los productos de ese tipo, en centavos; cero salvo en tarjetas.
+     */
+    public long getUtilizadoCentavos(TipoProducto tipo) {
+        return utilizadosCentavos[tipo.ordinal()];
+    }
+
+    public long getCantidadTotal() {
+        return sumaExacta(cantidades);
+    }
+
+    public long getSaldoTotalCentavos() {
+        return sumaExacta(saldosCentavos);
+    }
+
+    public double getSaldoTotal() {
+        return ProductoFinanciero.aMonto(getSaldoTotalCentavos());
+    }
+
+    public long getUtilizadoTotalCentavos() {
+        return sumaExacta(utilizadosCentavos);
+    }
+
+    /**
+     * @return Suma de los saldos esperados según los movimientos, en centavos, de los productos con apertura
+     * registrada.
+     */
+    public long getSaldoEsperadoCentavos() {
+        return saldoEsperadoCentavos;
+    }
+
+    /**
+     * @return Suma del crédito utilizado esperado según los movimientos, en centavos, de los productos con apertura
+     * registrada.
+     */
+    public long getUtilizadoEsperadoCentavos() {
+        return utilizadoEsperadoCentavos;
+    }
+
+    /**
+     * @return Resumen de cada cliente por documento de identidad; los productos sin cliente no aparecen.
+     */
+    public Map<String, ResumenPortafolio> getClientes() {
+        return clientes;
+    }
+
+    public ResumenPortafolio getCliente(String documentoIdentidad) {
+        return clientes.get(documentoIdentidad);
+    }
+
+    public List<Diferencia> getDiferencias() {
+        return diferencias;
+    }
+
+    /**
+     * @return Productos que no coincidían en la primera lectura pero sí al volver a leerlos: movimientos cuyo evento
+     * todavía no se había publicado.
+     */
+    public long getDiferenciasTransitorias() {
+        return diferenciasTransitorias;
+    }
+
+    /**
+     * @return Productos del portafolio sin apertura registrada, que no se concilian.
+     */
+    public long getSinApertura() {
+        return sinApertura;
+    }
+
+    public boolean estaConciliado() {
+        return diferencias.isEmpty();
+    }
+
+    public long getDuracionNanos() {
+        return duracionNanos;
+    }
+
+    /**
+     * Compara los agregados de dos conciliaciones ignorando el tiempo transcurrido y las diferencias.
+     *
+     * @param otro Resultado con el que se compara.
+     * @return true si las cantidades, los saldos y el crédito utilizado coinciden exactamente por tipo y por cliente.
+     */
+    public boolean mismosTotales(ResultadoConciliacion otro) {
+        if (!Arrays.equals(cantidades, otro.cantidades) || !Arrays.equals(saldosCentavos, otro.saldosCentavos)
+                || !Arrays.equals(utilizadosCentavos, otro.utilizadosCentavos)
+                || clientes.size() != otro.clientes.size()) {
+            return false;
+        }
+        for (Map.Entry<String, ResumenPortafolio> entrada : clientes.entrySet()) {
+            ResumenPortafolio propio = entrada.getValue();
+            ResumenPortafolio ajeno = otro.clientes.get(entrada.getKey());
+            if (ajeno == null || propio.getCantidadProductos() != ajeno.getCantidadProductos()
+                    || propio.getSaldoTotalCentavos() != ajeno.getSaldoTotalCentavos()
+                    || propio.getCreditoUtilizadoCentavos() != ajeno.getCreditoUtilizadoCentavos()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long sumaExacta(long[] valores) {
+        long total = 0;
+        for (long valor : valores) {
+            total = Math.addExact(total, valor);
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ResultadoConciliacion{");
+        for (TipoProducto tipo : TipoProducto.values()) {
+            sb.append(tipo).append("=[cantidad=").append(getCantidad(tipo))
+                    .append(", saldo=").append(BigDecimal.valueOf(getSaldoCentavos(tipo), 2).toPlainString())
+                    .append(", utilizado=").append(BigDecimal.valueOf(getUtilizadoCentavos(tipo), 2).toPlainString())
+                    .append("], ");
+        }
+        return sb.append("clientes=").append(clientes.size())
+                .append(", diferencias=").append(diferencias.size())
+                .append(", transitorias=").append(diferenciasTransitorias)
+                .append(", sinApertura=").append(sinApertura)
+                .append(", duracionMs=").append(duracionNanos / 1_000_000).append('}').toString();
+    }
+}
@@ -0,0 +1,99 @@
+package com.mibanco.servicios;
+
+/**
+ * Resultado de procesar un lote con {@link ProcesadorLotes}: el estado de cada transacción, en el mismo orden del
+ * lote, y el saldo que dejó cada una.
+ */
+public final class ResultadoLote {
+
+    /**
+     * Estado final de una transacción.
+     */
+    public enum Estado {
+        APLICADA,
+        /**
+         * Retiro que dejaría el saldo por debajo de cero o del sobregiro permitido.
+         */
+        FONDOS_INSUFICIENTES,
+        /**
+         * Compra que excede el crédito disponible de la tarjeta.
+         */
+        LIMITE_EXCEDIDO,
+        /**
+         * Pago mayor que el saldo utilizado de la tarjeta.
+         */
+        PAGO_EXCEDE_SALDO,
+        CUENTA_INEXISTENTE,
+        /**
+         * Compra o pago sobre un producto que no es una tarjeta de crédito.
+         */
+        OPERACION_INVALIDA,
+        MONTO_INVALIDO
+    }
+
+    private static final Estado[] ESTADOS = Estado.values();
+
+    private final byte[] estados;
+    private final long[] saldosCentavos;
+    private final int cuentas;
+    private final long duracionNanos;
+
+    ResultadoLote(byte[] estados, long[] saldosCentavos, int cuentas, long duracionNanos) {
+        this.estados = estados;
+        this.saldosCentavos = saldosCentavos;
+        this.cuentas = cuentas;
+        this.duracionNanos = duracionNanos;
+    }
+
+    public int getCantidad() {
+        return estados.length;
+    }
+
+    /**
+     * @param indice Posición de la transacción en el lote.
+     * @return Su estado.
+     */
+    public Estado getEstado(int indice) {
+        return ESTADOS[estados[indice]];
+    }
+
+    /**
+     * @param indice Posición de la transacción en el lote.
+     * @return El saldo (o el saldo utilizado, en compras y pagos) que dejó la transacción, en centavos; 0 si no
+     * se aplicó.
+     */
+    public long getSaldoCentavos(int indice) {
+        return saldosCentavos[indice];
+    }
+
+    /**
+     * @param estado Estado buscado.
+     * @return Número de transacciones del lote con ese estado.
+     */
+    public int contar(Estado estado) {
+        int total = 0;
+        for (byte valor : estados) {
+            if (valor == estado.ordinal()) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return Número de cuentas distintas afectadas, es decir, de actualizaciones agrupadas que se hicieron.
+     */
+    public int getCuentas() {
+        return cuentas;
+    }
+
+    public long getDuracionNanos() {
+        return duracionNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoLote{transacciones=" + estados.length + ", aplicadas=" + contar(Estado.APLICADA)
+                + ", cuentas=" + cuentas + ", duracionMs=" + duracionNanos / 1_000_000 + '}';
+    }
+}
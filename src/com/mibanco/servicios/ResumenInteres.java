@@ -0,0 +1,80 @@
+package com.mibanco.servicios;
+
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TipoProducto;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Resultado agregado de una corrida de intereses mensuales sobre un portafolio.
+ * Los totales se acumulan en centavos, por lo que no dependen del orden de procesamiento.
+ */
+public final class ResumenInteres {
+
+    private final long[] cantidades;
+    private final long[] interesesCentavos;
+    private final long duracionNanos;
+
+    ResumenInteres(long[] cantidades, long[] interesesCentavos, long duracionNanos) {
+        this.cantidades = cantidades;
+        this.interesesCentavos = interesesCentavos;
+        this.duracionNanos = duracionNanos;
+    }
+
+    /**
+     * @param tipo Tipo de producto.
+     * @return Número de productos de ese tipo procesados.
+     */
+    public long getCantidad(TipoProducto tipo) {
+        return cantidades[tipo.ordinal()];
+    }
+
+    /**
+     * @param tipo Tipo de producto.
+     * @return Interés total aplicado a los productos de ese tipo, en centavos.
+     */
+    public long getInteresCentavos(TipoProducto tipo) {
+        return interesesCentavos[tipo.ordinal()];
+    }
+
+    /**
+     * @param tipo Tipo de producto.
+     * @return Interés total aplicado a los productos de ese tipo.
+     */
+    public double getInteres(TipoProducto tipo) {
+        return ProductoFinanciero.aMonto(getInteresCentavos(tipo));
+    }
+
+    public long getCantidadTotal() {
+        return Arrays.stream(cantidades).sum();
+    }
+
+    public long getInteresTotalCentavos() {
+        return Arrays.stream(interesesCentavos).sum();
+    }
+
+    public long getDuracionNanos() {
+        return duracionNanos;
+    }
+
+    /**
+     * Compara los totales de dos corridas ignorando el tiempo transcurrido.
+     *
+     * @param otro Resumen con el que se compara.
+     * @return true si las cantidades y los intereses por tipo coinciden exactamente.
+     */
+    public boolean mismosTotales(ResumenInteres otro) {
+        return Arrays.equals(cantidades, otro.cantidades) && Arrays.equals(interesesCentavos, otro.interesesCentavos);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ResumenInteres{");
+        for (TipoProducto tipo : TipoProducto.values()) {
+            sb.append(tipo).append("=[cantidad=").append(getCantidad(tipo))
+                    .append(", interes=").append(BigDecimal.valueOf(getInteresCentavos(tipo), 2).toPlainString()).append("], ");
+        }
+        return sb.append("duracionMs=").append(duracionNanos / 1_000_000).append('}').toString();
+    }
+}
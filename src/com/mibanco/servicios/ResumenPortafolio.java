@@ -0,0 +1,62 @@
+package com.mibanco.servicios;
+
+import com.mibanco.model.ProductoFinanciero;
+
+import java.math.BigDecimal;
+
+/**
+ * Vista agregada de los productos de un cliente: saldo total y crédito utilizado en sus tarjetas.
+ * Es inmutable y refleja el estado de los productos en el momento en que se calculó.
+ */
+public final class ResumenPortafolio {
+
+    private final String documentoIdentidad;
+    private final int cantidadProductos;
+    private final long saldoTotalCentavos;
+    private final long creditoUtilizadoCentavos;
+
+    ResumenPortafolio(String documentoIdentidad, int cantidadProductos, long saldoTotalCentavos,
+                      long creditoUtilizadoCentavos) {
+        this.documentoIdentidad = documentoIdentidad;
+        this.cantidadProductos = cantidadProductos;
+        this.saldoTotalCentavos = saldoTotalCentavos;
+        this.creditoUtilizadoCentavos = creditoUtilizadoCentavos;
+    }
+
+    public String getDocumentoIdentidad() {
+        return documentoIdentidad;
+    }
+
+    public int getCantidadProductos() {
+        return cantidadProductos;
+    }
+
+    /**
+     * @return Suma de los saldos de todos los productos del cliente, en centavos.
+     */
+    public long getSaldoTotalCentavos() {
+        return saldoTotalCentavos;
+    }
+
+    public double getSaldoTotal() {
+        return ProductoFinanciero.aMonto(saldoTotalCentavos);
+    }
+
+    /**
+     * @return Suma del saldo utilizado de las tarjetas de crédito del cliente, en centavos.
+     */
+    public long getCreditoUtilizadoCentavos() {
+        return creditoUtilizadoCentavos;
+    }
+
+    public double getCreditoUtilizado() {
+        return ProductoFinanciero.aMonto(creditoUtilizadoCentavos);
+    }
+
+    @Override
+    public String toString() {
+        return "ResumenPortafolio{documento=" + documentoIdentidad + ", productos=" + cantidadProductos
+                + ", saldoTotal=" + BigDecimal.valueOf(saldoTotalCentavos, 2).toPlainString()
+                + ", creditoUtilizado=" + BigDecimal.valueOf(creditoUtilizadoCentavos, 2).toPlainString() + '}';
+    }
+}
@@ -0,0 +1,201 @@
+package com.mibanco.servicios;
+
+import com.mibanco.eventos.SumideroEventos;
+import com.mibanco.eventos.SumideroNulo;
+import com.mibanco.eventos.TipoEvento;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.model.TipoProducto;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sumidero de eventos que lleva, para cada producto registrado, el saldo y el crédito utilizado que deberían tener
+ * según los movimientos publicados desde su apertura, y los totales del día por tipo de evento. Es la referencia con
+ * la que {@link ConciliadorCierre} compara el libro.
+ * <p>
+ * Cada evento suma su efecto (un ajuste) al esperado del producto con una operación atómica; los ajustes conmutan,
+ * así que el orden en que lleguen los eventos de hilos distintos no importa. Debe instalarse directamente en
+ * {@code Eventos}, no detrás de un {@code SumideroAsincrono}, que puede descartar eventos.
+ */
+public class SumideroConciliacion implements SumideroEventos {
+
+    private static final TipoEvento[] TIPOS = TipoEvento.values();
+
+    private final ConcurrentHashMap<ProductoFinanciero, Esperado> esperados = new ConcurrentHashMap<>();
+    private final SumideroEventos siguiente;
+    private final LongAdder[] conteos = new LongAdder[TIPOS.length];
+    private final LongAdder[] montos = new LongAdder[TIPOS.length];
+    private final LongAdder sinApertura = new LongAdder();
+
+    /**
+     * Crea un sumidero que no reenvía los eventos.
+     */
+    public SumideroConciliacion() {
+        this(SumideroNulo.INSTANCIA);
+    }
+
+    /**
+     * @param siguiente Sumidero al que se reenvía cada evento tras contarlo.
+     */
+    public SumideroConciliacion(SumideroEventos siguiente) {
+        this.siguiente = Objects.requireNonNull(siguiente, "El sumidero siguiente no puede ser nulo.");
+        for (int i = 0; i < TIPOS.length; i++) {
+            conteos[i] = new LongAdder();
+            montos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Toma el saldo y el crédito utilizado actuales de un producto como punto de partida. Debe llamarse antes de
+     * operar sobre él; volver a registrarlo descarta lo acumulado.
+     *
+     * @param producto Producto abierto.
+     */
+    public void registrarApertura(ProductoFinanciero producto) {
+        esperados.put(producto, new Esperado(producto.getSaldoCentavos(), utilizadoDe(producto)));
+    }
+
+    /**
+     * Registra la apertura de todos los productos de un portafolio.
+     *
+     * @param portafolio Productos abiertos.
+     */
+    public void registrarAperturas(List<? extends ProductoFinanciero> portafolio) {
+        for (ProductoFinanciero producto : portafolio) {
+            registrarApertura(producto);
+        }
+    }
+
+    @Override
+    public void publicar(TipoEvento tipo, ProductoFinanciero producto, long montoCentavos, long saldoCentavos) {
+        int indice = tipo.ordinal();
+        conteos[indice].increment();
+        montos[indice].add(montoCentavos);
+        Esperado esperado = esperados.get(producto);
+        if (esperado == null) {
+            sinApertura.increment();
+        } else {
+            switch (tipo) {
+                case DEPOSITO:
+                    esperado.ajustarSaldo(montoCentavos);
+                    break;
+                case RETIRO:
+                    esperado.ajustarSaldo(-montoCentavos);
+                    break;
+                case COMPRA:
+                    esperado.ajustarUtilizado(montoCentavos);
+                    break;
+                case PAGO:
+                    esperado.ajustarUtilizado(-montoCentavos);
+                    break;
+                case INTERES:
+                    if (producto.getTipo() == TipoProducto.TARJETA_CREDITO) {
+                        esperado.ajustarUtilizado(montoCentavos);
+                    } else {
+                        esperado.ajustarSaldo(montoCentavos);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        siguiente.publicar(tipo, producto, montoCentavos, saldoCentavos);
+    }
+
+    /**
+     * Empieza un nuevo día: pone en cero los totales por tipo de evento. Los saldos esperados se conservan, así que
+     * el cierre de un día es la apertura del siguiente sin volver a leer el libro.
+     */
+    public void nuevoDia() {
+        for (int i = 0; i < TIPOS.length; i++) {
+            conteos[i].reset();
+            montos[i].reset();
+        }
+        sinApertura.reset();
+    }
+
+    /**
+     * @return Número de eventos de ese tipo en el día.
+     */
+    public long getConteo(TipoEvento tipo) {
+        return conteos[tipo.ordinal()].sum();
+    }
+
+    /**
+     * @return Suma de los montos de los eventos de ese tipo en el día, en centavos.
+     */
+    public long getMontoCentavos(TipoEvento tipo) {
+        return montos[tipo.ordinal()].sum();
+    }
+
+    /**
+     * @return Eventos del día sobre productos cuya apertura no se registró; no se reflejan en ningún esperado.
+     */
+    public long getEventosSinApertura() {
+        return sinApertura.sum();
+    }
+
+    public int getProductosRegistrados() {
+        return esperados.size();
+    }
+
+    /**
+     * @return Lo esperado para el producto, o null si su apertura no se registró.
+     */
+    Esperado esperado(ProductoFinanciero producto) {
+        return esperados.get(producto);
+    }
+
+    static long utilizadoDe(ProductoFinanciero producto) {
+        return producto instanceof TarjetaCredito ? ((TarjetaCredito) producto).getSaldoUtilizadoCentavos() : 0;
+    }
+
+    /**
+     * Saldo y crédito utilizado esperados de un producto, en centavos.
+     */
+    static final class Esperado {
+
+        private static final VarHandle SALDO;
+        private static final VarHandle UTILIZADO;
+
+        static {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                SALDO = lookup.findVarHandle(Esperado.class, "saldoCentavos", long.class);
+                UTILIZADO = lookup.findVarHandle(Esperado.class, "utilizadoCentavos", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private volatile long saldoCentavos;
+        private volatile long utilizadoCentavos;
+
+        Esperado(long saldoCentavos, long utilizadoCentavos) {
+            this.saldoCentavos = saldoCentavos;
+            this.utilizadoCentavos = utilizadoCentavos;
+        }
+
+        void ajustarSaldo(long deltaCentavos) {
+            SALDO.getAndAdd(this, deltaCentavos);
+        }
+
+        void ajustarUtilizado(long deltaCentavos) {
+            UTILIZADO.getAndAdd(this, deltaCentavos);
+        }
+
+        long getSaldoCentavos() {
+            return saldoCentavos;
+        }
+
+        long getUtilizadoCentavos() {
+            return utilizadoCentavos;
+        }
+    }
+}
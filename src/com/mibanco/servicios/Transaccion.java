@@ -0,0 +1,74 @@
+package com.mibanco.servicios;
+
+import com.mibanco.model.Dinero;
+
+import java.util.Objects;
+
+/**
+ * Transacción individual de un lote procesado por {@link ProcesadorLotes}, por ejemplo una línea de un archivo de
+ * compensación. Es inmutable.
+ */
+public final class Transaccion {
+
+    /**
+     * Operación que realiza la transacción.
+     */
+    public enum Tipo {
+        DEPOSITO,
+        RETIRO,
+        /**
+         * Compra con una tarjeta de crédito.
+         */
+        COMPRA,
+        /**
+         * Pago al saldo utilizado de una tarjeta de crédito.
+         */
+        PAGO
+    }
+
+    private final String numeroCuenta;
+    private final Tipo tipo;
+    private final long montoCentavos;
+
+    /**
+     * Crea una transacción. El monto se valida al procesar el lote, para que un monto inválido se informe como
+     * resultado de esa transacción en lugar de impedir construir el lote.
+     *
+     * @param numeroCuenta Número de la cuenta afectada.
+     * @param tipo Operación.
+     * @param montoCentavos Monto en centavos.
+     */
+    public Transaccion(String numeroCuenta, Tipo tipo, long montoCentavos) {
+        this.numeroCuenta = Objects.requireNonNull(numeroCuenta, "El número de cuenta no puede ser nulo.");
+        this.tipo = Objects.requireNonNull(tipo, "El tipo de transacción no puede ser nulo.");
+        this.montoCentavos = montoCentavos;
+    }
+
+    /**
+     * Crea una transacción con un monto en punto fijo.
+     *
+     * @param numeroCuenta Número de la cuenta afectada.
+     * @param tipo Operación.
+     * @param monto Monto de la transacción.
+     */
+    public Transaccion(String numeroCuenta, Tipo tipo, Dinero monto) {
+        this(numeroCuenta, tipo, monto.getCentavos());
+    }
+
+    public String getNumeroCuenta() {
+        return numeroCuenta;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public long getMontoCentavos() {
+        return montoCentavos;
+    }
+
+    @Override
+    public String toString() {
+        return "Transaccion{" + tipo + ' ' + numeroCuenta + ' ' + Dinero.deCentavos(montoCentavos) + '}';
+    }
+}
@@ -0,0 +1,128 @@
+package com.mibanco.servicios;
+
+import com.mibanco.servicios.LimitesVelocidad.Ventana;
+
+/**
+ * Contadores deslizantes de una clave (una cuenta o un cliente) para {@link EvaluadorVelocidad}: número de
+ * operaciones y monto acumulado en cada {@link Ventana}. Cada ventana es un anillo de cubetas con sus totales
+ * precalculados; al avanzar el reloj se vacían las cubetas que salen de la ventana y se descuentan de los totales,
+ * así que consultar y registrar cuestan lo mismo sin importar cuántas operaciones haya en la ventana.
+ * <p>
+ * Todo el estado vive en un solo arreglo de {@code long} de tamaño fijo, con las cabeceras de las ventanas juntas al
+ * principio para que una evaluación toque pocas líneas de caché. No es seguro para hilos: quien lo usa lo protege
+ * con su monitor.
+ */
+final class VentanasVelocidad {
+
+    private static final Ventana[] VENTANAS = Ventana.values();
+    private static final long[] ANCHOS = new long[VENTANAS.length];
+    private static final int[] PRIMERA_CUBETA = new int[VENTANAS.length];
+    private static final int TAMANO;
+
+    // datos[0] es el instante en que empieza la siguiente cubeta de la ventana más fina: antes de él ninguna ventana
+    // tiene que avanzar, porque el ancho de cada cubeta es múltiplo del de la anterior. Luego, por ventana, una
+    // cabecera [marca, posición de la cubeta actual, conteo total, suma total], donde la marca es el número de la
+    // cubeta actual desde la época; y al final las cubetas [conteo, suma] de cada ventana.
+    private static final int PROXIMO_CAMBIO = 0;
+    private static final int CABECERA = 4;
+    private static final int MARCA = 1;
+    private static final int ACTUAL = 2;
+    private static final int CONTEO = 3;
+    private static final int SUMA = 4;
+
+    static {
+        int posicion = 1 + CABECERA * VENTANAS.length;
+        for (Ventana ventana : VENTANAS) {
+            int v = ventana.ordinal();
+            ANCHOS[v] = ventana.getDuracionMillis() / ventana.getCubetas();
+            if (v > 0 && ANCHOS[v] % ANCHOS[v - 1] != 0) {
+                throw new ExceptionInInitializerError("El ancho de cubeta de cada ventana debe ser múltiplo del anterior.");
+            }
+            PRIMERA_CUBETA[v] = posicion;
+            posicion += 2 * ventana.getCubetas();
+        }
+        TAMANO = posicion;
+    }
+
+    private final long[] datos = new long[TAMANO];
+
+    VentanasVelocidad() {
+        for (int v = 0; v < VENTANAS.length; v++) {
+            datos[CABECERA * v + ACTUAL] = PRIMERA_CUBETA[v];
+        }
+    }
+
+    /**
+     * @return Bytes que ocupan los contadores de una clave, sin contar la cabecera del arreglo.
+     */
+    static int bytesPorClave() {
+        return TAMANO * Long.BYTES;
+    }
+
+    /**
+     * Lleva todas las ventanas al instante indicado. Un instante anterior al último visto no retrocede las ventanas.
+     */
+    void avanzar(long ahoraMillis) {
+        if (ahoraMillis < datos[PROXIMO_CAMBIO]) {
+            return;
+        }
+        for (int v = 0; v < VENTANAS.length; v++) {
+            int cabecera = CABECERA * v;
+            int cubetas = VENTANAS[v].getCubetas();
+            long marca = ahoraMillis / ANCHOS[v];
+            long anterior = datos[cabecera + MARCA];
+            if (marca <= anterior) {
+                break;
+            }
+            long vencidas = Math.min(marca - anterior, cubetas);
+            for (long k = 1; k <= vencidas; k++) {
+                int cubeta = PRIMERA_CUBETA[v] + 2 * (int) ((anterior + k) % cubetas);
+                datos[cabecera + CONTEO] -= datos[cubeta];
+                datos[cabecera + SUMA] -= datos[cubeta + 1];
+                datos[cubeta] = 0;
+                datos[cubeta + 1] = 0;
+            }
+            datos[cabecera + MARCA] = marca;
+            datos[cabecera + ACTUAL] = PRIMERA_CUBETA[v] + 2 * (int) (marca % cubetas);
+        }
+        datos[PROXIMO_CAMBIO] = (ahoraMillis / ANCHOS[0] + 1) * ANCHOS[0];
+    }
+
+    /**
+     * @return true si una operación más, por el monto indicado, supera algún máximo. Requiere haber avanzado al
+     * instante actual.
+     */
+    boolean excede(LimitesVelocidad limites, long montoCentavos) {
+        for (int v = 0; v < VENTANAS.length; v++) {
+            int cabecera = CABECERA * v;
+            // Se compara sin sumar al acumulado, para que un máximo de Long.MAX_VALUE no desborde.
+            if (datos[cabecera + CONTEO] >= limites.maximoOperaciones(v)
+                    || datos[cabecera + SUMA] > limites.maximoMontoCentavos(v) - montoCentavos) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cuenta una operación en la cubeta actual de cada ventana. Requiere haber avanzado al instante actual.
+     */
+    void registrar(long montoCentavos) {
+        for (int v = 0; v < VENTANAS.length; v++) {
+            int cabecera = CABECERA * v;
+            int cubeta = (int) datos[cabecera + ACTUAL];
+            datos[cubeta]++;
+            datos[cubeta + 1] += montoCentavos;
+            datos[cabecera + CONTEO]++;
+            datos[cabecera + SUMA] += montoCentavos;
+        }
+    }
+
+    long getConteo(Ventana ventana) {
+        return datos[CABECERA * ventana.ordinal() + CONTEO];
+    }
+
+    long getSuma(Ventana ventana) {
+        return datos[CABECERA * ventana.ordinal() + SUMA];
+    }
+}
@@ -0,0 +1,191 @@
+package com.mibanco.servidor;
+
+import com.mibanco.model.Dinero;
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.model.TarjetaCredito;
+import com.mibanco.riesgo.RechazoPorRiesgoException;
+import com.mibanco.servicios.MotorAutorizaciones;
+import com.mibanco.servicios.MotorTransferencias;
+import com.mibanco.servicios.ResultadoAutorizacion;
+
+import java.math.RoundingMode;
+import java.util.Map;
+
+/**
+ * Interpreta y ejecuta una línea del protocolo de {@link ServidorBancario}, escribiendo la respuesta en un
+ * {@link StringBuilder}. No guarda estado por conexión, así que una instancia se comparte entre todos los hilos
+ * de atención.
+ */
+final class ProcesadorComandos {
+
+    private static final String FONDOS_INSUFICIENTES = "FONDOS_INSUFICIENTES";
+    private static final String RECHAZADA_POR_RIESGO = "RECHAZADA_POR_RIESGO";
+
+    private final Map<String, ProductoFinanciero> cuentas;
+    private final MotorTransferencias transferencias;
+    private final MotorAutorizaciones autorizaciones;
+
+    ProcesadorComandos(Map<String, ProductoFinanciero> cuentas, MotorTransferencias transferencias,
+                       MotorAutorizaciones autorizaciones) {
+        this.cuentas = cuentas;
+        this.transferencias = transferencias;
+        this.autorizaciones = autorizaciones;
+    }
+
+    /**
+     * Ejecuta un comando.
+     *
+     * @param linea Línea recibida, sin el salto de línea.
+     * @param respuesta Destino de la respuesta, que termina en salto de línea.
+     * @return false si el cliente pidió cerrar la sesión.
+     */
+    boolean ejecutar(String linea, StringBuilder respuesta) {
+        try {
+            String[] partes = separar(linea);
+            switch (partes[0]) {
+                case "S":
+                    argumentos(partes, 2);
+                    ok(respuesta, cuenta(partes[1]).getSaldoCentavos());
+                    break;
+                case "D": {
+                    argumentos(partes, 3);
+                    ProductoFinanciero cuenta = cuenta(partes[1]);
+                    cuenta.depositar(monto(partes[2]));
+                    ok(respuesta, cuenta.getSaldoCentavos());
+                    break;
+                }
+                case "R": {
+                    argumentos(partes, 3);
+                    ProductoFinanciero cuenta = cuenta(partes[1]);
+                    String rechazo = retirar(cuenta, monto(partes[2]));
+                    if (rechazo == null) {
+                        ok(respuesta, cuenta.getSaldoCentavos());
+                    } else {
+                        respuesta.append("NO ").append(rechazo).append('\n');
+                    }
+                    break;
+                }
+                case "T": {
+                    argumentos(partes, 4);
+                    ProductoFinanciero origen = cuenta(partes[1]);
+                    try {
+                        if (transferencias.intentarTransferir(origen, cuenta(partes[2]), monto(partes[3]))) {
+                            ok(respuesta, origen.getSaldoCentavos());
+                        } else {
+                            respuesta.append("NO ").append(FONDOS_INSUFICIENTES).append('\n');
+                        }
+                    } catch (RechazoPorRiesgoException e) {
+                        respuesta.append("NO ").append(RECHAZADA_POR_RIESGO).append('\n');
+                    }
+                    break;
+                }
+                case "C": {
+                    argumentos(partes, 3);
+                    ProductoFinanciero producto = cuenta(partes[1]);
+                    if (!(producto instanceof TarjetaCredito)) {
+                        throw new IllegalArgumentException("La cuenta " + partes[1] + " no es una tarjeta de crédito.");
+                    }
+                    TarjetaCredito tarjeta = (TarjetaCredito) producto;
+                    ResultadoAutorizacion resultado = autorizaciones.autorizarCompra(tarjeta, monto(partes[2]));
+                    if (resultado.isAprobada()) {
+                        ok(respuesta, tarjeta.getDisponibleCentavos());
+                    } else {
+                        respuesta.append("NO ").append(resultado.getMotivo()).append('\n');
+                    }
+                    break;
+                }
+                case "Q":
+                    respuesta.append("BYE\n");
+                    return false;
+                default:
+                    throw new IllegalArgumentException("Comando desconocido: " + partes[0]);
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            respuesta.append("ERR ").append(e.getMessage()).append('\n');
+        } catch (RuntimeException e) {
+            // Cualquier otro fallo, como un desbordamiento aritmético, se responde como error del comando: si
+            // escapara, terminaría el bucle de selección y con él todas las sesiones que atiende.
+            respuesta.append("ERR Error interno: ").append(e).append('\n');
+        }
+        return true;
+    }
+
+    /**
+     * Separa la línea por espacios sin usar expresiones regulares, que {@code String.split} compilaría en cada
+     * llamada para separadores de más de un carácter.
+     */
+    private static String[] separar(String linea) {
+        String[] partes = new String[4];
+        int cantidad = 0;
+        int i = 0;
+        int longitud = linea.length();
+        while (i < longitud) {
+            while (i < longitud && linea.charAt(i) == ' ') {
+                i++;
+            }
+            if (i == longitud) {
+                break;
+            }
+            int fin = linea.indexOf(' ', i);
+            if (fin < 0) {
+                fin = longitud;
+            }
+            if (cantidad == partes.length) {
+                throw new IllegalArgumentException("Demasiados argumentos.");
+            }
+            partes[cantidad++] = linea.substring(i, fin);
+            i = fin;
+        }
+        if (cantidad == 0) {
+            throw new IllegalArgumentException("Línea vacía.");
+        }
+        String[] resultado = new String[cantidad];
+        System.arraycopy(partes, 0, resultado, 0, cantidad);
+        return resultado;
+    }
+
+    /**
+     * @return null si el retiro se aplicó, o el motivo del rechazo.
+     */
+    private static String retirar(ProductoFinanciero cuenta, Dinero monto) {
+        try {
+            return cuenta.retirar(monto) ? null : FONDOS_INSUFICIENTES;
+        } catch (RechazoPorRiesgoException e) {
+            return RECHAZADA_POR_RIESGO;
+        } catch (IllegalStateException e) {
+            return FONDOS_INSUFICIENTES;
+        }
+    }
+
+    private ProductoFinanciero cuenta(String numeroCuenta) {
+        ProductoFinanciero cuenta = cuentas.get(numeroCuenta);
+        if (cuenta == null) {
+            throw new IllegalArgumentException("Cuenta inexistente: " + numeroCuenta);
+        }
+        return cuenta;
+    }
+
+    private static void argumentos(String[] partes, int esperados) {
+        if (partes.length != esperados) {
+            throw new IllegalArgumentException("El comando " + partes[0] + " requiere " + (esperados - 1) + " argumentos.");
+        }
+    }
+
+    /**
+     * Interpreta el monto en punto fijo; las fracciones de centavo se redondean al par más cercano.
+     */
+    private static Dinero monto(String texto) {
+        try {
+            return Dinero.de(texto, RoundingMode.HALF_EVEN);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Monto inválido: " + texto);
+        }
+    }
+
+    /**
+     * Escribe {@code OK} seguido de un valor en centavos con dos decimales, sin pasar por {@code BigDecimal}.
+     */
+    private static void ok(StringBuilder respuesta, long centavos) {
+        Dinero.formatear(centavos, respuesta.append("OK ")).append('\n');
+    }
+}
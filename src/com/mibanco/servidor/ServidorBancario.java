@@ -0,0 +1,326 @@
+package com.mibanco.servidor;
+
+import com.mibanco.model.ProductoFinanciero;
+import com.mibanco.servicios.MotorAutorizaciones;
+import com.mibanco.servicios.MotorTransferencias;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servidor TCP que atiende operaciones sobre un conjunto de cuentas con un protocolo de texto por líneas.
+ * <p>
+ * Cada solicitud es una línea con un comando de una letra y sus argumentos separados por espacios:
+ * <ul>
+ *     <li>{@code S cuenta}: consulta el saldo.</li>
+ *     <li>{@code D cuenta monto}: deposita.</li>
+ *     <li>{@code R cuenta monto}: retira.</li>
+ *     <li>{@code T origen destino monto}: transfiere con {@link MotorTransferencias}.</li>
+ *     <li>{@code C tarjeta monto}: autoriza una compra con {@link MotorAutorizaciones}.</li>
+ *     <li>{@code Q}: cierra la sesión.</li>
+ * </ul>
+ * Cada solicitud recibe exactamente una línea de respuesta: {@code OK valor} (saldo resultante, o crédito
+ * disponible en las compras), {@code NO motivo} si la operación fue rechazada, o {@code ERR mensaje} si la
+ * solicitud es inválida. Un cliente puede enviar varias solicitudes sin esperar respuesta; se responden en orden.
+ * <p>
+ * Las conexiones no usan un hilo cada una: un número fijo de bucles de eventos, cada uno con su
+ * {@link Selector}, multiplexa todas las conexiones con E/S no bloqueante, de modo que decenas de miles de
+ * sesiones concurrentes caben en pocos hilos. Las operaciones sobre las cuentas no bloquean (o solo toman por
+ * un instante los locks de {@link MotorTransferencias}), así que se ejecutan directamente en el bucle.
+ */
+public class ServidorBancario implements AutoCloseable {
+
+    private static final int LONGITUD_MAXIMA_LINEA = 1_024;
+
+    private final ProcesadorComandos procesador;
+    private final Bucle[] bucles;
+    private final AtomicInteger conexionesActivas = new AtomicInteger();
+    private final LongAdder solicitudesAtendidas = new LongAdder();
+    private ServerSocketChannel servidor;
+    private volatile boolean abierto;
+
+    /**
+     * Crea un servidor con un bucle de eventos por procesador.
+     *
+     * @param cuentas Cuentas accesibles, indexadas por número de cuenta; debe admitir lecturas concurrentes.
+     */
+    public ServidorBancario(Map<String, ProductoFinanciero> cuentas) {
+        this(cuentas, new MotorTransferencias(), new MotorAutorizaciones(15, TimeUnit.MINUTES),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Crea un servidor.
+     *
+     * @param cuentas Cuentas accesibles, indexadas por número de cuenta; debe admitir lecturas concurrentes.
+     * @param transferencias Motor con el que se ejecutan las transferencias.
+     * @param autorizaciones Motor con el que se autorizan las compras.
+     * @param hilos Número de bucles de eventos.
+     */
+    public ServidorBancario(Map<String, ProductoFinanciero> cuentas, MotorTransferencias transferencias,
+                            MotorAutorizaciones autorizaciones, int hilos) {
+        if (hilos <= 0) {
+            throw new IllegalArgumentException("El número de hilos debe ser positivo.");
+        }
+        this.procesador = new ProcesadorComandos(Objects.requireNonNull(cuentas, "Las cuentas no pueden ser nulas."),
+                Objects.requireNonNull(transferencias, "El motor de transferencias no puede ser nulo."),
+                Objects.requireNonNull(autorizaciones, "El motor de autorizaciones no puede ser nulo."));
+        this.bucles = new Bucle[hilos];
+    }
+
+    /**
+     * Abre el puerto y arranca los bucles de eventos.
+     *
+     * @param direccion Dirección de escucha; el puerto 0 elige uno libre.
+     * @return El puerto en el que escucha el servidor.
+     */
+    public synchronized int iniciar(InetSocketAddress direccion) throws IOException {
+        if (abierto) {
+            throw new IllegalStateException("El servidor ya está iniciado.");
+        }
+        servidor = ServerSocketChannel.open();
+        servidor.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        servidor.bind(direccion, 4_096);
+        servidor.configureBlocking(false);
+        abierto = true;
+        for (int i = 0; i < bucles.length; i++) {
+            bucles[i] = new Bucle(Selector.open());
+        }
+        servidor.register(bucles[0].selector, SelectionKey.OP_ACCEPT);
+        for (int i = 0; i < bucles.length; i++) {
+            Thread hilo = new Thread(bucles[i], "servidor-bancario-" + i);
+            hilo.setDaemon(true);
+            bucles[i].hilo = hilo;
+            hilo.start();
+        }
+        return ((InetSocketAddress) servidor.getLocalAddress()).getPort();
+    }
+
+    public int getConexionesActivas() {
+        return conexionesActivas.get();
+    }
+
+    public long getSolicitudesAtendidas() {
+        return solicitudesAtendidas.sum();
+    }
+
+    /**
+     * Deja de aceptar conexiones, cierra las abiertas y espera a que terminen los bucles de eventos.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!abierto) {
+            return;
+        }
+        abierto = false;
+        servidor.close();
+        for (Bucle bucle : bucles) {
+            bucle.selector.wakeup();
+        }
+        for (Bucle bucle : bucles) {
+            try {
+                bucle.hilo.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Estado de una conexión. Solo lo toca el bucle al que pertenece.
+     */
+    private static final class Sesion {
+        final SocketChannel canal;
+        final ByteBuffer entrada = ByteBuffer.allocate(LONGITUD_MAXIMA_LINEA);
+        ByteBuffer salida = ByteBuffer.allocate(256);
+        final StringBuilder respuesta = new StringBuilder();
+        boolean cerrarTrasEscribir;
+
+        Sesion(SocketChannel canal) {
+            this.canal = canal;
+            salida.flip();
+        }
+    }
+
+    private final class Bucle implements Runnable {
+        final Selector selector;
+        final Queue<SocketChannel> pendientes = new ConcurrentLinkedQueue<>();
+        Thread hilo;
+        int siguiente;
+
+        Bucle(Selector selector) {
+            this.selector = selector;
+        }
+
+        void asignar(SocketChannel canal) {
+            pendientes.add(canal);
+            if (Thread.currentThread() != hilo) {
+                selector.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (abierto) {
+                    selector.select();
+                    Iterator<SelectionKey> seleccionadas = selector.selectedKeys().iterator();
+                    while (seleccionadas.hasNext()) {
+                        SelectionKey clave = seleccionadas.next();
+                        seleccionadas.remove();
+                        atender(clave);
+                    }
+                    // Se registran después de atender, porque el propio bucle aceptador se asigna conexiones
+                    // sin despertar a su selector.
+                    SocketChannel nuevo;
+                    while ((nuevo = pendientes.poll()) != null) {
+                        nuevo.register(selector, SelectionKey.OP_READ, new Sesion(nuevo));
+                        conexionesActivas.incrementAndGet();
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error en el bucle del servidor: " + e.getMessage());
+            } finally {
+                for (SelectionKey clave : selector.keys()) {
+                    if (clave.attachment() instanceof Sesion) {
+                        cerrar(clave);
+                    }
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    // El bucle termina de todas formas.
+                }
+            }
+        }
+
+        private void atender(SelectionKey clave) {
+            if (!clave.isValid()) {
+                return;
+            }
+            try {
+                if (clave.isAcceptable()) {
+                    aceptar();
+                    return;
+                }
+                if (clave.isWritable()) {
+                    escribir(clave);
+                }
+                if (clave.isValid() && clave.isReadable()) {
+                    leer(clave);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Un fallo al atender una clave solo afecta a esa conexión, nunca al bucle.
+                if (clave.attachment() instanceof Sesion) {
+                    cerrar(clave);
+                } else {
+                    System.err.println("Error al aceptar conexiones: " + e);
+                }
+            }
+        }
+
+        private void aceptar() throws IOException {
+            SocketChannel canal;
+            while ((canal = servidor.accept()) != null) {
+                canal.configureBlocking(false);
+                canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                bucles[Math.floorMod(siguiente++, bucles.length)].asignar(canal);
+            }
+        }
+
+        private void leer(SelectionKey clave) throws IOException {
+            Sesion sesion = (Sesion) clave.attachment();
+            ByteBuffer entrada = sesion.entrada;
+            if (sesion.canal.read(entrada) < 0) {
+                cerrar(clave);
+                return;
+            }
+            entrada.flip();
+            byte[] datos = entrada.array();
+            int inicioLinea = entrada.position();
+            for (int i = inicioLinea; i < entrada.limit() && !sesion.cerrarTrasEscribir; i++) {
+                if (datos[i] == '\n') {
+                    int fin = i > inicioLinea && datos[i - 1] == '\r' ? i - 1 : i;
+                    String linea = new String(datos, inicioLinea, fin - inicioLinea, StandardCharsets.UTF_8);
+                    if (!procesador.ejecutar(linea, sesion.respuesta)) {
+                        sesion.cerrarTrasEscribir = true;
+                    }
+                    solicitudesAtendidas.increment();
+                    inicioLinea = i + 1;
+                }
+            }
+            entrada.position(inicioLinea);
+            entrada.compact();
+            if (!entrada.hasRemaining()) {
+                sesion.respuesta.append("ERR Línea demasiado larga.\n");
+                sesion.cerrarTrasEscribir = true;
+            }
+            if (sesion.respuesta.length() > 0) {
+                encolarRespuesta(sesion);
+                escribir(clave);
+            }
+        }
+
+        private void encolarRespuesta(Sesion sesion) {
+            byte[] bytes = sesion.respuesta.toString().getBytes(StandardCharsets.UTF_8);
+            sesion.respuesta.setLength(0);
+            ByteBuffer salida = sesion.salida;
+            salida.compact();
+            if (salida.remaining() < bytes.length) {
+                ByteBuffer mayor = ByteBuffer.allocate(Math.max(salida.capacity() * 2, salida.position() + bytes.length));
+                salida.flip();
+                mayor.put(salida);
+                salida = mayor;
+                sesion.salida = salida;
+            }
+            salida.put(bytes);
+            salida.flip();
+        }
+
+        /**
+         * Escribe lo pendiente. Mientras quede salida por enviar se deja de leer de la conexión, de modo que un
+         * cliente que no lee sus respuestas no puede hacer crecer el búfer del servidor sin límite.
+         */
+        private void escribir(SelectionKey clave) throws IOException {
+            Sesion sesion = (Sesion) clave.attachment();
+            sesion.canal.write(sesion.salida);
+            if (sesion.salida.hasRemaining()) {
+                clave.interestOps(SelectionKey.OP_WRITE);
+            } else if (sesion.cerrarTrasEscribir) {
+                cerrar(clave);
+            } else {
+                clave.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        private void cerrar(SelectionKey clave) {
+            clave.cancel();
+            SocketChannel canal = ((Sesion) clave.attachment()).canal;
+            if (!canal.isOpen()) {
+                return;
+            }
+            try {
+                canal.close();
+            } catch (IOException e) {
+                // La conexión ya no se usa.
+            }
+            conexionesActivas.decrementAndGet();
+        }
+    }
+}